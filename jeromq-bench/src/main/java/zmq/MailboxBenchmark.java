@@ -0,0 +1,105 @@
+package zmq;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+//  Commands sent by several threads to a single mailbox, as an I/O thread
+//  serving many sockets receives them. The number of commands in flight is
+//  bounded, so that the senders don't outrun the receiver.
+//  The thread safe mailbox is received from with the socket lock held.
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MailboxBenchmark
+{
+    //  The mailbox of the regular sockets, or the one of the thread safe sockets.
+    @Param({"mailbox", "safe"})
+    public String impl;
+
+    private Ctx           ctx;
+    private IMailbox      mailbox;
+    private ReentrantLock sync;
+    private Command       command;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        ctx = new Ctx();
+        if ("safe".equals(impl)) {
+            sync = new ReentrantLock();
+            mailbox = new MailboxSafe(ctx, sync, "bench");
+        }
+        else {
+            mailbox = new Mailbox(ctx, "bench", 0);
+        }
+        command = new Command(null, Command.Type.ACTIVATE_READ);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        mailbox.close();
+        ctx.terminate();
+    }
+
+    @Benchmark
+    @Group("fanIn")
+    @GroupThreads(3)
+    public boolean send()
+    {
+        if (inflight.get() >= 1024) {
+            return false;
+        }
+        inflight.incrementAndGet();
+        mailbox.send(command);
+        return true;
+    }
+
+    @Benchmark
+    @Group("fanIn")
+    @GroupThreads(1)
+    public Command recv()
+    {
+        //  Bounded wait, so that the receiver is not stuck when the senders stop
+        Command cmd;
+        if (sync != null) {
+            sync.lock();
+            try {
+                cmd = mailbox.recv(10);
+            }
+            finally {
+                sync.unlock();
+            }
+        }
+        else {
+            cmd = mailbox.recv(10);
+        }
+        if (cmd != null) {
+            inflight.decrementAndGet();
+        }
+        return cmd;
+    }
+}
@@ -0,0 +1,82 @@
+package zmq;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import zmq.msg.MsgAllocator;
+import zmq.msg.MsgAllocatorDirect;
+import zmq.msg.MsgAllocatorHeap;
+import zmq.msg.MsgAllocatorPooled;
+
+//  Cost of allocating the messages handed over by the decoders.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MsgBenchmark
+{
+    @Param({"16", "1024", "65536"})
+    public int size;
+
+    @Param({"heap", "direct", "pooled"})
+    public String allocator;
+
+    private MsgAllocator msgAllocator;
+    private byte[]       content;
+
+    @Setup
+    public void setup()
+    {
+        switch (allocator) {
+        case "heap":
+            msgAllocator = new MsgAllocatorHeap();
+            break;
+        case "direct":
+            msgAllocator = new MsgAllocatorDirect();
+            break;
+        case "pooled":
+            msgAllocator = new MsgAllocatorPooled();
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown allocator " + allocator);
+        }
+        content = new byte[size];
+    }
+
+    @Benchmark
+    public Msg allocate()
+    {
+        //  Released as a consumer would do, so that a pooled buffer gets reused
+        Msg msg = msgAllocator.allocate(size);
+        msg.release();
+        return msg;
+    }
+
+    @Benchmark
+    public Msg allocateAndFill()
+    {
+        Msg msg = msgAllocator.allocate(size);
+        msg.put(content);
+        msg.release();
+        return msg;
+    }
+
+    @Benchmark
+    public Msg wrap()
+    {
+        return new Msg(content);
+    }
+}
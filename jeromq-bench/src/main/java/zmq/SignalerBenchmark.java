@@ -0,0 +1,69 @@
+package zmq;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import zmq.util.Errno;
+
+//  Cost of a wake-up through the signaler, and of a command going through
+//  a mailbox, both paid for every activate_read/activate_write exchanged
+//  between the API and the I/O threads.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignalerBenchmark
+{
+    private Ctx      ctx;
+    private Signaler signaler;
+    private Mailbox  mailbox;
+    private Command  command;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        ctx = new Ctx();
+        signaler = new Signaler(ctx, 0, new Errno());
+        mailbox = new Mailbox(ctx, "bench", 0);
+        command = new Command(null, Command.Type.DONE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        signaler.close();
+        mailbox.close();
+        ctx.terminate();
+    }
+
+    @Benchmark
+    public boolean signalerRoundTrip()
+    {
+        signaler.send();
+        boolean rc = signaler.waitEvent(-1);
+        signaler.recv();
+        return rc;
+    }
+
+    @Benchmark
+    public Command mailboxRoundTrip()
+    {
+        mailbox.send(command);
+        return mailbox.recv(-1);
+    }
+}
@@ -0,0 +1,175 @@
+package zmq;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+//  End-to-end throughput (PUSH/PULL) and latency (REQ/REP) over the
+//  inproc, tcp and ipc transports. This is the JMH counterpart of the
+//  perf.LocalThr/RemoteThr and perf.LocalLat/InprocLat tools.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransportBenchmark
+{
+    private static final int BATCH = 100;
+
+    @State(Scope.Thread)
+    public static class Transport
+    {
+        @Param({"inproc", "tcp", "ipc"})
+        public String transport;
+
+        @Param({"16", "1024", "65536"})
+        public int size;
+
+        Ctx ctx;
+
+        String bind()
+        {
+            switch (transport) {
+            case "inproc":
+                return "inproc://bench-" + System.nanoTime();
+            case "tcp":
+                return "tcp://127.0.0.1:*";
+            case "ipc":
+                return "ipc://bench-" + System.nanoTime();
+            default:
+                throw new IllegalArgumentException("Unknown transport " + transport);
+            }
+        }
+
+        //  Binds the socket and returns the endpoint to connect to.
+        String bind(SocketBase socket)
+        {
+            boolean rc = ZMQ.bind(socket, bind());
+            assert (rc);
+            return (String) ZMQ.getSocketOptionExt(socket, ZMQ.ZMQ_LAST_ENDPOINT);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Throughput extends Transport
+    {
+        SocketBase push;
+        SocketBase pull;
+        Msg        msg;
+        Msg[]      batch;
+        Msg[]      received;
+
+        @Setup(Level.Trial)
+        public void setup()
+        {
+            ctx = ZMQ.createContext();
+            pull = ZMQ.socket(ctx, ZMQ.ZMQ_PULL);
+            push = ZMQ.socket(ctx, ZMQ.ZMQ_PUSH);
+            String endpoint = bind(pull);
+            boolean rc = ZMQ.connect(push, endpoint);
+            assert (rc);
+            msg = new Msg(size);
+            batch = new Msg[BATCH];
+            Arrays.fill(batch, msg);
+            received = new Msg[BATCH];
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown()
+        {
+            ZMQ.setSocketOption(push, ZMQ.ZMQ_LINGER, 0);
+            ZMQ.close(push);
+            ZMQ.close(pull);
+            ZMQ.term(ctx);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Latency extends Transport
+    {
+        SocketBase req;
+        Thread     echo;
+        Msg        msg;
+
+        @Setup(Level.Trial)
+        public void setup()
+        {
+            ctx = ZMQ.createContext();
+            req = ZMQ.socket(ctx, ZMQ.ZMQ_REQ);
+            SocketBase rep = ZMQ.socket(ctx, ZMQ.ZMQ_REP);
+            String endpoint = bind(rep);
+            echo = new Thread(() -> {
+                Msg received;
+                while ((received = ZMQ.recv(rep, 0)) != null) {
+                    if (ZMQ.send(rep, received, 0) < 0) {
+                        break;
+                    }
+                }
+                ZMQ.close(rep);
+            }, "bench-echo");
+            echo.start();
+            boolean rc = ZMQ.connect(req, endpoint);
+            assert (rc);
+            msg = new Msg(size);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws InterruptedException
+        {
+            ZMQ.setSocketOption(req, ZMQ.ZMQ_LINGER, 0);
+            ZMQ.close(req);
+            //  Terminating the context interrupts the echo thread.
+            ZMQ.term(ctx);
+            echo.join();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int pushPull(Throughput state)
+    {
+        for (int i = 0; i < BATCH; ++i) {
+            ZMQ.send(state.push, state.msg, 0);
+        }
+        int received = 0;
+        for (int i = 0; i < BATCH; ++i) {
+            received += ZMQ.recv(state.pull, 0).size();
+        }
+        return received;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int pushPullBatch(Throughput state)
+    {
+        state.push.sendBatch(state.batch, BATCH, 0);
+        int received = 0;
+        while (received < BATCH) {
+            received += state.pull.recvBatch(state.received, BATCH - received, 0);
+        }
+        return received;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Msg reqRep(Latency state)
+    {
+        ZMQ.send(state.req, state.msg, 0);
+        return ZMQ.recv(state.req, 0);
+    }
+}
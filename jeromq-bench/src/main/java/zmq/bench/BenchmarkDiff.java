@@ -0,0 +1,240 @@
+package zmq.bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares two JMH result files written with {@code -rf csv} and reports the
+ * benchmarks whose score moved by more than a given threshold.
+ * <p>
+ * Usage:
+ * <pre>
+ * java -jar jeromq-bench/target/benchmarks.jar -rf csv -rff baseline.csv
+ * # ... apply the change ...
+ * java -jar jeromq-bench/target/benchmarks.jar -rf csv -rff current.csv
+ * java -cp jeromq-bench/target/benchmarks.jar zmq.bench.BenchmarkDiff baseline.csv current.csv 5
+ * </pre>
+ * The process exits with status 1 when at least one regression was found,
+ * so it can be used as a gate before a release.
+ */
+public final class BenchmarkDiff
+{
+    static final double DEFAULT_THRESHOLD = 5.0;
+
+    static final class Result
+    {
+        final String key;
+        final String mode;
+        final double score;
+        final double error;
+        final String unit;
+
+        Result(String key, String mode, double score, double error, String unit)
+        {
+            this.key = key;
+            this.mode = mode;
+            this.score = score;
+            this.error = error;
+            this.unit = unit;
+        }
+
+        //  Only the throughput mode is "higher is better".
+        boolean higherIsBetter()
+        {
+            return "thrpt".equals(mode);
+        }
+    }
+
+    static final class Delta
+    {
+        final Result baseline;
+        final Result current;
+        //  Relative change of the score, in percent.
+        final double change;
+        final boolean regression;
+        final boolean improvement;
+
+        Delta(Result baseline, Result current, double threshold)
+        {
+            this.baseline = baseline;
+            this.current = current;
+            this.change = baseline.score == 0 ? 0 : (current.score - baseline.score) * 100 / baseline.score;
+            //  A move within the error margins of both runs is noise.
+            boolean significant = Math.abs(current.score - baseline.score) > nan(baseline.error) + nan(current.error)
+                    && Math.abs(change) > threshold;
+            boolean better = baseline.higherIsBetter() ? change > 0 : change < 0;
+            this.regression = significant && !better;
+            this.improvement = significant && better;
+        }
+
+        private static double nan(double value)
+        {
+            return Double.isNaN(value) ? 0 : value;
+        }
+    }
+
+    private BenchmarkDiff()
+    {
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("usage: BenchmarkDiff <baseline.csv> <current.csv> [threshold-percent]");
+            System.exit(2);
+        }
+        double threshold = args.length == 3 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+        Map<String, Result> baseline;
+        Map<String, Result> current;
+        try (Reader reader = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            baseline = parse(reader);
+        }
+        try (Reader reader = Files.newBufferedReader(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+            current = parse(reader);
+        }
+        List<Delta> deltas = compare(baseline, current, threshold);
+        int regressions = report(deltas, threshold, System.out);
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+
+    //  Parses a JMH csv result file. The key of each result is made of the
+    //  benchmark name, its mode and the values of its parameters.
+    static Map<String, Result> parse(Reader input) throws IOException
+    {
+        Map<String, Result> results = new LinkedHashMap<>();
+        BufferedReader reader = new BufferedReader(input);
+        String line = reader.readLine();
+        if (line == null) {
+            return results;
+        }
+        List<String> header = split(line);
+        int benchmark = header.indexOf("Benchmark");
+        int mode = header.indexOf("Mode");
+        int score = header.indexOf("Score");
+        int unit = header.indexOf("Unit");
+        int error = -1;
+        for (int idx = 0; idx < header.size(); ++idx) {
+            if (header.get(idx).startsWith("Score Error")) {
+                error = idx;
+            }
+        }
+        if (benchmark < 0 || mode < 0 || score < 0 || unit < 0) {
+            throw new IOException("Not a JMH csv result file, header is " + line);
+        }
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            List<String> values = split(line);
+            StringBuilder key = new StringBuilder(values.get(benchmark)).append(" [").append(values.get(mode));
+            for (int idx = 0; idx < header.size(); ++idx) {
+                String name = header.get(idx);
+                if (name.startsWith("Param: ") && idx < values.size() && !values.get(idx).isEmpty()) {
+                    key.append(", ").append(name.substring(7)).append('=').append(values.get(idx));
+                }
+            }
+            key.append(']');
+            Result result = new Result(
+                    key.toString(),
+                    values.get(mode),
+                    parseDouble(values.get(score)),
+                    error < 0 ? Double.NaN : parseDouble(values.get(error)),
+                    values.get(unit));
+            results.put(result.key, result);
+        }
+        return results;
+    }
+
+    static List<Delta> compare(Map<String, Result> baseline, Map<String, Result> current, double threshold)
+    {
+        List<Delta> deltas = new ArrayList<>();
+        for (Result result : current.values()) {
+            Result previous = baseline.get(result.key);
+            if (previous != null && previous.unit.equals(result.unit)) {
+                deltas.add(new Delta(previous, result, threshold));
+            }
+        }
+        return deltas;
+    }
+
+    //  Prints the comparison and returns the number of regressions.
+    static int report(List<Delta> deltas, double threshold, PrintStream out)
+    {
+        int regressions = 0;
+        int width = 10;
+        for (Delta delta : deltas) {
+            width = Math.max(width, delta.current.key.length());
+        }
+        String format = "%-" + width + "s %14s %14s %9s %-10s %s%n";
+        out.printf(Locale.ROOT, format, "Benchmark", "Baseline", "Current", "Change", "Unit", "");
+        for (Delta delta : deltas) {
+            String verdict = "";
+            if (delta.regression) {
+                verdict = "REGRESSION";
+                regressions++;
+            }
+            else if (delta.improvement) {
+                verdict = "improved";
+            }
+            out.printf(
+                    Locale.ROOT,
+                    format,
+                    delta.current.key,
+                    String.format(Locale.ROOT, "%.3f", delta.baseline.score),
+                    String.format(Locale.ROOT, "%.3f", delta.current.score),
+                    String.format(Locale.ROOT, "%+.1f%%", delta.change),
+                    delta.current.unit,
+                    verdict);
+        }
+        out.printf(Locale.ROOT, "%d benchmark(s) compared, %d regression(s) above %.1f%%%n", deltas.size(), regressions, threshold);
+        return regressions;
+    }
+
+    private static double parseDouble(String value)
+    {
+        if (value.isEmpty() || "NaN".equals(value)) {
+            return Double.NaN;
+        }
+        //  Some locales use a comma as decimal separator
+        return Double.parseDouble(value.replace(',', '.'));
+    }
+
+    //  Splits a csv line, honoring double-quoted values.
+    private static List<String> split(String line)
+    {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int idx = 0; idx < line.length(); ++idx) {
+            char c = line.charAt(idx);
+            if (c == '"') {
+                if (quoted && idx + 1 < line.length() && line.charAt(idx + 1) == '"') {
+                    value.append(c);
+                    idx++;
+                }
+                else {
+                    quoted = !quoted;
+                }
+            }
+            else if (c == ',' && !quoted) {
+                values.add(value.toString());
+                value.setLength(0);
+            }
+            else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
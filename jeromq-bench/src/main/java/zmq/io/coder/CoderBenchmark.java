@@ -0,0 +1,150 @@
+package zmq.io.coder;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import zmq.Config;
+import zmq.Msg;
+import zmq.io.coder.IDecoder.Step;
+import zmq.io.coder.v2.V2Decoder;
+import zmq.io.coder.v2.V2Encoder;
+import zmq.msg.MsgAllocatorThreshold;
+import zmq.util.Errno;
+import zmq.util.ValueReference;
+
+//  Encoding and decoding of ZMTP/2 frames, driven the same way the
+//  StreamEngine drives them: batches of OUT_BATCH_SIZE on output and
+//  reads of at most IN_BATCH_SIZE on input.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoderBenchmark
+{
+    private static final int MESSAGES = 1000;
+
+    @Param({"16", "256", "4096", "65536"})
+    public int size;
+
+    private Msg[]      msgs;
+    private V2Encoder  encoder;
+    private V2Decoder  decoder;
+    private V2Decoder  slicer;
+    private ByteBuffer wire;
+    private ValueReference<ByteBuffer> outpos;
+    private ValueReference<Integer>    processed;
+
+    @Setup
+    public void setup()
+    {
+        msgs = new Msg[MESSAGES];
+        for (int i = 0; i < MESSAGES; ++i) {
+            msgs[i] = new Msg(size);
+        }
+        Errno errno = new Errno();
+        encoder = new V2Encoder(errno, Config.OUT_BATCH_SIZE.getValue());
+        decoder = new V2Decoder(errno, Config.IN_BATCH_SIZE.getValue(), -1, new MsgAllocatorThreshold());
+        slicer = new V2Decoder(errno, Config.IN_BATCH_SIZE.getValue(), -1, new MsgAllocatorThreshold(), true);
+        outpos = new ValueReference<>();
+        processed = new ValueReference<>(0);
+
+        //  Pre-encode the frames that will be fed to the decoder.
+        wire = ByteBuffer.allocate(MESSAGES * (size + 9));
+        encode(wire::put);
+        wire.flip();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void encode(Blackhole bh)
+    {
+        encode(buffer -> {
+            //  Emulate a socket write of the whole batch.
+            bh.consume(buffer);
+            buffer.position(buffer.limit());
+        });
+    }
+
+    private void encode(Consumer<ByteBuffer> sink)
+    {
+        int batchSize = Config.OUT_BATCH_SIZE.getValue();
+        int next = 0;
+        while (true) {
+            outpos.set(null);
+            int outsize = encoder.encode(outpos, 0);
+            while (outsize < batchSize && next < MESSAGES) {
+                encoder.loadMsg(msgs[next++]);
+                outsize += encoder.encode(outpos, batchSize - outsize);
+            }
+            if (outsize == 0) {
+                break;
+            }
+            encoder.encoded();
+            sink.accept(outpos.get());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public int decode(Blackhole bh)
+    {
+        return decode(decoder, bh);
+    }
+
+    //  The messages are released once consumed, so the receive buffer is reused.
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public int decodeSliced(Blackhole bh)
+    {
+        return decode(slicer, bh);
+    }
+
+    private int decode(V2Decoder decoder, Blackhole bh)
+    {
+        ByteBuffer in = wire.duplicate();
+        int decoded = 0;
+        while (in.hasRemaining()) {
+            //  Emulate a socket read into the buffer proposed by the decoder.
+            ByteBuffer buffer = decoder.getBuffer();
+            int limit = in.limit();
+            int read = Math.min(buffer.remaining(), in.remaining());
+            in.limit(in.position() + read);
+            buffer.put(in);
+            in.limit(limit);
+            buffer.flip();
+
+            int insize = read;
+            while (insize > 0) {
+                Step.Result result = decoder.decode(buffer, insize, processed);
+                insize -= processed.get();
+                if (result == Step.Result.MORE_DATA) {
+                    break;
+                }
+                assert (result == Step.Result.DECODED);
+                Msg msg = decoder.msg();
+                bh.consume(msg);
+                msg.release();
+                decoded++;
+            }
+        }
+        assert (decoded == MESSAGES);
+        return decoded;
+    }
+}
@@ -0,0 +1,145 @@
+package zmq.io.mechanism.curve;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import zmq.Msg;
+import zmq.ZMQ;
+import zmq.util.Wire;
+
+//  Boxing and unboxing of the CURVE messages, with a buffer per step as
+//  it used to be done against the reused buffers of CurveMessage,
+//  for each crypto provider.
+//  Run it with -prof gc to compare the allocation rates.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CurveBenchmark
+{
+    @Param({"16", "1024", "65536"})
+    public int size;
+
+    @Param({"jdk", "jnacl"})
+    public String provider;
+
+    private Curve        cryptoBox;
+    private byte[]       precom;
+    private CurveMessage client;
+    private CurveMessage server;
+    private Msg          msg;
+    private byte[]       wire;
+    private long         nonce;
+
+    @Setup
+    public void setup()
+    {
+        cryptoBox = new Curve("jdk".equals(provider) ? new JdkCurveProvider() : new JnaclCurveProvider());
+        byte[][] clientKeys = cryptoBox.keypair();
+        byte[][] serverKeys = cryptoBox.keypair();
+        precom = new byte[Curve.Size.BEFORENM.bytes()];
+        cryptoBox.beforenm(precom, serverKeys[0], clientKeys[1]);
+
+        client = new CurveMessage(cryptoBox, "CurveZMQMESSAGEC", "CurveZMQMESSAGES");
+        server = new CurveMessage(cryptoBox, "CurveZMQMESSAGES", "CurveZMQMESSAGEC");
+        msg = new Msg(size);
+        wire = client.encode(msg, 1, precom).data();
+    }
+
+    @Benchmark
+    public Msg encodeCopying()
+    {
+        byte flags = 0;
+        if (msg.hasMore()) {
+            flags |= 0x01;
+        }
+        if (msg.isCommand()) {
+            flags |= 0x02;
+        }
+
+        ByteBuffer messageNonce = ByteBuffer.allocate(Curve.Size.NONCE.bytes());
+        messageNonce.put("CurveZMQMESSAGEC".getBytes(ZMQ.CHARSET));
+        Wire.putUInt64(messageNonce, ++nonce);
+
+        int mlen = Curve.Size.ZERO.bytes() + 1 + msg.size();
+
+        ByteBuffer messagePlaintext = ByteBuffer.allocate(mlen);
+        messagePlaintext.put(Curve.Size.ZERO.bytes(), flags);
+        messagePlaintext.position(Curve.Size.ZERO.bytes() + 1);
+        msg.transfer(messagePlaintext, 0, msg.size());
+
+        ByteBuffer messageBox = ByteBuffer.allocate(mlen);
+
+        int rc = cryptoBox.afternm(messageBox, messagePlaintext, mlen, messageNonce, precom);
+        assert (rc == 0);
+
+        Msg encoded = new Msg(16 + mlen - Curve.Size.BOXZERO.bytes());
+        encoded.putShortString("MESSAGE");
+        encoded.put(messageNonce, 16, 8);
+        encoded.put(messageBox, Curve.Size.BOXZERO.bytes(), mlen - Curve.Size.BOXZERO.bytes());
+        return encoded;
+    }
+
+    @Benchmark
+    public Msg encodeReusing()
+    {
+        return client.encode(msg, ++nonce, precom);
+    }
+
+    //  Both decodings start from a message of their own, as handed by the decoder.
+    @Benchmark
+    public Msg decodeCopying()
+    {
+        Msg msg = new Msg(wire.clone());
+
+        ByteBuffer messageNonce = ByteBuffer.allocate(Curve.Size.NONCE.bytes());
+        messageNonce.put("CurveZMQMESSAGEC".getBytes(ZMQ.CHARSET));
+        msg.transfer(messageNonce, 8, 8);
+
+        int clen = Curve.Size.BOXZERO.bytes() + msg.size() - 16;
+
+        ByteBuffer messagePlaintext = ByteBuffer.allocate(clen);
+        ByteBuffer messageBox = ByteBuffer.allocate(clen);
+
+        messageBox.position(Curve.Size.BOXZERO.bytes());
+        msg.transfer(messageBox, 16, msg.size() - 16);
+
+        int rc = cryptoBox.openAfternm(messagePlaintext, messageBox, clen, messageNonce, precom);
+        assert (rc == 0);
+        Msg decoded = new Msg(clen - 1 - Curve.Size.ZERO.bytes());
+
+        byte flags = messagePlaintext.get(Curve.Size.ZERO.bytes());
+        if ((flags & 0x01) != 0) {
+            decoded.setFlags(Msg.MORE);
+        }
+        if ((flags & 0x02) != 0) {
+            decoded.setFlags(Msg.COMMAND);
+        }
+
+        messagePlaintext.position(Curve.Size.ZERO.bytes() + 1);
+        decoded.put(messagePlaintext);
+        return decoded;
+    }
+
+    @Benchmark
+    public Msg decodeReusing()
+    {
+        Msg decoded = server.decode(new Msg(wire.clone()), precom);
+        assert (decoded != null);
+        return decoded;
+    }
+}
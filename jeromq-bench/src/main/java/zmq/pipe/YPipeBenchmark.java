@@ -0,0 +1,108 @@
+package zmq.pipe;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import zmq.Config;
+import zmq.Msg;
+
+//  Single threaded write/flush/read cycles on the lock-free pipe used
+//  between the sockets and the sessions.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class YPipeBenchmark
+{
+    private static final int BATCH = 1000;
+
+    //  Number of messages written before each flush.
+    @Param({"1", "10", "100"})
+    public int flushEvery;
+
+    //  The chunked pipe, or the ring buffer sized for the default HWM.
+    @Param({"ypipe", "ring"})
+    public String impl;
+
+    private YPipeBase<Msg> pipe;
+    private Msg            msg;
+    private Msg[]          batch;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        if ("ring".equals(impl)) {
+            pipe = new YPipeRing<>(YPipeRing.capacity(1000));
+        }
+        else {
+            pipe = new YPipe<>(Config.MESSAGE_PIPE_GRANULARITY.getValue());
+        }
+        msg = new Msg(16);
+        batch = new Msg[100];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void writeFlushRead(Blackhole bh)
+    {
+        for (int i = 0; i < BATCH; i += flushEvery) {
+            for (int j = 0; j < flushEvery; ++j) {
+                pipe.write(msg, false);
+            }
+            bh.consume(pipe.flush());
+            for (int j = 0; j < flushEvery; ++j) {
+                bh.consume(pipe.read());
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void writeAllThenRead(Blackhole bh)
+    {
+        for (int i = 0; i < BATCH; ++i) {
+            pipe.write(msg, false);
+            if (i % flushEvery == 0) {
+                bh.consume(pipe.flush());
+            }
+        }
+        bh.consume(pipe.flush());
+        Msg read;
+        while ((read = pipe.read()) != null) {
+            bh.consume(read);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void writeAllThenReadBatch(Blackhole bh)
+    {
+        for (int i = 0; i < BATCH; ++i) {
+            pipe.write(msg, false);
+            if (i % flushEvery == 0) {
+                bh.consume(pipe.flush());
+            }
+        }
+        bh.consume(pipe.flush());
+        int count;
+        while ((count = pipe.read(batch, 0, batch.length)) > 0) {
+            bh.consume(count);
+        }
+    }
+}
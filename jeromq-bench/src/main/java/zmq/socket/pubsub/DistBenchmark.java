@@ -0,0 +1,87 @@
+package zmq.socket.pubsub;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import zmq.Msg;
+import zmq.ZObject;
+import zmq.pipe.Pipe;
+
+//  Fan-out of one message to the matching pipes of a PUB socket.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistBenchmark
+{
+    @Param({"1", "16", "256"})
+    public int pipes;
+
+    private Dist   dist;
+    private Pipe[] outbound;
+    private Pipe[] inbound;
+    private Msg    msg;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        //  The reading side never finds its pipe empty, so no command is ever
+        //  sent and no context is needed.
+        ZObject parent = new ZObject(null, 0)
+        {
+        };
+        dist = new Dist();
+        outbound = new Pipe[pipes];
+        inbound = new Pipe[pipes];
+        for (int i = 0; i < pipes; ++i) {
+            Pipe[] pair = Pipe.pair(new ZObject[] { parent, parent }, new int[2], new boolean[2]);
+            outbound[i] = pair[0];
+            inbound[i] = pair[1];
+            dist.attach(outbound[i]);
+        }
+        msg = new Msg(32);
+    }
+
+    @Benchmark
+    public boolean sendToAll(Blackhole bh)
+    {
+        boolean rc = dist.sendToAll(msg);
+        drain(bh);
+        return rc;
+    }
+
+    @Benchmark
+    public boolean sendToMatching(Blackhole bh)
+    {
+        //  Same sequence as XPub.xsend: unmatch, match every subscriber, send.
+        dist.unmatch();
+        for (Pipe pipe : outbound) {
+            dist.match(pipe);
+        }
+        boolean rc = dist.sendToMatching(msg);
+        drain(bh);
+        return rc;
+    }
+
+    private void drain(Blackhole bh)
+    {
+        for (Pipe pipe : inbound) {
+            bh.consume(pipe.read());
+        }
+    }
+}
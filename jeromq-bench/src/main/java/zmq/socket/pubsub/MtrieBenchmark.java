@@ -0,0 +1,123 @@
+package zmq.socket.pubsub;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import zmq.Ctx;
+import zmq.Msg;
+import zmq.ZMQ;
+import zmq.ZObject;
+import zmq.pipe.Pipe;
+
+//  Matching of published topics against the subscriptions of an XPUB socket,
+//  by walking the trie or from the cache of the recently published topics.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MtrieBenchmark
+{
+    //  Number of distinct topics subscribed.
+    @Param({"10", "1000", "100000"})
+    public int topics;
+
+    //  Number of subscribers, each one subscribing to every topic.
+    @Param({"1", "16"})
+    public int subscribers;
+
+    private Ctx          ctx;
+    private XPub         pub;
+    private Mtrie        mtrie;
+    private MatchCache   cache;
+    private List<Pipe>   matched;
+    private ByteBuffer[] published;
+    private int          next;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        ctx = ZMQ.createContext();
+        pub = (XPub) ZMQ.socket(ctx, ZMQ.ZMQ_XPUB);
+        mtrie = new Mtrie();
+        matched = new ArrayList<>();
+        ZObject parent = new ZObject(ctx, 0)
+        {
+        };
+        for (int s = 0; s < subscribers; ++s) {
+            Pipe pipe = Pipe.pair(new ZObject[] { parent, parent }, new int[2], new boolean[2])[0];
+            for (int t = 0; t < topics; ++t) {
+                mtrie.add(subscription(topic(t)), pipe);
+            }
+        }
+        published = new ByteBuffer[Math.min(topics, 1024)];
+        cache = new MatchCache(published.length);
+        for (int i = 0; i < published.length; ++i) {
+            published[i] = ByteBuffer.wrap((topic(i * (topics / published.length)) + " payload").getBytes(ZMQ.CHARSET));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        ZMQ.close(pub);
+        ZMQ.term(ctx);
+    }
+
+    private static String topic(int index)
+    {
+        return String.format("market.data.%08d", index);
+    }
+
+    private static Msg subscription(String topic)
+    {
+        byte[] raw = topic.getBytes(ZMQ.CHARSET);
+        Msg msg = new Msg(raw.length + 1);
+        msg.put((byte) 1);
+        msg.put(raw);
+        return msg;
+    }
+
+    @Benchmark
+    public void match(Blackhole bh)
+    {
+        ByteBuffer data = published[next];
+        next = (next + 1) % published.length;
+        mtrie.match(data, data.limit(), (pipe, buf, size, arg) -> bh.consume(pipe), pub);
+    }
+
+    @Benchmark
+    public void matchCached(Blackhole bh)
+    {
+        ByteBuffer data = published[next];
+        next = (next + 1) % published.length;
+        Pipe[] pipes = cache.get(data, data.limit());
+        if (pipes == null) {
+            matched.clear();
+            mtrie.match(data, data.limit(), (pipe, buf, size, arg) -> matched.add(pipe), pub);
+            pipes = matched.toArray(new Pipe[0]);
+            cache.put(data, data.limit(), pipes);
+        }
+        for (Pipe pipe : pipes) {
+            bh.consume(pipe);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package zmq.bench;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class BenchmarkDiffTest
+{
+    private static final String HEADER = "\"Benchmark\",\"Mode\",\"Threads\",\"Samples\",\"Score\",\"Score Error (99.9%)\",\"Unit\",\"Param: size\"\n";
+
+    @Test
+    public void testParse() throws IOException
+    {
+        Map<String, BenchmarkDiff.Result> results = BenchmarkDiff.parse(new StringReader(
+                HEADER
+                + "\"zmq.MsgBenchmark.allocate\",\"thrpt\",1,5,120.5,1.5,\"ops/us\",16\n"
+                + "\"zmq.MsgBenchmark.allocate\",\"thrpt\",1,5,\"3,25\",0.5,\"ops/us\",1024\n"));
+        assertThat(results.size(), is(2));
+        BenchmarkDiff.Result result = results.get("zmq.MsgBenchmark.allocate [thrpt, size=1024]");
+        assertThat(result.score, is(3.25));
+        assertThat(result.error, is(0.5));
+        assertThat(result.unit, is("ops/us"));
+    }
+
+    @Test
+    public void testRegressions() throws IOException
+    {
+        Map<String, BenchmarkDiff.Result> baseline = BenchmarkDiff.parse(new StringReader(
+                HEADER
+                + "\"zmq.A.thrpt\",\"thrpt\",1,5,100,1,\"ops/us\",16\n"
+                + "\"zmq.A.avgt\",\"avgt\",1,5,100,1,\"ns/op\",16\n"
+                + "\"zmq.A.noise\",\"thrpt\",1,5,100,10,\"ops/us\",16\n"
+                + "\"zmq.A.removed\",\"thrpt\",1,5,100,1,\"ops/us\",16\n"));
+        Map<String, BenchmarkDiff.Result> current = BenchmarkDiff.parse(new StringReader(
+                HEADER
+                + "\"zmq.A.thrpt\",\"thrpt\",1,5,80,1,\"ops/us\",16\n"
+                + "\"zmq.A.avgt\",\"avgt\",1,5,80,1,\"ns/op\",16\n"
+                + "\"zmq.A.noise\",\"thrpt\",1,5,92,10,\"ops/us\",16\n"
+                + "\"zmq.A.added\",\"thrpt\",1,5,100,1,\"ops/us\",16\n"));
+
+        List<BenchmarkDiff.Delta> deltas = BenchmarkDiff.compare(baseline, current, 5);
+        assertThat(deltas.size(), is(3));
+
+        // lower throughput is worse
+        assertThat(deltas.get(0).regression, is(true));
+        assertThat(deltas.get(0).change, is(-20.0));
+        // lower average time is better
+        assertThat(deltas.get(1).regression, is(false));
+        assertThat(deltas.get(1).improvement, is(true));
+        // within the error margins
+        assertThat(deltas.get(2).regression, is(false));
+        assertThat(deltas.get(2).improvement, is(false));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int regressions = BenchmarkDiff.report(deltas, 5, new PrintStream(out, true, "UTF-8"));
+        assertThat(regressions, is(1));
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8).contains("REGRESSION"), is(true));
+    }
+}
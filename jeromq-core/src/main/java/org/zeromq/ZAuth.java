@@ -7,6 +7,7 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -129,9 +130,11 @@ public class ZAuth implements Closeable
         }
     }
 
-    public static class SimpleCurveAuth implements Auth
+    public static class SimpleCurveAuth implements Auth, Closeable
     {
         private final ZCertStore.Fingerprinter fingerprinter;
+        private final Duration                 debounce;
+        private final Duration                 fallback;
 
         private ZCertStore certStore = null;
         private boolean    allowAny;
@@ -144,6 +147,20 @@ public class ZAuth implements Closeable
         public SimpleCurveAuth(ZCertStore.Fingerprinter fingerprinter)
         {
             this.fingerprinter = fingerprinter;
+            this.debounce = null;
+            this.fallback = null;
+        }
+
+        /**
+         * Authorizes the clients with a certificates directory watched for changes, instead of scanned at each
+         * authorization.
+         * @see ZCertStore#ZCertStore(Path, ZCertStore.Fingerprinter, Duration, Duration)
+         */
+        public SimpleCurveAuth(ZCertStore.Fingerprinter fingerprinter, Duration debounce, Duration fallback)
+        {
+            this.fingerprinter = fingerprinter;
+            this.debounce = Objects.requireNonNull(debounce, "debounce");
+            this.fallback = Objects.requireNonNull(fallback, "fallback");
         }
 
         @Override
@@ -163,7 +180,13 @@ public class ZAuth implements Closeable
                     System.out.printf("ZAuth: Using %s as certificates directory%n", location);
                 }
                 try {
-                    certStore = new ZCertStore(Path.of(location), fingerprinter);
+                    close();
+                    if (debounce == null) {
+                        certStore = new ZCertStore(Path.of(location), fingerprinter);
+                    }
+                    else {
+                        certStore = new ZCertStore(Path.of(location), fingerprinter, debounce, fallback);
+                    }
                 } catch (IOException e) {
                     return false;
                 }
@@ -171,6 +194,15 @@ public class ZAuth implements Closeable
             return true;
         }
 
+        @Override
+        public void close() throws IOException
+        {
+            if (certStore != null) {
+                certStore.close();
+                certStore = null;
+            }
+        }
+
         @Override
         public boolean authorize(ZapRequest request, boolean verbose)
         {
@@ -768,6 +800,22 @@ public class ZAuth implements Closeable
             return rc;
         }
 
+        @Override
+        public boolean destroyed(ZContext ctx, Socket pipe, ZPoller poller)
+        {
+            for (Auth auth : auths.values()) {
+                if (auth instanceof Closeable) {
+                    try {
+                        ((Closeable) auth).close();
+                    }
+                    catch (IOException e) {
+                        // Nothing more to do with it
+                    }
+                }
+            }
+            return super.destroyed(ctx, pipe, poller);
+        }
+
         @Override
         public boolean stage(Socket socket, Socket pipe, ZPoller poller, int events)
         {
@@ -1,14 +1,22 @@
 package org.zeromq;
 
 import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -25,8 +33,11 @@ import org.zeromq.util.ZMetadata;
     if a given client public key is known or not. The {@link org.zeromq.ZCert} class does the
     work of managing a single certificate.
  * <p>Those files need to be in ZMP-Format which is created by {@link org.zeromq.ZConfig}</p>
+ * <p>By default, the folder is scanned for changes at each lookup. A store created with
+ * {@link #ZCertStore(Path, Fingerprinter, Duration, Duration)} watches it instead, and its lookups only read
+ * an index of the keys replaced at each reload, without locking.</p>
  */
-public class ZCertStore
+public class ZCertStore implements Closeable
 {
     public interface Fingerprinter
     {
@@ -108,11 +119,16 @@ public class ZCertStore
     // the scanned files (and directories) along with their fingerprint
     private final Map<Path, byte[]> fingerprints = new HashMap<>();
 
-    // collected public keys
-    private final Map<String, ZMetadata> publicKeys = new HashMap<>();
+    // collected public keys, replaced as a whole at each reload
+    private volatile Map<String, ZMetadata> publicKeys = Collections.emptyMap();
 
     private final Fingerprinter finger;
 
+    // the watch service of the folders, null when scanning them at each lookup
+    private final WatchService watcher;
+    private final long debounce;
+    private final long fallback;
+
     /**
      * Create a Certificate Store at that file system folder location
      * @param location the location of the certificates store
@@ -126,9 +142,58 @@ public class ZCertStore
     {
         this.finger = fingerprinter;
         this.location = location;
+        this.watcher = null;
+        this.debounce = 0;
+        this.fallback = 0;
         loadFiles();
     }
 
+    /**
+     * Create a Certificate Store at that file system folder location, reloaded when the
+     * {@link WatchService} reports a change in the folder or its sub-folders, instead of being scanned at each lookup.
+     * The store has to be closed to stop watching.
+     * @param location the location of the certificates store
+     * @param fingerprinter the fingerprints of the files, to find the changes missed by the watch service
+     * @param debounce the delay without changes before reloading, so that a burst of changes reloads once
+     * @param fallback the interval between two scans for the changes missed by the watch service, zero to only rely
+     *                 on the watch service
+     */
+    public ZCertStore(Path location, Fingerprinter fingerprinter, Duration debounce, Duration fallback)
+            throws IOException
+    {
+        Utils.checkArgument(!debounce.isNegative(), "debounce must not be negative");
+        Utils.checkArgument(!fallback.isNegative(), "fallback must not be negative");
+        this.finger = fingerprinter;
+        this.location = location;
+        this.debounce = debounce.toMillis();
+        this.fallback = fallback.toMillis();
+        if (!Files.exists(location)) {
+            Files.createDirectory(location);
+        }
+        this.watcher = location.getFileSystem().newWatchService();
+        try {
+            loadFiles();
+        }
+        catch (IOException e) {
+            watcher.close();
+            throw e;
+        }
+        Thread thread = new Thread(this::watch, "ZCertStore-" + location.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops watching the folder, if the store was watching it.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
     private boolean traverseDirectory(Path root, IFileVisitor visitor) throws IOException
     {
         assert (Files.isDirectory(root));
@@ -177,17 +242,24 @@ public class ZCertStore
     {
         Utils.checkArgument(publicKey.length() == 40,
                             "z85 publickeys should have a length of 40 bytes but got " + publicKey.length());
-        reloadIfNecessary();
+        scanIfPolling();
         return publicKeys.containsKey(publicKey);
     }
 
     public ZMetadata getMetadata(String publicKey)
     {
-        reloadIfNecessary();
+        scanIfPolling();
         return publicKeys.get(publicKey);
     }
 
-    private void loadFiles() throws IOException
+    private void scanIfPolling()
+    {
+        if (watcher == null) {
+            reloadIfNecessary();
+        }
+    }
+
+    private synchronized void loadFiles() throws IOException
     {
         Map<String, ZMetadata> keys = new HashMap<>();
         if (!Files.exists(location)) {
@@ -225,20 +297,24 @@ public class ZCertStore
             @Override
             public boolean visitDir(Path dir) throws IOException
             {
+                if (watcher != null) {
+                    //  Registered before its files are listed, so that none is missed.
+                    dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                                 StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                }
                 collected.put(dir, finger.print(dir));
                 return false;
             }
         });
 
-        publicKeys.clear();
-        publicKeys.putAll(keys);
+        publicKeys = Collections.unmodifiableMap(keys);
         fingerprints.clear();
         fingerprints.putAll(collected);
     }
 
     int getCertificatesCount()
     {
-        reloadIfNecessary();
+        scanIfPolling();
         return publicKeys.size();
     }
 
@@ -260,7 +336,7 @@ public class ZCertStore
     /**
      * Check if files in the certificate folders have been added or removed.
      */
-    boolean checkForChanges()
+    synchronized boolean checkForChanges()
     {
         try {
             // initialize with last checked files
@@ -284,6 +360,36 @@ public class ZCertStore
         }
     }
 
+    //  Reloads the files once the changes stop coming for the debounce delay,
+    //  and scans them when none came for the fallback interval.
+    private void watch()
+    {
+        try {
+            while (true) {
+                WatchKey key = fallback > 0 ? watcher.poll(fallback, TimeUnit.MILLISECONDS) : watcher.take();
+                if (key == null) {
+                    reloadIfNecessary();
+                    continue;
+                }
+                do {
+                    //  The events only tell that something changed: the whole folder is loaded again.
+                    key.pollEvents();
+                    key.reset();
+                    key = watcher.poll(debounce, TimeUnit.MILLISECONDS);
+                } while (key != null);
+                try {
+                    loadFiles();
+                }
+                catch (IOException e) {
+                    //  The fingerprints are unchanged, the next scan tries again.
+                }
+            }
+        }
+        catch (ClosedWatchServiceException | InterruptedException e) {
+            //  The store is closed.
+        }
+    }
+
     private boolean modified(byte[] fingerprint, Path path) throws IOException {
         if (Files.notExists(path)) {
             // run load-files if one file is not present
@@ -14,6 +14,7 @@ import org.zeromq.ZMQ.Context;
 import org.zeromq.ZMQ.Poller;
 import org.zeromq.ZMQ.Socket;
 
+import zmq.Ctx;
 import zmq.util.Draft;
 
 /**
@@ -426,6 +427,27 @@ public class ZContext implements Closeable
         return context.getThreadFactory();
     }
 
+    /**
+     * Used to define the kind of {@link zmq.poll.Poller} running the I/O threads. For instance,
+     * {@link zmq.poll.ChangeListPoller} reduces the cost of the selector bookkeeping for threads
+     * serving many connections.
+     *
+     * @param pollerFactory the factory, given the context and the name of the thread
+     * @throws IllegalStateException If context was already initialized by the creation of a socket
+     */
+    public void setPollerFactory(BiFunction<Ctx, String, zmq.poll.Poller> pollerFactory)
+    {
+        context.setPollerFactory(pollerFactory);
+    }
+
+    /**
+     * @return the current poller factory
+     */
+    public BiFunction<Ctx, String, zmq.poll.Poller> getPollerFactory()
+    {
+        return context.getPollerFactory();
+    }
+
     /**
      * @return the main
      */
@@ -27,6 +27,7 @@ import zmq.Options;
 import zmq.SocketBase;
 import zmq.ZError;
 import zmq.ZError.CtxTerminatedException;
+import zmq.io.IOThreadLoad;
 import zmq.io.coder.IDecoder;
 import zmq.io.coder.IEncoder;
 import zmq.io.mechanism.Mechanism;
@@ -574,6 +575,103 @@ public class ZMQ
             return ctx.set(zmq.ZMQ.ZMQ_BLOCKY, block ? 1 : 0);
         }
 
+        /**
+         * @return true if the sockets created by the context park the threads waiting in send or receive.
+         * @see #setParking(boolean)
+         */
+        public boolean isParking()
+        {
+            return ctx.get(zmq.ZMQ.ZMQ_PARKING) != 0;
+        }
+
+        /**
+         * Sets how the sockets created afterwards wait for their commands while blocked in send or receive.
+         * <p>
+         * By default, a blocked thread is parked until the file descriptor of the socket is requested for polling,
+         * and from then on waits in a selection. In parking mode, a blocked thread is always parked with
+         * {@link java.util.concurrent.locks.LockSupport}, the file descriptor being only raised for the pollers.
+         * A parked thread doesn't pin the carrier of a virtual thread, so that many sockets can be used by
+         * lightweight threads.
+         * <p>
+         * This applies only to the sockets created after the call.
+         *
+         * @param parking true to park the blocked threads.
+         * @return true if the option was set.
+         */
+        public boolean setParking(boolean parking)
+        {
+            return ctx.set(zmq.ZMQ.ZMQ_PARKING, parking ? 1 : 0);
+        }
+
+        /**
+         * @return the interval between two rebalancings of the I/O threads, in milliseconds, 0 if disabled.
+         * @see #setRebalanceInterval(int)
+         */
+        public int getRebalanceInterval()
+        {
+            return ctx.get(zmq.ZMQ.ZMQ_REBALANCE_IVL);
+        }
+
+        /**
+         * Sets the interval between two rebalancings of the I/O threads. At each one, a connection of the busiest
+         * I/O thread moves to the least busy one, if it narrows the difference of their utilization.
+         * Disabled by default.
+         *
+         * @param interval the interval in milliseconds, 0 to disable.
+         * @return true if the option was set.
+         * @throws IllegalStateException If context was already initialized by the creation of a socket
+         * @see #rebalanceIoThreads()
+         */
+        public boolean setRebalanceInterval(int interval)
+        {
+            return ctx.set(zmq.ZMQ.ZMQ_REBALANCE_IVL, interval);
+        }
+
+        /**
+         * @return the number of threads boxing and unboxing the CURVE messages, 0 if the I/O threads do it.
+         * @see #setCryptoThreads(int)
+         */
+        public int getCryptoThreads()
+        {
+            return ctx.get(zmq.ZMQ.ZMQ_CRYPTO_THREADS);
+        }
+
+        /**
+         * Sets the number of threads boxing and unboxing the messages of the CURVE connections, so that the
+         * I/O threads only read and write them. The messages of a connection keep their order.
+         * By default, the I/O threads do it themselves.
+         *
+         * @param threads the number of threads, 0 to box the messages in the I/O threads.
+         * @return true if the option was set.
+         * @throws IllegalStateException If context was already initialized by the creation of a socket
+         */
+        public boolean setCryptoThreads(int threads)
+        {
+            return ctx.set(zmq.ZMQ.ZMQ_CRYPTO_THREADS, threads);
+        }
+
+        /**
+         * Moves a connection from the busiest I/O thread to the least busy one, if it narrows the difference
+         * of their utilization.
+         *
+         * @return true if a connection was asked to move.
+         */
+        public boolean rebalanceIoThreads()
+        {
+            return ctx.rebalanceIoThreads();
+        }
+
+        /**
+         * Returns a snapshot of the load of each I/O thread: the number of handles and connections it runs,
+         * their traffic, and the recent utilization of the thread.
+         *
+         * @return the loads, in the order of the I/O threads.
+         */
+        public List<IOThreadLoad> getIoThreadsLoad()
+        {
+            return ctx.getIoThreadsLoad();
+        }
+
         public boolean isIPv6()
         {
             return ctx.get(zmq.ZMQ.ZMQ_IPV6) != 0;
@@ -649,6 +747,27 @@ public class ZMQ
             return ctx.getThreadFactory();
         }
 
+        /**
+         * Used to define the kind of {@link zmq.poll.Poller} running the I/O threads. For instance,
+         * {@link zmq.poll.ChangeListPoller} reduces the cost of the selector bookkeeping for threads
+         * serving many connections.
+         *
+         * @param pollerFactory the factory, given the context and the name of the thread
+         * @throws IllegalStateException If context was already initialized by the creation of a socket
+         */
+        public void setPollerFactory(BiFunction<Ctx, String, zmq.poll.Poller> pollerFactory)
+        {
+            ctx.setPollerFactory(pollerFactory);
+        }
+
+        /**
+         * @return the current poller factory
+         */
+        public BiFunction<Ctx, String, zmq.poll.Poller> getPollerFactory()
+        {
+            return ctx.getPollerFactory();
+        }
+
         /**
          * This is an explicit "destructor". It can be called to ensure the corresponding 0MQ
          * Context has been disposed of.
@@ -2297,6 +2416,225 @@ public class ZMQ
             return setSocketOpt(zmq.ZMQ.ZMQ_MSG_ALLOCATOR, allocator);
         }
 
+        /**
+         * Decodes the received messages as read-only slices of the buffer they were read in,
+         * instead of copying them in newly allocated messages.
+         * The buffer is reused once all its messages are released with {@link zmq.Msg#release()},
+         * until then each read uses another buffer.
+         * Large messages, not fully received in a single read, are always read in allocated messages.
+         *
+         * @param slicing true to slice the received messages.
+         * @return true if the option was set, otherwise false.
+         * @see #isMsgSlicing()
+         */
+        public boolean setMsgSlicing(boolean slicing)
+        {
+            return setSocketOpt(zmq.ZMQ.ZMQ_MSG_SLICING, slicing);
+        }
+
+        /**
+         * Tells if the received messages are slices of the receive buffer.
+         *
+         * @return true if the received messages are sliced.
+         * @see #setMsgSlicing(boolean)
+         */
+        public boolean isMsgSlicing()
+        {
+            return base.getSocketOpt(zmq.ZMQ.ZMQ_MSG_SLICING) != 0;
+        }
+
+        /**
+         * Passes the messages between this socket and its peers or I/O threads in ring buffers
+         * sized from the high water marks, instead of lists of fixed size chunks.
+         * This option applies to the connections made after it was set.
+         *
+         * @param ring true to use ring buffers.
+         * @return true if the option was set, otherwise false.
+         * @see #isRingPipes()
+         */
+        public boolean setRingPipes(boolean ring)
+        {
+            return setSocketOpt(zmq.ZMQ.ZMQ_RING_PIPES, ring);
+        }
+
+        /**
+         * Tells if the messages are passed in ring buffers.
+         *
+         * @return true if the pipes of the socket are ring buffers.
+         * @see #setRingPipes(boolean)
+         */
+        public boolean isRingPipes()
+        {
+            return base.getSocketOpt(zmq.ZMQ.ZMQ_RING_PIPES) != 0;
+        }
+
+        /**
+         * Sets the maximum delay before processing the commands sent to this socket, while it is sending
+         * a continuous stream of messages. Checking for commands at each message costs more than the message itself
+         * on fast transports, so they are processed at most once in that period. When the socket is idle,
+         * or waiting for a message, commands are processed immediately.
+         * <p>
+         * Default value is 1 millisecond. A value of 0 disables the throttling.
+         *
+         * @param micros the maximum delay, in microseconds.
+         * @return true if the option was set, otherwise false.
+         * @see #getMaxCommandDelay()
+         */
+        public boolean setMaxCommandDelay(int micros)
+        {
+            return setSocketOpt(zmq.ZMQ.ZMQ_MAX_COMMAND_DELAY, micros);
+        }
+
+        /**
+         * Sets the maximum delay before processing the commands sent to this socket, while it is sending
+         * a continuous stream of messages.
+         *
+         * @param delay the maximum delay, with a precision of a microsecond.
+         * @return true if the option was set, otherwise false.
+         * @see #setMaxCommandDelay(int)
+         */
+        public boolean setMaxCommandDelay(Duration delay)
+        {
+            return setSocketOpt(zmq.ZMQ.ZMQ_MAX_COMMAND_DELAY, delay);
+        }
+
+        /**
+         * Returns the maximum delay before processing the commands sent to this socket while it is sending messages.
+         *
+         * @return the maximum delay, in microseconds.
+         * @see #setMaxCommandDelay(int)
+         */
+        public int getMaxCommandDelay()
+        {
+            return base.getSocketOpt(zmq.ZMQ.ZMQ_MAX_COMMAND_DELAY);
+        }
+
+        /**
+         * Sets the size of the batches of data read at once from the stream connections (tcp, ipc).
+         * The batch is at least as large as the receive buffer, if it was set.
+         * This option applies to the connections made after it was set.
+         * <p>
+         * Default value is 8 kB.
+         *
+         * @param size the size of the input batches, in bytes.
+         * @return true if the option was set, otherwise false.
+         * @see #getInBatchSize()
+         */
+        public boolean setInBatchSize(int size)
+        {
+            return setSocketOpt(zmq.ZMQ.ZMQ_IN_BATCH_SIZE, size);
+        }
+
+        /**
+         * Returns the size of the batches of data read at once from the stream connections.
+         *
+         * @return the size of the input batches, in bytes.
+         * @see #setInBatchSize(int)
+         */
+        public int getInBatchSize()
+        {
+            return base.getSocketOpt(zmq.ZMQ.ZMQ_IN_BATCH_SIZE);
+        }
+
+        /**
+         * Sets the size of the batches of messages written at once to the stream connections (tcp, ipc).
+         * The batch is at least as large as the send buffer, if it was set.
+         * This option applies to the connections made after it was set.
+         * <p>
+         * Default value is 8 kB.
+         *
+         * @param size the size of the output batches, in bytes.
+         * @return true if the option was set, otherwise false.
+         * @see #getOutBatchSize()
+         */
+        public boolean setOutBatchSize(int size)
+        {
+            return setSocketOpt(zmq.ZMQ.ZMQ_OUT_BATCH_SIZE, size);
+        }
+
+        /**
+         * Returns the size of the batches of messages written at once to the stream connections.
+         *
+         * @return the size of the output batches, in bytes.
+         * @see #setOutBatchSize(int)
+         */
+        public int getOutBatchSize()
+        {
+            return base.getSocketOpt(zmq.ZMQ.ZMQ_OUT_BATCH_SIZE);
+        }
+
+        /**
+         * Lets the batches of the stream connections adapt to their traffic. A batch doubles each time
+         * a connection fills it, up to the given size, and halves back to the size of
+         * {@link #setInBatchSize(int)} or {@link #setOutBatchSize(int)} when it was not filled for a second.
+         * Bulk transfers are then made with fewer system calls, while idle connections keep small buffers.
+         * This option applies to the connections made after it was set.
+         * <p>
+         * Default value is 0, the batches keep their size.
+         *
+         * @param max the largest size of the batches, in bytes, or 0 to keep them fixed.
+         * @return true if the option was set, otherwise false.
+         * @see #getAdaptiveBatch()
+         */
+        public boolean setAdaptiveBatch(int max)
+        {
+            return setSocketOpt(zmq.ZMQ.ZMQ_ADAPTIVE_BATCH, max);
+        }
+
+        /**
+         * Returns the largest size of the batches adapting to the traffic.
+         *
+         * @return the largest size of the batches, in bytes, or 0 if they are fixed.
+         * @see #setAdaptiveBatch(int)
+         */
+        public int getAdaptiveBatch()
+        {
+            return base.getSocketOpt(zmq.ZMQ.ZMQ_ADAPTIVE_BATCH);
+        }
+
+        /**
+         * Sets how long the messages sent on an idle stream connection (tcp, ipc) can wait for others
+         * to be written with them. The messages are written once they fill an output batch
+         * (see {@link #setOutBatchSize(int)}) or when the delay expires, instead of each one being written
+         * as soon as it is sent. Chatty connections make far fewer system calls, at the cost of a bounded latency.
+         * The messages sent while the connection is busy writing are always batched.
+         * This option applies to the connections made after it was set.
+         * <p>
+         * Default value is 0, the messages are written at once.
+         *
+         * @param millis the maximum delay, in milliseconds, or 0 to write the messages at once.
+         * @return true if the option was set, otherwise false.
+         * @see #getCoalesceInterval()
+         */
+        public boolean setCoalesceInterval(int millis)
+        {
+            return setSocketOpt(zmq.ZMQ.ZMQ_COALESCE_IVL, millis);
+        }
+
+        /**
+         * Sets how long the messages sent on an idle stream connection can wait for others
+         * to be written with them.
+         *
+         * @param delay the maximum delay, with a precision of a millisecond.
+         * @return true if the option was set, otherwise false.
+         * @see #setCoalesceInterval(int)
+         */
+        public boolean setCoalesceInterval(Duration delay)
+        {
+            return setSocketOpt(zmq.ZMQ.ZMQ_COALESCE_IVL, delay);
+        }
+
+        /**
+         * Returns how long the messages can wait for others to be written with them.
+         *
+         * @return the maximum delay, in milliseconds, or 0 if the messages are written at once.
+         * @see #setCoalesceInterval(int)
+         */
+        public int getCoalesceInterval()
+        {
+            return base.getSocketOpt(zmq.ZMQ.ZMQ_COALESCE_IVL);
+        }
+
         /**
          * The ZMQ_CONNECT_RID option sets the peer id of the next host connected via the connect() call,
          * and immediately readies that connection for data transfer with the named id.
@@ -2435,6 +2773,22 @@ public class ZMQ
             return setSocketOpt(zmq.ZMQ.ZMQ_XPUB_VERBOSER, verboser);
         }
 
+        /**
+         * Sets the number of topics whose matching subscribers are cached by a PUB or XPUB socket,
+         * so that a topic published again is sent without looking up the subscriptions.
+         * The least recently published topic is evicted when the cache is full, and the cache is emptied
+         * when the subscriptions or the subscribers change.
+         * The topic is the whole first part of the message, and only topics up to 256 bytes are cached.
+         * A value of 0 is the default and disables the cache.
+         *
+         * @param topics the number of topics cached.
+         * @return true if the option was set, otherwise false.
+         */
+        public boolean setXpubMatchCache(int topics)
+        {
+            return setSocketOpt(zmq.ZMQ.ZMQ_XPUB_MATCH_CACHE, topics);
+        }
+
         /**
          * @return the IPV4ONLY
          * @see #setIPv4Only (boolean)
@@ -3355,6 +3709,43 @@ public class ZMQ
             return false;
         }
 
+        /**
+         * Queues many messages at once: the socket is locked a single time, and the messages are passed
+         * to the peers at the end of the batch instead of one by one.
+         * Each message is sent with its own {@link Msg#MORE} flag, so a batch may hold multi-part messages.
+         *
+         * @param msgs  the messages to send.
+         * @param flags {@link org.zeromq.ZMQ#DONTWAIT DONTWAIT} to send only the messages that can be queued
+         *              without blocking, or 0 to block until all the messages are queued,
+         *              or the timeout set by {@link #setSendTimeOut(int)} expires.
+         * @return the number of messages queued, or -1 if none could be queued.
+         */
+        public int sendBatch(Msg[] msgs, int flags)
+        {
+            int sent = base.sendBatch(msgs, msgs.length, flags);
+            if (sent < 0) {
+                mayRaise();
+            }
+            return sent;
+        }
+
+        /**
+         * Queues many messages at once.
+         *
+         * @param msgs  the messages to send.
+         * @param flags {@link org.zeromq.ZMQ#DONTWAIT DONTWAIT}, or 0 to block until all the messages are queued.
+         * @return the number of messages queued, or -1 if none could be queued.
+         * @see #sendBatch(Msg[], int)
+         */
+        public int sendBatch(List<Msg> msgs, int flags)
+        {
+            int sent = base.sendBatch(msgs, flags);
+            if (sent < 0) {
+                mayRaise();
+            }
+            return sent;
+        }
+
         /**
          * Queues a message created from data, so it can be sent.
          *
@@ -3657,6 +4048,25 @@ public class ZMQ
             return null;
         }
 
+        /**
+         * Receives many messages at once: the socket is locked a single time,
+         * and once a message is received, the ones already available are taken without waiting for more.
+         *
+         * @param msgs  the array receiving the messages.
+         * @param max   the maximum number of messages to receive.
+         * @param flags {@link org.zeromq.ZMQ#DONTWAIT DONTWAIT} to not wait for the first message,
+         *              or 0 to wait for it until the timeout set by {@link #setReceiveTimeOut(int)} expires.
+         * @return the number of messages received, or -1 if none was received.
+         */
+        public int recvBatch(Msg[] msgs, int max, int flags)
+        {
+            int received = base.recvBatch(msgs, max, flags);
+            if (received < 0) {
+                mayRaise();
+            }
+            return received;
+        }
+
         /**
          * Receives a message.
          *
@@ -3689,7 +4099,9 @@ public class ZMQ
             zmq.Msg msg = base.recv(flags);
 
             if (msg != null) {
-                return msg.data();
+                byte[] data = msg.data();
+                msg.release();
+                return data;
             }
 
             mayRaise();
@@ -3721,7 +4133,9 @@ public class ZMQ
             zmq.Msg msg = base.recv(flags, cancellationToken.canceled);
 
             if (msg != null) {
-                return msg.data();
+                byte[] data = msg.data();
+                msg.release();
+                return data;
             }
 
             mayRaise();
@@ -3752,7 +4166,9 @@ public class ZMQ
             zmq.Msg msg = base.recv(flags);
 
             if (msg != null) {
-                return msg.getBytes(0, buffer, offset, len);
+                int read = msg.getBytes(0, buffer, offset, len);
+                msg.release();
+                return read;
             }
 
             return -1;
@@ -3779,6 +4195,7 @@ public class ZMQ
 
             if (msg != null) {
                 buffer.put(msg.buf());
+                msg.release();
                 return msg.size();
             }
 
@@ -14,12 +14,12 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 import org.zeromq.ZMQ.Poller;
 import org.zeromq.ZMQ.Socket;
 
 import zmq.poll.PollItem;
+import zmq.poll.PollSet;
 
 /**
  * Rewritten poller for ØMQ.
@@ -439,6 +439,7 @@ public class ZPoller implements Closeable
         this.creator = creator;
         this.selector = selector;
         items = new ConcurrentHashMap<>();
+        pollSet = new PollSet(selector);
     }
 
     // creates a new poll item
@@ -615,6 +616,9 @@ public class ZPoller implements Closeable
             return false;
         }
         CompositePollItem removedItems = items.remove(socketOrChannel);
+        if (removedItems != null) {
+            changed = true;
+        }
         return removedItems != null;
     }
 
@@ -653,21 +657,17 @@ public class ZPoller implements Closeable
      */
     protected int poll(long timeout, boolean dispatchEvents)
     {
-        // Local copy of the items, for consistency
-        Set<CompositePollItem> allPolled = new HashSet<>(items.values());
-        // get all the raw items
-        Set<PollItem> pollItems = allPolled.stream()
-                                                 .map(CompositePollItem::item)
-                                                 .collect(Collectors.toSet());
+        // bring the poll set in line with the registered items, if they changed
+        CompositePollItem[] allPolled = sync();
         // polling time
-        int rc = poll(selector, timeout, pollItems);
+        int rc = pollSet.poll(timeout);
 
         if (!dispatchEvents) {
             // raw result
             return rc;
         }
 
-        if (dispatch(allPolled)) {
+        if (subDispatch(allPolled)) {
             // returns event counts after dispatch if everything went fine
             return rc;
         }
@@ -675,15 +675,40 @@ public class ZPoller implements Closeable
         return -1;
     }
 
-    // does the effective polling
+    /**
+     * Polls the given items.
+     *
+     * @deprecated {@link #poll(long)} keeps the registered items in a persistent {@link PollSet}
+     * and doesn't call this method anymore.
+     */
+    @Deprecated
     protected int poll(Selector selector, long tout, Collection<zmq.poll.PollItem> items)
     {
         return zmq.ZMQ.poll(selector, items.toArray(new PollItem[0]), items.size(), tout);
     }
 
-    private boolean dispatch(Set<CompositePollItem> allPolled)
+    // registers the new items in the poll set and removes the unregistered ones
+    private CompositePollItem[] sync()
     {
-        return subDispatch(allPolled);
+        if (changed) {
+            // a registration happening from now on will be seen by the next poll
+            changed = false;
+            Set<CompositePollItem> current = new HashSet<>(items.values());
+            polledSet.removeIf(aggregate -> {
+                if (current.contains(aggregate)) {
+                    return false;
+                }
+                pollSet.unregister(aggregate.item());
+                return true;
+            });
+            for (CompositePollItem aggregate : current) {
+                if (polledSet.add(aggregate)) {
+                    pollSet.register(aggregate.item());
+                }
+            }
+            polled = polledSet.toArray(new CompositePollItem[0]);
+        }
+        return polled;
     }
 
     /**
@@ -726,33 +751,21 @@ public class ZPoller implements Closeable
     {
         EventsHandler localGlobalHandler = currentGlobalHandler.get();
         for (ItemHolder holder : allDispatched) {
-            EventsHandler handler = holder.handler();
-            if (handler == null) {
-                handler = localGlobalHandler;
-            }
-            if (handler == null) {
-                // no handler, short-circuit
-                continue;
-            }
-            PollItem item = holder.item();
-            int events = item.readyOps();
-
-            if (events <= 0) {
-                // no events, short-circuit
-                continue;
+            if (!dispatch(holder, localGlobalHandler)) {
+                return false;
             }
-            Socket socket = holder.socket();
-            SelectableChannel channel = holder.item().getRawSocket();
+        }
+        // Release the global handler, so it can be refreshed
+        currentGlobalHandler.remove();
+        return true;
+    }
 
-            if (socket != null) {
-                assert (channel == null);
-                // dispatch on socket
-                if (!handler.events(socket, events)) {
-                    return false;
-                }
-            }
-            // dispatch on channel
-            if (channel != null && !handler.events(channel, events)) {
+    // dispatches the polled items without iterator
+    private boolean subDispatch(CompositePollItem[] allDispatched)
+    {
+        EventsHandler localGlobalHandler = currentGlobalHandler.get();
+        for (CompositePollItem holder : allDispatched) {
+            if (!dispatch(holder, localGlobalHandler)) {
                 return false;
             }
         }
@@ -761,6 +774,38 @@ public class ZPoller implements Closeable
         return true;
     }
 
+    // dispatches the events of an item to its handler
+    private boolean dispatch(ItemHolder holder, EventsHandler localGlobalHandler)
+    {
+        EventsHandler handler = holder.handler();
+        if (handler == null) {
+            handler = localGlobalHandler;
+        }
+        if (handler == null) {
+            // no handler, short-circuit
+            return true;
+        }
+        PollItem item = holder.item();
+        int events = item.readyOps();
+
+        if (events <= 0) {
+            // no events, short-circuit
+            return true;
+        }
+        Socket socket = holder.socket();
+        SelectableChannel channel = holder.item().getRawSocket();
+
+        if (socket != null) {
+            assert (channel == null);
+            // dispatch on socket
+            if (!handler.events(socket, events)) {
+                return false;
+            }
+        }
+        // dispatch on channel
+        return channel == null || handler.events(channel, events);
+    }
+
     /******************************************************************************/
     /*| | | | | | | | | | | | | | | | | | | | | | | | | | | | | | | | | | POLLING */
     /******************************************************************************/
@@ -945,6 +990,13 @@ public class ZPoller implements Closeable
     private final ItemCreator creator;
     // managed items
     private final Map<Object, CompositePollItem> items;
+    // set when the managed items changed since the last poll
+    private volatile boolean changed;
+
+    // items kept registered between the polls, only accessed by the polling thread
+    private final PollSet                pollSet;
+    private final Set<CompositePollItem> polledSet = new HashSet<>();
+    private CompositePollItem[]          polled    = new CompositePollItem[0];
 
     // TODO set of handlers, each with its specified events?
     // optional global events handler
@@ -973,7 +1025,11 @@ public class ZPoller implements Closeable
     {
         Object key = Optional.ofNullable(socketOrChannel).orElseGet(() -> computeSocketOrChannel(holder));
         CompositePollItem aggregate = items.computeIfAbsent(key, CompositePollItem::new);
-        return aggregate.holders.add(holder);
+        boolean added = aggregate.holders.add(holder);
+        if (added) {
+            changed = true;
+        }
+        return added;
     }
 
     private Object computeSocketOrChannel(ItemHolder holder)
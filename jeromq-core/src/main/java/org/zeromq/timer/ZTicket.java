@@ -1,15 +1,13 @@
 package org.zeromq.timer;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import zmq.util.Clock;
 import zmq.util.Draft;
+import zmq.util.TimerWheel;
 import zmq.util.Utils;
 
 /**
@@ -47,6 +45,8 @@ public final class ZTicket
         private long               delay;
         private boolean            alive = true;
 
+        private final TimerWheel.Timer<Ticket> node = new TimerWheel.Timer<>(this);
+
         private Ticket(ZTicket parent, long now, long delay, TimerHandler handler, Object... args)
         {
             assert (args != null);
@@ -63,8 +63,8 @@ public final class ZTicket
         public void reset()
         {
             if (alive) {
-                parent.sort = true;
                 start = parent.now();
+                parent.insert(this);
             }
         }
 
@@ -76,7 +76,7 @@ public final class ZTicket
         {
             if (alive) {
                 alive = false;
-                parent.sort = true;
+                parent.tickets.cancel(node);
                 return true;
             }
             return false;
@@ -89,8 +89,8 @@ public final class ZTicket
         public void setDelay(long delay)
         {
             if (alive) {
-                parent.sort = true;
                 this.delay = delay;
+                parent.insert(this);
             }
         }
 
@@ -107,11 +107,12 @@ public final class ZTicket
         }
     }
 
-    private final List<Ticket> tickets;
+    private final TimerWheel<Ticket> tickets;
 
     private final Supplier<Long> clock;
 
-    private boolean sort;
+    //  The tickets expired at once, reused from an execution to another.
+    private final List<Ticket> expired = new ArrayList<>();
 
     public ZTicket()
     {
@@ -119,14 +120,9 @@ public final class ZTicket
     }
 
     ZTicket(Supplier<Long> clock)
-    {
-        this(clock, new ArrayList<>());
-    }
-
-    ZTicket(Supplier<Long> clock, List<Ticket> tickets)
     {
         this.clock = clock;
-        this.tickets = tickets;
+        this.tickets = new TimerWheel<>(now());
     }
 
     private long now()
@@ -136,7 +132,7 @@ public final class ZTicket
 
     private void insert(Ticket ticket)
     {
-        sort = tickets.add(ticket);
+        tickets.schedule(ticket.node, ticket.start + ticket.delay);
     }
 
     /**
@@ -166,17 +162,7 @@ public final class ZTicket
         if (tickets.isEmpty()) {
             return -1;
         }
-        sortIfNeeded();
-        //  Tickets are sorted, so check first ticket
-        Ticket first = tickets.get(0);
-        long time = first.start - now() + first.delay;
-
-        if (time > 0) {
-            return time;
-        }
-        else {
-            return 0;
-        }
+        return Math.max(0, tickets.nextExpiration() - now());
     }
 
     /**
@@ -185,42 +171,27 @@ public final class ZTicket
      */
     public int execute()
     {
-        int executed = 0;
         final long now = now();
-        sortIfNeeded();
-        Set<Ticket> cancelled = new HashSet<>();
-        for (Ticket ticket : this.tickets) {
-            if (now - ticket.start < ticket.delay) {
-                // tickets are ordered, not meeting the condition means the next ones do not as well
-                break;
-            }
-            if (!ticket.alive) {
-                //  Dead ticket, let's continue
-                cancelled.add(ticket);
+        TimerWheel.Timer<Ticket> node;
+        while ((node = tickets.expire(now)) != null) {
+            expired.add(node.payload());
+        }
+        int executed = 0;
+        for (Ticket ticket : expired) {
+            //  A previous handler may have cancelled or rescheduled it.
+            if (!ticket.alive || ticket.node.isScheduled()) {
                 continue;
             }
             ticket.alive = false;
-            cancelled.add(ticket);
             ticket.handler.time(ticket.args);
             ++executed;
         }
-        for (int idx = tickets.size(); idx-- > 0; ) {
-            Ticket ticket = tickets.get(idx);
-            if (ticket.alive) {
-                break;
-            }
-            cancelled.add(ticket);
-        }
-        this.tickets.removeAll(cancelled);
-        cancelled.clear();
+        expired.clear();
         return executed;
     }
 
-    private void sortIfNeeded()
+    int size()
     {
-        if (sort) {
-            sort = false;
-            Collections.sort(tickets);
-        }
+        return tickets.size();
     }
 }
@@ -8,6 +8,10 @@ public class Command
     final Type    type;
     final Object  arg;
 
+    //  True if the command was forwarded by the home thread of its destination
+    //  to the thread the destination moved to.
+    boolean forwarded;
+
     public enum Type
     {
         //  Sent to I/O thread to let it know that it should
@@ -59,7 +63,19 @@ public class Command
         //  are successfully deallocated.
         DONE,
         //  Cancel a single pending I/O call
-        CANCEL
+        CANCEL,
+        //  Sent to session to make it move with its engine to another
+        //  I/O thread.
+        MIGRATE,
+        //  Sent by the session to itself, in the I/O thread it moves to,
+        //  to plug its engine there.
+        REPLUG,
+        //  Sent by the session to its home thread once it has moved, or
+        //  given up moving, with the ID of the thread it is running in.
+        MIGRATED,
+        //  Sent to the session from the threads an engine offloaded work
+        //  to, once results are waiting for the engine.
+        OFFLOAD_DONE
     }
 
     Command(ZObject destination, Type type)
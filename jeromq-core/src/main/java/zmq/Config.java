@@ -30,17 +30,26 @@ public enum Config
     //  unnecessary network stack traversals.
     OUT_BATCH_SIZE(8192),
 
+    //  Size from which the content of a message is written to the network
+    //  directly from the message buffer, with a gathering write, instead of
+    //  being copied in the output batch.
+    OUT_GATHER_THRESHOLD(1024),
+
     //  Maximal delta between high and low watermark.
     MAX_WM_DELTA(1024),
 
     //  Maximum number of events the I/O thread can process in one go.
     MAX_IO_EVENTS(256),
 
-    //  Maximal delay to process command in API thread (in CPU ticks).
-    //  3,000,000 ticks equals to 1 - 2 milliseconds on current CPUs.
+    //  Maximal delay to process command in API thread (in microseconds).
     //  Note that delay is only applied when there is continuous stream of
     //  messages to process. If not so, commands are processed immediately.
-    MAX_COMMAND_DELAY(3000000),
+    MAX_COMMAND_DELAY(1000),
+
+    //  Number of times a thread waiting for a command checks its mailbox
+    //  before blocking on the signaler. Spinning avoids the cost of a
+    //  wake-up when the commands are closely following each other.
+    MAILBOX_SPIN_COUNT(100),
 
     //  Low-precision clock precision in CPU ticks. 1ms. Value of 1000000
     //  should be OK for CPU frequencies above 1GHz. If should work
@@ -16,6 +16,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
@@ -25,7 +28,9 @@ import java.util.function.BiFunction;
 import org.zeromq.ZMQException;
 
 import zmq.io.IOThread;
+import zmq.io.IOThreadLoad;
 import zmq.pipe.Pipe;
+import zmq.poll.Poller;
 import zmq.socket.Sockets;
 import zmq.util.Errno;
 import zmq.util.MultiMap;
@@ -140,9 +145,24 @@ public class Ctx
     // The thread factory used by the poller
     private BiFunction<Runnable, String, Thread> threadFactory;
 
+    // The factory of the pollers used by the I/O threads and the reaper
+    private BiFunction<Ctx, String, Poller> pollerFactory;
+
     //  Does context wait (possibly forever) on termination?
     private boolean blocky;
 
+    //  Do the sockets park the threads waiting for commands, instead of selecting?
+    private boolean parking;
+
+    //  Interval between two rebalancings of the I/O threads, in milliseconds.
+    private int rebalanceIvl;
+
+    //  Number of threads boxing and unboxing the CURVE messages, 0 to do it in the I/O threads.
+    private int cryptoThreads;
+
+    //  The pool of these threads, started with the first connection needing it.
+    private ExecutorService cryptoPool;
+
     //  Synchronization of access to context options.
     private final Lock optSync;
 
@@ -204,9 +224,13 @@ public class Ctx
         maxSockets = ZMQ.ZMQ_MAX_SOCKETS_DFLT;
         ioThreadCount = ZMQ.ZMQ_IO_THREADS_DFLT;
         threadFactory = this::createThread;
+        pollerFactory = Poller::new;
 
         ipv6 = false;
         blocky = true;
+        parking = false;
+        rebalanceIvl = 0;
+        cryptoThreads = 0;
         slotSync = new ReentrantLock();
         endpointsSync = new ReentrantLock();
         optSync = new ReentrantLock();
@@ -231,6 +255,11 @@ public class Ctx
         }
         ioThreads.clear();
 
+        if (cryptoPool != null) {
+            cryptoPool.shutdownNow();
+            cryptoPool = null;
+        }
+
         selectorSync.lock();
         try {
             for (Selector selector : selectors) {
@@ -264,6 +293,13 @@ public class Ctx
         return active;
     }
 
+    //  True once the termination started, when the sockets may have a stop
+    //  command waiting in their mailbox.
+    boolean isTerminating()
+    {
+        return terminating;
+    }
+
     /**
      * @return false if {@link #terminate()}terminate() has been called.
      * @deprecated use {@link #isActive()} instead
@@ -436,6 +472,27 @@ public class Ctx
         return threadFactory;
     }
 
+    /**
+     * Used to define the kind of {@link zmq.poll.Poller} running the I/O threads and the reaper. For instance,
+     * {@link zmq.poll.ChangeListPoller} reduces the cost of the selector bookkeeping for threads serving many connections.
+     *
+     * @param pollerFactory the factory, given the context and the name of the thread
+     * @throws IllegalStateException If context was already initialized by the creation of a socket
+     */
+    public void setPollerFactory(BiFunction<Ctx, String, Poller> pollerFactory)
+    {
+        chechStarted();
+        this.pollerFactory = pollerFactory;
+    }
+
+    /**
+     * @return the current poller factory
+     */
+    public BiFunction<Ctx, String, Poller> getPollerFactory()
+    {
+        return pollerFactory;
+    }
+
     /**
      * Set an option
      * @param option the option to set
@@ -475,6 +532,35 @@ public class Ctx
                 optSync.unlock();
             }
         }
+        else if (option == ZMQ.ZMQ_PARKING && optval >= 0) {
+            optSync.lock();
+            try {
+                parking = (optval != 0);
+            }
+            finally {
+                optSync.unlock();
+            }
+        }
+        else if (option == ZMQ.ZMQ_REBALANCE_IVL && optval >= 0) {
+            chechStarted();
+            optSync.lock();
+            try {
+                rebalanceIvl = optval;
+            }
+            finally {
+                optSync.unlock();
+            }
+        }
+        else if (option == ZMQ.ZMQ_CRYPTO_THREADS && optval >= 0) {
+            chechStarted();
+            optSync.lock();
+            try {
+                cryptoThreads = optval;
+            }
+            finally {
+                optSync.unlock();
+            }
+        }
         else if (option == ZMQ.ZMQ_IPV6 && optval >= 0) {
             optSync.lock();
             try {
@@ -502,6 +588,15 @@ public class Ctx
         else if (option == ZMQ.ZMQ_BLOCKY) {
             rc = blocky ? 1 : 0;
         }
+        else if (option == ZMQ.ZMQ_PARKING) {
+            rc = parking ? 1 : 0;
+        }
+        else if (option == ZMQ.ZMQ_REBALANCE_IVL) {
+            rc = rebalanceIvl;
+        }
+        else if (option == ZMQ.ZMQ_CRYPTO_THREADS) {
+            rc = cryptoThreads;
+        }
         else if (option == ZMQ.ZMQ_IPV6) {
             rc = ipv6 ? 1 : 0;
         }
@@ -621,6 +716,12 @@ public class Ctx
         }
     }
 
+    // Creates the Poller of an I/O thread or of the reaper.
+    public Poller createPoller(String name)
+    {
+        return pollerFactory.apply(this, name);
+    }
+
     // Creates a Selector that will be closed when the context is destroyed.
     public Selector createSelector()
     {
@@ -680,22 +781,65 @@ public class Ctx
             return null;
         }
 
-        //  Find the I/O thread with minimum load.
+        //  Find the least busy I/O thread, then the one with minimum load.
+        //  The utilization is compared in steps of 10%, so that the threads
+        //  almost as busy are told apart by their load.
+        int minBusy = -1;
         int minLoad = -1;
         IOThread selectedIoThread = null;
 
         for (int i = 0; i != ioThreads.size(); i++) {
             if (affinity == 0 || (affinity & (1L << i)) > 0) {
-                int load = ioThreads.get(i).getLoad();
-                if (selectedIoThread == null || load < minLoad) {
+                IOThread ioThread = ioThreads.get(i);
+                int busy = (int) (ioThread.getUtilization() * 10);
+                int load = ioThread.getLoad();
+                if (selectedIoThread == null || busy < minBusy || (busy == minBusy && load < minLoad)) {
+                    minBusy = busy;
                     minLoad = load;
-                    selectedIoThread = ioThreads.get(i);
+                    selectedIoThread = ioThread;
                 }
             }
         }
         return selectedIoThread;
     }
 
+    /**
+     * Returns a snapshot of the load of each I/O thread: the number of handles and stream engines it runs,
+     * their traffic, and the recent utilization of the thread.
+     *
+     * @return the loads, in the order of the I/O threads, empty if the context was not started yet.
+     */
+    public List<IOThreadLoad> getIoThreadsLoad()
+    {
+        List<IOThreadLoad> loads = new ArrayList<>();
+        for (IOThread ioThread : getIoThreads()) {
+            loads.add(ioThread.getLoadReport());
+        }
+        return loads;
+    }
+
+    /**
+     * Moves a stream engine, with its session, from the busiest I/O thread to the least busy one, if it narrows
+     * the difference of their utilization. This is done periodically with the {@link ZMQ#ZMQ_REBALANCE_IVL} option.
+     *
+     * @return true if an engine was asked to move.
+     */
+    public boolean rebalanceIoThreads()
+    {
+        return IOThread.rebalance(getIoThreads());
+    }
+
+    private List<IOThread> getIoThreads()
+    {
+        slotSync.lock();
+        try {
+            return new ArrayList<>(ioThreads);
+        }
+        finally {
+            slotSync.unlock();
+        }
+    }
+
     //  Management of inproc endpoints.
     boolean registerEndpoint(String addr, Endpoint endpoint)
     {
@@ -962,6 +1106,27 @@ public class Ctx
         }
     }
 
+    //  Returns the pool of threads the stream engines offload the boxing and
+    //  unboxing of their messages to, or null if they do it themselves.
+    public Executor getCryptoPool()
+    {
+        optSync.lock();
+        try {
+            if (cryptoThreads == 0) {
+                return null;
+            }
+            if (cryptoPool == null) {
+                AtomicInteger count = new AtomicInteger();
+                cryptoPool = Executors.newFixedThreadPool(cryptoThreads,
+                        r -> threadFactory.apply(r, "crypto-" + count.getAndIncrement()));
+            }
+            return cryptoPool;
+        }
+        finally {
+            optSync.unlock();
+        }
+    }
+
     private Thread createThread(Runnable target, String name)
     {
         Thread t = new Thread(target, name);
@@ -2,76 +2,205 @@ package zmq;
 
 import java.io.IOException;
 import java.nio.channels.SelectableChannel;
-import java.util.Deque;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
 import zmq.util.Errno;
 
+//  Mailbox of the threads and of the sockets.
+//
+//  Until its file descriptor is requested for polling, the mailbox doesn't need
+//  any pipe nor selector: the reader thread is parked while waiting, and woken up
+//  by the writers, so that signalling between two threads of the JVM, as with the
+//  inproc transport, costs no system call. Once polled, the signals go through a
+//  signaler, as the pollers wait for its file descriptor.
 public class Mailbox implements IMailbox
 {
+    //  Spinning is useless when there is no other CPU to run the sender.
+    private static final int SPIN_COUNT = Runtime.getRuntime().availableProcessors() > 1
+            ? Config.MAILBOX_SPIN_COUNT.getValue()
+            : 0;
+
     //  The pipe to store actual commands.
-    private final Deque<Command> cpipe;
+    private final Queue<Command> cpipe;
+
+    //  Signaler to pass signals from writer thread to reader thread, created with the file descriptor.
+    // kept it although a ConcurrentLinkedQueue, because the signaler channel is used in many places.
+    private volatile Signaler signaler;
 
-    //  Signaler to pass signals from writer thread to reader thread.
-    // kept it although a ConcurrentLinkedDeque, because the signaler channel is used in many places.
-    private final Signaler signaler;
+    //  Reader thread parked until a signal, while there is no signaler.
+    private volatile Thread waiter;
+
+    //  True if a signal was sent and not yet consumed by the reader thread.
+    //  While it is set, the reader is bound to drain the pipe, so the writers
+    //  don't need to signal the new commands.
+    private final AtomicBoolean signaled = new AtomicBoolean();
 
     // mailbox name, for better debugging
     private final String name;
 
     private final Errno errno;
 
+    private final Ctx ctx;
+    private final int tid;
+
     public Mailbox(Ctx ctx, String name, int tid)
     {
+        this.ctx = ctx;
+        this.tid = tid;
         this.errno = ctx.errno();
-        cpipe = new ConcurrentLinkedDeque<>();
-        signaler = new Signaler(ctx, tid, errno);
+        cpipe = new ConcurrentLinkedQueue<>();
 
         this.name = name;
     }
 
     public SelectableChannel getFd()
     {
-        return signaler.getFd();
+        Signaler current = signaler;
+        if (current == null) {
+            synchronized (this) {
+                current = signaler;
+                if (current == null) {
+                    current = new Signaler(ctx, tid, errno);
+                    signaler = current;
+                    //  The writers that did not see the signaler only woke up the reader,
+                    //  raise the signal they would have sent.
+                    if (signaled.get()) {
+                        current.send();
+                    }
+                    Thread thread = waiter;
+                    if (thread != null) {
+                        LockSupport.unpark(thread);
+                    }
+                }
+            }
+        }
+        return current.getFd();
     }
 
     @Override
     public void send(Command cmd)
     {
-        cpipe.addLast(cmd);
-        signaler.send();
+        cpipe.add(cmd);
+        //  Only the first command since the reader went through an empty pipe
+        //  needs to wake it up, the following ones are coalesced.
+        if (!signaled.get() && signaled.compareAndSet(false, true)) {
+            Signaler current = signaler;
+            if (current != null) {
+                current.send();
+            }
+            else {
+                Thread thread = waiter;
+                if (thread != null) {
+                    LockSupport.unpark(thread);
+                }
+            }
+        }
     }
 
     @Override
     public Command recv(long timeout)
     {
-        Command cmd = cpipe.pollFirst();
+        Command cmd = cpipe.poll();
+        if (cmd == null && timeout != 0) {
+            //  A command is often just about to come, so try a little
+            //  before blocking on the signaler.
+            cmd = spin();
+        }
         while (cmd == null) {
             //  Wait for signal from the command sender.
-            boolean rc = signaler.waitEvent(timeout);
+            Signaler current = signaler;
+            boolean rc = current == null ? await(timeout) : current.waitEvent(timeout);
             if (!rc) {
                 assert (errno.get() == ZError.EAGAIN || errno.get() == ZError.EINTR) : errno.get();
                 break;
             }
 
             //  Receive the signal.
-            signaler.recv();
-            if (errno.get() == ZError.EINTR) {
-                break;
+            if (current != null) {
+                current.recv();
+                if (errno.get() == ZError.EINTR) {
+                    break;
+                }
             }
+            //  The signal is consumed before checking the pipe, so any command
+            //  sent from now on will raise a new one.
+            signaled.set(false);
 
             //  Get a command.
             //  Another thread may already fetch the command, so loop on it
-            cmd = cpipe.pollFirst();
+            cmd = cpipe.poll();
         }
 
         return cmd;
     }
 
+    //  Waits for a signal without signaler, with the same outcomes as Signaler.waitEvent.
+    private boolean await(long timeout)
+    {
+        // Transform a interrupt signal in an errno EINTR
+        if (Thread.interrupted()) {
+            errno.set(ZError.EINTR);
+            return false;
+        }
+        if (signaled.get()) {
+            return true;
+        }
+        if (timeout == 0) {
+            errno.set(ZError.EAGAIN);
+            return false;
+        }
+
+        long deadline = timeout < 0 ? 0 : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        //  Register before checking the signal for the last time, so that
+        //  a writer either sees the waiter, or its signal is found.
+        waiter = Thread.currentThread();
+        try {
+            //  A signaler created meanwhile takes over the waiting.
+            while (!signaled.get() && signaler == null) {
+                if (timeout < 0) {
+                    LockSupport.park(this);
+                }
+                else {
+                    long nanos = deadline - System.nanoTime();
+                    if (nanos <= 0) {
+                        errno.set(ZError.EAGAIN);
+                        return false;
+                    }
+                    LockSupport.parkNanos(this, nanos);
+                }
+                if (Thread.interrupted()) {
+                    errno.set(ZError.EINTR);
+                    return false;
+                }
+            }
+            return true;
+        }
+        finally {
+            waiter = null;
+        }
+    }
+
+    private Command spin()
+    {
+        Command cmd = null;
+        for (int count = SPIN_COUNT; cmd == null && count > 0; --count) {
+            Thread.onSpinWait();
+            cmd = cpipe.poll();
+        }
+        return cmd;
+    }
+
     @Override
     public void close() throws IOException
     {
-        signaler.close();
+        Signaler current = signaler;
+        if (current != null) {
+            current.close();
+        }
     }
 
     @Override
@@ -1,26 +1,56 @@
 package zmq;
 
-import zmq.pipe.YPipe;
-import zmq.util.Errno;
-
-import java.util.ArrayList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.concurrent.locks.Condition;
 
-@Deprecated
+import zmq.util.Errno;
+
+//  Mailbox of the thread-safe sockets, and of the sockets of a parking context.
+//
+//  The commands are stored in a lock-free multiple producers, single consumer
+//  queue: the senders never take the socket lock. The receivers hold the socket
+//  lock, so there is only one of them at a time reading the queue, but they
+//  release it while they are parked waiting for a command, so that the other
+//  threads can keep on using the socket. Waiting doesn't need any pipe nor
+//  selector, the signalers are only there for the pollers of the socket.
 public class MailboxSafe implements IMailbox
 {
-    //  The pipe to store actual commands.
-    private final YPipe<Command> cpipe;
+    private static final class Node
+    {
+        private Command       cmd;
+        private volatile Node next;
 
-    //  Synchronize access to the mailbox from receivers and senders
-    private final ReentrantLock sync;
+        private Node(Command cmd)
+        {
+            this.cmd = cmd;
+        }
+    }
+
+    //  Last node of the queue, where the senders append the commands.
+    private final AtomicReference<Node> tail;
+
+    //  Node before the first command of the queue, only accessed by the receiver.
+    private Node head;
+
+    //  False once the receiver found the queue empty. The first sender after that
+    //  wakes up the receivers, the following ones don't need to.
+    private final AtomicBoolean active = new AtomicBoolean();
+
+    //  Threads parked until a command arrives.
+    private final Queue<Thread> waiters = new ConcurrentLinkedQueue<>();
 
-    //  Condition variable to pass signals from writer thread to reader thread.
-    private final Condition condition;
+    //  Number of commands taken while threads were waiting, only updated by the receivers.
+    private long taken;
 
-    private final ArrayList<Signaler> signalers;
+    //  Synchronize access to the mailbox from receivers
+    private final ReentrantLock sync;
+
+    private final Queue<Signaler> signalers = new ConcurrentLinkedQueue<>();
 
     // mailbox name, for better debugging
     private final String name;
@@ -30,17 +60,11 @@ public class MailboxSafe implements IMailbox
     public MailboxSafe(Ctx ctx, ReentrantLock sync, String name)
     {
         this.errno = ctx.errno();
-        this.cpipe = new YPipe<>(Config.COMMAND_PIPE_GRANULARITY.getValue());
         this.sync = sync;
-        this.condition = this.sync.newCondition();
-        this.signalers = new ArrayList<>(10);
         this.name = name;
 
-        //  Get the pipe into passive state. That way, if the users starts by
-        //  polling on the associated file descriptor it will get woken up when
-        //  new command is posted.
-        Command cmd = cpipe.read();
-        assert (cmd == null);
+        head = new Node(null);
+        tail = new AtomicReference<>(head);
     }
 
     public void addSignaler(Signaler signaler)
@@ -61,76 +85,131 @@ public class MailboxSafe implements IMailbox
     @Override
     public void send(Command cmd)
     {
-        sync.lock();
-        try {
-            cpipe.write(cmd, false);
-            boolean ok = cpipe.flush();
-
-            if (!ok) {
-                condition.signalAll();
-
-                for (Signaler signaler : signalers) {
-                    signaler.send();
-                }
+        Node node = new Node(cmd);
+        Node prev = tail.getAndSet(node);
+        prev.next = node;
+
+        //  Only the first command since a receiver went through an empty queue
+        //  needs to wake it up, the following ones are coalesced.
+        if (!active.get() && active.compareAndSet(false, true)) {
+            for (Thread waiter : waiters) {
+                LockSupport.unpark(waiter);
+            }
+            for (Signaler signaler : signalers) {
+                signaler.send();
             }
-        }
-        finally {
-            sync.unlock();
         }
     }
 
     @Override
     public Command recv(long timeout)
     {
-        Command cmd;
-
         //  Try to get the command straight away.
-        cmd = cpipe.read();
-        if (cmd != null) {
+        Command cmd = poll();
+        if (cmd != null || timeout == 0) {
+            if (cmd == null) {
+                errno.set(ZError.EAGAIN);
+            }
             return cmd;
         }
 
-        //  If the timeout is zero, it will be quicker to release the lock, giving other a chance to send a command
-        //  and immediately relock it.
-        if (timeout == 0) {
-            sync.unlock();
-            sync.lock();
-        }
-        else {
-            try {
-                //  Wait for signal from the command sender.
-                if (timeout == -1) {
-                    condition.await();
+        Thread thread = Thread.currentThread();
+        long deadline = timeout < 0 ? 0 : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+
+        //  Register before checking the queue for the last time, so that
+        //  a sender either sees the registration, or its command is found.
+        waiters.add(thread);
+        int holds = sync.isHeldByCurrentThread() ? sync.getHoldCount() : 0;
+        long seen = taken;
+        try {
+            while (true) {
+                cmd = poll();
+                if (cmd != null) {
+                    return cmd;
+                }
+                //  Another thread processed the command this one was waiting for,
+                //  and the condition it waited on may have changed.
+                if (taken != seen) {
+                    errno.set(ZError.EAGAIN);
+                    return null;
+                }
+                if (thread.isInterrupted()) {
+                    errno.set(ZError.EINTR);
+                    return null;
+                }
+
+                long nanos = 0;
+                if (timeout > 0) {
+                    nanos = deadline - System.nanoTime();
+                    if (nanos <= 0) {
+                        errno.set(ZError.EAGAIN);
+                        return null;
+                    }
+                }
+
+                //  Let the other threads use the socket while waiting for the sender.
+                for (int idx = 0; idx < holds; ++idx) {
+                    sync.unlock();
                 }
-                else {
-                    condition.await(timeout, TimeUnit.MILLISECONDS);
+                try {
+                    if (timeout < 0) {
+                        LockSupport.park(this);
+                    }
+                    else {
+                        LockSupport.parkNanos(this, nanos);
+                    }
+                }
+                finally {
+                    for (int idx = 0; idx < holds; ++idx) {
+                        sync.lock();
+                    }
                 }
             }
-            catch (InterruptedException e) {
-                // Restore interrupted state...
-                Thread.currentThread().interrupt();
-                errno.set(ZError.EINTR);
+        }
+        finally {
+            waiters.remove(thread);
+        }
+    }
+
+    //  Takes the first command of the queue, if any.
+    private Command poll()
+    {
+        Node next = head.next;
+        if (next == null) {
+            //  The signalers of an empty queue must not stay readable for the pollers.
+            if (!signalers.isEmpty()) {
+                for (Signaler signaler : signalers) {
+                    signaler.drain();
+                }
+            }
+            //  Go to sleep, then check again in case a sender did not see it.
+            active.set(false);
+            next = head.next;
+            if (next == null) {
                 return null;
             }
         }
-
-        //  Another thread may already fetch the command
-        cmd = cpipe.read();
-        if (cmd == null) {
-            errno.set(ZError.EAGAIN);
-            return null;
+        Command cmd = next.cmd;
+        //  The node becomes the head, and the command must not be retained.
+        next.cmd = null;
+        head = next;
+        if (!waiters.isEmpty()) {
+            //  The other waiting threads have to check their condition again.
+            ++taken;
+            Thread current = Thread.currentThread();
+            for (Thread waiter : waiters) {
+                if (waiter != current) {
+                    LockSupport.unpark(waiter);
+                }
+            }
         }
-
         return cmd;
     }
 
     @Override
     public void close()
     {
-        // Work around problem that other threads might still be in our
-        // send() method, by waiting on the mutex before disappearing.
-        sync.lock();
-        sync.unlock();
+        signalers.clear();
     }
 
     @Override
@@ -7,6 +7,7 @@ import java.nio.channels.SocketChannel;
 import java.util.Arrays;
 
 import zmq.io.Metadata;
+import zmq.msg.RefCounted;
 import zmq.util.Utils;
 import zmq.util.Wire;
 
@@ -111,6 +112,8 @@ public class Msg
 
     private final int        size;
     private final ByteBuffer buf;
+    // the reference counted owner of the buffer, if any
+    private final RefCounted content;
     // keep track of relative write position
     private int writeIndex = 0;
     // keep track of relative read position
@@ -130,6 +133,7 @@ public class Msg
         this.flags = 0;
         this.size = capacity;
         this.buf = ByteBuffer.wrap(new byte[capacity]).order(ByteOrder.BIG_ENDIAN);
+        this.content = null;
     }
 
     public Msg(byte[] src)
@@ -141,9 +145,23 @@ public class Msg
         this.flags = 0;
         this.size = src.length;
         this.buf = ByteBuffer.wrap(src).order(ByteOrder.BIG_ENDIAN);
+        this.content = null;
     }
 
     public Msg(ByteBuffer src)
+    {
+        this(src, null);
+    }
+
+    /**
+     * Creates a message whose buffer is owned by a reference counted content,
+     * typically from a pool of buffers.
+     * The message holds one reference, to be given back with {@link #release()}.
+     *
+     * @param src the buffer of the message.
+     * @param content the owner of the buffer, or null if the buffer is not shared.
+     */
+    public Msg(ByteBuffer src, RefCounted content)
     {
         if (src == null) {
             throw new IllegalArgumentException("ByteBuffer cannot be null");
@@ -152,6 +170,7 @@ public class Msg
         this.flags = 0;
         this.buf = src.duplicate();
         this.size = buf.remaining();
+        this.content = content;
     }
 
     public Msg(Msg m)
@@ -163,6 +182,11 @@ public class Msg
         this.flags = m.flags;
         this.size = m.size;
         this.buf = m.buf != null ? m.buf.duplicate() : null;
+        //  The copy shares the buffer, so it needs its own reference.
+        this.content = m.content;
+        if (content != null) {
+            content.addRefs(1);
+        }
     }
 
     private Msg(Msg src, ByteArrayOutputStream out)
@@ -257,8 +281,9 @@ public class Msg
             byte[] array = buf.array();
             int offset = buf.arrayOffset();
 
-            if (offset == 0 && array.length == size) {
+            if (offset == 0 && array.length == size && content == null) {
                 // If the backing array is exactly what we need, return it without copy.
+                // A shared buffer will be reused, so it is never handed over.
                 return array;
             }
             else {
@@ -523,4 +548,50 @@ public class Msg
     {
         routingId = 0;
     }
+
+    /**
+     * Tells if the buffer of this message is reference counted, and thus needs to be released.
+     *
+     * @return true if the buffer is reference counted.
+     */
+    public boolean isShared()
+    {
+        return content != null;
+    }
+
+    /**
+     * Adds references to the buffer of the message, when the same message is handed to
+     * several consumers, each of them releasing it. No-op if the buffer is not shared.
+     *
+     * @param refs the number of references to add.
+     */
+    public void addRefs(int refs)
+    {
+        if (content != null) {
+            content.addRefs(refs);
+        }
+    }
+
+    /**
+     * Removes references from the buffer of the message. No-op if the buffer is not shared.
+     *
+     * @param refs the number of references to remove.
+     * @return true if the buffer was given back to its owner.
+     */
+    public boolean rmRefs(int refs)
+    {
+        return content != null && content.rmRefs(refs);
+    }
+
+    /**
+     * Releases the reference held on the buffer of the message, allowing a pooled buffer
+     * to be reused once all its references are released. The content of the message must not
+     * be accessed afterward. No-op if the buffer is not shared.
+     *
+     * @return true if the buffer was given back to its owner.
+     */
+    public boolean release()
+    {
+        return rmRefs(1);
+    }
 }
@@ -7,6 +7,7 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLParameters;
@@ -42,13 +43,13 @@ public class Options
     public byte[] identity = ZMQ.DEFAULT_IDENTITY;
 
     //  Maximum tranfer rate [kb/s]. Default 100kb/s.
-    int rate = ZMQ.DEFAULT_RATE;
+    public int rate = ZMQ.DEFAULT_RATE;
 
     //  Reliability time interval [ms]. Default 10 seconds.
-    int recoveryIvl = ZMQ.DEFAULT_RECOVERY_IVL;
+    public int recoveryIvl = ZMQ.DEFAULT_RECOVERY_IVL;
 
     // Sets the time-to-live field in every multicast packet sent.
-    int multicastHops = ZMQ.DEFAULT_MULTICAST_HOPS;
+    public int multicastHops = ZMQ.DEFAULT_MULTICAST_HOPS;
 
     // SO_SNDBUF and SO_RCVBUF to be passed to underlying transport sockets.
     public int sndbuf = ZMQ.DEFAULT_SNDBUF;
@@ -151,6 +152,25 @@ public class Options
     // Set to <= 0 to disable this system.
     public MsgAllocator allocator = ZMQ.DEFAULT_MSG_ALLOCATOR;
 
+    // Received messages are read-only slices of the receive buffer, instead of copies.
+    public boolean msgSlicing = ZMQ.DEFAULT_MSG_SLICING;
+
+    // Pipes of the socket are ring buffers sized from the HWMs.
+    public boolean ringPipes = ZMQ.DEFAULT_RING_PIPES;
+
+    // Maximum delay, in microseconds, before processing the commands while sending messages.
+    public int maxCommandDelay = ZMQ.DEFAULT_MAX_COMMAND_DELAY;
+
+    // Size of the batches read from and written to the stream connections.
+    public int inBatchSize = ZMQ.DEFAULT_IN_BATCH_SIZE;
+    public int outBatchSize = ZMQ.DEFAULT_OUT_BATCH_SIZE;
+
+    // Largest size of the batches when they adapt to the traffic, 0 if they are fixed.
+    public int adaptiveBatch = ZMQ.DEFAULT_ADAPTIVE_BATCH;
+
+    // Maximum delay, in milliseconds, of the messages waiting for an output batch to fill, 0 to disable.
+    public int coalesceIvl = ZMQ.DEFAULT_COALESCE_IVL;
+
     // Hello msg to send to peer upon connecting
     public Msg helloMsg = ZMQ.DEFAULT_HELLO_MSG;
     public boolean canSendHelloMsg = false;
@@ -527,6 +547,59 @@ public class Options
             allocator = new MsgAllocatorThreshold(allocationHeapThreshold);
             return true;
 
+        case ZMQ.ZMQ_MSG_SLICING:
+            msgSlicing = parseBoolean(option, optval);
+            return true;
+
+        case ZMQ.ZMQ_RING_PIPES:
+            ringPipes = parseBoolean(option, optval);
+            return true;
+
+        case ZMQ.ZMQ_MAX_COMMAND_DELAY:
+            if (optval instanceof Duration) {
+                maxCommandDelay = (int) TimeUnit.NANOSECONDS.toMicros(((Duration) optval).toNanos());
+            }
+            else {
+                maxCommandDelay = ((Number) optval).intValue();
+            }
+            if (maxCommandDelay < 0) {
+                throw new IllegalArgumentException("maxCommandDelay " + optval);
+            }
+            return true;
+
+        case ZMQ.ZMQ_IN_BATCH_SIZE:
+            inBatchSize = ((Number) optval).intValue();
+            if (inBatchSize <= 0) {
+                throw new IllegalArgumentException("inBatchSize " + optval);
+            }
+            return true;
+
+        case ZMQ.ZMQ_OUT_BATCH_SIZE:
+            outBatchSize = ((Number) optval).intValue();
+            if (outBatchSize <= 0) {
+                throw new IllegalArgumentException("outBatchSize " + optval);
+            }
+            return true;
+
+        case ZMQ.ZMQ_ADAPTIVE_BATCH:
+            adaptiveBatch = ((Number) optval).intValue();
+            if (adaptiveBatch < 0) {
+                throw new IllegalArgumentException("adaptiveBatch " + optval);
+            }
+            return true;
+
+        case ZMQ.ZMQ_COALESCE_IVL:
+            if (optval instanceof Duration) {
+                coalesceIvl = (int) ((Duration) optval).toMillis();
+            }
+            else {
+                coalesceIvl = ((Number) optval).intValue();
+            }
+            if (coalesceIvl < 0) {
+                throw new IllegalArgumentException("coalesceIvl " + optval);
+            }
+            return true;
+
         case ZMQ.ZMQ_HELLO_MSG:
             if (optval == null) {
                 helloMsg = null;
@@ -863,6 +936,27 @@ public class Options
                 return (T) Integer.valueOf(-1);
             }
 
+        case ZMQ.ZMQ_MSG_SLICING:
+            return (T) Boolean.valueOf(msgSlicing);
+
+        case ZMQ.ZMQ_RING_PIPES:
+            return (T) Boolean.valueOf(ringPipes);
+
+        case ZMQ.ZMQ_MAX_COMMAND_DELAY:
+            return (T) Integer.valueOf(maxCommandDelay);
+
+        case ZMQ.ZMQ_IN_BATCH_SIZE:
+            return (T) Integer.valueOf(inBatchSize);
+
+        case ZMQ.ZMQ_OUT_BATCH_SIZE:
+            return (T) Integer.valueOf(outBatchSize);
+
+        case ZMQ.ZMQ_ADAPTIVE_BATCH:
+            return (T) Integer.valueOf(adaptiveBatch);
+
+        case ZMQ.ZMQ_COALESCE_IVL:
+            return (T) Integer.valueOf(coalesceIvl);
+
         case ZMQ.ZMQ_AS_TYPE:
             return (T) Integer.valueOf(asType);
 
@@ -0,0 +1,65 @@
+package zmq;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//  Placement of objects moved out of the I/O thread they belong to. The commands
+//  are still sent to their home thread, that forwards them to the thread running
+//  the objects. While the objects move, the commands are held, to be forwarded
+//  in order once they have arrived.
+//  Only used by the home thread.
+final class Placement
+{
+    private final Ctx ctx;
+
+    //  Thread the objects belong to.
+    private final int home;
+
+    //  Thread processing the commands of the objects.
+    private int tid;
+
+    //  True between the request to move and the notification of the arrival.
+    private boolean moving;
+
+    //  Commands received while moving.
+    private final List<Command> held = new ArrayList<>();
+
+    Placement(Ctx ctx, int home)
+    {
+        this.ctx = ctx;
+        this.home = home;
+        tid = home;
+        //  Created by the first move.
+        moving = true;
+    }
+
+    //  Returns true if the command was taken care of, false if it has to be
+    //  processed right now in the home thread.
+    boolean dispatch(Command cmd)
+    {
+        if (cmd.type == Command.Type.MIGRATED) {
+            tid = (Integer) cmd.arg;
+            moving = false;
+
+            List<Command> commands = new ArrayList<>(held);
+            held.clear();
+            for (Command command : commands) {
+                command.process();
+            }
+            return true;
+        }
+        if (moving) {
+            held.add(cmd);
+            return true;
+        }
+        if (cmd.type == Command.Type.MIGRATE) {
+            moving = true;
+        }
+        if (tid == home) {
+            return false;
+        }
+        cmd.forwarded = true;
+        ctx.sendCommand(tid, cmd);
+        return true;
+    }
+}
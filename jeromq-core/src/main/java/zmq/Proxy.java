@@ -4,6 +4,7 @@ import java.nio.channels.Selector;
 import java.util.Arrays;
 
 import zmq.poll.PollItem;
+import zmq.poll.PollSet;
 
 class Proxy
 {
@@ -56,12 +57,22 @@ class Proxy
         itemsout[0] = new PollItem(frontend, ZMQ.ZMQ_POLLOUT);
         itemsout[1] = new PollItem(backend, ZMQ.ZMQ_POLLOUT);
 
+        //  The items stay registered between the polls, each set in its own selector.
         Selector selector = frontend.getCtx().createSelector();
+        Selector selectorout = frontend.getCtx().createSelector();
+        PollSet pollset = new PollSet(selector);
+        PollSet pollsetout = new PollSet(selectorout);
+        for (PollItem item : items) {
+            pollset.register(item);
+        }
+        for (PollItem item : itemsout) {
+            pollsetout.register(item);
+        }
 
         try {
             while (state != State.TERMINATED) {
                 //  Wait while there are either requests or replies to process.
-                rc = ZMQ.poll(selector, items, -1);
+                rc = pollset.poll(-1);
                 if (rc < 0) {
                     return false;
                 }
@@ -70,7 +81,7 @@ class Proxy
                 //  because pollout shall most of the time return directly.
                 //  POLLOUT is only checked when frontend and backend sockets are not the same.
                 if (frontend != backend) {
-                    rc = ZMQ.poll(selector, itemsout, 0L);
+                    rc = pollsetout.poll(0L);
                     if (rc < 0) {
                         return false;
                     }
@@ -127,6 +138,7 @@ class Proxy
         }
         finally {
             frontend.getCtx().closeSelector(selector);
+            frontend.getCtx().closeSelector(selectorout);
         }
 
         return true;
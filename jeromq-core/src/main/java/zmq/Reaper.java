@@ -25,18 +25,29 @@ class Reaper extends ZObject implements IPollEvents, Closeable
     //  If true, we were already asked to terminate.
     private final AtomicBoolean terminating = new AtomicBoolean();
 
+    //  ID of the timer rebalancing the I/O threads
+    private static final int REBALANCE_TIMER_ID = 0x30;
+
+    //  Interval between two rebalancings of the I/O threads, 0 if disabled.
+    private final int rebalanceIvl;
+
     Reaper(Ctx ctx, int tid)
     {
         super(ctx, tid);
         socketsReaping = 0;
         String name = "reaper-" + tid;
-        poller = new Poller(ctx, name);
+        poller = ctx.createPoller(name);
 
         mailbox = new Mailbox(ctx, name, tid);
 
         SelectableChannel fd = mailbox.getFd();
         mailboxHandle = poller.addHandle(fd, this);
         poller.setPollIn(mailboxHandle);
+
+        rebalanceIvl = ctx.get(ZMQ.ZMQ_REBALANCE_IVL);
+        if (rebalanceIvl > 0) {
+            poller.addTimer(rebalanceIvl, this, REBALANCE_TIMER_ID);
+        }
     }
 
     @Override
@@ -78,6 +89,16 @@ class Reaper extends ZObject implements IPollEvents, Closeable
         }
     }
 
+    @Override
+    public void timerEvent(int id)
+    {
+        assert (id == REBALANCE_TIMER_ID);
+        if (!terminating.get()) {
+            getCtx().rebalanceIoThreads();
+            poller.addTimer(rebalanceIvl, this, REBALANCE_TIMER_ID);
+        }
+    }
+
     @Override
     protected void processStop()
     {
@@ -213,6 +213,14 @@ class Signaler implements Closeable
         rcursor++;
     }
 
+    //  Receives the signals already sent, without waiting for new ones.
+    void drain()
+    {
+        while (rcursor < wcursor.get() && r.isOpen()) {
+            recv();
+        }
+    }
+
     @Override
     public String toString()
     {
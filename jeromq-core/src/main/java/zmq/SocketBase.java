@@ -6,6 +6,7 @@ import java.nio.channels.SelectableChannel;
 import java.nio.channels.SocketChannel;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -101,8 +102,14 @@ public abstract class SocketBase extends Own implements IPollEvents, Pipe.IPipeE
     private Poller poller;
     private Poller.Handle handle;
 
-    //  Timestamp of when commands were processed the last time.
-    private long lastTsc;
+    //  Signaler polled by the reaper when the socket has a safe mailbox.
+    private Signaler reaperSignaler;
+
+    //  Signaler returned as file descriptor of a parking socket, created on demand.
+    private Signaler pollSignaler;
+
+    //  Timestamp of when commands were processed the last time, in nanoseconds.
+    private long lastCommands;
 
     //  Number of messages received since last command processing.
     private int ticks;
@@ -139,7 +146,7 @@ public abstract class SocketBase extends Own implements IPollEvents, Pipe.IPipeE
         ctxTerminated = new AtomicBoolean();
         isInEventThreadLocal = new ThreadLocal<>();
         destroyed = new AtomicBoolean();
-        lastTsc = 0;
+        lastCommands = 0;
         ticks = 0;
         rcvmore = false;
         monitorEvents = 0;
@@ -156,7 +163,13 @@ public abstract class SocketBase extends Own implements IPollEvents, Pipe.IPipeE
         this.threadSafe = threadSafe;
         this.threadSafeSync = new ReentrantLock();
 
-        mailbox = new Mailbox(parent, "socket-" + sid, tid);
+        //  A parking socket waits for its commands without selector, like the thread safe ones.
+        if (threadSafe || parent.get(ZMQ.ZMQ_PARKING) != 0) {
+            mailbox = new MailboxSafe(parent, threadSafeSync, "socket-" + sid);
+        }
+        else {
+            mailbox = new Mailbox(parent, "socket-" + sid, tid);
+        }
     }
 
     //  Concrete algorithms for the x- methods are to be defined by
@@ -179,6 +192,12 @@ public abstract class SocketBase extends Own implements IPollEvents, Pipe.IPipeE
         synchronized (monitor) {
             try {
                 mailbox.close();
+                if (reaperSignaler != null) {
+                    reaperSignaler.close();
+                }
+                if (pollSignaler != null) {
+                    pollSignaler.close();
+                }
             }
             catch (IOException ignore) {
             }
@@ -345,13 +364,7 @@ public abstract class SocketBase extends Own implements IPollEvents, Pipe.IPipeE
         }
 
         if (option == ZMQ.ZMQ_FD) {
-            if (threadSafe) {
-                // thread safe socket doesn't provide file descriptor
-                errno.set(ZError.EINVAL);
-                return null;
-            }
-
-            return (T) ((Mailbox) mailbox).getFd();
+            return (T) getFD();
         }
 
         if (option == ZMQ.ZMQ_EVENTS) {
@@ -538,7 +551,7 @@ public abstract class SocketBase extends Own implements IPollEvents, Pipe.IPipeE
 
             int[] hwms = {conflate ? -1 : sndhwm, conflate ? -1 : rcvhwm};
             boolean[] conflates = {conflate, conflate};
-            Pipe[] pipes = Pipe.pair(parents, hwms, conflates);
+            Pipe[] pipes = Pipe.pair(parents, hwms, conflates, options.ringPipes);
 
             //  Attach local end of the pipe to this socket object.
             attachPipe(pipes[0], true);
@@ -660,7 +673,7 @@ public abstract class SocketBase extends Own implements IPollEvents, Pipe.IPipeE
 
             int[] hwms = {conflate ? -1 : options.sendHwm, conflate ? -1 : options.recvHwm};
             boolean[] conflates = {conflate, conflate};
-            Pipe[] pipes = Pipe.pair(parents, hwms, conflates);
+            Pipe[] pipes = Pipe.pair(parents, hwms, conflates, options.ringPipes);
 
             //  Attach local end of the pipe to the socket object.
             attachPipe(pipes[0], subscribe2all, true);
@@ -875,6 +888,105 @@ public abstract class SocketBase extends Own implements IPollEvents, Pipe.IPipeE
         }
     }
 
+    public int sendBatch(List<Msg> msgs, int flags)
+    {
+        return sendBatch(msgs.toArray(new Msg[0]), msgs.size(), flags);
+    }
+
+    //  Sends the first count messages of the array at once: the socket is locked
+    //  and the commands are processed a single time, and the pipes are flushed at
+    //  the end of the batch. Each message is sent with its own MORE flag.
+    //  Returns the number of messages sent, or -1 if none could be sent.
+    public int sendBatch(Msg[] msgs, int count, int flags)
+    {
+        lock();
+
+        try {
+            //  Check whether the library haven't been shut down yet.
+            if (ctxTerminated.get()) {
+                errno.set(ZError.ETERM);
+                return -1;
+            }
+
+            if (msgs == null || count < 0 || count > msgs.length) {
+                errno.set(ZError.EFAULT);
+                return -1;
+            }
+
+            //  Process pending commands, if any.
+            if (!processCommands(0, true, null)) {
+                return -1;
+            }
+
+            batch(true);
+            try {
+                int sent = 0;
+                int timeout = options.sendTimeout;
+                long end = -1;
+                while (sent < count) {
+                    Msg msg = msgs[sent];
+                    //  Check whether message passed to the function is valid.
+                    if (msg == null || !msg.check()) {
+                        errno.set(ZError.EFAULT);
+                        break;
+                    }
+                    msg.resetMetadata();
+
+                    if (xsend(msg)) {
+                        ++sent;
+                        continue;
+                    }
+                    if (errno.get() != ZError.EAGAIN) {
+                        break;
+                    }
+
+                    //  In case of non-blocking send we'll simply return the messages sent.
+                    if ((flags & ZMQ.ZMQ_DONTWAIT) > 0 || timeout == 0) {
+                        break;
+                    }
+                    if (end < 0) {
+                        end = timeout < 0 ? 0 : (Clock.nowMS() + timeout);
+                    }
+                    else if (timeout > 0) {
+                        timeout = (int) (end - Clock.nowMS());
+                        if (timeout <= 0) {
+                            errno.set(ZError.EAGAIN);
+                            break;
+                        }
+                    }
+
+                    //  The peers have to see the messages already written to make room
+                    //  for the next ones.
+                    batch(false);
+                    batch(true);
+                    if (!processCommands(timeout, false, null)) {
+                        break;
+                    }
+                }
+                return sent == 0 && count > 0 ? -1 : sent;
+            }
+            finally {
+                batch(false);
+            }
+        }
+        finally {
+            unlock();
+        }
+    }
+
+    //  Starts or ends a batch of messages written to the pipes.
+    private void batch(boolean start)
+    {
+        for (Pipe pipe : pipes) {
+            if (start) {
+                pipe.startBatch();
+            }
+            else {
+                pipe.endBatch();
+            }
+        }
+    }
+
     public Msg recv(int flags)
     {
         return recv(flags, null);
@@ -982,6 +1094,47 @@ public abstract class SocketBase extends Own implements IPollEvents, Pipe.IPipeE
         }
     }
 
+    //  Receives up to max messages at once in the array: the socket is locked
+    //  a single time, and once a message is received, the ones already available
+    //  are taken without waiting for more. The flags apply to the first message.
+    //  Returns the number of messages received, or -1 if none could be received.
+    public int recvBatch(Msg[] msgs, int max, int flags)
+    {
+        if (msgs == null || max < 0 || max > msgs.length) {
+            errno.set(ZError.EFAULT);
+            return -1;
+        }
+        if (max == 0) {
+            return 0;
+        }
+
+        lock();
+
+        try {
+            Msg msg = recv(flags, null);
+            if (msg == null) {
+                return -1;
+            }
+            msgs[0] = msg;
+            int received = 1;
+            while (received < max) {
+                msg = xrecv();
+                if (msg == null) {
+                    break;
+                }
+                if (fileDesc != null) {
+                    msg.setFd(fileDesc);
+                }
+                extractFlags(msg);
+                msgs[received++] = msg;
+            }
+            return received;
+        }
+        finally {
+            unlock();
+        }
+    }
+
     public boolean join(String group)
     {
         lock();
@@ -1113,7 +1266,17 @@ public abstract class SocketBase extends Own implements IPollEvents, Pipe.IPipeE
         this.poller = poller;
         SelectableChannel fd;
 
-        fd = ((Mailbox) mailbox).getFd();
+        if (mailbox instanceof MailboxSafe) {
+            //  The safe mailbox has no file descriptor, the reaper polls a signaler
+            //  raised with the commands instead. Raise it once for the commands already there.
+            reaperSignaler = new Signaler(getCtx(), getTid(), errno);
+            ((MailboxSafe) mailbox).addSignaler(reaperSignaler);
+            fd = reaperSignaler.getFd();
+            reaperSignaler.send();
+        }
+        else {
+            fd = ((Mailbox) mailbox).getFd();
+        }
 
         handle = this.poller.addHandle(fd, this);
         this.poller.setPollIn(handle);
@@ -1146,23 +1309,20 @@ public abstract class SocketBase extends Own implements IPollEvents, Pipe.IPipeE
             //  If we are asked not to wait, check whether we haven't processed
             //  commands recently, so that we can throttle the new commands.
 
-            //  Get the CPU's tick counter. If 0, the counter is not available.
-            long tsc = 0; // Clock.rdtsc();
-
             //  Optimized version of command processing - it doesn't have to check
             //  for incoming commands each time. It does so only if certain time
-            //  elapsed since last command processing. Command delay varies
-            //  depending on CPU speed: It's ~1ms on 3GHz CPU, ~2ms on 1.5GHz CPU
-            //  etc. The optimization makes sense only on platforms where getting
-            //  a timestamp is a very cheap operation (tens of nanoseconds).
-            if (tsc != 0 && throttle) {
-                //  Check whether TSC haven't jumped backwards (in case of migration
-                //  between CPU cores) and whether certain time have elapsed since
-                //  last command processing. If it didn't do nothing.
-                if (tsc >= lastTsc && tsc - lastTsc <= Config.MAX_COMMAND_DELAY.getValue()) {
+            //  elapsed since last command processing. The monotonic clock is read
+            //  in tens of nanoseconds, much less than polling the mailbox.
+            if (throttle && options.maxCommandDelay > 0) {
+                //  Check whether certain time have elapsed since last command
+                //  processing. If it didn't do nothing, unless the context is
+                //  terminating, so that the stop command is not delayed.
+                long now = Clock.nowNS();
+                if (lastCommands != 0 && now - lastCommands <= options.maxCommandDelay * 1000L
+                        && !getCtx().isTerminating()) {
                     return true;
                 }
-                lastTsc = tsc;
+                lastCommands = now;
             }
 
             //  Check whether there are any commands pending for this thread.
@@ -1329,6 +1489,7 @@ public abstract class SocketBase extends Own implements IPollEvents, Pipe.IPipeE
 
         try {
             enterInEvent();
+            //  The mailbox consumes the signal of the reaper once it is empty.
             processCommands(0, false, null);
         }
         finally {
@@ -1615,9 +1776,20 @@ public abstract class SocketBase extends Own implements IPollEvents, Pipe.IPipeE
     public SelectableChannel getFD()
     {
         if (threadSafe) {
+            // thread safe socket doesn't provide file descriptor
             errno.set(ZError.EINVAL);
             return null;
         }
+        if (mailbox instanceof MailboxSafe) {
+            //  A parking socket is signaled for the pollers only once it has been polled.
+            //  Raise the signal once for the commands already there.
+            if (pollSignaler == null) {
+                pollSignaler = new Signaler(getCtx(), getTid(), errno);
+                ((MailboxSafe) mailbox).addSignaler(pollSignaler);
+                pollSignaler.send();
+            }
+            return pollSignaler.getFd();
+        }
 
         return ((Mailbox) mailbox).getFd();
     }
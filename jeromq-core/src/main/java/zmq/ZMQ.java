@@ -160,6 +160,24 @@ public class ZMQ
     public static final int ZMQ_TLS_CONTEXT                   = ZMQ_CUSTOM_OPTION + 8;
     public static final int ZMQ_TLS_PARAMETERS                = ZMQ_CUSTOM_OPTION + 9;
     public static final int ZMQ_TLS_PRINCIPAL_CONVERT         = ZMQ_CUSTOM_OPTION + 10;
+    public static final int ZMQ_MSG_SLICING                   = ZMQ_CUSTOM_OPTION + 11;
+    public static final int ZMQ_RING_PIPES                    = ZMQ_CUSTOM_OPTION + 12;
+    public static final int ZMQ_XPUB_MATCH_CACHE              = ZMQ_CUSTOM_OPTION + 13;
+    public static final int ZMQ_MAX_COMMAND_DELAY             = ZMQ_CUSTOM_OPTION + 14;
+    //  Context option, the sockets wait for their commands by parking the thread.
+    public static final int ZMQ_PARKING                       = ZMQ_CUSTOM_OPTION + 15;
+    //  Context option, milliseconds between two rebalancings of the stream engines
+    //  over the I/O threads, 0 to disable.
+    public static final int ZMQ_REBALANCE_IVL                 = ZMQ_CUSTOM_OPTION + 16;
+    public static final int ZMQ_IN_BATCH_SIZE                 = ZMQ_CUSTOM_OPTION + 17;
+    public static final int ZMQ_OUT_BATCH_SIZE                = ZMQ_CUSTOM_OPTION + 18;
+    //  Largest size of the batches growing with the traffic, 0 to keep them fixed.
+    public static final int ZMQ_ADAPTIVE_BATCH                = ZMQ_CUSTOM_OPTION + 19;
+    //  Milliseconds the small messages wait to be written together, 0 to write them at once.
+    public static final int ZMQ_COALESCE_IVL                  = ZMQ_CUSTOM_OPTION + 20;
+    //  Context option, number of threads boxing and unboxing the CURVE messages,
+    //  0 to do it in the I/O threads.
+    public static final int ZMQ_CRYPTO_THREADS                = ZMQ_CUSTOM_OPTION + 21;
 
     /*  Message options                                                           */
     public static final int ZMQ_MORE = 1;
@@ -348,6 +366,34 @@ public class ZMQ
      * Default value for {@link ZMQ#ZMQ_MSG_ALLOCATOR}
      */
     public static final MsgAllocator DEFAULT_MSG_ALLOCATOR = new MsgAllocatorThreshold(DEFAULT_ALLOCATION_HEAP_THRESHOLD);
+    /**
+     * Default value for {@link ZMQ#ZMQ_MSG_SLICING}
+     */
+    public static final boolean DEFAULT_MSG_SLICING = false;
+    /**
+     * Default value for {@link ZMQ#ZMQ_RING_PIPES}
+     */
+    public static final boolean DEFAULT_RING_PIPES = false;
+    /**
+     * Default value for {@link ZMQ#ZMQ_MAX_COMMAND_DELAY}, in microseconds
+     */
+    public static final int DEFAULT_MAX_COMMAND_DELAY = Config.MAX_COMMAND_DELAY.getValue();
+    /**
+     * Default value for {@link ZMQ#ZMQ_IN_BATCH_SIZE}
+     */
+    public static final int DEFAULT_IN_BATCH_SIZE = Config.IN_BATCH_SIZE.getValue();
+    /**
+     * Default value for {@link ZMQ#ZMQ_OUT_BATCH_SIZE}
+     */
+    public static final int DEFAULT_OUT_BATCH_SIZE = Config.OUT_BATCH_SIZE.getValue();
+    /**
+     * Default value for {@link ZMQ#ZMQ_ADAPTIVE_BATCH}
+     */
+    public static final int DEFAULT_ADAPTIVE_BATCH = 0;
+    /**
+     * Default value for {@link ZMQ#ZMQ_COALESCE_IVL}, in milliseconds
+     */
+    public static final int DEFAULT_COALESCE_IVL = 0;
     /**
      * Default value for {@link ZMQ#ZMQ_RECONNECT_IVL}
      */
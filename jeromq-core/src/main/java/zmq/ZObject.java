@@ -16,6 +16,10 @@ public abstract class ZObject
     //  Thread ID of the thread the object belongs to.
     private int tid;
 
+    //  Where the object processes its commands once it has moved out of the
+    //  thread it belongs to. Shared with the objects moving along with it.
+    private Placement placement;
+
     protected ZObject(Ctx ctx, int tid)
     {
         this.ctx = ctx;
@@ -25,6 +29,7 @@ public abstract class ZObject
     protected ZObject(ZObject parent)
     {
         this(parent.ctx, parent.tid);
+        placement = parent.placement;
     }
 
     public int getTid()
@@ -46,6 +51,10 @@ public abstract class ZObject
     void processCommand(Command cmd)
     {
         //        System.out.println(Thread.currentThread().getName() + ": Processing command " + cmd);
+        if (placement != null && !cmd.forwarded && placement.dispatch(cmd)) {
+            //  The command is processed in the thread the object moved to.
+            return;
+        }
         switch (cmd.type) {
         case ACTIVATE_READ:
             processActivateRead();
@@ -123,6 +132,19 @@ public abstract class ZObject
             processCancel();
             break;
 
+        case MIGRATE:
+            processMigrate((IOThread) cmd.arg);
+            break;
+
+        case REPLUG:
+            processReplug((IOThread) cmd.arg);
+            break;
+
+        case OFFLOAD_DONE:
+            processOffloadDone();
+            break;
+
+        case MIGRATED:
         case DONE:
         default:
             throw new IllegalArgumentException();
@@ -314,6 +336,53 @@ public abstract class ZObject
         sendCommand(cmd);
     }
 
+    protected void sendMigrate(SessionBase destination, IOThread target)
+    {
+        Command cmd = new Command(destination, Command.Type.MIGRATE, target);
+        sendCommand(cmd);
+    }
+
+    //  Sent straight to the I/O thread the object moves to.
+    protected void sendReplug(IOThread target)
+    {
+        Command cmd = new Command(this, Command.Type.REPLUG, target);
+        cmd.forwarded = true;
+        ctx.sendCommand(target.getTid(), cmd);
+    }
+
+    protected void sendOffloadDone(ZObject destination)
+    {
+        Command cmd = new Command(destination, Command.Type.OFFLOAD_DONE);
+        sendCommand(cmd);
+    }
+
+    protected void sendMigrated(int host)
+    {
+        if (placement == null) {
+            //  The object never moved, there is nothing to release.
+            return;
+        }
+        Command cmd = new Command(this, Command.Type.MIGRATED, host);
+        sendCommand(cmd);
+    }
+
+    //  Called from the thread processing the commands of the object, when it
+    //  starts moving. The followers are the objects moving along with it, the
+    //  objects created afterwards by the object follow it by themselves.
+    protected void startMoving(ZObject... followers)
+    {
+        if (placement != null) {
+            return;
+        }
+        //  First move, from the home thread.
+        placement = new Placement(ctx, tid);
+        for (ZObject follower : followers) {
+            if (follower != null) {
+                follower.placement = placement;
+            }
+        }
+    }
+
     protected void processStop()
     {
         throw new UnsupportedOperationException();
@@ -405,6 +474,21 @@ public abstract class ZObject
     {
     }
 
+    protected void processMigrate(IOThread target)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    protected void processReplug(IOThread target)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    protected void processOffloadDone()
+    {
+        throw new UnsupportedOperationException();
+    }
+
     private void sendCommand(Command cmd)
     {
         ctx.sendCommand(cmd.destination.getTid(), cmd);
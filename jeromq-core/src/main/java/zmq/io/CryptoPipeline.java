@@ -0,0 +1,210 @@
+package zmq.io;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import zmq.Msg;
+import zmq.io.mechanism.Mechanism;
+
+//  Boxes and unboxes the messages of a connection in the threads of a pool,
+//  so that its I/O thread only reads and writes them. Each direction is a
+//  strand: a single task at a time works on it, taking the messages in the
+//  order they came in, so that they come out in that order and the nonces
+//  of the mechanism follow each other. Once results are waiting, the I/O
+//  thread is woken up with a command sent to the session, only one until
+//  it takes them.
+final class CryptoPipeline
+{
+    //  Number of messages of a direction between the I/O thread and the pool,
+    //  before the I/O thread stops feeding it.
+    static final int MAX_IN_FLIGHT = 256;
+
+    //  Result of a message the mechanism could not unbox.
+    static final Msg FAILED = new Msg();
+
+    private final class Strand implements Runnable
+    {
+        private final Function<Msg, Msg> transform;
+
+        private final Queue<Msg> input  = new ConcurrentLinkedQueue<>();
+        private final Queue<Msg> output = new ConcurrentLinkedQueue<>();
+
+        //  Messages offered and not taken yet.
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        //  True while a task of the pool works on the strand, or is about to.
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Strand(Function<Msg, Msg> transform)
+        {
+            this.transform = transform;
+        }
+
+        private void offer(Msg msg)
+        {
+            if (closed) {
+                msg.release();
+                return;
+            }
+            inFlight.incrementAndGet();
+            input.add(msg);
+            schedule();
+        }
+
+        private Msg poll()
+        {
+            Msg msg = output.poll();
+            if (msg != null) {
+                inFlight.decrementAndGet();
+            }
+            return msg;
+        }
+
+        private boolean isFull()
+        {
+            return inFlight.get() >= MAX_IN_FLIGHT;
+        }
+
+        private void schedule()
+        {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    pool.execute(this);
+                }
+                catch (RejectedExecutionException e) {
+                    //  The context is terminating.
+                    closed = true;
+                }
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            Msg msg;
+            while (!closed && (msg = input.poll()) != null) {
+                Msg result = transform.apply(msg);
+                output.add(result == null ? FAILED : result);
+                signal();
+            }
+            scheduled.set(false);
+
+            if (closed) {
+                //  The pipeline may have been closed while the last message was transformed.
+                drain();
+            }
+            else if (!input.isEmpty()) {
+                //  A message may have been offered after the last poll.
+                schedule();
+            }
+        }
+
+        //  Releases the messages left in the strand.
+        private void drain()
+        {
+            Msg msg;
+            while ((msg = input.poll()) != null) {
+                msg.release();
+            }
+            while ((msg = output.poll()) != null) {
+                if (msg != FAILED) {
+                    msg.release();
+                }
+            }
+        }
+    }
+
+    private final Executor    pool;
+    private final SessionBase session;
+
+    private final Strand encoding;
+    private final Strand decoding;
+
+    //  True once the session was told about the waiting results.
+    private final AtomicBoolean signaled = new AtomicBoolean();
+
+    private volatile boolean closed;
+
+    CryptoPipeline(Executor pool, SessionBase session, Mechanism mechanism)
+    {
+        this.pool = pool;
+        this.session = session;
+        encoding = new Strand(msg -> {
+            Msg encoded = mechanism.encode(msg);
+            if (encoded != msg) {
+                msg.release();
+            }
+            return encoded;
+        });
+        decoding = new Strand(msg -> {
+            Msg decoded = mechanism.decode(msg);
+            if (decoded != null && decoded != msg) {
+                //  The encrypted message is not needed anymore.
+                msg.release();
+            }
+            return decoded;
+        });
+    }
+
+    //  Called from the I/O thread.
+
+    void encode(Msg msg)
+    {
+        encoding.offer(msg);
+    }
+
+    void decode(Msg msg)
+    {
+        decoding.offer(msg);
+    }
+
+    //  Returns the next boxed message, or null if none is waiting.
+    Msg encoded()
+    {
+        return encoding.poll();
+    }
+
+    //  Returns the next unboxed message, FAILED if it could not be unboxed,
+    //  or null if none is waiting.
+    Msg decoded()
+    {
+        return decoding.poll();
+    }
+
+    boolean isEncodingFull()
+    {
+        return encoding.isFull();
+    }
+
+    boolean isDecodingFull()
+    {
+        return decoding.isFull();
+    }
+
+    //  Called before taking the results, so that the next ones wake up the I/O thread again.
+    void clearSignal()
+    {
+        signaled.set(false);
+    }
+
+    //  The messages still in the pipeline are dropped. A task of the pool still working
+    //  on one of them drops its result once done.
+    void close()
+    {
+        closed = true;
+        encoding.drain();
+        decoding.drain();
+    }
+
+    private void signal()
+    {
+        if (!signaled.get() && signaled.compareAndSet(false, true) && !closed) {
+            session.offloadDone();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package zmq.io;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//  Traffic handled by an engine, and time spent by its I/O thread in the
+//  engine events. The counters are updated by the thread running the engine,
+//  and can be read from any thread.
+public final class EngineLoad
+{
+    private static final int BYTES_IN  = 0;
+    private static final int BYTES_OUT = 1;
+    private static final int MSGS_IN   = 2;
+    private static final int MSGS_OUT  = 3;
+    private static final int BUSY_TIME = 4;
+
+    //  Single writer at a time, the lazy sets are enough to publish the values.
+    private final AtomicLongArray counters = new AtomicLongArray(5);
+
+    private final LoadWindow window = new LoadWindow();
+
+    void received(int bytes)
+    {
+        add(BYTES_IN, bytes);
+    }
+
+    void sent(int bytes)
+    {
+        add(BYTES_OUT, bytes);
+    }
+
+    void decoded()
+    {
+        add(MSGS_IN, 1);
+    }
+
+    void encoded()
+    {
+        add(MSGS_OUT, 1);
+    }
+
+    void busy(long nanos)
+    {
+        add(BUSY_TIME, nanos);
+    }
+
+    private void add(int counter, long amount)
+    {
+        counters.lazySet(counter, counters.get(counter) + amount);
+    }
+
+    //  Number of bytes read from the connection.
+    public long getBytesIn()
+    {
+        return counters.get(BYTES_IN);
+    }
+
+    //  Number of bytes written to the connection.
+    public long getBytesOut()
+    {
+        return counters.get(BYTES_OUT);
+    }
+
+    //  Number of messages decoded and pushed to the session.
+    public long getMsgsIn()
+    {
+        return counters.get(MSGS_IN);
+    }
+
+    //  Number of messages pulled from the session and encoded.
+    public long getMsgsOut()
+    {
+        return counters.get(MSGS_OUT);
+    }
+
+    //  Time spent in the input and output events of the engine, in nanoseconds.
+    public long getBusyTime()
+    {
+        return counters.get(BUSY_TIME);
+    }
+
+    //  Share of the recent time spent in the events of the engine, between 0 and 1.
+    public double getUtilization()
+    {
+        return window.utilization(getBusyTime());
+    }
+
+    @Override
+    public String toString()
+    {
+        return "EngineLoad [bytesIn=" + getBytesIn() + ", bytesOut=" + getBytesOut() + ", msgsIn=" + getMsgsIn()
+                + ", msgsOut=" + getMsgsOut() + ", busyTime=" + getBusyTime() + "]";
+    }
+}
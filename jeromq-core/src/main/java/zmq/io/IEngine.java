@@ -20,5 +20,11 @@ public interface IEngine
 
     void zapMsgAvailable();
 
+    //  This method is called by the session once the work the engine
+    //  offloaded to other threads has results waiting.
+    default void offloadDone()
+    {
+    }
+
     String getEndPoint();
 }
@@ -48,6 +48,11 @@ public class IOObject implements IPollEvents
         poller.removeHandle(handle);
     }
 
+    public int getPollOps(Handle handle)
+    {
+        return poller.getPollOps(handle);
+    }
+
     public void setPollIn(Handle handle)
     {
         poller.setPollIn(handle);
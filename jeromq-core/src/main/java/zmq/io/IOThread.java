@@ -3,6 +3,11 @@ package zmq.io;
 import java.io.Closeable;
 import java.io.IOException;
 import java.nio.channels.SelectableChannel;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import zmq.Command;
 import zmq.Ctx;
@@ -22,11 +27,22 @@ public class IOThread extends ZObject implements IPollEvents, Closeable
     //  I/O multiplexing is performed using a poller object.
     private final Poller poller;
 
+    private final String name;
+
+    //  Stream engines running in the thread, with the session they are attached to.
+    private final Map<StreamEngine, SessionBase> engines = new ConcurrentHashMap<>();
+
+    //  Recent utilization of the thread.
+    private final LoadWindow window = new LoadWindow();
+
+    //  Minimum difference of utilization between two I/O threads to move an engine.
+    private static final double REBALANCE_THRESHOLD = 0.1;
+
     public IOThread(Ctx ctx, int tid)
     {
         super(ctx, tid);
-        String name = "iothread-" + tid;
-        poller = new Poller(ctx, name);
+        name = "iothread-" + tid;
+        poller = ctx.createPoller(name);
 
         mailbox = new Mailbox(ctx, name, tid);
         SelectableChannel fd = mailbox.getFd();
@@ -61,6 +77,111 @@ public class IOThread extends ZObject implements IPollEvents, Closeable
         return poller.getLoad();
     }
 
+    //  Returns the share of the recent time the thread spent busy, between 0 and 1.
+    //  Note that this function can be invoked from a different thread!
+    public double getUtilization()
+    {
+        return window.utilization(poller.getBusyTime());
+    }
+
+    //  Returns the stream engines running in the thread.
+    public Collection<StreamEngine> getEngines()
+    {
+        return Collections.unmodifiableSet(engines.keySet());
+    }
+
+    //  Returns a snapshot of the load of the thread.
+    public IOThreadLoad getLoadReport()
+    {
+        long bytesIn = 0;
+        long bytesOut = 0;
+        long msgsIn = 0;
+        long msgsOut = 0;
+        int count = 0;
+        for (StreamEngine engine : engines.keySet()) {
+            EngineLoad load = engine.getLoad();
+            bytesIn += load.getBytesIn();
+            bytesOut += load.getBytesOut();
+            msgsIn += load.getMsgsIn();
+            msgsOut += load.getMsgsOut();
+            ++count;
+        }
+        return new IOThreadLoad(name, getLoad(), count, bytesIn, bytesOut, msgsIn, msgsOut, poller.getBusyTime(),
+                getUtilization());
+    }
+
+    //  Called by the engines from the thread running them.
+    void attached(StreamEngine engine, SessionBase session)
+    {
+        engines.put(engine, session);
+    }
+
+    void detached(StreamEngine engine)
+    {
+        engines.remove(engine);
+    }
+
+    //  Asks the session of an engine running in this thread to move with its
+    //  engine to another I/O thread. Returns false if the engine is not running
+    //  here anymore. The move is given up if the engine is not in a state to move
+    //  once the session processes the request.
+    public boolean migrate(StreamEngine engine, IOThread target)
+    {
+        SessionBase session = engines.get(engine);
+        if (session == null) {
+            return false;
+        }
+        sendMigrate(session, target);
+        return true;
+    }
+
+    //  Moves a stream engine from the busiest I/O thread to the least busy one,
+    //  if it narrows the difference of their utilization. The engine whose recent
+    //  utilization is the closest to the half of the difference is chosen.
+    //  Returns true if an engine was asked to move.
+    public static boolean rebalance(List<IOThread> ioThreads)
+    {
+        if (ioThreads.size() < 2) {
+            return false;
+        }
+        int busiest = 0;
+        int idlest = 0;
+        double[] utilizations = new double[ioThreads.size()];
+        for (int idx = 0; idx < utilizations.length; ++idx) {
+            utilizations[idx] = ioThreads.get(idx).getUtilization();
+            if (utilizations[idx] > utilizations[busiest]) {
+                busiest = idx;
+            }
+            if (utilizations[idx] < utilizations[idlest]) {
+                idlest = idx;
+            }
+        }
+        double gap = utilizations[busiest] - utilizations[idlest];
+        if (gap < REBALANCE_THRESHOLD) {
+            return false;
+        }
+
+        IOThread source = ioThreads.get(busiest);
+        StreamEngine selected = null;
+        double distance = gap / 2;
+        for (StreamEngine engine : source.engines.keySet()) {
+            long affinity = engine.getAffinity();
+            if (affinity != 0 && (affinity & (1L << idlest)) == 0) {
+                continue;
+            }
+            double utilization = engine.getLoad().getUtilization();
+            //  Moving a bigger load would only swap the busiest thread.
+            if (utilization <= 0 || utilization >= gap) {
+                continue;
+            }
+            if (Math.abs(utilization - gap / 2) <= distance) {
+                distance = Math.abs(utilization - gap / 2);
+                selected = engine;
+            }
+        }
+        return selected != null && source.migrate(selected, ioThreads.get(idlest));
+    }
+
     @Override
     public void inEvent()
     {
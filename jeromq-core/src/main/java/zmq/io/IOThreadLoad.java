@@ -0,0 +1,92 @@
+package zmq.io;
+
+//  Snapshot of the load of an I/O thread: what it runs, the traffic of its
+//  stream engines, and how busy it has been recently.
+public final class IOThreadLoad
+{
+    private final String name;
+    private final int    handles;
+    private final int    engines;
+    private final long   bytesIn;
+    private final long   bytesOut;
+    private final long   msgsIn;
+    private final long   msgsOut;
+    private final long   busyTime;
+    private final double utilization;
+
+    IOThreadLoad(String name, int handles, int engines, long bytesIn, long bytesOut, long msgsIn, long msgsOut,
+            long busyTime, double utilization)
+    {
+        this.name = name;
+        this.handles = handles;
+        this.engines = engines;
+        this.bytesIn = bytesIn;
+        this.bytesOut = bytesOut;
+        this.msgsIn = msgsIn;
+        this.msgsOut = msgsOut;
+        this.busyTime = busyTime;
+        this.utilization = utilization;
+    }
+
+    //  Name of the I/O thread.
+    public String getName()
+    {
+        return name;
+    }
+
+    //  Number of file descriptors polled by the thread.
+    public int getHandles()
+    {
+        return handles;
+    }
+
+    //  Number of stream engines running in the thread.
+    public int getEngines()
+    {
+        return engines;
+    }
+
+    //  Bytes read by the stream engines running in the thread.
+    public long getBytesIn()
+    {
+        return bytesIn;
+    }
+
+    //  Bytes written by the stream engines running in the thread.
+    public long getBytesOut()
+    {
+        return bytesOut;
+    }
+
+    //  Messages decoded by the stream engines running in the thread.
+    public long getMsgsIn()
+    {
+        return msgsIn;
+    }
+
+    //  Messages encoded by the stream engines running in the thread.
+    public long getMsgsOut()
+    {
+        return msgsOut;
+    }
+
+    //  Time spent by the thread processing events and timers, in nanoseconds.
+    public long getBusyTime()
+    {
+        return busyTime;
+    }
+
+    //  Share of the recent time the thread spent busy, between 0 and 1.
+    public double getUtilization()
+    {
+        return utilization;
+    }
+
+    @Override
+    public String toString()
+    {
+        return name + " [utilization=" + Math.round(utilization * 100) + "%, handles=" + handles + ", engines="
+                + engines + ", bytesIn=" + bytesIn + ", bytesOut=" + bytesOut + ", msgsIn=" + msgsIn + ", msgsOut="
+                + msgsOut + ", busyTime=" + busyTime + "]";
+    }
+}
@@ -0,0 +1,45 @@
+package zmq.io;
+
+import java.util.concurrent.TimeUnit;
+
+import zmq.util.Clock;
+
+//  Measures the recent utilization out of a cumulative busy time: the ratio of
+//  the time spent busy over the time elapsed since a sample at least one window
+//  old, so that the measure follows the changes of the load without being noisy.
+final class LoadWindow
+{
+    private static final long WINDOW = TimeUnit.SECONDS.toNanos(1);
+
+    //  Sample the utilization is measured from.
+    private long startTime;
+    private long startBusy;
+
+    //  Most recent sample, the next start once it is one window old.
+    private long markTime;
+    private long markBusy;
+
+    LoadWindow()
+    {
+        startTime = Clock.nowNS();
+        markTime = startTime;
+    }
+
+    //  Returns the recent utilization, between 0 and 1, given the current
+    //  cumulative busy time in nanoseconds.
+    synchronized double utilization(long busy)
+    {
+        long now = Clock.nowNS();
+        if (now - markTime >= WINDOW) {
+            startTime = markTime;
+            startBusy = markBusy;
+            markTime = now;
+            markBusy = busy;
+        }
+        long elapsed = now - startTime;
+        if (elapsed <= 0) {
+            return 0;
+        }
+        return Math.max(0, Math.min(1, (double) (busy - startBusy) / elapsed));
+    }
+}
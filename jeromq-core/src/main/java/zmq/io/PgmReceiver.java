@@ -0,0 +1,513 @@
+package zmq.io;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import zmq.Msg;
+import zmq.Options;
+import zmq.SocketBase;
+import zmq.ZError;
+import zmq.io.coder.IDecoder;
+import zmq.io.coder.IDecoder.Step;
+import zmq.io.coder.v1.V1Decoder;
+import zmq.io.net.Address;
+import zmq.io.net.pgm.PgmProtocol;
+import zmq.io.net.udp.UdpAddress;
+import zmq.poll.IPollEvents;
+import zmq.poll.Poller;
+import zmq.util.Clock;
+import zmq.util.ValueReference;
+
+//  Receives the messages sent to a multicast group for a SUB or XSUB socket.
+//  The packets of each source are delivered in order, the lost ones are
+//  requested again with NAKs until the source can't repair them anymore.
+//  A receiver joins the stream of a source at the first message starting
+//  after its first packet, and again after an unrecoverable loss.
+public class PgmReceiver implements IEngine, IPollEvents
+{
+    private static final int NAK_TIMER_ID = 0x42;
+
+    //  Interval of the checks for the NAKs to send
+    private static final long NAK_TICK      = 5;
+    //  Largest random delay before the first NAK of a packet, to avoid all
+    //  the receivers requesting the same packet at once
+    private static final long NAK_BACKOFF   = TimeUnit.MILLISECONDS.toNanos(10);
+    //  Delay before requesting a packet again
+    private static final long NAK_REPEAT    = TimeUnit.MILLISECONDS.toNanos(50);
+    //  Largest number of lost packets waiting for a repair for a source
+    private static final int  MAX_MISSING   = 4096;
+    //  Delay after which a silent source is forgotten
+    private static final long PEER_EXPIRY   = TimeUnit.SECONDS.toNanos(30);
+
+    private static final class Packet
+    {
+        private final ByteBuffer payload;
+        private final int        offset;
+
+        private Packet(ByteBuffer payload, int offset)
+        {
+            this.payload = payload;
+            this.offset = offset;
+        }
+    }
+
+    private static final class Nak
+    {
+        private long due;
+        private final long deadline;
+
+        private Nak(long due, long deadline)
+        {
+            this.due = due;
+            this.deadline = deadline;
+        }
+    }
+
+    //  The state of the stream of a source
+    private final class Peer
+    {
+        private final long                   sourceId;
+        private final TreeMap<Long, Packet>  packets = new TreeMap<>();
+        private final TreeMap<Long, Nak>     missing = new TreeMap<>();
+        private SocketAddress                source;
+        //  Sequence of the next packet to decode
+        private long                         next;
+        //  Highest sequence known to be sent by the source
+        private long                         lead;
+        //  True once positioned at the start of a message
+        private boolean                      synced;
+        private IDecoder                     decoder;
+        //  The payload being decoded
+        private ByteBuffer                   current;
+        private long                         seen;
+
+        private Peer(long sourceId, long next)
+        {
+            this.sourceId = sourceId;
+            this.next = next;
+            lead = next - 1;
+            decoder = newDecoder();
+        }
+    }
+
+    private final Options                  options;
+    private final Map<Long, Peer>          peers;
+    private final ByteBuffer               inBuffer;
+    private final ByteBuffer               outBuffer;
+    private final ValueReference<Integer>  processed;
+    private final long                     recoveryIvl;
+
+    private UdpAddress      address;
+    private String          endpoint;
+    private DatagramChannel fd;
+    private Poller.Handle   handle;
+    private IOObject        ioObject;
+    private SessionBase     session;
+    private SocketBase      socket;
+
+    //  The source of the incomplete message in the pipe, if any
+    private Peer    active;
+    //  The message waiting for room in the pipe, and its source
+    private Msg     pending;
+    private Peer    pendingPeer;
+    private boolean nakTimer;
+    private long    expired;
+
+    public PgmReceiver(IOThread ioThread, Options options)
+    {
+        this.options = options;
+        peers = new HashMap<>();
+        inBuffer = ByteBuffer.allocateDirect(PgmProtocol.MAX_TPDU);
+        outBuffer = ByteBuffer.allocateDirect(PgmProtocol.MAX_TPDU);
+        processed = new ValueReference<>(0);
+        recoveryIvl = TimeUnit.MILLISECONDS.toNanos(options.recoveryIvl);
+    }
+
+    public boolean init(boolean udpEncapsulation, Address<?> addr)
+    {
+        //  Raw PGM needs raw sockets, not available in Java
+        if (!udpEncapsulation || !(addr.resolved() instanceof UdpAddress)) {
+            return false;
+        }
+        address = (UdpAddress) addr.resolved();
+        endpoint = address.toString();
+        return true;
+    }
+
+    @Override
+    public void plug(IOThread ioThread, SessionBase session)
+    {
+        assert (this.session == null);
+        assert (session != null);
+        this.session = session;
+        socket = session.getSocket();
+
+        ioObject = new IOObject(ioThread, this);
+        ioObject.plug();
+        try {
+            fd = address.open(options, false);
+        }
+        catch (IOException | RuntimeException e) {
+            socket.eventBindFailed(endpoint, e instanceof IOException ? ZError.exccode((IOException) e) : ZError.EINVAL);
+            return;
+        }
+        handle = ioObject.addFd(fd);
+        socket.eventListening(endpoint, fd);
+        expired = Clock.nowNS();
+        ioObject.setPollIn(handle);
+        restartOutput();
+    }
+
+    @Override
+    public void terminate()
+    {
+        if (handle != null) {
+            if (nakTimer) {
+                ioObject.cancelTimer(NAK_TIMER_ID);
+                nakTimer = false;
+            }
+            ioObject.removeHandle(handle);
+            handle = null;
+            try {
+                fd.close();
+                socket.eventClosed(endpoint, fd);
+            }
+            catch (IOException e) {
+                socket.eventCloseFailed(endpoint, ZError.exccode(e));
+            }
+        }
+        ioObject.unplug();
+        session = null;
+    }
+
+    @Override
+    public void inEvent()
+    {
+        long now = Clock.nowNS();
+        while (pending == null) {
+            inBuffer.clear();
+            SocketAddress from;
+            try {
+                from = fd.receive(inBuffer);
+            }
+            catch (IOException e) {
+                from = null;
+            }
+            if (from == null) {
+                break;
+            }
+            inBuffer.flip();
+            process(from, now);
+            deliver();
+        }
+        session.flush();
+
+        if (now - expired > PEER_EXPIRY) {
+            expired = now;
+            peers.values().removeIf(peer -> peer != active && peer != pendingPeer && now - peer.seen > PEER_EXPIRY);
+        }
+    }
+
+    private void process(SocketAddress from, long now)
+    {
+        //  The malformed packets are dropped
+        if (inBuffer.remaining() < PgmProtocol.HEADER_SIZE) {
+            return;
+        }
+        byte type = inBuffer.get();
+        if (inBuffer.get() != PgmProtocol.VERSION) {
+            return;
+        }
+        long sourceId = inBuffer.getLong();
+        if (type == PgmProtocol.ODATA || type == PgmProtocol.RDATA) {
+            if (inBuffer.remaining() < PgmProtocol.DATA_HEADER_SIZE - PgmProtocol.HEADER_SIZE) {
+                return;
+            }
+            long seq = inBuffer.getLong();
+            long trail = inBuffer.getLong();
+            int offset = inBuffer.getShort() & 0xffff;
+            Peer peer = peer(sourceId, seq, from, now);
+            received(peer, seq, trail, offset, now);
+        }
+        else if (type == PgmProtocol.SPM) {
+            if (inBuffer.remaining() < PgmProtocol.SPM_SIZE - PgmProtocol.HEADER_SIZE) {
+                return;
+            }
+            long lead = inBuffer.getLong();
+            long trail = inBuffer.getLong();
+            //  A new source is joined after its last packet
+            Peer peer = peer(sourceId, lead + 1, from, now);
+            announced(peer, lead, trail, now);
+        }
+    }
+
+    private Peer peer(long sourceId, long next, SocketAddress from, long now)
+    {
+        Peer peer = peers.computeIfAbsent(sourceId, id -> new Peer(id, next));
+        peer.source = from;
+        peer.seen = now;
+        return peer;
+    }
+
+    private void received(Peer peer, long seq, long trail, int offset, long now)
+    {
+        if (seq < peer.next || peer.packets.containsKey(seq)) {
+            //  Duplicate
+            return;
+        }
+        //  The packets before this one should have been received
+        announced(peer, seq - 1, trail, now);
+        if (seq < peer.next) {
+            //  Skipped after a loss
+            return;
+        }
+        peer.missing.remove(seq);
+        peer.lead = Math.max(peer.lead, seq);
+
+        ByteBuffer data = ByteBuffer.allocate(inBuffer.remaining());
+        data.put(inBuffer);
+        data.flip();
+        peer.packets.put(seq, new Packet(data, offset));
+    }
+
+    private void announced(Peer peer, long lead, long trail, long now)
+    {
+        if (lead > peer.lead) {
+            if (lead - peer.lead > MAX_MISSING) {
+                lost(peer, lead - MAX_MISSING);
+            }
+            for (long seq = Math.max(peer.lead + 1, peer.next); seq <= lead; ++seq) {
+                missing(peer, seq, now);
+            }
+            peer.lead = lead;
+        }
+        //  The lost packets older than the window of the source can't be repaired
+        if (!peer.missing.isEmpty() && peer.missing.firstKey() < trail) {
+            lost(peer, peer.missing.lowerKey(trail));
+        }
+    }
+
+    private void missing(Peer peer, long seq, long now)
+    {
+        if (seq < peer.next || peer.packets.containsKey(seq)) {
+            return;
+        }
+        long backoff = ThreadLocalRandom.current().nextLong(NAK_BACKOFF);
+        peer.missing.putIfAbsent(seq, new Nak(now + backoff, now + recoveryIvl));
+        if (!nakTimer) {
+            nakTimer = true;
+            ioObject.addTimer(NAK_TICK, NAK_TIMER_ID);
+        }
+    }
+
+    //  Gives up the packets up to the sequence, and joins the stream again
+    //  at the start of the next message.
+    private void lost(Peer peer, long seq)
+    {
+        peer.missing.headMap(seq, true).clear();
+        peer.packets.headMap(seq, true).clear();
+        if (peer.next <= seq) {
+            peer.next = seq + 1;
+        }
+        if (peer.lead < seq) {
+            peer.lead = seq;
+        }
+        peer.decoder.destroy();
+        peer.decoder = newDecoder();
+        peer.current = null;
+        peer.synced = false;
+        if (active == peer) {
+            //  The frames of the incomplete message are dropped
+            session.rollback();
+            active = null;
+        }
+    }
+
+    private void deliver()
+    {
+        if (active != null) {
+            deliver(active);
+        }
+        for (Peer peer : peers.values()) {
+            deliver(peer);
+        }
+    }
+
+    private void deliver(Peer peer)
+    {
+        //  The messages of other sources wait for the end of an incomplete one
+        while (pending == null && (active == null || active == peer)) {
+            if (peer.current == null || !peer.current.hasRemaining()) {
+                Packet packet = peer.packets.remove(peer.next);
+                if (packet == null) {
+                    peer.current = null;
+                    return;
+                }
+                peer.next++;
+                if (!peer.synced) {
+                    if (packet.offset == PgmProtocol.NO_OFFSET || packet.offset > packet.payload.limit()) {
+                        continue;
+                    }
+                    packet.payload.position(packet.offset);
+                    peer.synced = true;
+                }
+                peer.current = packet.payload;
+            }
+            decode(peer);
+        }
+    }
+
+    private void decode(Peer peer)
+    {
+        ByteBuffer data = peer.current;
+        while (data.hasRemaining()) {
+            Step.Result result = peer.decoder.decode(data, data.remaining(), processed);
+            if (result == Step.Result.MORE_DATA) {
+                return;
+            }
+            if (result == Step.Result.ERROR) {
+                lost(peer, peer.next - 1);
+                return;
+            }
+            if (!push(peer, peer.decoder.msg())) {
+                return;
+            }
+        }
+    }
+
+    private boolean push(Peer peer, Msg msg)
+    {
+        if (!session.pushMsg(msg)) {
+            //  The pipe is full, the packets wait in the socket buffer
+            pending = msg;
+            pendingPeer = peer;
+            ioObject.resetPollIn(handle);
+            return false;
+        }
+        active = msg.hasMore() ? peer : null;
+        return true;
+    }
+
+    @Override
+    public void restartInput()
+    {
+        if (pending == null) {
+            return;
+        }
+        Msg msg = pending;
+        Peer peer = pendingPeer;
+        pending = null;
+        pendingPeer = null;
+        if (!push(peer, msg)) {
+            return;
+        }
+        deliver();
+        session.flush();
+        if (pending == null) {
+            ioObject.setPollIn(handle);
+            inEvent();
+        }
+    }
+
+    @Override
+    public void timerEvent(int id)
+    {
+        assert (id == NAK_TIMER_ID);
+        nakTimer = false;
+
+        long now = Clock.nowNS();
+        boolean waiting = false;
+        for (Peer peer : peers.values()) {
+            List<Long> naks = new ArrayList<>();
+            long gaveUp = -1;
+            for (Iterator<Map.Entry<Long, Nak>> it = peer.missing.entrySet().iterator(); it.hasNext();) {
+                Map.Entry<Long, Nak> entry = it.next();
+                Nak nak = entry.getValue();
+                if (now >= nak.deadline) {
+                    gaveUp = entry.getKey();
+                }
+                else if (now >= nak.due) {
+                    nak.due = now + NAK_REPEAT;
+                    naks.add(entry.getKey());
+                }
+            }
+            //  While the pipe is full, the stream of the source can't be reset
+            if (gaveUp >= 0 && pending == null) {
+                lost(peer, gaveUp);
+            }
+            sendNaks(peer, naks);
+            waiting |= !peer.missing.isEmpty();
+        }
+        deliver();
+        session.flush();
+
+        if (waiting) {
+            nakTimer = true;
+            ioObject.addTimer(NAK_TICK, NAK_TIMER_ID);
+        }
+    }
+
+    private void sendNaks(Peer peer, List<Long> naks)
+    {
+        for (int start = 0; start < naks.size(); start += PgmProtocol.MAX_NAKS) {
+            int end = Math.min(naks.size(), start + PgmProtocol.MAX_NAKS);
+            outBuffer.clear();
+            outBuffer.put(PgmProtocol.NAK);
+            outBuffer.put(PgmProtocol.VERSION);
+            outBuffer.putLong(peer.sourceId);
+            outBuffer.putShort((short) (end - start));
+            for (int idx = start; idx < end; ++idx) {
+                outBuffer.putLong(naks.get(idx));
+            }
+            outBuffer.flip();
+            try {
+                fd.send(outBuffer, peer.source);
+            }
+            catch (IOException e) {
+                socket.eventException(endpoint, e);
+            }
+        }
+    }
+
+    private IDecoder newDecoder()
+    {
+        return new V1Decoder(options.errno, PgmProtocol.MAX_PAYLOAD, options.maxMsgSize, options.allocator);
+    }
+
+    @Override
+    public void restartOutput()
+    {
+        //  All the messages are received, the subscriptions are filtered by the socket
+        Msg msg = session.pullMsg();
+        while (msg != null) {
+            msg = session.pullMsg();
+        }
+    }
+
+    @Override
+    public void zapMsgAvailable()
+    {
+    }
+
+    @Override
+    public String getEndPoint()
+    {
+        return endpoint;
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "[" + endpoint + "]";
+    }
+}
@@ -0,0 +1,348 @@
+package zmq.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import zmq.Msg;
+import zmq.Options;
+import zmq.SocketBase;
+import zmq.ZError;
+import zmq.io.coder.IEncoder;
+import zmq.io.coder.v1.V1Encoder;
+import zmq.io.net.Address;
+import zmq.io.net.pgm.PgmProtocol;
+import zmq.io.net.udp.UdpAddress;
+import zmq.poll.IPollEvents;
+import zmq.poll.Poller;
+import zmq.util.Clock;
+import zmq.util.ValueReference;
+
+//  Sends the messages of a PUB or XPUB socket to a multicast group, and
+//  repairs the packets reported as lost by the receivers while they are
+//  in the retransmit window.
+public class PgmSender implements IEngine, IPollEvents
+{
+    private static final int SPM_TIMER_ID  = 0x40;
+    private static final int RATE_TIMER_ID = 0x41;
+
+    //  Interval of the SPM when no data is sent
+    private static final long AMBIENT_SPM_IVL   = 1000;
+    //  Delay of the SPM after some data, to detect the loss of the last packets
+    private static final long HEARTBEAT_SPM_IVL = 50;
+
+    private final Options    options;
+    private final long       sourceId;
+    private final IEncoder   encoder;
+    private final ByteBuffer payload;
+    private final ValueReference<ByteBuffer> payloadRef;
+    private final ByteBuffer outBuffer;
+    private final ByteBuffer inBuffer;
+    private final PgmWindow  window;
+    //  The sequences to repair, in the order of the requests
+    private final Set<Long>  repairs;
+    //  Maximum rate in bytes per second, or 0 for no limit
+    private final long       bytesPerSecond;
+    private final double     burst;
+
+    private UdpAddress      address;
+    private String          endpoint;
+    private DatagramChannel fd;
+    private Poller.Handle   handle;
+    private IOObject        ioObject;
+    private SessionBase     session;
+    private SocketBase      socket;
+
+    //  True if the last message pulled from the session is incomplete
+    private boolean more;
+    private double  tokens;
+    private long    refilled;
+    private boolean rateLimited;
+    private boolean heartbeat;
+
+    public PgmSender(IOThread ioThread, Options options)
+    {
+        this.options = options;
+        sourceId = ThreadLocalRandom.current().nextLong();
+        encoder = new V1Encoder(options.errno, PgmProtocol.MAX_PAYLOAD);
+        payload = ByteBuffer.allocate(PgmProtocol.MAX_PAYLOAD);
+        payloadRef = new ValueReference<>();
+        outBuffer = ByteBuffer.allocateDirect(PgmProtocol.MAX_TPDU);
+        inBuffer = ByteBuffer.allocateDirect(PgmProtocol.MAX_TPDU);
+        repairs = new LinkedHashSet<>();
+
+        //  The rate is in kilobits per second
+        bytesPerSecond = options.rate > 0 ? options.rate * 1000L / 8 : 0;
+        long windowBytes = bytesPerSecond * options.recoveryIvl / 1000;
+        window = new PgmWindow(windowBytes, TimeUnit.MILLISECONDS.toNanos(options.recoveryIvl));
+        //  Allows bursts of a tenth of second
+        burst = Math.max(PgmProtocol.MAX_TPDU, bytesPerSecond / 10.0);
+        tokens = burst;
+    }
+
+    public boolean init(boolean udpEncapsulation, Address<?> addr)
+    {
+        //  Raw PGM needs raw sockets, not available in Java
+        if (!udpEncapsulation || !(addr.resolved() instanceof UdpAddress)) {
+            return false;
+        }
+        address = (UdpAddress) addr.resolved();
+        endpoint = address.toString();
+        return true;
+    }
+
+    @Override
+    public void plug(IOThread ioThread, SessionBase session)
+    {
+        assert (this.session == null);
+        assert (session != null);
+        this.session = session;
+        socket = session.getSocket();
+
+        ioObject = new IOObject(ioThread, this);
+        ioObject.plug();
+        try {
+            fd = address.open(options, true);
+        }
+        catch (IOException | RuntimeException e) {
+            socket.eventBindFailed(endpoint, e instanceof IOException ? ZError.exccode((IOException) e) : ZError.EINVAL);
+            return;
+        }
+        handle = ioObject.addFd(fd);
+        socket.eventConnected(endpoint, fd);
+        refilled = Clock.nowNS();
+
+        //  Receives the NAKs, and announces the sender
+        ioObject.setPollIn(handle);
+        sendSpm();
+        ioObject.addTimer(AMBIENT_SPM_IVL, SPM_TIMER_ID);
+        ioObject.setPollOut(handle);
+    }
+
+    @Override
+    public void terminate()
+    {
+        if (handle != null) {
+            ioObject.cancelTimer(SPM_TIMER_ID);
+            if (rateLimited) {
+                ioObject.cancelTimer(RATE_TIMER_ID);
+            }
+            ioObject.removeHandle(handle);
+            handle = null;
+            try {
+                fd.close();
+                socket.eventClosed(endpoint, fd);
+            }
+            catch (IOException e) {
+                socket.eventCloseFailed(endpoint, ZError.exccode(e));
+            }
+        }
+        ioObject.unplug();
+        session = null;
+    }
+
+    @Override
+    public void outEvent()
+    {
+        while (!rateLimited) {
+            if (!repairs.isEmpty()) {
+                Iterator<Long> it = repairs.iterator();
+                long seq = it.next();
+                it.remove();
+                PgmWindow.Packet packet = window.get(seq);
+                if (packet != null) {
+                    send(PgmProtocol.RDATA, packet);
+                }
+                continue;
+            }
+
+            PgmWindow.Packet packet = nextPacket();
+            if (packet == null) {
+                ioObject.resetPollOut(handle);
+                return;
+            }
+            send(PgmProtocol.ODATA, packet);
+            if (!heartbeat) {
+                heartbeat = true;
+                ioObject.cancelTimer(SPM_TIMER_ID);
+                ioObject.addTimer(HEARTBEAT_SPM_IVL, SPM_TIMER_ID);
+            }
+        }
+    }
+
+    //  Fills a payload with the messages of the session, and keeps it in the window
+    private PgmWindow.Packet nextPacket()
+    {
+        int size = PgmProtocol.MAX_PAYLOAD;
+        int offset = PgmProtocol.NO_OFFSET;
+
+        payload.clear();
+        payloadRef.set(payload);
+        int bytes = encoder.encode(payloadRef, size);
+        while (bytes < size) {
+            //  The next message starts in this packet
+            if (!more && offset == PgmProtocol.NO_OFFSET) {
+                offset = bytes;
+            }
+            Msg msg = session.pullMsg();
+            if (msg == null) {
+                break;
+            }
+            more = msg.hasMore();
+            encoder.loadMsg(msg);
+            payloadRef.set(payload);
+            bytes += encoder.encode(payloadRef, size - bytes);
+        }
+        if (bytes == 0) {
+            return null;
+        }
+
+        byte[] data = new byte[bytes];
+        payload.flip();
+        payload.get(data);
+        return window.add(data, offset, Clock.nowNS());
+    }
+
+    private void send(byte type, PgmWindow.Packet packet)
+    {
+        outBuffer.clear();
+        header(type);
+        outBuffer.putLong(packet.seq);
+        outBuffer.putLong(window.trail());
+        outBuffer.putShort((short) packet.offset);
+        outBuffer.put(packet.payload);
+        outBuffer.flip();
+        consume(outBuffer.remaining());
+        transmit();
+    }
+
+    private void sendSpm()
+    {
+        outBuffer.clear();
+        header(PgmProtocol.SPM);
+        outBuffer.putLong(window.lead());
+        outBuffer.putLong(window.trail());
+        outBuffer.flip();
+        transmit();
+    }
+
+    private void header(byte type)
+    {
+        outBuffer.put(type);
+        outBuffer.put(PgmProtocol.VERSION);
+        outBuffer.putLong(sourceId);
+    }
+
+    private void transmit()
+    {
+        try {
+            //  A packet not sent is lost, and repaired if requested
+            fd.send(outBuffer, address.address());
+        }
+        catch (IOException e) {
+            socket.eventException(endpoint, e);
+        }
+    }
+
+    //  Takes the bytes to send from the tokens of the rate, and waits for
+    //  the tokens to be back if there is none left.
+    private void consume(int bytes)
+    {
+        if (bytesPerSecond == 0) {
+            return;
+        }
+        long now = Clock.nowNS();
+        tokens = Math.min(burst, tokens + (now - refilled) * bytesPerSecond / 1e9);
+        refilled = now;
+        tokens -= bytes;
+        if (tokens < 0) {
+            rateLimited = true;
+            ioObject.resetPollOut(handle);
+            long delay = (long) Math.ceil(-tokens * 1000 / bytesPerSecond);
+            ioObject.addTimer(Math.max(1, delay), RATE_TIMER_ID);
+        }
+    }
+
+    @Override
+    public void inEvent()
+    {
+        while (true) {
+            inBuffer.clear();
+            try {
+                if (fd.receive(inBuffer) == null) {
+                    break;
+                }
+            }
+            catch (IOException e) {
+                break;
+            }
+            inBuffer.flip();
+            if (inBuffer.remaining() < PgmProtocol.NAK_HEADER_SIZE || inBuffer.get() != PgmProtocol.NAK
+                    || inBuffer.get() != PgmProtocol.VERSION || inBuffer.getLong() != sourceId) {
+                continue;
+            }
+            int naks = Math.min(inBuffer.getShort() & 0xffff, inBuffer.remaining() / 8);
+            for (int idx = 0; idx < naks; ++idx) {
+                long seq = inBuffer.getLong();
+                if (window.get(seq) != null) {
+                    repairs.add(seq);
+                }
+            }
+        }
+        if (!repairs.isEmpty() && !rateLimited) {
+            ioObject.setPollOut(handle);
+        }
+    }
+
+    @Override
+    public void timerEvent(int id)
+    {
+        if (id == SPM_TIMER_ID) {
+            heartbeat = false;
+            window.expire(Clock.nowNS());
+            sendSpm();
+            ioObject.addTimer(AMBIENT_SPM_IVL, SPM_TIMER_ID);
+        }
+        else {
+            assert (id == RATE_TIMER_ID);
+            rateLimited = false;
+            ioObject.setPollOut(handle);
+        }
+    }
+
+    @Override
+    public void restartInput()
+    {
+    }
+
+    @Override
+    public void restartOutput()
+    {
+        if (handle != null && !rateLimited) {
+            ioObject.setPollOut(handle);
+            outEvent();
+        }
+    }
+
+    @Override
+    public void zapMsgAvailable()
+    {
+    }
+
+    @Override
+    public String getEndPoint()
+    {
+        return endpoint;
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "[" + endpoint + "]";
+    }
+}
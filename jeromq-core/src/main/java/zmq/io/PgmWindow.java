@@ -0,0 +1,102 @@
+package zmq.io;
+
+//  The retransmit window of a sender: the data packets sent for the last
+//  recovery interval, up to the bytes sent at the maximum rate during it.
+final class PgmWindow
+{
+    static final class Packet
+    {
+        final long   seq;
+        final byte[] payload;
+        //  Offset of the first message starting in the payload
+        final int    offset;
+        final long   sent;
+
+        private Packet(long seq, byte[] payload, int offset, long sent)
+        {
+            this.seq = seq;
+            this.payload = payload;
+            this.offset = offset;
+            this.sent = sent;
+        }
+    }
+
+    //  Largest number of bytes of the payloads, or 0 for no limit
+    private final long maxBytes;
+    //  Longest time a packet is kept, in nanoseconds
+    private final long maxAge;
+
+    private Packet[] ring;
+    private int      head;
+    private int      count;
+    private long     bytes;
+    //  Sequence of the next packet
+    private long     lead;
+
+    PgmWindow(long maxBytes, long maxAge)
+    {
+        this.maxBytes = maxBytes;
+        this.maxAge = maxAge;
+        ring = new Packet[64];
+    }
+
+    Packet add(byte[] payload, int offset, long now)
+    {
+        if (count == ring.length) {
+            Packet[] larger = new Packet[ring.length * 2];
+            for (int idx = 0; idx < count; ++idx) {
+                larger[idx] = ring[(head + idx) & (ring.length - 1)];
+            }
+            ring = larger;
+            head = 0;
+        }
+        Packet packet = new Packet(lead++, payload, offset, now);
+        ring[(head + count) & (ring.length - 1)] = packet;
+        count++;
+        bytes += payload.length;
+        expire(now);
+        return packet;
+    }
+
+    //  Removes the packets too old or beyond the size of the window,
+    //  but always keeps the last one.
+    void expire(long now)
+    {
+        while (count > 1) {
+            Packet oldest = ring[head];
+            if (now - oldest.sent <= maxAge && (maxBytes <= 0 || bytes <= maxBytes)) {
+                break;
+            }
+            ring[head] = null;
+            head = (head + 1) & (ring.length - 1);
+            count--;
+            bytes -= oldest.payload.length;
+        }
+    }
+
+    Packet get(long seq)
+    {
+        long trail = trail();
+        if (seq < trail || seq >= lead) {
+            return null;
+        }
+        return ring[(head + (int) (seq - trail)) & (ring.length - 1)];
+    }
+
+    //  Sequence of the oldest packet that can be repaired
+    long trail()
+    {
+        return lead - count;
+    }
+
+    //  Sequence of the last packet sent, -1 if none
+    long lead()
+    {
+        return lead - 1;
+    }
+
+    int size()
+    {
+        return count;
+    }
+}
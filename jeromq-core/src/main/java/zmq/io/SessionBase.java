@@ -1,6 +1,8 @@
 package zmq.io;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import zmq.Ctx;
@@ -49,7 +51,7 @@ public class SessionBase extends Own implements Pipe.IPipeEvents, IPollEvents
 
     //  I/O thread the session is living in. It will be used to plug in
     //  the engines into the same thread.
-    private final IOThread ioThread;
+    private IOThread ioThread;
 
     //  ID of the linger timer
     private static final int LINGER_TIMER_ID = 0x20;
@@ -60,7 +62,7 @@ public class SessionBase extends Own implements Pipe.IPipeEvents, IPollEvents
     //  Protocol and address to use when connecting.
     private final Address<?> addr;
 
-    private final IOObject ioObject;
+    private IOObject ioObject;
 
     public SessionBase(IOThread ioThread, boolean connect, SocketBase socket, Options options, Address<?> addr)
     {
@@ -176,6 +178,14 @@ public class SessionBase extends Own implements Pipe.IPipeEvents, IPollEvents
         }
     }
 
+    //  Drops the frames of an incomplete message pushed by the engine.
+    void rollback()
+    {
+        if (pipe != null) {
+            pipe.rollback();
+        }
+    }
+
     //  Remove any half processed messages. Flush unflushed messages.
     //  Call this function when engine disconnect to get rid of leftovers.
     private void cleanPipes()
@@ -193,7 +203,7 @@ public class SessionBase extends Own implements Pipe.IPipeEvents, IPollEvents
                 assert (!incompleteIn);
                 break;
             }
-            // msg.close ();
+            msg.release();
         }
     }
 
@@ -351,7 +361,7 @@ public class SessionBase extends Own implements Pipe.IPipeEvents, IPollEvents
 
             int[] hwms = { conflate ? -1 : options.recvHwm, conflate ? -1 : options.sendHwm };
             boolean[] conflates = { conflate, conflate };
-            Pipe[] pipes = Pipe.pair(parents, hwms, conflates);
+            Pipe[] pipes = Pipe.pair(parents, hwms, conflates, options.ringPipes);
 
             //  Plug the local end of the pipe.
             pipes[0].setEventSink(this);
@@ -370,6 +380,56 @@ public class SessionBase extends Own implements Pipe.IPipeEvents, IPollEvents
         this.engine.plug(ioThread, this);
     }
 
+    @Override
+    protected void processMigrate(IOThread target)
+    {
+        //  Only a stream engine done with its handshake moves, and not while
+        //  the session terminates.
+        boolean movable = target != ioThread && engine instanceof StreamEngine
+                && ((StreamEngine) engine).isMovable() && !isTerminating() && !pending && !hasLingerTimer;
+        if (!movable) {
+            sendMigrated(ioThread.getTid());
+            return;
+        }
+
+        //  The commands of the pipes are processed along with the ones of the session.
+        List<ZObject> followers = new ArrayList<>(terminatingPipes);
+        followers.add(pipe);
+        followers.add(zapPipe);
+        startMoving(followers.toArray(new ZObject[0]));
+
+        ((StreamEngine) engine).suspend();
+        ioObject.unplug();
+        sendReplug(target);
+    }
+
+    @Override
+    protected void processReplug(IOThread target)
+    {
+        ioThread = target;
+        ioObject = new IOObject(target, this);
+        ioObject.plug();
+        ((StreamEngine) engine).resume(target);
+
+        //  Releases the commands held by the home thread.
+        sendMigrated(target.getTid());
+    }
+
+    //  Called from any thread, once the work offloaded by the engine has results
+    //  waiting, so that the engine processes them in the I/O thread.
+    void offloadDone()
+    {
+        sendOffloadDone(this);
+    }
+
+    @Override
+    protected void processOffloadDone()
+    {
+        if (engine != null) {
+            engine.offloadDone();
+        }
+    }
+
     public void engineError(boolean handshaked, ErrorReason reason)
     {
         //  Engine is dead. Let's forget about it.
@@ -516,7 +576,7 @@ public class SessionBase extends Own implements Pipe.IPipeEvents, IPollEvents
             errno.set(ZError.EPROTONOSUPPORT);
             return;
         }
-        protocol.startConnecting(options, ioThread, this, addr, wait, this::launchChild, null);
+        protocol.startConnecting(options, ioThread, this, addr, wait, this::launchChild, this::sendAttach);
     }
 
     public String getEndpoint()
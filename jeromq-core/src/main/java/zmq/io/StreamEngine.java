@@ -3,18 +3,20 @@ package zmq.io;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
 import java.util.Arrays;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
 import org.zeromq.Errors;
 
-import zmq.Config;
 import zmq.Msg;
 import zmq.Options;
 import zmq.SocketBase;
 import zmq.ZError;
 import zmq.ZMQ;
+import zmq.io.coder.BufferVector;
 import zmq.io.coder.IDecoder;
 import zmq.io.coder.IDecoder.Step;
 import zmq.io.coder.IEncoder;
@@ -31,6 +33,7 @@ import zmq.io.net.SocketWrapper;
 import zmq.poll.IPollEvents;
 import zmq.poll.Poller;
 import zmq.util.Blob;
+import zmq.util.Clock;
 import zmq.util.Errno;
 import zmq.util.ValueReference;
 import zmq.util.Wire;
@@ -81,6 +84,18 @@ public class StreamEngine implements IEngine, IPollEvents
 
     private IOObject ioObject;
 
+    //  I/O thread running the engine.
+    private IOThread ioThread;
+
+    //  Traffic of the engine and time spent in its events.
+    private final EngineLoad load = new EngineLoad();
+
+    //  True while the time spent in an event is measured.
+    private boolean measuring;
+
+    //  Events polled for when the engine was suspended to move to another I/O thread.
+    private int suspendedOps;
+
     //  Underlying socket.
     private SocketWrapper fd;
 
@@ -93,6 +108,21 @@ public class StreamEngine implements IEngine, IPollEvents
     private final ValueReference<ByteBuffer> outpos;
     private int outsize;
     private IEncoder encoder;
+    //  The encoded messages, for a gathering write.
+    private final BufferVector outvec;
+
+    //  Current size of the batches, between the configured sizes and, in
+    //  adaptive mode, the largest one.
+    private int inBatchSize;
+    private int outBatchSize;
+    private final int minInBatchSize;
+    private final int minOutBatchSize;
+    private final int maxInBatchSize;
+    private final int maxOutBatchSize;
+
+    //  True if a batch was filled since the last check of the adaptive timer.
+    private boolean inBatchFilled;
+    private boolean outBatchFilled;
 
     private Metadata metadata;
 
@@ -139,6 +169,12 @@ public class StreamEngine implements IEngine, IPollEvents
 
     private Mechanism mechanism;
 
+    //  The boxing and unboxing of the messages, when offloaded to the crypto threads.
+    private CryptoPipeline crypto;
+
+    //  Unboxed message the session could not take yet, already seen by the engine.
+    private Msg pendingDecoded;
+
     //  True if the engine couldn't consume the last decoded message.
     private boolean inputStopped;
 
@@ -150,6 +186,11 @@ public class StreamEngine implements IEngine, IPollEvents
     private static final int HEARTBEAT_TTL_TIMER_ID = 0x80;
     private static final int HEARTBEAT_IVL_TIMER_ID = 0x81;
     private static final int HEARTBEAT_TIMEOUT_TIMER_ID = 0x82;
+    private static final int BATCH_TIMER_ID = 0x83;
+    private static final int COALESCE_TIMER_ID = 0x84;
+
+    //  Interval, in milliseconds, after which a batch not filled shrinks.
+    private static final int BATCH_SHRINK_IVL = 1000;
 
     //  True is linger timer is running.
     private boolean hasHandshakeTimer;
@@ -157,7 +198,12 @@ public class StreamEngine implements IEngine, IPollEvents
     private boolean hasTtlTimer;
     private boolean hasTimeoutTimer;
     private boolean hasHeartbeatTimer;
+    private boolean hasBatchTimer;
+    //  True while the encoded messages wait for the output batch to fill.
+    private boolean hasCoalesceTimer;
     private final int heartbeatTimeout;
+    //  Last heartbeat TTL received from the peer, in milliseconds.
+    private int remoteHeartbeatTtl;
     private final byte[] heartbeatContext;
 
     // Socket
@@ -180,7 +226,16 @@ public class StreamEngine implements IEngine, IPollEvents
         nextMsg = nextIdentity;
         processMsg = processIdentity;
 
+        //  Make sure batch sizes match large buffer sizes
+        minInBatchSize = Math.max(options.rcvbuf, options.inBatchSize);
+        minOutBatchSize = Math.max(options.sndbuf, options.outBatchSize);
+        maxInBatchSize = Math.max(minInBatchSize, options.adaptiveBatch);
+        maxOutBatchSize = Math.max(minOutBatchSize, options.adaptiveBatch);
+        inBatchSize = minInBatchSize;
+        outBatchSize = minOutBatchSize;
+
         outpos = new ValueReference<>();
+        outvec = new BufferVector(outBatchSize);
 
         greetingRecv = ByteBuffer.allocate(V3_GREETING_SIZE);
         greetingSend = ByteBuffer.allocate(V3_GREETING_SIZE);
@@ -231,9 +286,13 @@ public class StreamEngine implements IEngine, IPollEvents
         if (decoder != null) {
             decoder.destroy();
         }
+        if (crypto != null) {
+            crypto.close();
+        }
         if (mechanism != null) {
             mechanism.destroy();
         }
+        outvec.clear();
     }
 
     @Override
@@ -254,14 +313,12 @@ public class StreamEngine implements IEngine, IPollEvents
         socket = session.getSocket();
 
         //  Connect to I/O threads poller object.
+        this.ioThread = ioThread;
         ioObject = new IOObject(ioThread, this);
         ioObject.plug();
         handle = ioObject.addFd(fd.getSelectableChannel());
         ioError = false;
-
-        //  Make sure batch sizes match large buffer sizes
-        int inBatchSize = Math.max(options.rcvbuf, Config.IN_BATCH_SIZE.getValue());
-        int outBatchSize = Math.max(options.sndbuf, Config.OUT_BATCH_SIZE.getValue());
+        ioThread.attached(this, session);
 
         if (options.rawSocket) {
             decoder = instantiate(options.decoder, inBatchSize, options.maxMsgSize);
@@ -365,6 +422,16 @@ public class StreamEngine implements IEngine, IPollEvents
             hasHeartbeatTimer = false;
         }
 
+        if (hasBatchTimer) {
+            ioObject.cancelTimer(BATCH_TIMER_ID);
+            hasBatchTimer = false;
+        }
+
+        if (hasCoalesceTimer) {
+            ioObject.cancelTimer(COALESCE_TIMER_ID);
+            hasCoalesceTimer = false;
+        }
+
         if (!ioError) {
             //  Cancel all fd subscriptions.
             ioObject.removeHandle(handle);
@@ -373,19 +440,143 @@ public class StreamEngine implements IEngine, IPollEvents
 
         //  Disconnect from I/O threads poller object.
         ioObject.unplug();
+        ioThread.detached(this);
 
         session = null;
     }
 
+    //  Returns true if the engine can move to another I/O thread: the
+    //  handshake is over and the connection is still up.
+    boolean isMovable()
+    {
+        return plugged && !handshaking && !ioError && !hasHandshakeTimer
+                && (mechanism == null || mechanism.status() == Mechanism.Status.READY);
+    }
+
+    //  Stops running the engine in the current I/O thread, keeping the state
+    //  of the connection to resume it in another one.
+    void suspend()
+    {
+        assert (isMovable());
+
+        //  The timers are armed again in the new thread.
+        if (hasTtlTimer) {
+            ioObject.cancelTimer(HEARTBEAT_TTL_TIMER_ID);
+        }
+        if (hasTimeoutTimer) {
+            ioObject.cancelTimer(HEARTBEAT_TIMEOUT_TIMER_ID);
+        }
+        if (hasHeartbeatTimer) {
+            ioObject.cancelTimer(HEARTBEAT_IVL_TIMER_ID);
+        }
+        if (hasBatchTimer) {
+            ioObject.cancelTimer(BATCH_TIMER_ID);
+        }
+        if (hasCoalesceTimer) {
+            ioObject.cancelTimer(COALESCE_TIMER_ID);
+        }
+
+        suspendedOps = ioObject.getPollOps(handle);
+        ioObject.removeHandle(handle);
+        handle = null;
+
+        ioObject.unplug();
+        ioThread.detached(this);
+    }
+
+    //  Resumes the engine in the I/O thread it moved to.
+    void resume(IOThread ioThread)
+    {
+        assert (plugged && handle == null);
+
+        this.ioThread = ioThread;
+        ioObject = new IOObject(ioThread, this);
+        ioObject.plug();
+        handle = ioObject.addFd(fd.getSelectableChannel());
+        if ((suspendedOps & SelectionKey.OP_READ) != 0) {
+            ioObject.setPollIn(handle);
+        }
+        if ((suspendedOps & SelectionKey.OP_WRITE) != 0) {
+            ioObject.setPollOut(handle);
+        }
+        ioThread.attached(this, session);
+
+        //  The pending timers start over, as the time of their expiration is lost.
+        if (hasTtlTimer) {
+            ioObject.addTimer(remoteHeartbeatTtl, HEARTBEAT_TTL_TIMER_ID);
+        }
+        if (hasTimeoutTimer) {
+            ioObject.addTimer(heartbeatTimeout, HEARTBEAT_TIMEOUT_TIMER_ID);
+        }
+        if (hasHeartbeatTimer) {
+            ioObject.addTimer(options.heartbeatInterval, HEARTBEAT_IVL_TIMER_ID);
+        }
+        if (hasBatchTimer) {
+            ioObject.addTimer(BATCH_SHRINK_IVL, BATCH_TIMER_ID);
+        }
+        if (hasCoalesceTimer) {
+            ioObject.addTimer(options.coalesceIvl, COALESCE_TIMER_ID);
+        }
+
+        //  The results of the crypto threads may have come while moving.
+        if (crypto != null) {
+            offloadDone();
+        }
+    }
+
+    //  Traffic of the engine and time spent in its events.
+    public EngineLoad getLoad()
+    {
+        return load;
+    }
+
+    long getAffinity()
+    {
+        return options.affinity;
+    }
+
     @Override
     public void terminate()
     {
+        if (hasCoalesceTimer && !ioError) {
+            //  Last chance for the waiting messages to be written.
+            write(outvec);
+        }
         unplug();
         destroy();
     }
 
     @Override
     public void inEvent()
+    {
+        measured(input);
+    }
+
+    @Override
+    public void outEvent()
+    {
+        measured(output);
+    }
+
+    //  Accounts the time spent in an event, once when the events are nested.
+    private void measured(Runnable event)
+    {
+        if (measuring) {
+            event.run();
+            return;
+        }
+        measuring = true;
+        long begin = Clock.nowNS();
+        try {
+            event.run();
+        }
+        finally {
+            measuring = false;
+            load.busy(Clock.nowNS() - begin);
+        }
+    }
+
+    private void input()
     {
         assert (!ioError);
 
@@ -413,6 +604,7 @@ public class StreamEngine implements IEngine, IPollEvents
             //  the underlying TCP layer has fixed buffer size and thus the
             //  number of bytes read will be always limited.
 
+            decoder.resize(inBatchSize);
             inpos = decoder.getBuffer();
             int rc = read(inpos);
             if (rc == 0) {
@@ -425,6 +617,14 @@ public class StreamEngine implements IEngine, IPollEvents
                 }
                 return;
             }
+            if (rc >= inBatchSize) {
+                //  The batch was filled, more data may be waiting
+                inBatchFilled = true;
+                if (inBatchSize < maxInBatchSize) {
+                    inBatchSize = Math.min(maxInBatchSize, inBatchSize * 2);
+                    setBatchTimer();
+                }
+            }
             //  Adjust input size
             inpos.flip();
             insize = rc;
@@ -453,6 +653,7 @@ public class StreamEngine implements IEngine, IPollEvents
             if (!rc) {
                 break;
             }
+            load.decoded();
         }
 
         // Tear down the connection if we have failed to decode input data
@@ -471,8 +672,9 @@ public class StreamEngine implements IEngine, IPollEvents
         session.flush();
     }
 
-    @Override
-    public void outEvent()
+    private final Runnable input = this::input;
+
+    private void output()
     {
         assert (!ioError);
 
@@ -485,22 +687,12 @@ public class StreamEngine implements IEngine, IPollEvents
                 assert (handshaking);
                 return;
             }
-            outpos.set(null);
-            outsize = encoder.encode(outpos, 0);
+            outvec.resize(outBatchSize);
 
-            //  Make sure batch sizes match large buffer sizes
-            int outBatchSize = Math.max(options.sndbuf, Config.OUT_BATCH_SIZE.getValue());
-
-            while (outsize < outBatchSize) {
-                Msg msg = nextMsg.get();
-                if (msg == null) {
-                    break;
-                }
-                encoder.loadMsg(msg);
-                int n = encoder.encode(outpos, outBatchSize - outsize);
-                assert (n > 0);
-                outsize += n;
-            }
+            //  The small chunks are copied in the vector, the message bodies
+            //  are written from their own buffers.
+            outsize = encoder.encode(outvec, outBatchSize);
+            encodeBatch();
 
             //  If there is no data to send, stop polling for output.
             if (outsize == 0) {
@@ -520,7 +712,7 @@ public class StreamEngine implements IEngine, IPollEvents
         //  arbitrarily large. However, we assume that underlying TCP layer has
         //  limited transmission buffer and thus the actual number of bytes
         //  written should be reasonably modest.
-        int nbytes = write(outpos.get());
+        int nbytes = outvec.isEmpty() ? write(outpos.get()) : write(outvec);
 
         //  IO error has occurred. We stop waiting for output events.
         //  The engine is not terminated until we detect input error;
@@ -545,6 +737,68 @@ public class StreamEngine implements IEngine, IPollEvents
         }
     }
 
+    private final Runnable output = this::output;
+
+    //  Adds the waiting messages to the output batch.
+    private void encodeBatch()
+    {
+        while (outsize < outBatchSize) {
+            Msg msg = nextMsg.get();
+            if (msg == null) {
+                break;
+            }
+            encoder.loadMsg(msg);
+            load.encoded();
+            int n = encoder.encode(outvec, outBatchSize - outsize);
+            assert (n > 0);
+            outsize += n;
+        }
+
+        if (outsize >= outBatchSize) {
+            //  The batch was filled, more messages may be waiting
+            outBatchFilled = true;
+            if (outBatchSize < maxOutBatchSize) {
+                outBatchSize = Math.min(maxOutBatchSize, outBatchSize * 2);
+                setBatchTimer();
+            }
+        }
+    }
+
+    //  Encodes the messages sent on an idle connection without writing them,
+    //  until they fill the output batch or the coalesce timer expires.
+    private void coalesce()
+    {
+        if (outsize == 0) {
+            outvec.resize(outBatchSize);
+        }
+        //  The batch may grow once filled, in adaptive mode
+        int batchSize = outBatchSize;
+        encodeBatch();
+
+        if (outsize >= batchSize) {
+            flush();
+        }
+        else if (outsize > 0 && !hasCoalesceTimer) {
+            ioObject.addTimer(options.coalesceIvl, COALESCE_TIMER_ID);
+            hasCoalesceTimer = true;
+        }
+    }
+
+    //  Writes the coalesced messages.
+    private void flush()
+    {
+        if (hasCoalesceTimer) {
+            ioObject.cancelTimer(COALESCE_TIMER_ID);
+            hasCoalesceTimer = false;
+        }
+        if (outsize > 0) {
+            encoder.encoded();
+        }
+        ioObject.setPollOut(handle);
+        outputStopped = false;
+        outEvent();
+    }
+
     @Override
     public void restartOutput()
     {
@@ -552,6 +806,14 @@ public class StreamEngine implements IEngine, IPollEvents
             return;
         }
 
+        //  The messages of an idle connection wait for others, once the
+        //  handshake is over.
+        if (outputStopped && options.coalesceIvl > 0 && !handshaking
+                && (nextMsg == pullAndEncode || nextMsg == pullMsgFromSession)) {
+            coalesce();
+            return;
+        }
+
         if (outputStopped) {
             ioObject.setPollOut(handle);
             outputStopped = false;
@@ -566,6 +828,16 @@ public class StreamEngine implements IEngine, IPollEvents
 
     @Override
     public void restartInput()
+    {
+        if (crypto != null) {
+            //  The session may have been waiting for the unboxed messages.
+            offloadDone();
+            return;
+        }
+        resumeInput();
+    }
+
+    private void resumeInput()
     {
         assert (inputStopped);
         assert (session != null);
@@ -581,6 +853,7 @@ public class StreamEngine implements IEngine, IPollEvents
             }
             return;
         }
+        load.decoded();
         boolean decodingSuccess = decodeCurrentInputs();
         if (!decodingSuccess && errno.is(ZError.EAGAIN)) {
             session.flush();
@@ -617,6 +890,7 @@ public class StreamEngine implements IEngine, IPollEvents
             if (!processMsg.apply(decoder.msg())) {
                 return false;
             }
+            load.decoded();
         }
         return true;
     }
@@ -633,10 +907,6 @@ public class StreamEngine implements IEngine, IPollEvents
         //  Position of the version field in the greeting.
         int revisionPos = SIGNATURE_SIZE;
 
-        //  Make sure batch sizes match large buffer sizes
-        int inBatchSize = Math.max(options.rcvbuf, Config.IN_BATCH_SIZE.getValue());
-        int outBatchSize = Math.max(options.sndbuf, Config.OUT_BATCH_SIZE.getValue());
-
         //  Receive the greeting.
         while (greetingRecv.position() < greetingSize) {
             int n = read(greetingRecv);
@@ -803,7 +1073,7 @@ public class StreamEngine implements IEngine, IPollEvents
                 return false;
             }
             encoder = new V2Encoder(errno, outBatchSize);
-            decoder = new V2Decoder(errno, inBatchSize, options.maxMsgSize, options.allocator);
+            decoder = new V2Decoder(errno, inBatchSize, options.maxMsgSize, options.allocator, options.msgSlicing);
 
             decodeDataAfterHandshake(V2_GREETING_SIZE);
         }
@@ -811,7 +1081,7 @@ public class StreamEngine implements IEngine, IPollEvents
             zmtpVersion = Protocol.V3;
 
             encoder = new V2Encoder(errno, outBatchSize);
-            decoder = new V2Decoder(errno, inBatchSize, options.maxMsgSize, options.allocator);
+            decoder = new V2Decoder(errno, inBatchSize, options.maxMsgSize, options.allocator, options.msgSlicing);
 
             greetingRecv.position(V2_GREETING_SIZE);
             if (mechanism.isMechanism(greetingRecv)) {
@@ -987,6 +1257,13 @@ public class StreamEngine implements IEngine, IPollEvents
         nextMsg = pullAndEncode;
         processMsg = writeCredential;
 
+        if (options.mechanism == Mechanisms.CURVE) {
+            Executor pool = session.getCtx().getCryptoPool();
+            if (pool != null) {
+                crypto = new CryptoPipeline(pool, session, mechanism);
+            }
+        }
+
         //  Compile metadata.
         assert (metadata == null);
 
@@ -1055,8 +1332,8 @@ public class StreamEngine implements IEngine, IPollEvents
                 return false;
             }
         }
-        processMsg = decodeAndPush;
-        return decodeAndPush.apply(msg);
+        processMsg = crypto == null ? decodeAndPush : offloadDecode;
+        return processMsg.apply(msg);
     }
 
     private final Function<Msg, Boolean> writeCredential = this::writeCredential;
@@ -1065,13 +1342,28 @@ public class StreamEngine implements IEngine, IPollEvents
     {
         assert (mechanism != null);
 
+        if (crypto != null) {
+            //  Feeds the crypto threads, and takes what they boxed.
+            while (!crypto.isEncodingFull()) {
+                Msg msg = session.pullMsg();
+                if (msg == null) {
+                    break;
+                }
+                crypto.encode(msg);
+            }
+            return crypto.encoded();
+        }
+
         Msg msg = session.pullMsg();
         if (msg == null) {
             return null;
 
         }
-        msg = mechanism.encode(msg);
-        return msg;
+        Msg encoded = mechanism.encode(msg);
+        if (encoded != msg) {
+            msg.release();
+        }
+        return encoded;
     }
 
     private final Supplier<Msg> pullAndEncode = this::pullAndEncode;
@@ -1080,10 +1372,29 @@ public class StreamEngine implements IEngine, IPollEvents
     {
         assert (mechanism != null);
 
-        msg = mechanism.decode(msg);
-        if (msg == null) {
+        Msg decoded = mechanism.decode(msg);
+        if (decoded == null) {
             return false;
         }
+        boolean rc = pushDecoded(decoded);
+        if (!rc) {
+            if (errno.is(ZError.EAGAIN)) {
+                processMsg = pushOneThenDecodeAndPush;
+            }
+            return false;
+        }
+        if (decoded != msg) {
+            //  The encrypted message is not needed anymore.
+            msg.release();
+        }
+        return true;
+    }
+
+    private final Function<Msg, Boolean> decodeAndPush = this::decodeAndPush;
+
+    //  Pushes an unboxed message to the session, once the engine looked at it.
+    private boolean pushDecoded(Msg decoded)
+    {
         if (hasTimeoutTimer) {
             hasTimeoutTimer = false;
             ioObject.cancelTimer(HEARTBEAT_TIMEOUT_TIMER_ID);
@@ -1092,24 +1403,89 @@ public class StreamEngine implements IEngine, IPollEvents
             hasTtlTimer = false;
             ioObject.cancelTimer(HEARTBEAT_TTL_TIMER_ID);
         }
-        if (msg.isCommand()) {
-            StreamEngine.this.processCommand(msg);
+        if (decoded.isCommand()) {
+            StreamEngine.this.processCommand(decoded);
         }
 
         if (metadata != null) {
-            msg.setMetadata(metadata);
+            decoded.setMetadata(metadata);
         }
-        boolean rc = session.pushMsg(msg);
-        if (!rc) {
-            if (errno.is(ZError.EAGAIN)) {
-                processMsg = pushOneThenDecodeAndPush;
-            }
+        return session.pushMsg(decoded);
+    }
+
+    //  Hands a boxed message to the crypto threads, unless too many are waiting.
+    private boolean offloadDecode(Msg msg)
+    {
+        if (crypto.isDecodingFull()) {
+            errno.set(ZError.EAGAIN);
             return false;
         }
+        crypto.decode(msg);
         return true;
     }
 
-    private final Function<Msg, Boolean> decodeAndPush = this::decodeAndPush;
+    private final Function<Msg, Boolean> offloadDecode = this::offloadDecode;
+
+    //  Pushes the messages unboxed by the crypto threads to the session, in order.
+    private boolean pushOffloaded()
+    {
+        if (pendingDecoded != null) {
+            if (!session.pushMsg(pendingDecoded)) {
+                return false;
+            }
+            pendingDecoded = null;
+        }
+        Msg decoded;
+        while ((decoded = crypto.decoded()) != null) {
+            if (decoded == CryptoPipeline.FAILED) {
+                errno.set(ZError.EPROTO);
+                return false;
+            }
+            if (!pushDecoded(decoded)) {
+                if (errno.is(ZError.EAGAIN)) {
+                    pendingDecoded = decoded;
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void offloadDone()
+    {
+        //  A suspended engine takes the results once resumed.
+        if (!plugged || crypto == null || (handle == null && !ioError)) {
+            return;
+        }
+        measured(takeOffloaded);
+    }
+
+    //  Takes the results of the crypto threads, and feeds them again.
+    private void takeOffloaded()
+    {
+        crypto.clearSignal();
+
+        if (!pushOffloaded()) {
+            if (!errno.is(ZError.EAGAIN)) {
+                error(ErrorReason.PROTOCOL);
+                return;
+            }
+        }
+        else if (inputStopped && !crypto.isDecodingFull()) {
+            resumeInput();
+            if (!plugged) {
+                return;
+            }
+        }
+        session.flush();
+
+        if (outputStopped) {
+            restartOutput();
+        }
+    }
+
+    private final Runnable takeOffloaded = this::takeOffloaded;
 
     private boolean pushOneThenDecodeAndPush(Msg msg)
     {
@@ -1174,12 +1550,54 @@ public class StreamEngine implements IEngine, IPollEvents
             hasTimeoutTimer = false;
             error(ErrorReason.TIMEOUT);
         }
+        else if (id == BATCH_TIMER_ID) {
+            hasBatchTimer = false;
+            shrinkBatches();
+        }
+        else if (id == COALESCE_TIMER_ID) {
+            hasCoalesceTimer = false;
+            if (!ioError) {
+                flush();
+            }
+        }
         else {
             // There are no other valid timer ids!
             assert (false);
         }
     }
 
+    private void setBatchTimer()
+    {
+        if (!hasBatchTimer) {
+            ioObject.addTimer(BATCH_SHRINK_IVL, BATCH_TIMER_ID);
+            hasBatchTimer = true;
+        }
+    }
+
+    //  Halves the batches not filled since the last check. The buffers not
+    //  in use are resized at once, so that an idle connection releases them.
+    private void shrinkBatches()
+    {
+        if (!inBatchFilled && inBatchSize > minInBatchSize) {
+            inBatchSize = Math.max(minInBatchSize, inBatchSize / 2);
+        }
+        if (!outBatchFilled && outBatchSize > minOutBatchSize) {
+            outBatchSize = Math.max(minOutBatchSize, outBatchSize / 2);
+        }
+        inBatchFilled = false;
+        outBatchFilled = false;
+
+        if (decoder != null && insize == 0) {
+            decoder.resize(inBatchSize);
+        }
+        if (outsize == 0) {
+            outvec.resize(outBatchSize);
+        }
+        if (inBatchSize > minInBatchSize || outBatchSize > minOutBatchSize) {
+            setBatchTimer();
+        }
+    }
+
     private Msg producePingMessage()
     {
         assert (mechanism != null);
@@ -1190,7 +1608,7 @@ public class StreamEngine implements IEngine, IPollEvents
         Wire.putUInt16(msg, options.heartbeatTtl);
         msg.put(heartbeatContext);
 
-        msg = mechanism.encode(msg);
+        msg = encodeCommand(msg);
 
         nextMsg = pullAndEncode;
 
@@ -1212,13 +1630,23 @@ public class StreamEngine implements IEngine, IPollEvents
         msg.putShortString("PONG");
         msg.put(pingContext);
 
-        msg = mechanism.encode(msg);
+        msg = encodeCommand(msg);
 
         nextMsg = pullAndEncode;
 
         return msg;
     }
 
+    //  Boxes a command of the engine, behind the messages given to the crypto threads.
+    private Msg encodeCommand(Msg msg)
+    {
+        if (crypto == null) {
+            return mechanism.encode(msg);
+        }
+        crypto.encode(msg);
+        return crypto.encoded();
+    }
+
     private boolean processCommand(Msg msg)
     {
         if (Msgs.startsWith(msg, "PING", true)) {
@@ -1230,7 +1658,7 @@ public class StreamEngine implements IEngine, IPollEvents
     private boolean processHeartbeatMessage(Msg msg)
     {
         // Get the remote heartbeat TTL to setup the timer
-        int remoteHeartbeatTtl = msg.getShort(5);
+        remoteHeartbeatTtl = msg.getShort(5);
 
         // The remote heartbeat is in 10ths of a second
         // so we multiply it by 100 to get the timer interval in ms.
@@ -1269,6 +1697,30 @@ public class StreamEngine implements IEngine, IPollEvents
             if (nbytes == 0) {
                 errno.set(ZError.EAGAIN);
             }
+            else {
+                load.sent(nbytes);
+            }
+        }
+        catch (IOException e) {
+            errno.set(ZError.ENOTCONN, e);
+            nbytes = -1;
+        }
+
+        return nbytes;
+    }
+
+    //  Gathering version of write, for the encoded messages.
+    private int write(BufferVector outvec)
+    {
+        int nbytes;
+        try {
+            nbytes = (int) outvec.write(fd);
+            if (nbytes == 0) {
+                errno.set(ZError.EAGAIN);
+            }
+            else {
+                load.sent(nbytes);
+            }
         }
         catch (IOException e) {
             errno.set(ZError.ENOTCONN, e);
@@ -1289,6 +1741,9 @@ public class StreamEngine implements IEngine, IPollEvents
             if (nbytes == -1) {
                 errno.set(ZError.ENOTCONN);
             }
+            else if (nbytes > 0) {
+                load.received(nbytes);
+            }
             else if (nbytes == 0) {
                 if (!fd.isBlocking()) {
                     //  If not a single byte can be read from the socket in non-blocking mode
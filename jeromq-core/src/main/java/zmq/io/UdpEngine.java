@@ -0,0 +1,277 @@
+package zmq.io;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+import zmq.Msg;
+import zmq.Options;
+import zmq.SocketBase;
+import zmq.ZError;
+import zmq.io.net.udp.UdpAddress;
+import zmq.poll.IPollEvents;
+import zmq.poll.Poller;
+
+//  Engine exchanging the messages of RADIO and DISH sockets as datagrams,
+//  with the framing of libzmq: the length of the group on one byte,
+//  the group, then the body.
+public class UdpEngine implements IEngine, IPollEvents
+{
+    //  Largest payload of an UDP datagram over IPv4
+    private static final int MAX_DATAGRAM_SIZE = 65507;
+
+    private final Options    options;
+    private final UdpAddress address;
+    //  True for a sender, false for a receiver
+    private final boolean    send;
+    private final String     endpoint;
+    private final ByteBuffer buffer;
+
+    private DatagramChannel fd;
+    private Poller.Handle   handle;
+    private IOObject        ioObject;
+    private SessionBase     session;
+    private SocketBase      socket;
+
+    //  True if the datagram in the buffer waits for room in the socket buffer
+    private boolean outPending;
+    //  Group of a datagram waiting for room in the pipe, null if it was pushed
+    private Msg     inGroup;
+    //  Body of a datagram waiting for room in the pipe
+    private Msg     inPending;
+
+    public UdpEngine(Options options, UdpAddress address, boolean send)
+    {
+        this.options = options;
+        this.address = address;
+        this.send = send;
+        endpoint = address.toString();
+        buffer = ByteBuffer.allocateDirect(MAX_DATAGRAM_SIZE);
+    }
+
+    @Override
+    public void plug(IOThread ioThread, SessionBase session)
+    {
+        assert (this.session == null);
+        assert (session != null);
+        this.session = session;
+        socket = session.getSocket();
+
+        ioObject = new IOObject(ioThread, this);
+        ioObject.plug();
+        try {
+            fd = address.open(options, send);
+        }
+        catch (IOException | RuntimeException e) {
+            //  The engine stays idle, there is no connection to retry with UDP
+            socket.eventBindFailed(endpoint, e instanceof IOException ? ZError.exccode((IOException) e) : ZError.EINVAL);
+            return;
+        }
+        handle = ioObject.addFd(fd);
+        if (send) {
+            socket.eventConnected(endpoint, fd);
+            ioObject.setPollOut(handle);
+        }
+        else {
+            socket.eventListening(endpoint, fd);
+            ioObject.setPollIn(handle);
+            restartOutput();
+        }
+    }
+
+    @Override
+    public void terminate()
+    {
+        if (handle != null) {
+            ioObject.removeHandle(handle);
+            handle = null;
+        }
+        if (fd != null) {
+            try {
+                fd.close();
+                socket.eventClosed(endpoint, fd);
+            }
+            catch (IOException e) {
+                socket.eventCloseFailed(endpoint, ZError.exccode(e));
+            }
+            fd = null;
+        }
+        ioObject.unplug();
+        session = null;
+    }
+
+    @Override
+    public void inEvent()
+    {
+        while (inPending == null) {
+            buffer.clear();
+            SocketAddress from;
+            try {
+                from = fd.receive(buffer);
+            }
+            catch (IOException e) {
+                //  Datagrams are unreliable, the failed one is lost
+                from = null;
+            }
+            if (from == null) {
+                break;
+            }
+            buffer.flip();
+            decode();
+        }
+        session.flush();
+    }
+
+    private void decode()
+    {
+        //  Malformed datagrams are dropped
+        int size = buffer.remaining();
+        if (size < 1) {
+            return;
+        }
+        int groupSize = buffer.get() & 0xff;
+        if (groupSize > size - 1) {
+            return;
+        }
+
+        Msg group = new Msg(groupSize);
+        group.put(buffer, buffer.position(), groupSize);
+        group.setFlags(Msg.MORE);
+        int bodySize = size - 1 - groupSize;
+        Msg body = new Msg(bodySize);
+        body.put(buffer, buffer.position() + groupSize, bodySize);
+
+        push(group, body);
+    }
+
+    private void push(Msg group, Msg body)
+    {
+        if (group != null && !session.pushMsg(group)) {
+            if (!session.errno.is(ZError.EAGAIN)) {
+                //  Refused group, the datagram is dropped
+                return;
+            }
+            //  The pipe is full before the group: the whole datagram is kept
+            keep(group, body);
+            return;
+        }
+        if (!session.pushMsg(body)) {
+            keep(null, body);
+        }
+    }
+
+    //  The pipe is full: the datagram is kept and the next ones wait in the socket
+    //  buffer until the session can take more.
+    private void keep(Msg group, Msg body)
+    {
+        inGroup = group;
+        inPending = body;
+        ioObject.resetPollIn(handle);
+    }
+
+    @Override
+    public void restartInput()
+    {
+        if (inPending == null) {
+            return;
+        }
+        Msg group = inGroup;
+        Msg body = inPending;
+        inGroup = null;
+        inPending = null;
+        push(group, body);
+        if (inPending == null) {
+            ioObject.setPollIn(handle);
+            inEvent();
+        }
+        else {
+            session.flush();
+        }
+    }
+
+    @Override
+    public void outEvent()
+    {
+        while (true) {
+            if (!outPending) {
+                Msg group = session.pullMsg();
+                if (group == null) {
+                    ioObject.resetPollOut(handle);
+                    return;
+                }
+                //  The session of the radio gives the body right after the group
+                Msg body = session.pullMsg();
+                assert (body != null);
+                if (1 + group.size() + body.size() > MAX_DATAGRAM_SIZE) {
+                    //  Too large for a datagram
+                    group.release();
+                    body.release();
+                    continue;
+                }
+
+                buffer.clear();
+                buffer.put((byte) group.size());
+                //  The messages can be shared with other pipes, their buffers are duplicated
+                buffer.put(group.buf());
+                buffer.put(body.buf());
+                buffer.flip();
+                //  Copied in the datagram, their buffers are not needed anymore
+                group.release();
+                body.release();
+                outPending = true;
+            }
+
+            int sent;
+            try {
+                sent = fd.send(buffer, address.address());
+            }
+            catch (IOException e) {
+                //  Datagrams are unreliable, the failed one is lost
+                sent = -1;
+            }
+            if (sent == 0) {
+                //  The socket buffer is full, waits for room to send it
+                return;
+            }
+            outPending = false;
+        }
+    }
+
+    @Override
+    public void restartOutput()
+    {
+        if (send) {
+            if (handle != null) {
+                ioObject.setPollOut(handle);
+                outEvent();
+            }
+        }
+        else {
+            //  The groups joined by the dish are filtered by the socket itself,
+            //  the subscriptions are discarded.
+            Msg msg = session.pullMsg();
+            while (msg != null) {
+                msg.release();
+                msg = session.pullMsg();
+            }
+        }
+    }
+
+    @Override
+    public void zapMsgAvailable()
+    {
+    }
+
+    @Override
+    public String getEndPoint()
+    {
+        return endpoint;
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "[" + endpoint + "]";
+    }
+}
@@ -0,0 +1,159 @@
+package zmq.io.coder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import zmq.Msg;
+
+/**
+ * The data to write to a channel, as a vector of buffers for a gathering write.
+ * <p>
+ * Small chunks of data are copied one after the other in a batch buffer, large ones are
+ * referenced without copy. The messages whose buffers are referenced are held until the
+ * whole vector was written, and then released.
+ */
+public class BufferVector
+{
+    //  The copied chunks.
+    private ByteBuffer batch;
+
+    //  Position in the batch of the first chunk not yet added to the vector.
+    private int mark;
+
+    private ByteBuffer[] buffers = new ByteBuffer[16];
+    private int          first;
+    private int          count;
+
+    //  Number of bytes in the vector not written yet.
+    private long remaining;
+
+    //  Messages referenced by the vector.
+    private final List<Msg> held = new ArrayList<>();
+
+    public BufferVector(int batchSize)
+    {
+        batch = ByteBuffer.allocateDirect(batchSize);
+    }
+
+    //  Size of the batch buffer.
+    public int capacity()
+    {
+        return batch.capacity();
+    }
+
+    //  Changes the size of the batch buffer of an empty vector.
+    public void resize(int batchSize)
+    {
+        assert (isEmpty());
+        if (batchSize != batch.capacity()) {
+            batch = ByteBuffer.allocateDirect(batchSize);
+            mark = 0;
+        }
+    }
+
+    //  Number of bytes that can still be copied in the batch buffer.
+    public int available()
+    {
+        return batch.remaining();
+    }
+
+    //  Copies up to length bytes from the source, returns the number of bytes copied.
+    public int copy(ByteBuffer src, int length)
+    {
+        int toCopy = Math.min(length, batch.remaining());
+        int limit = src.limit();
+        src.limit(src.position() + toCopy);
+        batch.put(src);
+        src.limit(limit);
+        remaining += toCopy;
+        return toCopy;
+    }
+
+    //  Adds the given bytes of the source without copying them.
+    public void reference(ByteBuffer src, int length)
+    {
+        mark();
+        ByteBuffer chunk = src.duplicate();
+        chunk.limit(chunk.position() + length);
+        add(chunk);
+        remaining += length;
+    }
+
+    //  Keeps the message until the vector was written.
+    public void hold(Msg msg)
+    {
+        held.add(msg);
+    }
+
+    public boolean isEmpty()
+    {
+        return remaining == 0;
+    }
+
+    public long remaining()
+    {
+        return remaining;
+    }
+
+    //  Writes as much data as possible to the channel, returns the number of bytes written.
+    public long write(GatheringByteChannel channel) throws IOException
+    {
+        mark();
+        long nbytes = channel.write(buffers, first, count - first);
+        consumed(nbytes);
+        return nbytes;
+    }
+
+    //  Removes the given number of bytes, already written, from the head of the vector.
+    private void consumed(long nbytes)
+    {
+        remaining -= nbytes;
+        assert (remaining >= 0);
+        while (first < count && !buffers[first].hasRemaining()) {
+            buffers[first++] = null;
+        }
+        if (remaining == 0) {
+            clear();
+        }
+    }
+
+    //  Empties the vector and releases the held messages.
+    public void clear()
+    {
+        Arrays.fill(buffers, first, count, null);
+        first = 0;
+        count = 0;
+        remaining = 0;
+        batch.clear();
+        mark = 0;
+        for (Msg msg : held) {
+            msg.release();
+        }
+        held.clear();
+    }
+
+    //  Adds the bytes copied since the last mark to the vector.
+    private void mark()
+    {
+        int position = batch.position();
+        if (position > mark) {
+            ByteBuffer chunk = batch.duplicate();
+            chunk.position(mark);
+            chunk.limit(position);
+            add(chunk);
+            mark = position;
+        }
+    }
+
+    private void add(ByteBuffer chunk)
+    {
+        if (count == buffers.length) {
+            buffers = Arrays.copyOf(buffers, count * 2);
+        }
+        buffers[count++] = chunk;
+    }
+}
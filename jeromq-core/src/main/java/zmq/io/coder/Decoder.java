@@ -1,8 +1,11 @@
 package zmq.io.coder;
 
+import java.nio.ByteBuffer;
+
 import zmq.Msg;
 import zmq.ZError;
 import zmq.msg.MsgAllocator;
+import zmq.msg.RefCounted;
 import zmq.util.Errno;
 
 //  Helper base class for decoders that know the amount of data to read
@@ -68,12 +71,52 @@ public abstract class Decoder extends DecoderBase
 
     public Decoder(Errno errno, int bufsize, long maxmsgsize, MsgAllocator allocator)
     {
-        super(errno, bufsize);
+        this(errno, bufsize, maxmsgsize, allocator, false);
+    }
+
+    public Decoder(Errno errno, int bufsize, long maxmsgsize, MsgAllocator allocator, boolean slicing)
+    {
+        super(errno, bufsize, slicing);
         this.maxmsgsize = maxmsgsize;
         this.allocator = allocator;
     }
 
     protected Step.Result sizeReady(long size)
+    {
+        Step.Result rc = checkSize(size);
+        if (rc == Step.Result.ERROR) {
+            return rc;
+        }
+
+        //  inProgress is initialized at this point so in theory we should
+        //  close it before calling init_size, however, it's a 0-byte
+        //  message and thus we can treat it as uninitialized.
+        inProgress = allocate((int) size);
+
+        return Step.Result.MORE_DATA;
+    }
+
+    //  Prepares the reading of a message body, either in an allocated
+    //  message or sliced from the receive buffer, then goes to the next step.
+    protected Step.Result sizeReady(long size, Step next)
+    {
+        Step.Result rc = checkSize(size);
+        if (rc == Step.Result.ERROR) {
+            return rc;
+        }
+
+        if (size == 0) {
+            inProgress = allocate(0);
+            nextStep(inProgress, next);
+        }
+        else {
+            inProgress = null;
+            nextBody((int) size, next);
+        }
+        return Step.Result.MORE_DATA;
+    }
+
+    private Step.Result checkSize(long size)
     {
         //  Message size must not exceed the maximum allowed size.
         if (maxmsgsize >= 0) {
@@ -88,12 +131,6 @@ public abstract class Decoder extends DecoderBase
             errno(ZError.EMSGSIZE);
             return Step.Result.ERROR;
         }
-
-        //  inProgress is initialized at this point so in theory we should
-        //  close it before calling init_size, however, it's a 0-byte
-        //  message and thus we can treat it as uninitialized.
-        inProgress = allocate((int) size);
-
         return Step.Result.MORE_DATA;
     }
 
@@ -102,6 +139,25 @@ public abstract class Decoder extends DecoderBase
         return allocator.allocate(size);
     }
 
+    //  Creates a message from a body sliced from the receive buffer.
+    protected Msg slice(ByteBuffer body, RefCounted owner)
+    {
+        return new Msg(body, owner);
+    }
+
+    @Override
+    protected ByteBuffer allocateBody(int size)
+    {
+        inProgress = allocate(size);
+        return inProgress.buf();
+    }
+
+    @Override
+    protected void sliceBody(ByteBuffer slice, RefCounted owner)
+    {
+        inProgress = slice(slice, owner);
+    }
+
     protected Step.Result oneByteSizeReady()
     {
         throw new UnsupportedOperationException("Have you forgot to implement oneByteSizeReady ?");
@@ -1,8 +1,10 @@
 package zmq.io.coder;
 
 import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReference;
 
 import zmq.Msg;
+import zmq.msg.RefCounted;
 import zmq.util.Errno;
 import zmq.util.ValueReference;
 
@@ -19,6 +21,32 @@ import zmq.util.ValueReference;
 
 public abstract class DecoderBase implements IDecoder
 {
+    //  The receive buffer, shared with the messages sliced from it.
+    private static final class ReceiveBuffer extends RefCounted
+    {
+        private final ByteBuffer                     buffer;
+        private final AtomicReference<ReceiveBuffer> spare;
+
+        private ReceiveBuffer(int bufsize, AtomicReference<ReceiveBuffer> spare)
+        {
+            this.buffer = ByteBuffer.allocateDirect(bufsize);
+            this.spare = spare;
+        }
+
+        private ReceiveBuffer reuse()
+        {
+            reset();
+            return this;
+        }
+
+        @Override
+        protected void deallocate()
+        {
+            //  The last slice was released, the buffer can be reused by the decoder.
+            spare.set(this);
+        }
+    }
+
     //  Where to store the read data.
     private ByteBuffer readPos;
 
@@ -28,22 +56,50 @@ public abstract class DecoderBase implements IDecoder
     private int toRead;
 
     //  The buffer for data to decode.
-    private final int bufsize;
+    private int bufsize;
 
-    private final ByteBuffer buf;
+    private ByteBuffer buf;
 
     private Step next;
 
     private final Errno errno;
 
+    //  True if the buffer of the next body has not been chosen yet.
+    private boolean pending;
+
+    //  The receive buffer when the bodies can be sliced from it, null otherwise.
+    private ReceiveBuffer received;
+
+    //  A receive buffer whose slices were all released.
+    private final AtomicReference<ReceiveBuffer> spare;
+
     public DecoderBase(Errno errno, int bufsize)
+    {
+        this(errno, bufsize, false);
+    }
+
+    /**
+     * @param errno the error number.
+     * @param bufsize the size of the receive buffer.
+     * @param slicing true to decode the message bodies fully received in a single read
+     *                as read-only slices of the receive buffer, instead of copying them.
+     */
+    public DecoderBase(Errno errno, int bufsize, boolean slicing)
     {
         next = null;
         readPos = null;
         toRead = 0;
         this.bufsize = bufsize;
         assert (bufsize > 0);
-        buf = ByteBuffer.allocateDirect(bufsize);
+        if (slicing) {
+            spare = new AtomicReference<>();
+            received = new ReceiveBuffer(bufsize, spare);
+            buf = received.buffer;
+        }
+        else {
+            spare = null;
+            buf = ByteBuffer.allocateDirect(bufsize);
+        }
         this.errno = errno;
     }
 
@@ -60,16 +116,49 @@ public abstract class DecoderBase implements IDecoder
         //  other engines running in the same I/O thread for excessive
         //  amounts of time.
         if (toRead >= bufsize) {
+            if (pending) {
+                pending = false;
+                readPos = allocateBody(toRead);
+            }
             zeroCopy = true;
             return readPos.duplicate();
         }
         else {
             zeroCopy = false;
+            if (received != null && received.refs() > 1) {
+                //  Some slices of the current buffer are still in use, switch to another one.
+                received.rmRefs(1);
+                ReceiveBuffer reusable = spare.getAndSet(null);
+                received = reusable == null || reusable.buffer.capacity() != bufsize
+                        ? new ReceiveBuffer(bufsize, spare)
+                        : reusable.reuse();
+                buf = received.buffer;
+            }
             buf.clear();
             return buf;
         }
     }
 
+    @Override
+    public void resize(int bufsize)
+    {
+        assert (bufsize > 0);
+        if (bufsize == this.bufsize) {
+            return;
+        }
+        this.bufsize = bufsize;
+        if (received != null) {
+            //  The slices still in use keep the previous buffer.
+            received.rmRefs(1);
+            spare.set(null);
+            received = new ReceiveBuffer(bufsize, spare);
+            buf = received.buffer;
+        }
+        else {
+            buf = ByteBuffer.allocateDirect(bufsize);
+        }
+    }
+
     //  Processes the data in the buffer previously allocated using
     //  get_buffer function. size_ argument specifies number of bytes
     //  actually filled into the buffer. Function returns number of
@@ -88,7 +177,7 @@ public abstract class DecoderBase implements IDecoder
             toRead -= size;
             processed.set(size);
 
-            while (readPos.remaining() == 0) {
+            while (!pending && readPos.remaining() == 0) {
                 Step.Result result = next.apply();
                 if (result != Step.Result.MORE_DATA) {
                     return result;
@@ -98,6 +187,34 @@ public abstract class DecoderBase implements IDecoder
         }
 
         while (processed.get() < size) {
+            if (pending) {
+                pending = false;
+                if (received != null && data == buf && toRead <= size - processed.get()) {
+                    //  The whole body was received, use it in place.
+                    ByteBuffer slice = data.duplicate();
+                    slice.limit(slice.position() + toRead);
+                    received.addRefs(1);
+                    sliceBody(slice.slice().asReadOnlyBuffer(), received);
+
+                    data.position(data.position() + toRead);
+                    processed.set(processed.get() + toRead);
+                    toRead = 0;
+
+                    Step.Result result = next.apply();
+                    if (result != Step.Result.MORE_DATA) {
+                        return result;
+                    }
+                    while (!pending && readPos.remaining() == 0) {
+                        result = next.apply();
+                        if (result != Step.Result.MORE_DATA) {
+                            return result;
+                        }
+                    }
+                    continue;
+                }
+                readPos = allocateBody(toRead);
+            }
+
             //  Copy the data from buffer to the message.
             int toCopy = Math.min(toRead, size - processed.get());
             int limit = data.limit();
@@ -109,7 +226,7 @@ public abstract class DecoderBase implements IDecoder
 
             //  Try to get more space in the message to fill in.
             //  If none is available, return.
-            while (readPos.remaining() == 0) {
+            while (!pending && readPos.remaining() == 0) {
                 Step.Result result = next.apply();
                 if (result != Step.Result.MORE_DATA) {
                     return result;
@@ -141,6 +258,51 @@ public abstract class DecoderBase implements IDecoder
         this.next = next;
     }
 
+    /**
+     * Reads a message body of the given size in a buffer chosen once the data arrives:
+     * a slice of the receive buffer if the body is fully received, otherwise the buffer
+     * returned by {@link #allocateBody(int)}.
+     * Without slicing, the body is always read in an allocated buffer.
+     *
+     * @param size the size of the body, strictly positive.
+     * @param next the step to apply once the body is read.
+     */
+    protected void nextBody(int size, Step next)
+    {
+        assert (size > 0);
+        if (received == null) {
+            nextStep(allocateBody(size), next);
+        }
+        else {
+            pending = true;
+            readPos = null;
+            this.toRead = size;
+            this.next = next;
+        }
+    }
+
+    /**
+     * Allocates the buffer to read a message body into.
+     *
+     * @param size the size of the body.
+     * @return the buffer to fill.
+     */
+    protected ByteBuffer allocateBody(int size)
+    {
+        throw new UnsupportedOperationException("Have you forgot to implement allocateBody ?");
+    }
+
+    /**
+     * Receives a message body sliced from the receive buffer.
+     *
+     * @param slice the read-only body.
+     * @param owner the owner of the receive buffer, already referenced for the slice.
+     */
+    protected void sliceBody(ByteBuffer slice, RefCounted owner)
+    {
+        throw new UnsupportedOperationException("Have you forgot to implement sliceBody ?");
+    }
+
     protected void errno(int err)
     {
         this.errno.set(err);
@@ -154,5 +316,9 @@ public abstract class DecoderBase implements IDecoder
     @Override
     public void destroy()
     {
+        if (received != null) {
+            received.rmRefs(1);
+            received = null;
+        }
     }
 }
@@ -2,6 +2,7 @@ package zmq.io.coder;
 
 import java.nio.ByteBuffer;
 
+import zmq.Config;
 import zmq.Msg;
 import zmq.util.Errno;
 import zmq.util.ValueReference;
@@ -21,13 +22,16 @@ public abstract class EncoderBase implements IEncoder
     //  How much data to write before next step should be executed.
     private int toWrite;
 
-    //  The buffer for encoded data.
-    private final ByteBuffer buffer;
+    //  The buffer for encoded data, allocated when first needed.
+    private ByteBuffer buffer;
 
     private final int bufferSize;
 
     private boolean error;
 
+    //  If true, the message in progress is referenced by a vector of buffers.
+    private boolean held;
+
     protected Msg inProgress;
 
     private final Errno errno;
@@ -36,7 +40,6 @@ public abstract class EncoderBase implements IEncoder
     {
         this.errno = errno;
         this.bufferSize = bufferSize;
-        buffer = ByteBuffer.allocateDirect(bufferSize);
         error = false;
     }
 
@@ -58,6 +61,9 @@ public abstract class EncoderBase implements IEncoder
         int bufferSize = size;
         ByteBuffer buf = data.get();
         if (buf == null) {
+            if (buffer == null) {
+                buffer = ByteBuffer.allocateDirect(this.bufferSize);
+            }
             buf = this.buffer;
             bufferSize = this.bufferSize;
             buffer.clear();
@@ -76,6 +82,8 @@ public abstract class EncoderBase implements IEncoder
             //  in the buffer.
             if (toWrite == 0) {
                 if (newMsgFlag) {
+                    //  The message was fully written, its buffer can be reused.
+                    inProgress.release();
                     inProgress = null;
                     break;
                 }
@@ -118,10 +126,65 @@ public abstract class EncoderBase implements IEncoder
         return pos;
     }
 
+    //  The chunks of data larger than the threshold are not copied but
+    //  referenced by the vector, and their message is held until written.
+    @Override
+    public int encode(BufferVector vector, int size)
+    {
+        if (inProgress == null) {
+            return 0;
+        }
+
+        int threshold = Config.OUT_GATHER_THRESHOLD.getValue();
+        int pos = 0;
+        while (pos < size) {
+            if (toWrite == 0) {
+                if (newMsgFlag) {
+                    //  The message was fully added, its buffer can be reused
+                    //  unless the vector still references it.
+                    if (held) {
+                        held = false;
+                    }
+                    else {
+                        inProgress.release();
+                    }
+                    inProgress = null;
+                    break;
+                }
+                next();
+                continue;
+            }
+
+            if (toWrite >= threshold) {
+                vector.reference(writeBuf, toWrite);
+                if (!held) {
+                    vector.hold(inProgress);
+                    held = true;
+                }
+                pos += toWrite;
+                writeBuf = null;
+                toWrite = 0;
+                continue;
+            }
+
+            int copied = vector.copy(writeBuf, Math.min(toWrite, size - pos));
+            if (copied == 0) {
+                //  No room left in the vector.
+                break;
+            }
+            pos += copied;
+            toWrite -= copied;
+        }
+
+        return pos;
+    }
+
     @Override
     public void encoded()
     {
-        buffer.flip();
+        if (buffer != null) {
+            buffer.flip();
+        }
     }
 
     protected void encodingError()
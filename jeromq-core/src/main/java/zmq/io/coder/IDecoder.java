@@ -21,6 +21,13 @@ public interface IDecoder
 
     ByteBuffer getBuffer();
 
+    //  Changes the size of the buffer returned by getBuffer. It is called only
+    //  once all the data of the current buffer were decoded. Decoders with a
+    //  fixed buffer ignore it.
+    default void resize(int bufsize)
+    {
+    }
+
     Step.Result decode(ByteBuffer buffer, int size, ValueReference<Integer> processed);
 
     Msg msg();
@@ -15,6 +15,18 @@ public interface IEncoder
     //  points to NULL) decoder object will provide buffer of its own.
     int encode(ValueReference<ByteBuffer> data, int size);
 
+    //  Adds a batch of binary data to the vector, up to size bytes, and
+    //  returns the number of bytes added. Unless overridden, the data are
+    //  copied in the vector.
+    default int encode(BufferVector vector, int size)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.min(size, vector.available()));
+        ValueReference<ByteBuffer> data = new ValueReference<>(buffer);
+        int nbytes = encode(data, buffer.capacity());
+        buffer.flip();
+        return vector.copy(buffer, nbytes);
+    }
+
     void destroy();
 
     // called when stream engine finished encoding all messages and is ready to
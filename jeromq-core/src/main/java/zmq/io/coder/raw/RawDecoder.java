@@ -9,7 +9,7 @@ import zmq.util.ValueReference;
 public class RawDecoder implements IDecoder
 {
     //  The buffer for data to decode.
-    private final ByteBuffer buffer;
+    private ByteBuffer buffer;
 
     protected Msg inProgress;
 
@@ -26,6 +26,14 @@ public class RawDecoder implements IDecoder
         return buffer;
     }
 
+    @Override
+    public void resize(int bufsize)
+    {
+        if (bufsize != buffer.capacity()) {
+            buffer = ByteBuffer.allocateDirect(bufsize);
+        }
+    }
+
     @Override
     public Step.Result decode(ByteBuffer buffer, int size, ValueReference<Integer> processed)
     {
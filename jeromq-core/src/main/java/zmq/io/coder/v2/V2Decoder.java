@@ -6,6 +6,7 @@ import zmq.Msg;
 import zmq.ZError;
 import zmq.io.coder.Decoder;
 import zmq.msg.MsgAllocator;
+import zmq.msg.RefCounted;
 import zmq.util.Errno;
 import zmq.util.Wire;
 
@@ -16,7 +17,20 @@ public class V2Decoder extends Decoder
 
     public V2Decoder(Errno errno, int bufsize, long maxmsgsize, MsgAllocator allocator)
     {
-        super(errno, bufsize, maxmsgsize, allocator);
+        this(errno, bufsize, maxmsgsize, allocator, false);
+    }
+
+    /**
+     * @param errno the error number.
+     * @param bufsize the size of the receive buffer.
+     * @param maxmsgsize the maximum size of a message, or -1 for no limit.
+     * @param allocator the allocator of the messages.
+     * @param slicing true to decode the messages fully received in a single read as read-only
+     *                slices of the receive buffer, that is reused once they are all released.
+     */
+    public V2Decoder(Errno errno, int bufsize, long maxmsgsize, MsgAllocator allocator, boolean slicing)
+    {
+        super(errno, bufsize, maxmsgsize, allocator, slicing);
 
         tmpbuf = ByteBuffer.allocate(8);
         tmpbuf.limit(1);
@@ -33,15 +47,19 @@ public class V2Decoder extends Decoder
         return msg;
     }
 
+    @Override
+    protected Msg slice(ByteBuffer body, RefCounted owner)
+    {
+        Msg msg = super.slice(body, owner);
+        msg.setFlags(msgFlags);
+        return msg;
+    }
+
     @Override
     protected Step.Result oneByteSizeReady()
     {
         int size = tmpbuf.get(0) & 0xff;
-        Step.Result rc = sizeReady(size);
-        if (rc != Step.Result.ERROR) {
-            nextStep(inProgress, messageReady);
-        }
-        return rc;
+        return sizeReady(size, messageReady);
     }
 
     @Override
@@ -57,11 +75,7 @@ public class V2Decoder extends Decoder
             return Step.Result.ERROR;
         }
 
-        Step.Result rc = sizeReady(size);
-        if (rc != Step.Result.ERROR) {
-            nextStep(inProgress, messageReady);
-        }
-        return rc;
+        return sizeReady(size, messageReady);
     }
 
     @Override
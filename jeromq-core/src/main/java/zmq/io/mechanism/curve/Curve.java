@@ -3,17 +3,18 @@ package zmq.io.mechanism.curve;
 import java.nio.ByteBuffer;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
-
-import com.neilalexander.jnacl.crypto.curve25519xsalsa20poly1305;
-import com.neilalexander.jnacl.crypto.xsalsa20poly1305;
+import java.util.Objects;
+import java.util.ServiceLoader;
 
 import zmq.util.Z85;
 
-// wrapper around the wrapper of libsodium (ahem), for shorter names.
+// wrapper around the crypto provider, for shorter names.
 public class Curve
 {
     private static final SecureRandom strongRandom;
 
+    private static volatile CurveProvider defaultProvider;
+
     static {
         try {
             strongRandom = SecureRandom.getInstanceStrong();
@@ -30,35 +31,35 @@ public class Curve
             @Override
             public int bytes()
             {
-                return curve25519xsalsa20poly1305.crypto_secretbox_NONCEBYTES;
+                return 24;
             }
         },
         ZERO {
             @Override
             public int bytes()
             {
-                return curve25519xsalsa20poly1305.crypto_secretbox_ZEROBYTES;
+                return 32;
             }
         },
         BOXZERO {
             @Override
             public int bytes()
             {
-                return curve25519xsalsa20poly1305.crypto_secretbox_BOXZEROBYTES;
+                return 16;
             }
         },
         PUBLICKEY {
             @Override
             public int bytes()
             {
-                return curve25519xsalsa20poly1305.crypto_secretbox_PUBLICKEYBYTES;
+                return 32;
             }
         },
         SECRETKEY {
             @Override
             public int bytes()
             {
-                return curve25519xsalsa20poly1305.crypto_secretbox_SECRETKEYBYTES;
+                return 32;
             }
         },
         KEY {
@@ -72,15 +73,80 @@ public class Curve
             @Override
             public int bytes()
             {
-                return curve25519xsalsa20poly1305.crypto_secretbox_BEFORENMBYTES;
+                return 32;
             }
         };
 
         public abstract int bytes();
     }
 
+    private final CurveProvider provider;
+
     public Curve()
     {
+        this(getDefaultProvider());
+    }
+
+    public Curve(CurveProvider provider)
+    {
+        this.provider = Objects.requireNonNull(provider, "provider");
+    }
+
+    /**
+     * Returns the provider of the new {@link Curve}, the first valid {@link CurveProvider} found by the
+     * {@link ServiceLoader} unless another one was installed. When none is found, as when the services
+     * were lost while repackaging, one of the providers of jeromq is used.
+     *
+     * @return the default provider.
+     * @throws IllegalStateException if no valid provider is available.
+     */
+    public static CurveProvider getDefaultProvider()
+    {
+        CurveProvider provider = defaultProvider;
+        if (provider == null) {
+            provider = ServiceLoader.load(CurveProvider.class, Curve.class.getClassLoader())
+                                    .stream()
+                                    .map(ServiceLoader.Provider::get)
+                                    .filter(CurveProvider::isValid)
+                                    .findFirst()
+                                    .orElseGet(Curve::builtinProvider);
+            defaultProvider = provider;
+        }
+        return provider;
+    }
+
+    //  The first valid provider of jeromq, without the service loader.
+    static CurveProvider builtinProvider()
+    {
+        CurveProvider provider = new JdkCurveProvider();
+        if (provider.isValid()) {
+            return provider;
+        }
+        provider = new JnaclCurveProvider();
+        if (provider.isValid()) {
+            return provider;
+        }
+        throw new IllegalStateException("No CURVE provider available");
+    }
+
+    /**
+     * Installs the provider of the new {@link Curve}, and so of the CURVE mechanisms created afterward.
+     *
+     * @param provider the provider to use.
+     * @throws IllegalArgumentException if the provider is not usable.
+     */
+    public static void setDefaultProvider(CurveProvider provider)
+    {
+        Objects.requireNonNull(provider, "provider");
+        if (!provider.isValid()) {
+            throw new IllegalArgumentException("Unusable CURVE provider " + provider.name());
+        }
+        defaultProvider = provider;
+    }
+
+    public CurveProvider provider()
+    {
+        return provider;
     }
 
     public static String z85EncodePublic(byte[] publicKey)
@@ -102,7 +168,7 @@ public class Curve
         byte[] publicKey = new byte[Size.PUBLICKEY.bytes()];
         byte[] secretKey = new byte[Size.SECRETKEY.bytes()];
 
-        int rc = curve25519xsalsa20poly1305.crypto_box_keypair(publicKey, secretKey);
+        int rc = provider.keypair(publicKey, secretKey);
         assert (rc == 0);
 
         pair[0] = Z85.encode(publicKey, Size.PUBLICKEY.bytes());
@@ -125,7 +191,7 @@ public class Curve
         byte[] publicKey = new byte[Size.PUBLICKEY.bytes()];
         byte[] secretKey = new byte[Size.SECRETKEY.bytes()];
 
-        int rc = curve25519xsalsa20poly1305.crypto_box_keypair(publicKey, secretKey);
+        int rc = provider.keypair(publicKey, secretKey);
         assert (rc == 0);
 
         pair[0] = publicKey;
@@ -136,7 +202,7 @@ public class Curve
 
     int beforenm(byte[] outSharedKey, byte[] publicKey, byte[] secretKey)
     {
-        return curve25519xsalsa20poly1305.crypto_box_beforenm(outSharedKey, publicKey, secretKey);
+        return provider.beforenm(outSharedKey, publicKey, secretKey);
     }
 
     int afternm(ByteBuffer ciphered, ByteBuffer plaintext, int length, ByteBuffer nonce, byte[] precom)
@@ -146,7 +212,7 @@ public class Curve
 
     int afternm(byte[] ciphered, byte[] plaintext, int length, byte[] nonce, byte[] precomp)
     {
-        return curve25519xsalsa20poly1305.crypto_box_afternm(ciphered, plaintext, length, nonce, precomp);
+        return provider.afternm(ciphered, plaintext, length, nonce, precomp);
     }
 
     int openAfternm(ByteBuffer plaintext, ByteBuffer messagebox, int length, ByteBuffer nonce, byte[] precom)
@@ -156,7 +222,7 @@ public class Curve
 
     int openAfternm(byte[] plaintext, byte[] cipher, int length, byte[] nonce, byte[] precom)
     {
-        return curve25519xsalsa20poly1305.crypto_box_open_afternm(plaintext, cipher, length, nonce, precom);
+        return provider.openAfternm(plaintext, cipher, length, nonce, precom);
     }
 
     int open(ByteBuffer plaintext, ByteBuffer messagebox, int length, ByteBuffer nonce, byte[] precom, byte[] secretKey)
@@ -166,7 +232,7 @@ public class Curve
 
     int open(byte[] plaintext, byte[] messagebox, int length, byte[] nonce, byte[] publicKey, byte[] secretKey)
     {
-        return curve25519xsalsa20poly1305.crypto_box_open(plaintext, messagebox, length, nonce, publicKey, secretKey);
+        return provider.open(plaintext, messagebox, length, nonce, publicKey, secretKey);
     }
 
     int secretbox(ByteBuffer ciphertext, ByteBuffer plaintext, int length, ByteBuffer nonce, byte[] key)
@@ -176,7 +242,7 @@ public class Curve
 
     int secretbox(byte[] ciphertext, byte[] plaintext, int length, byte[] nonce, byte[] key)
     {
-        return xsalsa20poly1305.crypto_secretbox(ciphertext, plaintext, length, nonce, key);
+        return provider.secretbox(ciphertext, plaintext, length, nonce, key);
     }
 
     int secretboxOpen(ByteBuffer plaintext, ByteBuffer box, int length, ByteBuffer nonce, byte[] key)
@@ -186,7 +252,7 @@ public class Curve
 
     int secretboxOpen(byte[] plaintext, byte[] box, int length, byte[] nonce, byte[] key)
     {
-        return xsalsa20poly1305.crypto_secretbox_open(plaintext, box, length, nonce, key);
+        return provider.secretboxOpen(plaintext, box, length, nonce, key);
     }
 
     byte[] random(int length)
@@ -205,6 +271,6 @@ public class Curve
 
     public int box(byte[] ciphertext, byte[] plaintext, int length, byte[] nonce, byte[] publicKey, byte[] secretKey)
     {
-        return curve25519xsalsa20poly1305.crypto_box(ciphertext, plaintext, length, nonce, publicKey, secretKey);
+        return provider.box(ciphertext, plaintext, length, nonce, publicKey, secretKey);
     }
 }
@@ -49,6 +49,8 @@ public class CurveClientMechanism extends Mechanism
     private long cnPeerNonce;
 
     private final Curve cryptoBox;
+    //  Boxing and unboxing of the messages, once connected
+    private final CurveMessage message;
 
     private final Errno errno;
 
@@ -66,6 +68,7 @@ public class CurveClientMechanism extends Mechanism
         assert (serverKey != null && serverKey.length == Curve.Size.PUBLICKEY.bytes());
 
         cryptoBox = new Curve();
+        message = new CurveMessage(cryptoBox, "CurveZMQMESSAGEC", "CurveZMQMESSAGES");
         //  Generate short-term key pair
         byte[][] keys = cryptoBox.keypair();
         assert (keys != null && keys.length == 2);
@@ -128,35 +131,7 @@ public class CurveClientMechanism extends Mechanism
     {
         assert (state == State.CONNECTED);
 
-        byte flags = 0;
-        if (msg.hasMore()) {
-            flags |= 0x01;
-        }
-        if (msg.isCommand()) {
-            flags |= 0x02;
-        }
-
-        ByteBuffer messageNonce = ByteBuffer.allocate(Curve.Size.NONCE.bytes());
-
-        messageNonce.put("CurveZMQMESSAGEC".getBytes(ZMQ.CHARSET));
-        Wire.putUInt64(messageNonce, cnNonce);
-
-        int mlen = Curve.Size.ZERO.bytes() + 1 + msg.size();
-
-        ByteBuffer messagePlaintext = ByteBuffer.allocate(mlen);
-        messagePlaintext.put(Curve.Size.ZERO.bytes(), flags);
-        messagePlaintext.position(Curve.Size.ZERO.bytes() + 1);
-        msg.transfer(messagePlaintext, 0, msg.size());
-
-        ByteBuffer messageBox = ByteBuffer.allocate(mlen);
-
-        int rc = cryptoBox.afternm(messageBox, messagePlaintext, mlen, messageNonce, cnPrecom);
-        assert (rc == 0);
-
-        Msg encoded = new Msg(16 + mlen - Curve.Size.BOXZERO.bytes());
-        encoded.putShortString("MESSAGE");
-        encoded.put(messageNonce, 16, 8);
-        encoded.put(messageBox, Curve.Size.BOXZERO.bytes(), mlen - Curve.Size.BOXZERO.bytes());
+        Msg encoded = message.encode(msg, cnNonce, cnPrecom);
 
         cnNonce++;
         return encoded;
@@ -179,10 +154,6 @@ public class CurveClientMechanism extends Mechanism
             return null;
         }
 
-        ByteBuffer messageNonce = ByteBuffer.allocate(Curve.Size.NONCE.bytes());
-        messageNonce.put("CurveZMQMESSAGES".getBytes(ZMQ.CHARSET));
-        msg.transfer(messageNonce, 8, 8);
-
         long nonce = msg.getLong(8);
 
         if (nonce <= cnPeerNonce) {
@@ -192,28 +163,8 @@ public class CurveClientMechanism extends Mechanism
         }
         cnPeerNonce = nonce;
 
-        int clen = Curve.Size.BOXZERO.bytes() + msg.size() - 16;
-
-        ByteBuffer messagePlaintext = ByteBuffer.allocate(clen);
-        ByteBuffer messageBox = ByteBuffer.allocate(clen);
-
-        messageBox.position(Curve.Size.BOXZERO.bytes());
-        msg.transfer(messageBox, 16, msg.size() - 16);
-
-        int rc = cryptoBox.openAfternm(messagePlaintext, messageBox, clen, messageNonce, cnPrecom);
-        if (rc == 0) {
-            Msg decoded = new Msg(clen - 1 - Curve.Size.ZERO.bytes());
-
-            byte flags = messagePlaintext.get(Curve.Size.ZERO.bytes());
-            if ((flags & 0x01) != 0) {
-                decoded.setFlags(Msg.MORE);
-            }
-            if ((flags & 0x02) != 0) {
-                decoded.setFlags(Msg.COMMAND);
-            }
-
-            messagePlaintext.position(Curve.Size.ZERO.bytes() + 1);
-            decoded.put(messagePlaintext);
+        Msg decoded = message.decode(msg, cnPrecom);
+        if (decoded != null) {
             return decoded;
         }
         else {
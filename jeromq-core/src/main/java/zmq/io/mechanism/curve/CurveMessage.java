@@ -0,0 +1,122 @@
+package zmq.io.mechanism.curve;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import zmq.Msg;
+import zmq.ZMQ;
+
+//  Boxing and unboxing of the MESSAGE commands of a CURVE connection.
+//  The nonce and the plaintext are kept per connection and reused from
+//  one message to the next, so that a message only allocates the array
+//  it ends up in: the box of an encoded message is the encoded message
+//  itself, and an exclusively owned incoming message is opened in place.
+final class CurveMessage
+{
+    //  Messages larger than this don't keep their plaintext buffer around.
+    static final int MAX_RETAINED_PLAINTEXT = 65536;
+
+    //  Length of the "MESSAGE" command name and of the short nonce.
+    private static final int HEADER = 16;
+
+    private static final byte[] MESSAGE = { 7, 'M', 'E', 'S', 'S', 'A', 'G', 'E' };
+
+    private final Curve cryptoBox;
+
+    private final byte[]     nonce;
+    private final ByteBuffer nonceBuf;
+    private final byte[]     peerNonce;
+
+    //  Zero padding, flags and payload of the last message in each direction.
+    private byte[] sendPlaintext;
+    private byte[] recvPlaintext;
+
+    CurveMessage(Curve cryptoBox, String prefix, String peerPrefix)
+    {
+        this.cryptoBox = cryptoBox;
+        nonce = new byte[Curve.Size.NONCE.bytes()];
+        nonceBuf = ByteBuffer.wrap(nonce);
+        nonceBuf.put(prefix.getBytes(ZMQ.CHARSET));
+        peerNonce = new byte[Curve.Size.NONCE.bytes()];
+        System.arraycopy(peerPrefix.getBytes(ZMQ.CHARSET), 0, peerNonce, 0, 16);
+        sendPlaintext = new byte[Curve.Size.ZERO.bytes() + 1];
+        recvPlaintext = new byte[Curve.Size.ZERO.bytes() + 1];
+    }
+
+    Msg encode(Msg msg, long shortNonce, byte[] precom)
+    {
+        byte flags = 0;
+        if (msg.hasMore()) {
+            flags |= 0x01;
+        }
+        if (msg.isCommand()) {
+            flags |= 0x02;
+        }
+
+        nonceBuf.putLong(16, shortNonce);
+
+        int mlen = Curve.Size.ZERO.bytes() + 1 + msg.size();
+
+        byte[] plain = sendPlaintext;
+        if (mlen > plain.length) {
+            plain = new byte[mlen];
+            if (retained(mlen)) {
+                sendPlaintext = plain;
+            }
+        }
+        plain[Curve.Size.ZERO.bytes()] = flags;
+        msg.getBytes(0, plain, Curve.Size.ZERO.bytes() + 1, msg.size());
+
+        //  The box starts with BOXZERO null bytes, exactly the size of the
+        //  command name and short nonce which are written over them.
+        byte[] box = new byte[mlen];
+        int rc = cryptoBox.afternm(box, plain, mlen, nonce, precom);
+        assert (rc == 0);
+
+        System.arraycopy(MESSAGE, 0, box, 0, 8);
+        System.arraycopy(nonce, 16, box, 8, 8);
+        return new Msg(box);
+    }
+
+    //  The sequence of the short nonce is checked by the caller.
+    Msg decode(Msg msg, byte[] precom)
+    {
+        assert (msg.size() >= 33);
+
+        //  Either the very array of the message, or a copy of it:
+        //  in both cases it can be turned into the box.
+        byte[] box = msg.data();
+        int clen = box.length;
+        System.arraycopy(box, 8, peerNonce, 16, 8);
+        Arrays.fill(box, 0, Curve.Size.BOXZERO.bytes(), (byte) 0);
+
+        byte[] plain = recvPlaintext;
+        if (clen > plain.length) {
+            plain = new byte[clen];
+            if (retained(clen)) {
+                recvPlaintext = plain;
+            }
+        }
+        int rc = cryptoBox.openAfternm(plain, box, clen, peerNonce, precom);
+        if (rc != 0) {
+            return null;
+        }
+        Msg decoded = new Msg(clen - 1 - Curve.Size.ZERO.bytes());
+
+        byte flags = plain[Curve.Size.ZERO.bytes()];
+        if ((flags & 0x01) != 0) {
+            decoded.setFlags(Msg.MORE);
+        }
+        if ((flags & 0x02) != 0) {
+            decoded.setFlags(Msg.COMMAND);
+        }
+
+        decoded.put(plain, Curve.Size.ZERO.bytes() + 1, decoded.size());
+        return decoded;
+    }
+
+    private static boolean retained(int length)
+    {
+        return length <= Curve.Size.ZERO.bytes() + 1 + MAX_RETAINED_PLAINTEXT;
+    }
+}
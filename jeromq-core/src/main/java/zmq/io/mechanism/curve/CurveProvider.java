@@ -0,0 +1,69 @@
+package zmq.io.mechanism.curve;
+
+/**
+ * The cryptographic primitives of the CURVE mechanism, as defined by NaCl: curve25519xsalsa20poly1305 boxes
+ * and xsalsa20poly1305 secret boxes.
+ * <p>
+ * The arrays follow the NaCl conventions: a plaintext starts with {@link Curve.Size#ZERO} null bytes and a
+ * ciphertext with {@link Curve.Size#BOXZERO} null bytes, both are given with their full length.
+ * All the methods return 0 on success, and a non-zero value if the operation failed, as when a ciphertext
+ * can't be authenticated.
+ * <p>
+ * The providers are found with {@link java.util.ServiceLoader}, the first valid one is used, unless another one is
+ * installed with {@link Curve#setDefaultProvider(CurveProvider)}. A provider is used concurrently by many threads.
+ */
+public interface CurveProvider
+{
+    /**
+     * @return the name of the provider.
+     */
+    String name();
+
+    /**
+     * @return true if the provider can be used, when the libraries it relies on are available.
+     */
+    default boolean isValid()
+    {
+        return true;
+    }
+
+    int keypair(byte[] publicKey, byte[] secretKey);
+
+    int beforenm(byte[] sharedKey, byte[] publicKey, byte[] secretKey);
+
+    int afternm(byte[] ciphertext, byte[] plaintext, int length, byte[] nonce, byte[] sharedKey);
+
+    int openAfternm(byte[] plaintext, byte[] ciphertext, int length, byte[] nonce, byte[] sharedKey);
+
+    default int box(byte[] ciphertext, byte[] plaintext, int length, byte[] nonce, byte[] publicKey, byte[] secretKey)
+    {
+        byte[] sharedKey = new byte[Curve.Size.BEFORENM.bytes()];
+        int rc = beforenm(sharedKey, publicKey, secretKey);
+        if (rc != 0) {
+            return rc;
+        }
+        return afternm(ciphertext, plaintext, length, nonce, sharedKey);
+    }
+
+    default int open(byte[] plaintext, byte[] ciphertext, int length, byte[] nonce, byte[] publicKey,
+                     byte[] secretKey)
+    {
+        byte[] sharedKey = new byte[Curve.Size.BEFORENM.bytes()];
+        int rc = beforenm(sharedKey, publicKey, secretKey);
+        if (rc != 0) {
+            return rc;
+        }
+        return openAfternm(plaintext, ciphertext, length, nonce, sharedKey);
+    }
+
+    //  A box with a precomputed key is a secret box keyed by the precomputation.
+    default int secretbox(byte[] ciphertext, byte[] plaintext, int length, byte[] nonce, byte[] key)
+    {
+        return afternm(ciphertext, plaintext, length, nonce, key);
+    }
+
+    default int secretboxOpen(byte[] plaintext, byte[] ciphertext, int length, byte[] nonce, byte[] key)
+    {
+        return openAfternm(plaintext, ciphertext, length, nonce, key);
+    }
+}
@@ -0,0 +1,163 @@
+package zmq.io.mechanism.curve;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.spec.NamedParameterSpec;
+import java.security.spec.XECPrivateKeySpec;
+import java.security.spec.XECPublicKeySpec;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.crypto.KeyAgreement;
+
+//  The primitives of NaCl with the X25519 key agreement of the JDK, and a secret box tuned for the JIT.
+//  The keys precomputed for a pair of keys are kept for a while, as the handshake of a connection boxes
+//  and opens more than one command with the same keys. They are found by a digest of the pair of keys,
+//  so that no secret key is kept in the heap.
+public class JdkCurveProvider implements CurveProvider
+{
+    //  Number of precomputed keys kept.
+    private static final int PRECOMPUTED = 64;
+
+    //  2^255 - 19
+    private static final BigInteger P = BigInteger.ONE.shiftLeft(255).subtract(BigInteger.valueOf(19));
+
+    private static final byte[] BASEPOINT = new byte[32];
+
+    static {
+        BASEPOINT[0] = 9;
+    }
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final ThreadLocal<XSalsa20Poly1305> boxes = ThreadLocal.withInitial(XSalsa20Poly1305::new);
+
+    private final Map<ByteBuffer, byte[]> precomputed = new LinkedHashMap<ByteBuffer, byte[]>(16, 0.75f, true)
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ByteBuffer, byte[]> eldest)
+        {
+            return size() > PRECOMPUTED;
+        }
+    };
+
+    @Override
+    public String name()
+    {
+        return "jdk";
+    }
+
+    @Override
+    public boolean isValid()
+    {
+        try {
+            KeyAgreement.getInstance("XDH");
+            return true;
+        }
+        catch (GeneralSecurityException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public int keypair(byte[] publicKey, byte[] secretKey)
+    {
+        random.nextBytes(secretKey);
+        return scalarmult(publicKey, secretKey, BASEPOINT);
+    }
+
+    @Override
+    public int beforenm(byte[] sharedKey, byte[] publicKey, byte[] secretKey)
+    {
+        ByteBuffer pair = digest(publicKey, secretKey);
+        byte[] key;
+        synchronized (precomputed) {
+            key = precomputed.get(pair);
+        }
+        if (key == null) {
+            byte[] shared = new byte[32];
+            int rc = scalarmult(shared, secretKey, publicKey);
+            if (rc != 0) {
+                return rc;
+            }
+            int[] words = new int[8];
+            XSalsa20Poly1305.hsalsa20(words, shared, new byte[16]);
+            key = new byte[32];
+            ByteBuffer.wrap(key).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().put(words);
+            synchronized (precomputed) {
+                precomputed.put(pair, key);
+            }
+        }
+        System.arraycopy(key, 0, sharedKey, 0, 32);
+        return 0;
+    }
+
+    @Override
+    public int afternm(byte[] ciphertext, byte[] plaintext, int length, byte[] nonce, byte[] sharedKey)
+    {
+        return boxes.get().seal(ciphertext, plaintext, length, nonce, sharedKey);
+    }
+
+    @Override
+    public int openAfternm(byte[] plaintext, byte[] ciphertext, int length, byte[] nonce, byte[] sharedKey)
+    {
+        return boxes.get().open(plaintext, ciphertext, length, nonce, sharedKey);
+    }
+
+    //  SHA-256 of the public key followed by the secret key.
+    private static ByteBuffer digest(byte[] publicKey, byte[] secretKey)
+    {
+        byte[] pair = new byte[64];
+        System.arraycopy(publicKey, 0, pair, 0, 32);
+        System.arraycopy(secretKey, 0, pair, 32, 32);
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(pair));
+        }
+        catch (NoSuchAlgorithmException e) {
+            //  Every JDK provides SHA-256
+            throw new IllegalStateException(e);
+        }
+        finally {
+            Arrays.fill(pair, (byte) 0);
+        }
+    }
+
+    //  X25519 of the little-endian scalar and u-coordinate.
+    private static int scalarmult(byte[] out, byte[] scalar, byte[] point)
+    {
+        //  XECPublicKeySpec wants the coordinate as a number, without its unused top bit.
+        byte[] u = new byte[33];
+        for (int i = 0; i < 32; ++i) {
+            u[32 - i] = point[i];
+        }
+        u[1] &= 0x7f;
+        try {
+            KeyFactory factory = KeyFactory.getInstance("XDH");
+            PrivateKey privateKey = factory.generatePrivate(new XECPrivateKeySpec(NamedParameterSpec.X25519,
+                                                                                  scalar.clone()));
+            PublicKey publicKey = factory.generatePublic(new XECPublicKeySpec(NamedParameterSpec.X25519,
+                                                                              new BigInteger(u).mod(P)));
+            KeyAgreement agreement = KeyAgreement.getInstance("XDH");
+            agreement.init(privateKey);
+            agreement.doPhase(publicKey, true);
+            byte[] secret = agreement.generateSecret();
+            System.arraycopy(secret, 0, out, 0, 32);
+            return 0;
+        }
+        catch (GeneralSecurityException e) {
+            //  As for a point of small order, giving a null secret
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package zmq.io.mechanism.curve;
+
+import com.neilalexander.jnacl.crypto.curve25519xsalsa20poly1305;
+import com.neilalexander.jnacl.crypto.xsalsa20poly1305;
+
+//  The primitives of jnacl, a port of the reference implementation of NaCl.
+public class JnaclCurveProvider implements CurveProvider
+{
+    @Override
+    public String name()
+    {
+        return "jnacl";
+    }
+
+    @Override
+    public boolean isValid()
+    {
+        try {
+            Class.forName("com.neilalexander.jnacl.crypto.curve25519xsalsa20poly1305", false,
+                          JnaclCurveProvider.class.getClassLoader());
+            return true;
+        }
+        catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    @Override
+    public int keypair(byte[] publicKey, byte[] secretKey)
+    {
+        return curve25519xsalsa20poly1305.crypto_box_keypair(publicKey, secretKey);
+    }
+
+    @Override
+    public int beforenm(byte[] sharedKey, byte[] publicKey, byte[] secretKey)
+    {
+        return curve25519xsalsa20poly1305.crypto_box_beforenm(sharedKey, publicKey, secretKey);
+    }
+
+    @Override
+    public int afternm(byte[] ciphertext, byte[] plaintext, int length, byte[] nonce, byte[] sharedKey)
+    {
+        return curve25519xsalsa20poly1305.crypto_box_afternm(ciphertext, plaintext, length, nonce, sharedKey);
+    }
+
+    @Override
+    public int openAfternm(byte[] plaintext, byte[] ciphertext, int length, byte[] nonce, byte[] sharedKey)
+    {
+        return curve25519xsalsa20poly1305.crypto_box_open_afternm(plaintext, ciphertext, length, nonce, sharedKey);
+    }
+
+    @Override
+    public int box(byte[] ciphertext, byte[] plaintext, int length, byte[] nonce, byte[] publicKey, byte[] secretKey)
+    {
+        return curve25519xsalsa20poly1305.crypto_box(ciphertext, plaintext, length, nonce, publicKey, secretKey);
+    }
+
+    @Override
+    public int open(byte[] plaintext, byte[] ciphertext, int length, byte[] nonce, byte[] publicKey,
+                    byte[] secretKey)
+    {
+        return curve25519xsalsa20poly1305.crypto_box_open(plaintext, ciphertext, length, nonce, publicKey, secretKey);
+    }
+
+    @Override
+    public int secretbox(byte[] ciphertext, byte[] plaintext, int length, byte[] nonce, byte[] key)
+    {
+        return xsalsa20poly1305.crypto_secretbox(ciphertext, plaintext, length, nonce, key);
+    }
+
+    @Override
+    public int secretboxOpen(byte[] plaintext, byte[] ciphertext, int length, byte[] nonce, byte[] key)
+    {
+        return xsalsa20poly1305.crypto_secretbox_open(plaintext, ciphertext, length, nonce, key);
+    }
+}
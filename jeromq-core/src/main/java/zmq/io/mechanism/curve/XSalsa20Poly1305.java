@@ -0,0 +1,490 @@
+package zmq.io.mechanism.curve;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+//  The xsalsa20poly1305 secret box of NaCl, written for the JIT: the Salsa20 rounds run on local
+//  variables, the keystream is applied a little-endian word at a time, and Poly1305 works on 26 bits
+//  limbs with 64 bits products.
+//  The XSalsa20 subkey only depends on the key and on the first 16 bytes of the nonce, which are the
+//  same for all the messages of a CURVE connection, so the last subkeys are cached.
+//  An instance is not thread-safe.
+final class XSalsa20Poly1305
+{
+    private static final VarHandle LE_INT = MethodHandles.byteArrayViewVarHandle(int[].class,
+                                                                                  ByteOrder.LITTLE_ENDIAN);
+
+    //  "expand 32-byte k"
+    private static final int SIGMA0 = 0x61707865;
+    private static final int SIGMA1 = 0x3320646e;
+    private static final int SIGMA2 = 0x79622d32;
+    private static final int SIGMA3 = 0x6b206574;
+
+    private static final int MASK26 = 0x3ffffff;
+
+    //  Number of cached subkeys, a power of 2.
+    private static final int CACHE_SIZE = 16;
+
+    private final byte[][] cachedInputs  = new byte[CACHE_SIZE][];
+    private final int[][]  cachedSubkeys = new int[CACHE_SIZE][];
+
+    private final int[]  input   = new int[16];
+    private final int[]  block   = new int[16];
+    private final byte[] polyKey = new byte[32];
+    private final byte[] tag     = new byte[16];
+    private final byte[] pad     = new byte[16];
+
+    //  crypto_secretbox: the first 32 bytes of the plaintext are null, the first 16 of the ciphertext will be.
+    int seal(byte[] ciphertext, byte[] plaintext, int length, byte[] nonce, byte[] key)
+    {
+        if (length < 32) {
+            return -1;
+        }
+        init(nonce, key);
+        //  The null bytes of the plaintext become the first 32 bytes of the keystream, the Poly1305 key.
+        xor(ciphertext, plaintext, length);
+        poly1305(ciphertext, 16, ciphertext, 32, length - 32, ciphertext);
+        for (int i = 0; i < 16; ++i) {
+            ciphertext[i] = 0;
+        }
+        return 0;
+    }
+
+    //  crypto_secretbox_open: the ciphertext is authenticated before anything is written in the plaintext.
+    int open(byte[] plaintext, byte[] ciphertext, int length, byte[] nonce, byte[] key)
+    {
+        if (length < 32) {
+            return -1;
+        }
+        init(nonce, key);
+        block();
+        for (int i = 0; i < 8; ++i) {
+            LE_INT.set(polyKey, 4 * i, block[i]);
+        }
+        poly1305(tag, 0, ciphertext, 32, length - 32, polyKey);
+        int diff = 0;
+        for (int i = 0; i < 16; ++i) {
+            diff |= tag[i] ^ ciphertext[16 + i];
+        }
+        if (diff != 0) {
+            return -1;
+        }
+        input[8] = 0;
+        input[9] = 0;
+        xor(plaintext, ciphertext, length);
+        for (int i = 0; i < 32; ++i) {
+            plaintext[i] = 0;
+        }
+        return 0;
+    }
+
+    //  HSalsa20 of the 32 bytes key and the 16 bytes input, as words.
+    static void hsalsa20(int[] out, byte[] key, byte[] in)
+    {
+        int[] x = new int[16];
+        load(x, key, in);
+        rounds(x);
+        out[0] = x[0];
+        out[1] = x[5];
+        out[2] = x[10];
+        out[3] = x[15];
+        out[4] = x[6];
+        out[5] = x[7];
+        out[6] = x[8];
+        out[7] = x[9];
+    }
+
+    private void init(byte[] nonce, byte[] key)
+    {
+        int[] subkey = subkey(key, nonce);
+        input[0] = SIGMA0;
+        input[1] = subkey[0];
+        input[2] = subkey[1];
+        input[3] = subkey[2];
+        input[4] = subkey[3];
+        input[5] = SIGMA1;
+        input[6] = (int) LE_INT.get(nonce, 16);
+        input[7] = (int) LE_INT.get(nonce, 20);
+        input[8] = 0;
+        input[9] = 0;
+        input[10] = SIGMA2;
+        input[11] = subkey[4];
+        input[12] = subkey[5];
+        input[13] = subkey[6];
+        input[14] = subkey[7];
+        input[15] = SIGMA3;
+    }
+
+    private int[] subkey(byte[] key, byte[] nonce)
+    {
+        int hash = 1;
+        for (int i = 0; i < 32; i += 4) {
+            hash = 31 * hash + (int) LE_INT.get(key, i);
+        }
+        for (int i = 0; i < 16; i += 4) {
+            hash = 31 * hash + (int) LE_INT.get(nonce, i);
+        }
+        int index = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+
+        byte[] cached = cachedInputs[index];
+        if (cached != null && cached(cached, key, nonce)) {
+            return cachedSubkeys[index];
+        }
+        if (cached == null) {
+            cached = new byte[48];
+            cachedInputs[index] = cached;
+            cachedSubkeys[index] = new int[8];
+        }
+        System.arraycopy(key, 0, cached, 0, 32);
+        System.arraycopy(nonce, 0, cached, 32, 16);
+        hsalsa20(cachedSubkeys[index], key, nonce);
+        return cachedSubkeys[index];
+    }
+
+    private static boolean cached(byte[] cached, byte[] key, byte[] nonce)
+    {
+        for (int i = 0; i < 32; ++i) {
+            if (cached[i] != key[i]) {
+                return false;
+            }
+        }
+        for (int i = 0; i < 16; ++i) {
+            if (cached[32 + i] != nonce[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void load(int[] x, byte[] key, byte[] in)
+    {
+        x[0] = SIGMA0;
+        x[5] = SIGMA1;
+        x[10] = SIGMA2;
+        x[15] = SIGMA3;
+        for (int i = 0; i < 4; ++i) {
+            x[1 + i] = (int) LE_INT.get(key, 4 * i);
+            x[11 + i] = (int) LE_INT.get(key, 16 + 4 * i);
+            x[6 + i] = (int) LE_INT.get(in, 4 * i);
+        }
+    }
+
+    //  The next 64 bytes of keystream, from the block counter.
+    private void block()
+    {
+        System.arraycopy(input, 0, block, 0, 16);
+        rounds(block);
+        for (int i = 0; i < 16; ++i) {
+            block[i] += input[i];
+        }
+        if (++input[8] == 0) {
+            ++input[9];
+        }
+    }
+
+    private void xor(byte[] out, byte[] in, int length)
+    {
+        final int j0 = input[0];
+        final int j1 = input[1];
+        final int j2 = input[2];
+        final int j3 = input[3];
+        final int j4 = input[4];
+        final int j5 = input[5];
+        final int j6 = input[6];
+        final int j7 = input[7];
+        int j8 = input[8];
+        int j9 = input[9];
+        final int j10 = input[10];
+        final int j11 = input[11];
+        final int j12 = input[12];
+        final int j13 = input[13];
+        final int j14 = input[14];
+        final int j15 = input[15];
+
+        int offset = 0;
+        for (; offset + 64 <= length; offset += 64) {
+            int x0 = j0;
+            int x1 = j1;
+            int x2 = j2;
+            int x3 = j3;
+            int x4 = j4;
+            int x5 = j5;
+            int x6 = j6;
+            int x7 = j7;
+            int x8 = j8;
+            int x9 = j9;
+            int x10 = j10;
+            int x11 = j11;
+            int x12 = j12;
+            int x13 = j13;
+            int x14 = j14;
+            int x15 = j15;
+            for (int i = 0; i < 10; ++i) {
+                //  Columns
+                x4 ^= Integer.rotateLeft(x0 + x12, 7);
+                x8 ^= Integer.rotateLeft(x4 + x0, 9);
+                x12 ^= Integer.rotateLeft(x8 + x4, 13);
+                x0 ^= Integer.rotateLeft(x12 + x8, 18);
+                x9 ^= Integer.rotateLeft(x5 + x1, 7);
+                x13 ^= Integer.rotateLeft(x9 + x5, 9);
+                x1 ^= Integer.rotateLeft(x13 + x9, 13);
+                x5 ^= Integer.rotateLeft(x1 + x13, 18);
+                x14 ^= Integer.rotateLeft(x10 + x6, 7);
+                x2 ^= Integer.rotateLeft(x14 + x10, 9);
+                x6 ^= Integer.rotateLeft(x2 + x14, 13);
+                x10 ^= Integer.rotateLeft(x6 + x2, 18);
+                x3 ^= Integer.rotateLeft(x15 + x11, 7);
+                x7 ^= Integer.rotateLeft(x3 + x15, 9);
+                x11 ^= Integer.rotateLeft(x7 + x3, 13);
+                x15 ^= Integer.rotateLeft(x11 + x7, 18);
+                //  Rows
+                x1 ^= Integer.rotateLeft(x0 + x3, 7);
+                x2 ^= Integer.rotateLeft(x1 + x0, 9);
+                x3 ^= Integer.rotateLeft(x2 + x1, 13);
+                x0 ^= Integer.rotateLeft(x3 + x2, 18);
+                x6 ^= Integer.rotateLeft(x5 + x4, 7);
+                x7 ^= Integer.rotateLeft(x6 + x5, 9);
+                x4 ^= Integer.rotateLeft(x7 + x6, 13);
+                x5 ^= Integer.rotateLeft(x4 + x7, 18);
+                x11 ^= Integer.rotateLeft(x10 + x9, 7);
+                x8 ^= Integer.rotateLeft(x11 + x10, 9);
+                x9 ^= Integer.rotateLeft(x8 + x11, 13);
+                x10 ^= Integer.rotateLeft(x9 + x8, 18);
+                x12 ^= Integer.rotateLeft(x15 + x14, 7);
+                x13 ^= Integer.rotateLeft(x12 + x15, 9);
+                x14 ^= Integer.rotateLeft(x13 + x12, 13);
+                x15 ^= Integer.rotateLeft(x14 + x13, 18);
+            }
+            xorWord(out, in, offset, x0 + j0);
+            xorWord(out, in, offset + 4, x1 + j1);
+            xorWord(out, in, offset + 8, x2 + j2);
+            xorWord(out, in, offset + 12, x3 + j3);
+            xorWord(out, in, offset + 16, x4 + j4);
+            xorWord(out, in, offset + 20, x5 + j5);
+            xorWord(out, in, offset + 24, x6 + j6);
+            xorWord(out, in, offset + 28, x7 + j7);
+            xorWord(out, in, offset + 32, x8 + j8);
+            xorWord(out, in, offset + 36, x9 + j9);
+            xorWord(out, in, offset + 40, x10 + j10);
+            xorWord(out, in, offset + 44, x11 + j11);
+            xorWord(out, in, offset + 48, x12 + j12);
+            xorWord(out, in, offset + 52, x13 + j13);
+            xorWord(out, in, offset + 56, x14 + j14);
+            xorWord(out, in, offset + 60, x15 + j15);
+            if (++j8 == 0) {
+                ++j9;
+            }
+        }
+        if (offset < length) {
+            input[8] = j8;
+            input[9] = j9;
+            block();
+            for (int i = 0; offset + i < length; ++i) {
+                out[offset + i] = (byte) (in[offset + i] ^ (block[i >>> 2] >>> (8 * (i & 3))));
+            }
+        }
+    }
+
+    private static void xorWord(byte[] out, byte[] in, int offset, int word)
+    {
+        LE_INT.set(out, offset, (int) LE_INT.get(in, offset) ^ word);
+    }
+
+    //  10 double rounds of Salsa20, without the final addition.
+    private static void rounds(int[] x)
+    {
+        int x0 = x[0];
+        int x1 = x[1];
+        int x2 = x[2];
+        int x3 = x[3];
+        int x4 = x[4];
+        int x5 = x[5];
+        int x6 = x[6];
+        int x7 = x[7];
+        int x8 = x[8];
+        int x9 = x[9];
+        int x10 = x[10];
+        int x11 = x[11];
+        int x12 = x[12];
+        int x13 = x[13];
+        int x14 = x[14];
+        int x15 = x[15];
+        for (int i = 0; i < 10; ++i) {
+            //  Columns
+            x4 ^= Integer.rotateLeft(x0 + x12, 7);
+            x8 ^= Integer.rotateLeft(x4 + x0, 9);
+            x12 ^= Integer.rotateLeft(x8 + x4, 13);
+            x0 ^= Integer.rotateLeft(x12 + x8, 18);
+            x9 ^= Integer.rotateLeft(x5 + x1, 7);
+            x13 ^= Integer.rotateLeft(x9 + x5, 9);
+            x1 ^= Integer.rotateLeft(x13 + x9, 13);
+            x5 ^= Integer.rotateLeft(x1 + x13, 18);
+            x14 ^= Integer.rotateLeft(x10 + x6, 7);
+            x2 ^= Integer.rotateLeft(x14 + x10, 9);
+            x6 ^= Integer.rotateLeft(x2 + x14, 13);
+            x10 ^= Integer.rotateLeft(x6 + x2, 18);
+            x3 ^= Integer.rotateLeft(x15 + x11, 7);
+            x7 ^= Integer.rotateLeft(x3 + x15, 9);
+            x11 ^= Integer.rotateLeft(x7 + x3, 13);
+            x15 ^= Integer.rotateLeft(x11 + x7, 18);
+            //  Rows
+            x1 ^= Integer.rotateLeft(x0 + x3, 7);
+            x2 ^= Integer.rotateLeft(x1 + x0, 9);
+            x3 ^= Integer.rotateLeft(x2 + x1, 13);
+            x0 ^= Integer.rotateLeft(x3 + x2, 18);
+            x6 ^= Integer.rotateLeft(x5 + x4, 7);
+            x7 ^= Integer.rotateLeft(x6 + x5, 9);
+            x4 ^= Integer.rotateLeft(x7 + x6, 13);
+            x5 ^= Integer.rotateLeft(x4 + x7, 18);
+            x11 ^= Integer.rotateLeft(x10 + x9, 7);
+            x8 ^= Integer.rotateLeft(x11 + x10, 9);
+            x9 ^= Integer.rotateLeft(x8 + x11, 13);
+            x10 ^= Integer.rotateLeft(x9 + x8, 18);
+            x12 ^= Integer.rotateLeft(x15 + x14, 7);
+            x13 ^= Integer.rotateLeft(x12 + x15, 9);
+            x14 ^= Integer.rotateLeft(x13 + x12, 13);
+            x15 ^= Integer.rotateLeft(x14 + x13, 18);
+        }
+        x[0] = x0;
+        x[1] = x1;
+        x[2] = x2;
+        x[3] = x3;
+        x[4] = x4;
+        x[5] = x5;
+        x[6] = x6;
+        x[7] = x7;
+        x[8] = x8;
+        x[9] = x9;
+        x[10] = x10;
+        x[11] = x11;
+        x[12] = x12;
+        x[13] = x13;
+        x[14] = x14;
+        x[15] = x15;
+    }
+
+    //  Poly1305 of the message with the 32 bytes key starting the key array.
+    private void poly1305(byte[] out, int outOffset, byte[] msg, int offset, int length, byte[] key)
+    {
+        final long r0 = (int) LE_INT.get(key, 0) & 0x3ffffff;
+        final long r1 = ((int) LE_INT.get(key, 3) >>> 2) & 0x3ffff03;
+        final long r2 = ((int) LE_INT.get(key, 6) >>> 4) & 0x3ffc0ff;
+        final long r3 = ((int) LE_INT.get(key, 9) >>> 6) & 0x3f03fff;
+        final long r4 = ((int) LE_INT.get(key, 12) >>> 8) & 0x00fffff;
+        final long s1 = r1 * 5;
+        final long s2 = r2 * 5;
+        final long s3 = r3 * 5;
+        final long s4 = r4 * 5;
+
+        long h0 = 0;
+        long h1 = 0;
+        long h2 = 0;
+        long h3 = 0;
+        long h4 = 0;
+
+        int end = offset + length;
+        for (int pos = offset; pos < end; pos += 16) {
+            byte[] m = msg;
+            int at = pos;
+            long hibit = 1 << 24;
+            if (end - pos < 16) {
+                //  The last partial block, padded with a 1 and zeros.
+                int remaining = end - pos;
+                System.arraycopy(msg, pos, pad, 0, remaining);
+                pad[remaining] = 1;
+                for (int i = remaining + 1; i < 16; ++i) {
+                    pad[i] = 0;
+                }
+                m = pad;
+                at = 0;
+                hibit = 0;
+            }
+            h0 += (int) LE_INT.get(m, at) & MASK26;
+            h1 += ((int) LE_INT.get(m, at + 3) >>> 2) & MASK26;
+            h2 += ((int) LE_INT.get(m, at + 6) >>> 4) & MASK26;
+            h3 += ((int) LE_INT.get(m, at + 9) >>> 6) & MASK26;
+            h4 += ((int) LE_INT.get(m, at + 12) >>> 8) | hibit;
+
+            long d0 = h0 * r0 + h1 * s4 + h2 * s3 + h3 * s2 + h4 * s1;
+            long d1 = h0 * r1 + h1 * r0 + h2 * s4 + h3 * s3 + h4 * s2;
+            long d2 = h0 * r2 + h1 * r1 + h2 * r0 + h3 * s4 + h4 * s3;
+            long d3 = h0 * r3 + h1 * r2 + h2 * r1 + h3 * r0 + h4 * s4;
+            long d4 = h0 * r4 + h1 * r3 + h2 * r2 + h3 * r1 + h4 * r0;
+
+            long c = d0 >>> 26;
+            h0 = d0 & MASK26;
+            d1 += c;
+            c = d1 >>> 26;
+            h1 = d1 & MASK26;
+            d2 += c;
+            c = d2 >>> 26;
+            h2 = d2 & MASK26;
+            d3 += c;
+            c = d3 >>> 26;
+            h3 = d3 & MASK26;
+            d4 += c;
+            c = d4 >>> 26;
+            h4 = d4 & MASK26;
+            h0 += c * 5;
+            c = h0 >>> 26;
+            h0 &= MASK26;
+            h1 += c;
+        }
+
+        //  Full carry, then h - p if h >= p
+        long c = h1 >>> 26;
+        h1 &= MASK26;
+        h2 += c;
+        c = h2 >>> 26;
+        h2 &= MASK26;
+        h3 += c;
+        c = h3 >>> 26;
+        h3 &= MASK26;
+        h4 += c;
+        c = h4 >>> 26;
+        h4 &= MASK26;
+        h0 += c * 5;
+        c = h0 >>> 26;
+        h0 &= MASK26;
+        h1 += c;
+
+        long g0 = h0 + 5;
+        c = g0 >>> 26;
+        g0 &= MASK26;
+        long g1 = h1 + c;
+        c = g1 >>> 26;
+        g1 &= MASK26;
+        long g2 = h2 + c;
+        c = g2 >>> 26;
+        g2 &= MASK26;
+        long g3 = h3 + c;
+        c = g3 >>> 26;
+        g3 &= MASK26;
+        long g4 = h4 + c - (1 << 26);
+
+        //  All ones if g4 is positive, so that g is used.
+        long mask = (g4 >>> 63) - 1;
+        h0 = (h0 & ~mask) | (g0 & mask);
+        h1 = (h1 & ~mask) | (g1 & mask);
+        h2 = (h2 & ~mask) | (g2 & mask);
+        h3 = (h3 & ~mask) | (g3 & mask);
+        h4 = (h4 & ~mask) | (g4 & mask);
+
+        //  h + s mod 2^128
+        long f0 = ((h0) | (h1 << 26)) & 0xffffffffL;
+        long f1 = ((h1 >>> 6) | (h2 << 20)) & 0xffffffffL;
+        long f2 = ((h2 >>> 12) | (h3 << 14)) & 0xffffffffL;
+        long f3 = ((h3 >>> 18) | (h4 << 8)) & 0xffffffffL;
+
+        f0 += (int) LE_INT.get(key, 16) & 0xffffffffL;
+        f1 += ((int) LE_INT.get(key, 20) & 0xffffffffL) + (f0 >>> 32);
+        f2 += ((int) LE_INT.get(key, 24) & 0xffffffffL) + (f1 >>> 32);
+        f3 += ((int) LE_INT.get(key, 28) & 0xffffffffL) + (f2 >>> 32);
+
+        LE_INT.set(out, outOffset, (int) f0);
+        LE_INT.set(out, outOffset + 4, (int) f1);
+        LE_INT.set(out, outOffset + 8, (int) f2);
+        LE_INT.set(out, outOffset + 12, (int) f3);
+    }
+}
@@ -40,7 +40,7 @@ public enum NetProtocol
             paddr.resolve(ipv6);
         }
     },
-    udp(true, true)
+    udp(true, true, Sockets.RADIO, Sockets.DISH)
     {
         @Override
         public <S extends SocketAddress> void resolve(Address<S> paddr, boolean ipv6)
@@ -50,8 +50,22 @@ public enum NetProtocol
     },
     //  PGM does not support subscription forwarding; ask for all data to be
     //  sent to this pipe. (same for NORM, currently?)
-    pgm(true, true, Sockets.PUB, Sockets.SUB, Sockets.XPUB, Sockets.XPUB),
-    epgm(true, true, Sockets.PUB, Sockets.SUB, Sockets.XPUB, Sockets.XPUB),
+    pgm(true, true, Sockets.PUB, Sockets.SUB, Sockets.XPUB, Sockets.XSUB)
+    {
+        @Override
+        public <S extends SocketAddress> void resolve(Address<S> paddr, boolean ipv6)
+        {
+            paddr.resolve(ipv6);
+        }
+    },
+    epgm(true, true, Sockets.PUB, Sockets.SUB, Sockets.XPUB, Sockets.XSUB)
+    {
+        @Override
+        public <S extends SocketAddress> void resolve(Address<S> paddr, boolean ipv6)
+        {
+            paddr.resolve(ipv6);
+        }
+    },
     norm(true, true),
     ws(true, true),
     wss(true, true),
@@ -180,7 +194,7 @@ public enum NetProtocol
 
     public <S extends SocketAddress> void resolve(Address<S> paddr, boolean ipv6)
     {
-        // TODO V4 init address for pgm & epgm
+        //  Nothing to resolve
     }
 
     @SuppressWarnings("unchecked")
@@ -4,18 +4,47 @@ import java.io.IOException;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.ByteChannel;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SocketChannel;
 
 import zmq.io.Metadata;
 
-public interface SocketWrapper<S extends SocketAddress> extends ByteChannel
+public interface SocketWrapper<S extends SocketAddress> extends ByteChannel, GatheringByteChannel
 {
     default void plug() throws IOException
     {
 
     }
     int write(ByteBuffer inBuffer) throws IOException;
+
+    /**
+     * Writes a sequence of bytes from a vector of buffers. Unless overridden, the buffers are
+     * written one after the other until one of them is not fully written.
+     */
+    @Override
+    default long write(ByteBuffer[] srcs, int offset, int length) throws IOException
+    {
+        long written = 0;
+        for (int idx = offset; idx < offset + length; ++idx) {
+            ByteBuffer src = srcs[idx];
+            int expected = src.remaining();
+            int nbytes = write(src);
+            if (nbytes > 0) {
+                written += nbytes;
+            }
+            if (nbytes < expected) {
+                break;
+            }
+        }
+        return written;
+    }
+
+    @Override
+    default long write(ByteBuffer[] srcs) throws IOException
+    {
+        return write(srcs, 0, srcs.length);
+    }
     int read(ByteBuffer outBuffer) throws IOException;
     void close() throws IOException;
     default void resolveMetadata(Metadata metadata)
@@ -10,6 +10,8 @@ import zmq.SocketBase;
 import zmq.ZMQ;
 import zmq.io.IEngine;
 import zmq.io.IOThread;
+import zmq.io.PgmReceiver;
+import zmq.io.PgmSender;
 import zmq.io.SessionBase;
 import zmq.io.net.Address;
 import zmq.io.net.Address.IZAddress;
@@ -17,6 +19,7 @@ import zmq.io.net.SocketFactory;
 import zmq.io.net.Listener;
 import zmq.io.net.NetProtocol;
 import zmq.io.net.NetworkProtocolProvider;
+import zmq.io.net.udp.UdpAddress;
 
 public class PgmNetworkProtocolProvider implements NetworkProtocolProvider<InetSocketAddress>
 {
@@ -36,7 +39,7 @@ public class PgmNetworkProtocolProvider implements NetworkProtocolProvider<InetS
     @Override
     public IZAddress<InetSocketAddress> zresolve(String addr, boolean ipv6)
     {
-        return null;
+        return new UdpAddress(withUdpEncapsulation() ? NetProtocol.epgm : NetProtocol.pgm, addr, ipv6);
     }
 
     @Override
@@ -75,6 +78,13 @@ public class PgmNetworkProtocolProvider implements NetworkProtocolProvider<InetS
         return false;
     }
 
+    @Override
+    public boolean isValid()
+    {
+        //  Raw PGM needs raw sockets, not available in Java
+        return withUdpEncapsulation();
+    }
+
     @Override
     public boolean wantsIOThread()
     {
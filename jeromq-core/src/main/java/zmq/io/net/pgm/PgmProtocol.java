@@ -0,0 +1,44 @@
+package zmq.io.net.pgm;
+
+//  The packets of the reliable multicast protocol, inspired by PGM (RFC 3208) and
+//  encapsulated in UDP. All the numbers are in network byte order.
+//
+//  Every packet starts with its type, the version of the protocol and the
+//  identifier of the source, randomly chosen by each sender.
+//  Data packets (ODATA, and RDATA for repairs) follow with their sequence number,
+//  the trailing edge of the retransmit window of the sender, the offset in the
+//  payload of the first message starting in it, or NO_OFFSET, then the payload:
+//  a part of the stream of messages encoded with the 0MQ framing protocol v1.
+//  SPM packets advertise the leading and trailing edges of the window of a sender.
+//  NAK packets, sent by the receivers to the source of the lost packets, follow
+//  with the number of sequences then the sequences to repair.
+public interface PgmProtocol
+{
+    byte VERSION = 1;
+
+    byte ODATA = 1;
+    byte RDATA = 2;
+    byte SPM   = 3;
+    byte NAK   = 4;
+
+    //  Type, version and source identifier
+    int HEADER_SIZE      = 10;
+    //  Header, sequence, trail and offset
+    int DATA_HEADER_SIZE = HEADER_SIZE + 18;
+    //  Header, lead and trail
+    int SPM_SIZE         = HEADER_SIZE + 16;
+    //  Header and number of sequences
+    int NAK_HEADER_SIZE  = HEADER_SIZE + 2;
+
+    //  Largest packet, fitting in an ethernet frame with the IP and UDP headers
+    int MAX_TPDU    = 1472;
+    int MAX_PAYLOAD = MAX_TPDU - DATA_HEADER_SIZE;
+    int MAX_NAKS    = (MAX_TPDU - NAK_HEADER_SIZE) / 8;
+
+    //  Offset of a payload where no message starts
+    int NO_OFFSET = 0xffff;
+
+    // make checkstyle not block the release
+    @Override
+    String toString();
+}
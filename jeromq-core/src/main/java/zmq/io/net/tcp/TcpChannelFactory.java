@@ -146,6 +146,12 @@ public class TcpChannelFactory extends SocketFactory<InetSocketAddress> {
             return channel.write(inBuffer);
         }
 
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException
+        {
+            return channel.write(srcs, offset, length);
+        }
+
         @Override
         public int read(ByteBuffer outBuffer) throws IOException
         {
@@ -0,0 +1,267 @@
+package zmq.io.net.udp;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.ProtocolFamily;
+import java.net.SocketException;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnknownHostException;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+import java.util.Collections;
+
+import zmq.Options;
+import zmq.io.net.Address;
+import zmq.io.net.NetProtocol;
+
+/**
+ * An UDP address, with the syntax of libzmq: <code>[interface;]address:port</code>.
+ * It is also the address of the EPGM transport, as PGM is encapsulated in UDP.
+ * <p>
+ * The address is the destination of a RADIO socket, or the address bound by a DISH socket.
+ * When it is a multicast group, the optional interface, given by its name or by one of its IP addresses,
+ * is the one used to send the datagrams or to join the group.
+ * For an unicast destination, it is the source address of the datagrams.
+ */
+public class UdpAddress implements Address.IZAddress<InetSocketAddress>
+{
+    private final NetProtocol       protocol;
+    private final InetSocketAddress address;
+    private final InetSocketAddress sourceAddress;
+    private final NetworkInterface  networkInterface;
+
+    public UdpAddress(String addr, boolean ipv6)
+    {
+        this(NetProtocol.udp, addr, ipv6);
+    }
+
+    public UdpAddress(NetProtocol protocol, String addr, boolean ipv6)
+    {
+        this.protocol = protocol;
+        String[] strings = addr.split(";");
+        if (strings.length > 2) {
+            throw new IllegalArgumentException(String.format("Not a ZMQ UDP address \"%s\"", addr));
+        }
+
+        address = resolve(strings[strings.length - 1], ipv6, false);
+        if (strings.length == 2 && !strings[0].isEmpty()) {
+            try {
+                NetworkInterface byName = NetworkInterface.getByName(strings[0]);
+                if (byName == null) {
+                    InetAddress source = InetAddress.getByName(strings[0]);
+                    sourceAddress = new InetSocketAddress(source, 0);
+                    networkInterface = NetworkInterface.getByInetAddress(source);
+                }
+                else {
+                    sourceAddress = null;
+                    networkInterface = byName;
+                }
+            }
+            catch (SocketException | UnknownHostException e) {
+                throw new IllegalArgumentException(
+                        String.format("Unknown interface \"%s\" for \"%s\": %s", strings[0], addr, e.getMessage()), e);
+            }
+            if (networkInterface == null) {
+                throw new IllegalArgumentException(String.format("Unknown interface \"%s\" for \"%s\"", strings[0], addr));
+            }
+        }
+        else {
+            sourceAddress = null;
+            networkInterface = null;
+        }
+    }
+
+    @Override
+    public ProtocolFamily family()
+    {
+        if (address.getAddress() instanceof Inet6Address) {
+            return StandardProtocolFamily.INET6;
+        }
+        else {
+            return StandardProtocolFamily.INET;
+        }
+    }
+
+    public boolean isMulticast()
+    {
+        return address.getAddress().isMulticastAddress();
+    }
+
+    /**
+     * @return the interface given in the address, or the first running one supporting multicast for
+     * a multicast address given without interface, or null.
+     */
+    public NetworkInterface networkInterface()
+    {
+        if (networkInterface != null || !isMulticast()) {
+            return networkInterface;
+        }
+        try {
+            NetworkInterface loopback = null;
+            for (NetworkInterface candidate : Collections.list(NetworkInterface.getNetworkInterfaces())) {
+                if (!candidate.isUp()) {
+                    continue;
+                }
+                if (candidate.isLoopback()) {
+                    loopback = candidate;
+                }
+                else if (candidate.supportsMulticast()) {
+                    return candidate;
+                }
+            }
+            return loopback;
+        }
+        catch (SocketException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return toString(address.getPort());
+    }
+
+    @Override
+    public String toString(int port)
+    {
+        int addressPort = address.getPort();
+        if (addressPort == 0) {
+            addressPort = port;
+        }
+        String host = address.getAddress().getHostAddress();
+        if (address.getAddress() instanceof Inet6Address) {
+            host = "[" + host + "]";
+        }
+        return protocol.name() + "://" + host + ":" + addressPort;
+    }
+
+    /**
+     * Opens a non-blocking channel for this address.
+     * @param options the options of the socket.
+     * @param send true for a channel sending to this address, false for a channel receiving the datagrams
+     *             sent to it, joining the group if it is a multicast address.
+     * @return the opened channel.
+     * @throws IOException if the channel can't be opened.
+     */
+    public DatagramChannel open(Options options, boolean send) throws IOException
+    {
+        NetworkInterface networkInterface = networkInterface();
+
+        DatagramChannel channel = DatagramChannel.open(family());
+        try {
+            channel.configureBlocking(false);
+            if (send) {
+                if (options.sndbuf > 0) {
+                    channel.setOption(StandardSocketOptions.SO_SNDBUF, options.sndbuf);
+                }
+                if (isMulticast()) {
+                    channel.setOption(StandardSocketOptions.IP_MULTICAST_TTL, options.multicastHops);
+                    if (networkInterface != null) {
+                        channel.setOption(StandardSocketOptions.IP_MULTICAST_IF, networkInterface);
+                    }
+                }
+                channel.bind(sourceAddress);
+            }
+            else {
+                if (options.rcvbuf > 0) {
+                    channel.setOption(StandardSocketOptions.SO_RCVBUF, options.rcvbuf);
+                }
+                if (isMulticast()) {
+                    //  Several receivers of the same host can join the group
+                    channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+                    InetAddress any = InetAddress.getByName(family() == StandardProtocolFamily.INET6 ? "::" : "0.0.0.0");
+                    channel.bind(new InetSocketAddress(any, address.getPort()));
+                    if (networkInterface == null) {
+                        throw new IOException("No interface to join the multicast group " + address.getAddress());
+                    }
+                    //  The group is left when the channel is closed
+                    channel.join(address.getAddress(), networkInterface);
+                }
+                else {
+                    channel.bind(address);
+                }
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    @Override
+    public InetSocketAddress resolve(String name, boolean ipv6, boolean local)
+    {
+        //  Find the ':' at end that separates address from the port number.
+        int delimiter = name.lastIndexOf(':');
+        if (delimiter < 0) {
+            throw new IllegalArgumentException(String.format("Not a ZMQ UDP address \"%s\"", name));
+        }
+
+        //  Separate the address/port.
+        String addrStr = name.substring(0, delimiter);
+        String portStr = name.substring(delimiter + 1);
+
+        // [], an IPv6 was requested
+        if (addrStr.length() >= 2 && addrStr.charAt(0) == '[' && addrStr.charAt(addrStr.length() - 1) == ']') {
+            addrStr = addrStr.substring(1, addrStr.length() - 1);
+            ipv6 = true;
+        }
+
+        int port;
+        if (portStr.equals("*")) {
+            port = 0;
+        }
+        else {
+            try {
+                port = Integer.parseInt(portStr);
+            }
+            catch (NumberFormatException e) {
+                throw new IllegalArgumentException(String.format("Not a integer for the port of \"%s\": %s", name, portStr));
+            }
+        }
+
+        if (addrStr.equals("*")) {
+            addrStr = ipv6 ? "::" : "0.0.0.0";
+        }
+
+        InetAddress addrNet;
+        try {
+            InetAddress[] addresses = InetAddress.getAllByName(addrStr);
+            if (ipv6) {
+                // prefer IPv6: return the first ipv6 or the first value if not found
+                addrNet = Arrays.stream(addresses).filter(Inet6Address.class::isInstance).findFirst().orElseGet(() -> addresses[0]);
+            }
+            else {
+                addrNet = Arrays.stream(addresses).filter(Inet4Address.class::isInstance).findFirst().orElse(null);
+            }
+        }
+        catch (UnknownHostException e) {
+            throw new IllegalArgumentException(String.format("Failed resolving \"%s\": %s", name, e.getMessage()), e);
+        }
+
+        if (addrNet == null) {
+            throw new IllegalArgumentException(String.format("Not found matching IPv4/IPv6 \"%s\" address for \"%s\"", addrStr, name));
+        }
+
+        return new InetSocketAddress(addrNet, port);
+    }
+
+    @Override
+    public InetSocketAddress address()
+    {
+        return address;
+    }
+
+    @Override
+    public InetSocketAddress sourceAddress()
+    {
+        return sourceAddress;
+    }
+}
@@ -0,0 +1,74 @@
+package zmq.io.net.udp;
+
+import java.net.InetSocketAddress;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import zmq.Options;
+import zmq.Own;
+import zmq.SocketBase;
+import zmq.ZMQ;
+import zmq.io.IEngine;
+import zmq.io.IOThread;
+import zmq.io.SessionBase;
+import zmq.io.UdpEngine;
+import zmq.io.net.Address;
+import zmq.io.net.Address.IZAddress;
+import zmq.io.net.Listener;
+import zmq.io.net.NetProtocol;
+import zmq.io.net.NetworkProtocolProvider;
+import zmq.io.net.SocketFactory;
+
+public class UdpNetworkProtocolProvider implements NetworkProtocolProvider<InetSocketAddress>
+{
+    @Override
+    public boolean handleProtocol(NetProtocol protocol)
+    {
+        return protocol == NetProtocol.udp;
+    }
+
+    @Override
+    public Listener getListener(IOThread ioThread, SocketBase socket, Options options)
+    {
+        return null;
+    }
+
+    @Override
+    public IZAddress<InetSocketAddress> zresolve(String addr, boolean ipv6)
+    {
+        return new UdpAddress(addr, ipv6);
+    }
+
+    @Override
+    public void startConnecting(Options options, IOThread ioThread,
+                                SessionBase session, Address<InetSocketAddress> addr,
+                                boolean delayedStart, Consumer<Own> launchChild,
+                                BiConsumer<SessionBase, IEngine> sendAttach)
+    {
+        assert (options.type == ZMQ.ZMQ_RADIO || options.type == ZMQ.ZMQ_DISH);
+
+        //  There is no connection with UDP: the engine is attached straight away.
+        //  RADIO sends the datagrams to the address, DISH receives the ones sent to it.
+        boolean send = options.type == ZMQ.ZMQ_RADIO;
+        UdpEngine engine = new UdpEngine(options, (UdpAddress) addr.resolved(), send);
+        sendAttach.accept(session, engine);
+    }
+
+    @Override
+    public boolean isValid()
+    {
+        return true;
+    }
+
+    @Override
+    public boolean wantsIOThread()
+    {
+        return false;
+    }
+
+    @Override
+    public SocketFactory<InetSocketAddress> channelFactory()
+    {
+        return null;
+    }
+}
@@ -0,0 +1,178 @@
+package zmq.msg;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import zmq.Msg;
+import zmq.util.Utils;
+
+/**
+ * An allocator recycling the buffers of the messages.
+ * <p>
+ * Buffers are taken from slabs of power of two size classes, from {@value #MIN_SIZE} bytes
+ * up to a maximum size. Larger messages are not pooled. Each thread keeps a small cache of
+ * buffers per size class and overflows into a bounded pool shared by all threads.
+ * <p>
+ * Messages allocated here are reference counted: a buffer goes back to the pool when
+ * {@link Msg#release()} has been called once for each reference. The pipes and the engines
+ * release the messages they drop or send; a message returned by a receive call belongs to
+ * the caller, who should release it once done with its content. A message that is never
+ * released is simply garbage collected.
+ * <p>
+ * As the buffers are reused, the content of a newly allocated message is not cleared.
+ */
+public class MsgAllocatorPooled implements MsgAllocator
+{
+    public static final int MIN_SIZE = 64;
+
+    public static final int DEFAULT_MAX_SIZE   = 64 * 1024;
+    public static final int DEFAULT_CACHE_SIZE = 32;
+    public static final int DEFAULT_POOL_BYTES = 4 * 1024 * 1024;
+
+    private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_SIZE);
+
+    private static final class PooledContent extends RefCounted
+    {
+        private final MsgAllocatorPooled pool;
+        private final int                sizeClass;
+        private final ByteBuffer         buffer;
+
+        private PooledContent(MsgAllocatorPooled pool, int sizeClass, ByteBuffer buffer)
+        {
+            this.pool = pool;
+            this.sizeClass = sizeClass;
+            this.buffer = buffer;
+        }
+
+        @Override
+        protected void deallocate()
+        {
+            pool.recycle(this);
+        }
+    }
+
+    //  Buffers kept by a single thread, one stack per size class.
+    private static final class Cache
+    {
+        private final PooledContent[][] stacks;
+        private final int[]             counts;
+
+        private Cache(int classes, int size)
+        {
+            stacks = new PooledContent[classes][size];
+            counts = new int[classes];
+        }
+    }
+
+    private final boolean direct;
+    private final int     maxSize;
+    private final int     cacheSize;
+
+    private final List<ArrayBlockingQueue<PooledContent>> shared;
+    private final ThreadLocal<Cache>                  caches;
+
+    // Allocator of the messages not fitting in a size class
+    private final MsgAllocator unpooled;
+
+    public MsgAllocatorPooled()
+    {
+        this(false);
+    }
+
+    public MsgAllocatorPooled(boolean direct)
+    {
+        this(direct, DEFAULT_MAX_SIZE, DEFAULT_CACHE_SIZE, DEFAULT_POOL_BYTES);
+    }
+
+    /**
+     * @param direct true to allocate direct buffers, false for heap buffers.
+     * @param maxSize the size of the largest pooled message, rounded to the next power of two.
+     * @param cacheSize the number of buffers per size class cached by each thread.
+     * @param poolBytes the amount of memory per size class kept in the pool shared by the threads.
+     */
+    @SuppressWarnings("unchecked")
+    public MsgAllocatorPooled(boolean direct, int maxSize, int cacheSize, int poolBytes)
+    {
+        Utils.checkArgument(maxSize >= MIN_SIZE, "Maximum pooled size must be at least " + MIN_SIZE);
+        Utils.checkArgument(cacheSize >= 0, "Cache size cannot be negative");
+        Utils.checkArgument(poolBytes > 0, "Pool size must be strictly positive");
+        this.direct = direct;
+        this.maxSize = Integer.highestOneBit(maxSize - 1) << 1;
+        this.cacheSize = cacheSize;
+        this.unpooled = direct ? new MsgAllocatorDirect() : new MsgAllocatorHeap();
+
+        int classes = sizeClass(this.maxSize) + 1;
+        shared = new ArrayList<>(classes);
+        for (int idx = 0; idx < classes; ++idx) {
+            shared.add(new ArrayBlockingQueue<>(Math.max(1, poolBytes / classSize(idx))));
+        }
+        caches = ThreadLocal.withInitial(() -> new Cache(classes, cacheSize));
+    }
+
+    @Override
+    public Msg allocate(int size)
+    {
+        if (size == 0 || size > maxSize) {
+            return unpooled.allocate(size);
+        }
+        int sizeClass = sizeClass(size);
+        PooledContent content = take(sizeClass);
+        ByteBuffer buffer = content.buffer.duplicate();
+        buffer.limit(size);
+        return new Msg(buffer.slice(), content);
+    }
+
+    private PooledContent take(int sizeClass)
+    {
+        Cache cache = caches.get();
+        int count = cache.counts[sizeClass];
+        if (count > 0) {
+            PooledContent content = cache.stacks[sizeClass][--count];
+            cache.stacks[sizeClass][count] = null;
+            cache.counts[sizeClass] = count;
+            content.reset();
+            return content;
+        }
+        PooledContent content = shared.get(sizeClass).poll();
+        if (content != null) {
+            content.reset();
+            return content;
+        }
+        int capacity = classSize(sizeClass);
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        return new PooledContent(this, sizeClass, buffer);
+    }
+
+    private void recycle(PooledContent content)
+    {
+        int sizeClass = content.sizeClass;
+        Cache cache = caches.get();
+        int count = cache.counts[sizeClass];
+        if (count < cacheSize) {
+            cache.stacks[sizeClass][count] = content;
+            cache.counts[sizeClass] = count + 1;
+        }
+        else {
+            //  When the shared pool is full too, let the buffer be garbage collected.
+            shared.get(sizeClass).offer(content);
+        }
+    }
+
+    //  Index of the smallest size class holding the given size.
+    private static int sizeClass(int size)
+    {
+        if (size <= MIN_SIZE) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+    }
+
+    private static int classSize(int sizeClass)
+    {
+        return MIN_SIZE << sizeClass;
+    }
+}
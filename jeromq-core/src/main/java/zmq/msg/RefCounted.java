@@ -0,0 +1,64 @@
+package zmq.msg;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The reference counted owner of the buffer of a message.
+ * <p>
+ * A message built with such an owner can be shared between several pipes, each
+ * of them releasing it once consumed. When the last reference is released,
+ * {@link #deallocate()} is called and the buffer can be reused, so it must not be
+ * accessed anymore from any message that was pointing to it.
+ */
+public abstract class RefCounted
+{
+    private final AtomicInteger refs = new AtomicInteger(1);
+
+    /**
+     * Adds references to the content.
+     *
+     * @param count the number of references to add.
+     */
+    public final void addRefs(int count)
+    {
+        if (count > 0) {
+            refs.addAndGet(count);
+        }
+    }
+
+    /**
+     * Removes references from the content, deallocating it when none is left.
+     *
+     * @param count the number of references to remove.
+     * @return true if the content was deallocated.
+     */
+    public final boolean rmRefs(int count)
+    {
+        if (count <= 0) {
+            return false;
+        }
+        int left = refs.addAndGet(-count);
+        if (left < 0) {
+            throw new IllegalStateException("Message content released too many times");
+        }
+        if (left == 0) {
+            deallocate();
+            return true;
+        }
+        return false;
+    }
+
+    public final int refs()
+    {
+        return refs.get();
+    }
+
+    //  Restores the single reference held by a newly allocated message.
+    protected final void reset()
+    {
+        refs.set(1);
+    }
+
+    //  Called when the last reference is released.
+    protected abstract void deallocate();
+}
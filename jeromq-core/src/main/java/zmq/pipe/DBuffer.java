@@ -29,6 +29,10 @@ class DBuffer<T extends Msg>
         assert (msg.check());
         sync.lock();
         try {
+            if (hasMsg) {
+                //  The previous message was never read, it is dropped.
+                front.release();
+            }
             back = front;
             front = msg;
             hasMsg = true;
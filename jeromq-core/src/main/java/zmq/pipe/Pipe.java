@@ -88,14 +88,25 @@ public class Pipe extends ZObject
 
     private final boolean conflate;
 
+    //  Capacity of the ring buffer of the inbound pipe, 0 if it is not a ring buffer.
+    private int inRing;
+
     private Msg disconnectMsg;
 
+    //  True while a batch of messages is written: the flushes are postponed
+    //  to the end of the batch.
+    private boolean batching;
+
+    //  True if a flush was postponed.
+    private boolean unflushed;
+
     // JeroMQ only
     private final ZObject parent;
 
     //  Constructor is private. Pipe can only be created using
     //  pipepair function.
-    private Pipe(ZObject parent, YPipeBase<Msg> inpipe, YPipeBase<Msg> outpipe, int inhwm, int outhwm, boolean conflate)
+    private Pipe(ZObject parent, YPipeBase<Msg> inpipe, YPipeBase<Msg> outpipe, int inhwm, int outhwm, boolean conflate,
+            int inRing)
     {
         super(parent);
         this.inpipe = inpipe;
@@ -112,6 +123,7 @@ public class Pipe extends ZObject
         state = State.ACTIVE;
         this.delay = true;
         this.conflate = conflate;
+        this.inRing = inRing;
         disconnectMsg = null;
 
         this.parent = parent;
@@ -125,18 +137,25 @@ public class Pipe extends ZObject
     //  pipe receives all the pending messages before terminating, otherwise it
     //  terminates straight away.
     public static Pipe[] pair(ZObject[] parents, int[] hwms, boolean[] conflates)
+    {
+        return pair(parents, hwms, conflates, false);
+    }
+
+    //  Same as above. If ring is true, the messages are passed in ring buffers
+    //  sized from the HWMs instead of lists of chunks.
+    public static Pipe[] pair(ZObject[] parents, int[] hwms, boolean[] conflates, boolean ring)
     {
         Pipe[] pipes = new Pipe[2];
         //   Creates two pipe objects. These objects are connected by two ypipes,
         //   each to pass messages in one direction.
 
-        YPipeBase<Msg> upipe1 = conflates[0] ? new YPipeConflate<>()
-                : new YPipe<>(Config.MESSAGE_PIPE_GRANULARITY.getValue());
-        YPipeBase<Msg> upipe2 = conflates[1] ? new YPipeConflate<>()
-                : new YPipe<>(Config.MESSAGE_PIPE_GRANULARITY.getValue());
+        int ring1 = ring ? YPipeRing.capacity(hwms[1]) : 0;
+        int ring2 = ring ? YPipeRing.capacity(hwms[0]) : 0;
+        YPipeBase<Msg> upipe1 = createYPipe(conflates[0], ring1);
+        YPipeBase<Msg> upipe2 = createYPipe(conflates[1], ring2);
 
-        pipes[0] = new Pipe(parents[0], upipe1, upipe2, hwms[1], hwms[0], conflates[0]);
-        pipes[1] = new Pipe(parents[1], upipe2, upipe1, hwms[0], hwms[1], conflates[1]);
+        pipes[0] = new Pipe(parents[0], upipe1, upipe2, hwms[1], hwms[0], conflates[0], ring1);
+        pipes[1] = new Pipe(parents[1], upipe2, upipe1, hwms[0], hwms[1], conflates[1], ring2);
 
         pipes[0].setPeer(pipes[1]);
         pipes[1].setPeer(pipes[0]);
@@ -144,6 +163,19 @@ public class Pipe extends ZObject
         return pipes;
     }
 
+    private static YPipeBase<Msg> createYPipe(boolean conflate, int ring)
+    {
+        if (conflate) {
+            return new YPipeConflate<>();
+        }
+        else if (ring > 0) {
+            return new YPipeRing<>(ring);
+        }
+        else {
+            return new YPipe<>(Config.MESSAGE_PIPE_GRANULARITY.getValue());
+        }
+    }
+
     //  Pipepair uses this function to let us know about
     //  the peer pipe object.
     private void setPeer(Pipe peer)
@@ -303,12 +335,39 @@ public class Pipe extends ZObject
         if (outpipe != null) {
             while ((msg = outpipe.unwrite()) != null) {
                 assert (msg.hasMore());
+                msg.release();
             }
         }
     }
 
     //  Flush the messages downstream.
     public void flush()
+    {
+        if (batching) {
+            unflushed = true;
+            return;
+        }
+        flushNow();
+    }
+
+    //  Postpones the flushes until the end of the batch, so that the messages
+    //  written in the meantime are passed to the peer at once.
+    public void startBatch()
+    {
+        batching = true;
+    }
+
+    //  Flushes the messages written during the batch.
+    public void endBatch()
+    {
+        batching = false;
+        if (unflushed) {
+            unflushed = false;
+            flushNow();
+        }
+    }
+
+    private void flushNow()
     {
         //  The peer does not exist anymore at this point.
         if (state == State.TERM_ACK_SENT) {
@@ -353,6 +412,7 @@ public class Pipe extends ZObject
             if (!msg.hasMore()) {
                 msgsWritten--;
             }
+            msg.release();
         }
 
         //  Plug in the new outpipe.
@@ -436,8 +496,9 @@ public class Pipe extends ZObject
         //  hand because msg_t doesn't have automatic destructor. Then deallocate
         //  the ypipe itself.
         if (!conflate) {
-            while (inpipe.read() != null) {
-                // do nothing
+            Msg msg;
+            while ((msg = inpipe.read()) != null) {
+                msg.release();
             }
         }
 
@@ -510,7 +571,7 @@ public class Pipe extends ZObject
             Msg msg = new Msg();
             msg.initDelimiter();
             outpipe.write(msg, false);
-            flush();
+            flushNow();
         }
     }
 
@@ -577,12 +638,7 @@ public class Pipe extends ZObject
         inpipe = null;
 
         //  Create new inpipe.
-        if (conflate) {
-            inpipe = new YPipeConflate<>();
-        }
-        else {
-            inpipe = new YPipe<>(Config.MESSAGE_PIPE_GRANULARITY.getValue());
-        }
+        inpipe = createYPipe(conflate, inRing);
         inActive = true;
 
         //  Notify the peer about the hiccup.
@@ -593,6 +649,10 @@ public class Pipe extends ZObject
     {
         lwm = computeLwm(inhwm);
         hwm = outhwm;
+        if (inRing > 0) {
+            //  For the next inpipe, the current one grows if needed.
+            inRing = YPipeRing.capacity(inhwm);
+        }
     }
 
     public boolean checkHwm()
@@ -614,7 +674,7 @@ public class Pipe extends ZObject
             rollback();
 
             outpipe.write(disconnectMsg, false);
-            flush();
+            flushNow();
             disconnectMsg = null;
         }
     }
@@ -626,7 +686,7 @@ public class Pipe extends ZObject
             rollback();
 
             outpipe.write(hiccupMsg, false);
-            flush();
+            flushNow();
         }
     }
 
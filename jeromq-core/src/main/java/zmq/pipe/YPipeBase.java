@@ -8,6 +8,17 @@ public interface YPipeBase<T>
     //  flushed down the stream.
     void write(T value, boolean incomplete);
 
+    //  Writes several items to the pipe as a single unit, without flushing
+    //  them. If incomplete is set to true, the last item is assumed to be
+    //  continued by items subsequently written to the pipe.
+    default void write(T[] values, int offset, int length, boolean incomplete)
+    {
+        int last = offset + length - 1;
+        for (int idx = offset; idx <= last; ++idx) {
+            write(values[idx], idx < last || incomplete);
+        }
+    }
+
     //  Pop an incomplete item from the pipe. Returns true is such
     //  item exists, false otherwise.
     T unwrite();
@@ -24,6 +35,17 @@ public interface YPipeBase<T>
     //  available.
     T read();
 
+    //  Reads up to length items from the pipe. Returns the number of items read.
+    default int read(T[] values, int offset, int length)
+    {
+        int count = 0;
+        T value;
+        while (count < length && (value = read()) != null) {
+            values[offset + count++] = value;
+        }
+        return count;
+    }
+
     //  Applies the function fn to the first elemenent in the pipe
     //  and returns the value returned by the fn.
     //  The pipe mustn't be empty or the function crashes.
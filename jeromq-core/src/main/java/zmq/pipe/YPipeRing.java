@@ -0,0 +1,289 @@
+package zmq.pipe;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import zmq.Config;
+
+//  Lock-free single producer, single consumer pipe stored in an array used as a ring buffer.
+//
+//  Each item gets a sequence number. The writer and the reader share the sequence past
+//  the last flushed item, that is set to -1 when the reader is asleep, exactly like the
+//  'c' pointer of the YPipe, and the sequence of the next item to read, so that the writer
+//  knows which slots are free. Both are padded to avoid false sharing.
+//
+//  The pipe is not bounded: when the ring is full, the writer links it to a ring twice as
+//  large, that the reader follows once it reached the link.
+public class YPipeRing<T> implements YPipeBase<T>
+{
+    //  Largest initial size of the ring.
+    private static final int MAX_INITIAL_CAPACITY = 1 << 16;
+
+    //  Marks the slot pointing to the next ring.
+    private static final Object LINK = new Object();
+
+    private static final class Ring
+    {
+        private final Object[] values;
+        private final int      mask;
+        //  Sequence of the first item of the ring.
+        private final long     base;
+        //  The ring following this one, set by the writer before the link is flushed.
+        private Ring           next;
+        //  The ring preceding this one, while the link to this ring is not flushed.
+        private Ring           prev;
+
+        private Ring(int capacity, long base)
+        {
+            values = new Object[capacity];
+            mask = capacity - 1;
+            this.base = base;
+        }
+
+        private int index(long sequence)
+        {
+            return (int) (sequence - base) & mask;
+        }
+    }
+
+    //  An atomic sequence alone on its cache line.
+    @SuppressWarnings("unused")
+    private static final class Sequence extends AtomicLong
+    {
+        private static final long serialVersionUID = 1L;
+
+        private long p1, p2, p3, p4, p5, p6, p7;
+
+        private Sequence(long initial)
+        {
+            super(initial);
+        }
+    }
+
+    //  Writer side: the ring written to, the sequence of the next item to write,
+    //  the first un-flushed item, the first item to be flushed in the future
+    //  and the last known position of the reader.
+    private Ring writeRing;
+    private long back;
+    private long w;
+    private long f;
+    private long readerPos;
+
+    //  Reader side: the ring read from, the sequence of the next item to read
+    //  and the sequence past the last prefetched item.
+    private Ring readRing;
+    private long front;
+    private long r;
+
+    //  Sequence past the last flushed item, -1 if the reader is asleep.
+    private final Sequence c;
+
+    //  Sequence of the next item to read, published by the reader.
+    private final Sequence head;
+
+    public YPipeRing(int capacity)
+    {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        writeRing = new Ring(size, 0);
+        readRing = writeRing;
+        c = new Sequence(0);
+        head = new Sequence(0);
+    }
+
+    //  Returns the initial capacity of a ring for the given high watermark:
+    //  room for the messages, and for a delimiter or an identity.
+    public static int capacity(int hwm)
+    {
+        if (hwm <= 0) {
+            return Config.MESSAGE_PIPE_GRANULARITY.getValue();
+        }
+        return Math.min(hwm + 2, MAX_INITIAL_CAPACITY);
+    }
+
+    @Override
+    public void write(T value, boolean incomplete)
+    {
+        reserve();
+        writeRing.values[writeRing.index(back)] = value;
+        back++;
+
+        //  Move the "flush up to here" sequence.
+        if (!incomplete) {
+            f = back;
+        }
+    }
+
+    //  Writes several items. If incomplete is set to true, the last item is assumed to be
+    //  continued by items subsequently written to the pipe.
+    @Override
+    public void write(T[] values, int offset, int length, boolean incomplete)
+    {
+        for (int idx = offset; idx < offset + length; ++idx) {
+            reserve();
+            writeRing.values[writeRing.index(back)] = values[idx];
+            back++;
+        }
+        if (!incomplete && length > 0) {
+            f = back;
+        }
+    }
+
+    //  Makes room for an item in the written ring, while keeping a free slot for the link
+    //  to a larger ring.
+    private void reserve()
+    {
+        Ring ring = writeRing;
+        if (back + 2 - Math.max(readerPos, ring.base) <= ring.values.length) {
+            return;
+        }
+        readerPos = head.get();
+        if (back + 2 - Math.max(readerPos, ring.base) <= ring.values.length) {
+            return;
+        }
+        Ring next = new Ring(ring.values.length << 1, back + 1);
+        next.prev = ring;
+        ring.next = next;
+        ring.values[ring.index(back)] = LINK;
+        back++;
+        writeRing = next;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T unwrite()
+    {
+        if (f == back) {
+            return null;
+        }
+        if (back == writeRing.base && writeRing.prev != null) {
+            //  The previous item is the link to the written ring, that was never flushed.
+            writeRing = writeRing.prev;
+            writeRing.next = null;
+            back--;
+            writeRing.values[writeRing.index(back)] = null;
+            if (f == back) {
+                return null;
+            }
+        }
+        back--;
+        int index = writeRing.index(back);
+        T value = (T) writeRing.values[index];
+        writeRing.values[index] = null;
+        return value;
+    }
+
+    @Override
+    public boolean flush()
+    {
+        //  If there are no un-flushed items, do nothing.
+        if (w == f) {
+            return true;
+        }
+
+        //  The link to the written ring is flushed, the previous rings can be forgotten.
+        if (writeRing.prev != null && f >= writeRing.base) {
+            writeRing.prev = null;
+        }
+
+        //  Try to set 'c' to 'f'.
+        if (!c.compareAndSet(w, f)) {
+            //  Compare-and-swap was unsuccessful because 'c' is -1.
+            //  This means that the reader is asleep. Therefore we don't
+            //  care about thread-safeness and update c in non-atomic
+            //  manner. We'll return false to let the caller know
+            //  that reader is sleeping.
+            c.set(f);
+            w = f;
+            return false;
+        }
+
+        //  Reader is alive. Nothing special to do now. Just move
+        //  the 'first un-flushed item' sequence to 'f'.
+        w = f;
+        return true;
+    }
+
+    @Override
+    public boolean checkRead()
+    {
+        if (!prefetch()) {
+            return false;
+        }
+        //  An item follows the link in the same flush, so there is still something to read.
+        if (readRing.values[readRing.index(front)] == LINK) {
+            Ring next = readRing.next;
+            readRing.values[readRing.index(front)] = null;
+            readRing = next;
+            front++;
+            head.lazySet(front);
+        }
+        return true;
+    }
+
+    private boolean prefetch()
+    {
+        //  Was the value prefetched already? If so, return.
+        if (front != r && r != -1) {
+            return true;
+        }
+
+        //  There's no prefetched value, so let us prefetch more values.
+        //  If there are no items to prefetch, set c to -1 (using compare-and-swap).
+        if (!c.compareAndSet(front, -1)) {
+            // something to have been written
+            r = c.get();
+        }
+
+        //  If there are no elements prefetched, exit.
+        return front != r && r != -1;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T read()
+    {
+        //  Try to prefetch a value.
+        if (!checkRead()) {
+            return null;
+        }
+        int index = readRing.index(front);
+        T value = (T) readRing.values[index];
+        readRing.values[index] = null;
+        front++;
+        head.lazySet(front);
+        return value;
+    }
+
+    //  Reads up to length items at once, returns the number of items read.
+    @Override
+    @SuppressWarnings("unchecked")
+    public int read(T[] values, int offset, int length)
+    {
+        int count = 0;
+        while (count < length && checkRead()) {
+            //  Take all the prefetched items of the ring.
+            Ring ring = readRing;
+            while (count < length && front != r) {
+                int index = ring.index(front);
+                Object value = ring.values[index];
+                if (value == LINK) {
+                    break;
+                }
+                ring.values[index] = null;
+                values[offset + count++] = (T) value;
+                front++;
+            }
+            head.lazySet(front);
+        }
+        return count;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T probe()
+    {
+        boolean rc = checkRead();
+        assert (rc);
+
+        return (T) readRing.values[readRing.index(front)];
+    }
+}
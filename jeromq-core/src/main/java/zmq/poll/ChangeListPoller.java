@@ -0,0 +1,73 @@
+package zmq.poll;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import zmq.Ctx;
+
+/**
+ * A poller keeping track of the handles changed since the last poll.
+ * <p>
+ * The {@link Poller} walks all its handles each time the interest of one of them changed,
+ * this one only updates the selector with the changed handles, so the cost of the bookkeeping
+ * doesn't grow with the number of connections served by the I/O thread. The ready keys are
+ * dispatched as they are selected, without using the selected-key set.
+ * <p>
+ * It can be used by the I/O threads with {@link Ctx#setPollerFactory(java.util.function.BiFunction)}:
+ * <pre>
+ * ctx.setPollerFactory(ChangeListPoller::new);
+ * </pre>
+ */
+public class ChangeListPoller extends Poller
+{
+    //  The handles changed since the last poll.
+    private final List<Handle> changes = new ArrayList<>();
+
+    private final Consumer<SelectionKey> dispatcher = this::dispatch;
+
+    public ChangeListPoller(Ctx ctx, String name)
+    {
+        super(ctx, name);
+    }
+
+    @Override
+    void changed(Handle handle)
+    {
+        if (!handle.pending) {
+            handle.pending = true;
+            changes.add(handle);
+        }
+    }
+
+    @Override
+    void updateHandles()
+    {
+        //  Walks all the handles if the selector was rebuilt.
+        super.updateHandles();
+
+        for (int idx = 0; idx < changes.size(); ++idx) {
+            Handle handle = changes.get(idx);
+            handle.pending = false;
+            if (!update(handle)) {
+                forget(handle);
+            }
+        }
+        changes.clear();
+    }
+
+    @Override
+    int select(Selector selector, long timeout) throws IOException
+    {
+        return selector.select(dispatcher, timeout);
+    }
+
+    @Override
+    void processSelected(Selector selector)
+    {
+        //  The keys were dispatched during the selection.
+    }
+}
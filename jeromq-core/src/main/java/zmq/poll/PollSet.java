@@ -0,0 +1,386 @@
+package zmq.poll;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import zmq.ZError;
+import zmq.util.Clock;
+import zmq.util.Utils;
+
+/**
+ * A persistent set of poll items.
+ * <p>
+ * {@link zmq.ZMQ#poll(Selector, PollItem[], int, long)} registers the items in the selector
+ * at each call, this set keeps them registered between the polls: the items are registered once,
+ * and adding or removing one only updates the selection key of its channel. The ready items are
+ * returned in an array reused by all the polls, so that polling in a loop doesn't allocate.
+ * <pre>
+ * PollSet set = new PollSet(selector);
+ * set.register(new PollItem(socket, ZMQ.ZMQ_POLLIN));
+ * while (running) {
+ *     int count = set.poll(-1);
+ *     PollItem[] ready = set.ready();
+ *     for (int idx = 0; idx < count; ++idx) {
+ *         ...
+ *     }
+ * }
+ * </pre>
+ * A set is not thread-safe, it has to be used by the polling thread.
+ */
+public class PollSet
+{
+    //  The items polled on the same channel share its selection key.
+    private static final class Entry
+    {
+        private final SelectableChannel channel;
+        private SelectionKey            key;
+        private PollItem[]              items = new PollItem[1];
+        private int                     size;
+        private int                     interest;
+        private boolean                 selected;
+
+        private Entry(SelectableChannel channel)
+        {
+            this.channel = channel;
+        }
+
+        private boolean contains(PollItem item)
+        {
+            for (int idx = 0; idx < size; ++idx) {
+                if (items[idx] == item) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void add(PollItem item)
+        {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = item;
+            interest |= item.interestOps();
+        }
+
+        private boolean remove(PollItem item)
+        {
+            for (int idx = 0; idx < size; ++idx) {
+                if (items[idx] == item) {
+                    items[idx] = items[--size];
+                    items[size] = null;
+                    interest = 0;
+                    for (int pos = 0; pos < size; ++pos) {
+                        interest |= items[pos].interestOps();
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private final Selector selector;
+
+    private final Map<SelectableChannel, Entry> entries = new HashMap<>();
+
+    //  The entries in an array, to walk them without iterator.
+    private Entry[] all = new Entry[4];
+    private int     count;
+
+    //  Number of registered items.
+    private int items;
+
+    //  The ready items of the last poll, and their number.
+    private PollItem[] ready = new PollItem[4];
+    private int        readyCount;
+
+    //  Marks the entries of the keys selected.
+    private final Consumer<SelectionKey> marker = this::mark;
+
+    public PollSet(Selector selector)
+    {
+        Utils.checkArgument(selector != null, "Selector is mandatory for a poll set");
+        this.selector = selector;
+    }
+
+    /**
+     * Adds an item to poll.
+     *
+     * @param item the item to poll.
+     * @return true if the item was added, false if it was already in the set.
+     */
+    public boolean register(PollItem item)
+    {
+        Utils.checkArgument(item != null, "Item is mandatory for polling");
+        SelectableChannel channel = item.getChannel();
+        Entry entry = entries.get(channel);
+        if (entry == null) {
+            entry = new Entry(channel);
+            entries.put(channel, entry);
+            if (count == all.length) {
+                all = Arrays.copyOf(all, count * 2);
+            }
+            all[count++] = entry;
+        }
+        else if (entry.contains(item)) {
+            return false;
+        }
+        entry.add(item);
+        if (++items > ready.length) {
+            ready = Arrays.copyOf(ready, ready.length * 2);
+        }
+        return true;
+    }
+
+    /**
+     * Removes a polled item.
+     *
+     * @param item the item to remove.
+     * @return true if the item was removed, false if it was not in the set.
+     */
+    public boolean unregister(PollItem item)
+    {
+        if (item == null) {
+            return false;
+        }
+        Entry entry = entries.get(item.getChannel());
+        if (entry == null || !entry.remove(item)) {
+            return false;
+        }
+        --items;
+        if (entry.size == 0) {
+            entries.remove(entry.channel);
+            for (int idx = 0; idx < count; ++idx) {
+                if (all[idx] == entry) {
+                    all[idx] = all[--count];
+                    all[count] = null;
+                    break;
+                }
+            }
+            if (entry.key != null) {
+                entry.key.cancel();
+            }
+        }
+        //  The ready items may not be in the set anymore.
+        Arrays.fill(ready, 0, readyCount, null);
+        readyCount = 0;
+        return true;
+    }
+
+    /**
+     * Removes all the items, and cancels their selection keys.
+     */
+    public void clear()
+    {
+        for (int idx = 0; idx < count; ++idx) {
+            if (all[idx].key != null) {
+                all[idx].key.cancel();
+            }
+            all[idx] = null;
+        }
+        entries.clear();
+        count = 0;
+        items = 0;
+        Arrays.fill(ready, 0, readyCount, null);
+        readyCount = 0;
+    }
+
+    /**
+     * @return the number of registered items.
+     */
+    public int size()
+    {
+        return items;
+    }
+
+    /**
+     * Returns the items ready after the last poll. Only the first ones, up to the value
+     * returned by the poll, are meaningful. The array is reused by the following polls.
+     *
+     * @return the ready items.
+     */
+    public PollItem[] ready()
+    {
+        return ready;
+    }
+
+    /**
+     * Polls the registered items, with the same semantics as {@link zmq.ZMQ#poll(Selector, PollItem[], long)}.
+     *
+     * @param timeout the timeout in milliseconds, 0 to return immediately, -1 to wait indefinitely.
+     * @return the number of ready items, or -1 in case of error.
+     */
+    public int poll(long timeout)
+    {
+        Arrays.fill(ready, 0, readyCount, null);
+        readyCount = 0;
+        if (items == 0) {
+            if (timeout <= 0) {
+                return 0;
+            }
+            LockSupport.parkNanos(TimeUnit.NANOSECONDS.convert(timeout, TimeUnit.MILLISECONDS));
+            return 0;
+        }
+
+        long now = 0L;
+        long end = 0L;
+        boolean firstPass = true;
+        int nevents;
+
+        try {
+            sync();
+
+            while (true) {
+                //  Wait for events, without blocking in the first pass.
+                if (firstPass) {
+                    selector.selectNow(marker);
+                }
+                else if (timeout < 0L) {
+                    selector.select(marker, 0);
+                }
+                else {
+                    long waitMillis = TimeUnit.NANOSECONDS.toMillis(end - now);
+                    selector.select(marker, waitMillis == 0 ? 1L : waitMillis);
+                }
+
+                nevents = collect();
+                if (nevents < 0) {
+                    return -1;
+                }
+
+                //  If timeout is zero, exit immediately whether there are events or not.
+                if (timeout == 0 || nevents > 0) {
+                    break;
+                }
+
+                //  If timeout is infinite we can just loop until we get some events.
+                if (timeout < 0) {
+                    firstPass = false;
+                    continue;
+                }
+
+                //  The timeout is finite and there are no events. In the first pass
+                //  we compute the time when the polling should time out.
+                if (firstPass) {
+                    now = Clock.nowNS();
+                    end = now + TimeUnit.MILLISECONDS.toNanos(timeout);
+                    if (now == end) {
+                        break;
+                    }
+                    firstPass = false;
+                    continue;
+                }
+
+                //  Find out whether timeout have expired.
+                now = Clock.nowNS();
+                if (now >= end) {
+                    break;
+                }
+            }
+        }
+        catch (ClosedSelectorException e) {
+            // context was closed asynchronously, exit gracefully
+            return -1;
+        }
+        catch (IOException e) {
+            throw new ZError.IOException(e);
+        }
+        readyCount = nevents;
+        return nevents;
+    }
+
+    //  Brings the selector in line with the registered items.
+    private void sync() throws IOException
+    {
+        //  The selector may be shared with other sets or polls, that registered
+        //  channels not polled here: they would wake up the selection for nothing.
+        if (selector.keys().size() > count) {
+            for (SelectionKey key : selector.keys()) {
+                if (key.isValid() && !entries.containsKey(key.channel())) {
+                    key.cancel();
+                }
+            }
+        }
+
+        for (int idx = 0; idx < count; ++idx) {
+            Entry entry = all[idx];
+            SelectionKey key = entry.key;
+            if (key == null || !key.isValid()) {
+                entry.key = register(entry);
+            }
+            else if (key.interestOps() != entry.interest) {
+                key.interestOps(entry.interest);
+            }
+        }
+    }
+
+    private SelectionKey register(Entry entry) throws IOException
+    {
+        SelectionKey key = entry.channel.keyFor(selector);
+        if (key != null && key.isValid()) {
+            //  Registered by another user of the selector.
+            key.interestOps(entry.interest);
+            return key;
+        }
+        try {
+            try {
+                return entry.channel.register(selector, entry.interest);
+            }
+            catch (CancelledKeyException e) {
+                //  The previous key of the channel is deregistered by the next selection.
+                selector.selectNow(marker);
+                return entry.channel.register(selector, entry.interest);
+            }
+        }
+        catch (ClosedChannelException e) {
+            throw new ZError.IOException(e);
+        }
+    }
+
+    private void mark(SelectionKey key)
+    {
+        Entry entry = entries.get(key.channel());
+        if (entry != null) {
+            entry.selected = true;
+        }
+    }
+
+    //  Gathers the ready items.
+    private int collect()
+    {
+        int nevents = 0;
+        boolean failed = false;
+        for (int idx = 0; idx < count; ++idx) {
+            Entry entry = all[idx];
+            int selected = entry.selected ? 1 : 0;
+            entry.selected = false;
+            for (int pos = 0; pos < entry.size && !failed; ++pos) {
+                PollItem item = entry.items[pos];
+                int ops = item.readyOps(entry.key, selected);
+                if (ops < 0) {
+                    failed = true;
+                }
+                else if (ops > 0) {
+                    ready[nevents++] = item;
+                }
+            }
+        }
+        if (failed) {
+            Arrays.fill(ready, 0, nevents, null);
+            return -1;
+        }
+        return nevents;
+    }
+}
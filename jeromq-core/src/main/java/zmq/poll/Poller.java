@@ -8,14 +8,15 @@ import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Set;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import zmq.Ctx;
 import zmq.ZError;
+import zmq.util.Clock;
 
 public class Poller extends PollerBase implements Runnable
 {
@@ -28,6 +29,8 @@ public class Poller extends PollerBase implements Runnable
 
         private int     ops;
         private boolean cancelled;
+        //  If true, the handle is waiting in a list of changes.
+        boolean         pending;
 
         public Handle(SelectableChannel fd, IPollEvents handler)
         {
@@ -74,7 +77,7 @@ public class Poller extends PollerBase implements Runnable
     private final Ctx ctx;
 
     //  stores data for registered descriptors.
-    private final Set<Handle> fdTable;
+    private final Map<Handle, Handle> fdTable;
 
     //  If true, there's at least one retired event source.
     private boolean retired = false;
@@ -91,7 +94,7 @@ public class Poller extends PollerBase implements Runnable
         super(name, ctx.getThreadFactory());
         this.ctx = ctx;
         exnotification = ctx.getNotificationExceptionHandler();
-        fdTable = new HashSet<>();
+        fdTable = new HashMap<>();
         selector = ctx.createSelector();
     }
 
@@ -116,7 +119,11 @@ public class Poller extends PollerBase implements Runnable
         assert (Thread.currentThread() == worker || !worker.isAlive());
 
         Handle handle = new Handle(fd, events);
-        fdTable.add(handle);
+        if (fdTable.put(handle, handle) != null) {
+            //  The same handle was removed since the last poll, this one
+            //  takes over its key instead of having it cancelled.
+            changed(handle);
+        }
 
         //  Increase the load metric of the thread.
         adjustLoad(1);
@@ -129,12 +136,18 @@ public class Poller extends PollerBase implements Runnable
 
         //  Mark the fd as unused.
         handle.cancelled = true;
-        retired = true;
+        changed(handle);
 
         //  Decrease the load metric of the thread.
         adjustLoad(-1);
     }
 
+    //  Returns the events the handle is polled for, as selection key operations.
+    public int getPollOps(Handle handle)
+    {
+        return handle.ops;
+    }
+
     public void setPollIn(Handle handle)
     {
         register(handle, SelectionKey.OP_READ, true);
@@ -175,9 +188,118 @@ public class Poller extends PollerBase implements Runnable
         else {
             handle.ops &= ~ops;
         }
+        changed(handle);
+    }
+
+    //  Records that the handle needs to be updated in the selector before
+    //  the next poll.
+    void changed(Handle handle)
+    {
         retired = true;
     }
 
+    //  Updates the selector with the changes of the handles.
+    void updateHandles()
+    {
+        if (retired) {
+            retired = false;
+            Iterator<Handle> iter = fdTable.values().iterator();
+            while (iter.hasNext()) {
+                Handle handle = iter.next();
+                if (!update(handle)) {
+                    iter.remove();
+                }
+            }
+        }
+    }
+
+    //  Applies the state of the handle to its key in the selector.
+    //  Returns false if the handle is not used anymore.
+    final boolean update(Handle handle)
+    {
+        SelectionKey key = handle.fd.keyFor(selector);
+        if (handle.cancelled || !handle.fd.isOpen()) {
+            if (fdTable.get(handle) != handle) {
+                //  Replaced by a handle added since, which keeps the key.
+                return false;
+            }
+            if (key != null) {
+                key.cancel();
+            }
+            return false;
+        }
+        if (key == null) {
+            try {
+                key = handle.fd.register(selector, handle.ops, handle);
+                assert (key != null);
+            }
+            catch (RuntimeException | ClosedChannelException e) {
+                exnotification.uncaughtException(worker, e);
+            }
+        }
+        else if (key.isValid()) {
+            key.attach(handle);
+            key.interestOps(handle.ops);
+        }
+        return true;
+    }
+
+    //  Removes a handle not used anymore from the table of the descriptors.
+    final void forget(Handle handle)
+    {
+        if (fdTable.get(handle) == handle) {
+            fdTable.remove(handle);
+        }
+    }
+
+    //  Waits for events, returns the number of ready keys.
+    int select(Selector selector, long timeout) throws IOException
+    {
+        return selector.select(timeout);
+    }
+
+    //  Dispatches the events of the keys selected by the last poll.
+    void processSelected(Selector selector)
+    {
+        Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+        while (it.hasNext()) {
+            SelectionKey key = it.next();
+            it.remove();
+            dispatch(key);
+        }
+    }
+
+    //  Calls the handler of a ready key.
+    final void dispatch(SelectionKey key)
+    {
+        Handle pollset = (Handle) key.attachment();
+        if (pollset.cancelled) {
+            return;
+        }
+
+        long begin = Clock.nowNS();
+        try {
+            if (key.isValid() && key.isAcceptable()) {
+                pollset.handler.acceptEvent();
+            }
+            if (key.isValid() && key.isConnectable()) {
+                pollset.handler.connectEvent();
+            }
+            if (key.isValid() && key.isWritable()) {
+                pollset.handler.outEvent();
+            }
+            if (key.isValid() && key.isReadable()) {
+                pollset.handler.inEvent();
+            }
+        }
+        catch (RuntimeException e) {
+            exnotification.uncaughtException(worker, e);
+        }
+        finally {
+            addBusyTime(Clock.nowNS() - begin);
+        }
+    }
+
     public void start()
     {
         worker.start();
@@ -197,43 +319,17 @@ public class Poller extends PollerBase implements Runnable
 
         while (!stopping.get()) {
             //  Execute any due timers.
+            long begin = Clock.nowNS();
             long timeout = executeTimers();
 
-            if (retired) {
-                retired = false;
-                Iterator<Handle> iter = fdTable.iterator();
-                while (iter.hasNext()) {
-                    Handle handle = iter.next();
-                    SelectionKey key = handle.fd.keyFor(selector);
-                    if (handle.cancelled || !handle.fd.isOpen()) {
-                        if (key != null) {
-                            key.cancel();
-                        }
-                        iter.remove();
-                        continue;
-                    }
-                    if (key == null) {
-                        if (handle.fd.isOpen()) {
-                            try {
-                                key = handle.fd.register(selector, handle.ops, handle);
-                                assert (key != null);
-                            }
-                            catch (RuntimeException | ClosedChannelException e) {
-                                exnotification.uncaughtException(worker, e);
-                            }
-                        }
-                    }
-                    else if (key.isValid()) {
-                        key.interestOps(handle.ops);
-                    }
-                }
-            }
+            updateHandles();
+            addBusyTime(Clock.nowNS() - begin);
 
             //  Wait for events.
             int rc;
             long start = System.currentTimeMillis();
             try {
-                rc = selector.select(timeout);
+                rc = select(selector, timeout);
             }
             catch (ClosedSelectorException e) {
                 rebuildSelector();
@@ -252,33 +348,7 @@ public class Poller extends PollerBase implements Runnable
                 continue;
             }
 
-            Iterator<SelectionKey> it = selector.selectedKeys().iterator();
-            while (it.hasNext()) {
-                SelectionKey key = it.next();
-                Handle pollset = (Handle) key.attachment();
-                it.remove();
-                if (pollset.cancelled) {
-                    continue;
-                }
-
-                try {
-                    if (key.isValid() && key.isAcceptable()) {
-                        pollset.handler.acceptEvent();
-                    }
-                    if (key.isValid() && key.isConnectable()) {
-                        pollset.handler.connectEvent();
-                    }
-                    if (key.isValid() && key.isWritable()) {
-                        pollset.handler.outEvent();
-                    }
-                    if (key.isValid() && key.isReadable()) {
-                        pollset.handler.inEvent();
-                    }
-                }
-                catch (RuntimeException e) {
-                    exnotification.uncaughtException(worker, e);
-                }
-            }
+            processSelected(selector);
         }
         stopped.countDown();
     }
@@ -1,11 +1,15 @@
 package zmq.poll;
 
-import java.util.Map.Entry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiFunction;
 
 import zmq.util.Clock;
-import zmq.util.MultiMap;
+import zmq.util.TimerWheel;
 
 abstract class PollerBase implements Runnable
 {
@@ -14,8 +18,6 @@ abstract class PollerBase implements Runnable
         private final IPollEvents sink;
         private final int         id;
 
-        private boolean cancelled;
-
         public TimerInfo(IPollEvents sink, int id)
         {
             assert (sink != null);
@@ -60,14 +62,18 @@ abstract class PollerBase implements Runnable
     //  registered.
     private final AtomicInteger load = new AtomicInteger(0);
 
-    private final MultiMap<Long, TimerInfo> timers = new MultiMap<>();
+    //  Time spent by the worker processing the events and the timers, in
+    //  nanoseconds. Only the worker updates it.
+    private final AtomicLong busyTime = new AtomicLong(0);
+
+    private final TimerWheel<TimerInfo> timers = new TimerWheel<>(clock());
+
+    //  The pending timers by sink and id, a sink being able to add several timers with the same id.
+    private final Map<TimerInfo, List<TimerWheel.Timer<TimerInfo>>> timersById = new HashMap<>();
 
     // the thread where all events will be dispatched. So, the actual IO or Reaper threads.
     protected final Thread worker;
 
-    // did timers expiration add timer ?
-    private boolean changed;
-
     protected PollerBase(String name)
     {
         worker = createWorker(name);
@@ -108,32 +114,61 @@ abstract class PollerBase implements Runnable
         load.addAndGet(amount);
     }
 
+    //  Returns the time spent processing the events and the timers, in
+    //  nanoseconds. Note that this function can be invoked from a different thread!
+    public long getBusyTime()
+    {
+        return busyTime.get();
+    }
+
+    //  Called by individual poller implementations to account the time
+    //  spent out of the waits for events.
+    protected void addBusyTime(long nanos)
+    {
+        //  Single writer, the lazy set is enough to publish the value.
+        busyTime.lazySet(busyTime.get() + nanos);
+    }
+
     //  Add a timeout to expire in timeout_ milliseconds. After the
     //  expiration timerEvent on sink_ object will be called with
     //  argument set to id_.
     public void addTimer(long timeout, IPollEvents sink, int id)
     {
-        assert (Thread.currentThread() == worker);
+        assert (Thread.currentThread() == worker || !worker.isAlive());
 
         long expiration = clock() + timeout;
         TimerInfo info = new TimerInfo(sink, id);
-        timers.insert(expiration, info);
-
-        changed = true;
+        TimerWheel.Timer<TimerInfo> timer = timers.add(expiration, info);
+        timersById.computeIfAbsent(info, k -> new ArrayList<>(1)).add(timer);
     }
 
     //  Cancel the timer created by sink_ object with ID equal to id_.
+    //  If there are several of them, the first one to expire is cancelled.
     public void cancelTimer(IPollEvents sink, int id)
     {
         assert (Thread.currentThread() == worker);
 
-        TimerInfo copy = new TimerInfo(sink, id);
-        //  Complexity of this operation is O(n). We assume it is rarely used.
+        TimerInfo info = new TimerInfo(sink, id);
+        List<TimerWheel.Timer<TimerInfo>> pending = timersById.get(info);
+        if (pending == null) {
+            return;
+        }
+        TimerWheel.Timer<TimerInfo> first = pending.get(0);
+        for (TimerWheel.Timer<TimerInfo> timer : pending) {
+            if (timer.expiration() < first.expiration()) {
+                first = timer;
+            }
+        }
+        timers.cancel(first);
+        forget(info, first);
+    }
 
-        TimerInfo timerInfo = timers.find(copy);
-        if (timerInfo != null) {
-            // let's defer the removal during the loop
-            timerInfo.cancelled = true;
+    //  Removes a timer no longer pending.
+    private void forget(TimerInfo info, TimerWheel.Timer<TimerInfo> timer)
+    {
+        List<TimerWheel.Timer<TimerInfo>> pending = timersById.get(info);
+        if (pending != null && pending.remove(timer) && pending.isEmpty()) {
+            timersById.remove(info);
         }
     }
 
@@ -143,8 +178,6 @@ abstract class PollerBase implements Runnable
     {
         assert (Thread.currentThread() == worker);
 
-        changed = false;
-
         //  Fast track.
         if (timers.isEmpty()) {
             return 0L;
@@ -153,44 +186,22 @@ abstract class PollerBase implements Runnable
         //  Get the current time.
         long current = clock();
 
-        //   Execute the timers that are already due.
-        for (Entry<TimerInfo, Long> entry : timers.entries()) {
-            TimerInfo timerInfo = entry.getKey();
-            if (timerInfo.cancelled) {
-                timers.remove(entry.getValue(), timerInfo);
-                continue;
-            }
-            //  If we have to wait to execute the item, same will be true about
-            //  all the following items (multimap is sorted). Thus we can stop
-            //  checking the subsequent timers and return the time to wait for
-            //  the next timer (at least 1ms).
-
-            Long key = entry.getValue();
-
-            if (key > current) {
-                return key - current;
-            }
-
-            //  Remove it from the list of active timers.
-            timers.remove(key, timerInfo);
+        //  Execute the timers that are already due, including the ones
+        //  added by the timers executed before them.
+        TimerWheel.Timer<TimerInfo> timer;
+        while ((timer = timers.expire(current)) != null) {
+            TimerInfo timerInfo = timer.payload();
+            forget(timerInfo, timer);
 
             //  Trigger the timer.
             timerInfo.sink.timerEvent(timerInfo.id);
         }
 
-        //  Remove empty list object
-        for (Entry<TimerInfo, Long> entry : timers.entries()) {
-            Long key = entry.getValue();
-
-            if (!timers.hasValues(key)) {
-                timers.remove(key);
-            }
-        }
-
-        if (changed) {
-            return executeTimers();
-        }
         //  There are no more timers.
-        return 0L;
+        if (timers.isEmpty()) {
+            return 0L;
+        }
+        //  Return the time to wait for the next timer (at least 1ms).
+        return Math.max(1L, timers.nextExpiration() - current);
     }
 }
@@ -81,7 +81,7 @@ public class LB
             more = msg.hasMore();
             dropping = more;
 
-            // msg_.close();
+            msg.release();
             return true;
         }
 
@@ -151,17 +151,27 @@ public class Dist
     {
         //  If there are no matching pipes available, simply drop the message.
         if (matching == 0) {
+            msg.release();
             return;
         }
 
         // TODO isVsm
 
+        //  Each pipe receives the same message, holding its own reference
+        //  on a shared buffer.
+        msg.addRefs(matching - 1);
+
         //  Push copy of the message to each matching pipe.
+        int failed = 0;
         for (int idx = 0; idx < matching; ++idx) {
             if (!write(pipes.get(idx), msg)) {
+                ++failed;
                 --idx; //  Retry last write because index will have been swapped
             }
         }
+        if (failed > 0) {
+            msg.rmRefs(failed);
+        }
     }
 
     public boolean hasOut()
@@ -0,0 +1,141 @@
+package zmq.socket.pubsub;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import zmq.pipe.Pipe;
+
+//  Pipes subscribed to the recently published topics, so that a topic published
+//  again is distributed without walking the trie. The least recently published
+//  topic is evicted when the cache is full.
+//
+//  The topic is the whole first part of the message. Only short topics are cached,
+//  as a part including the payload will hardly be published again.
+class MatchCache
+{
+    //  Size of the largest topic cached.
+    static final int MAX_TOPIC_SIZE = 256;
+
+    //  A topic, either stored in the cache, or the one of the published message
+    //  when looking up the cache.
+    private static final class Topic
+    {
+        private byte[]     bytes;
+        private ByteBuffer data;
+        private int        size;
+        private int        hash;
+
+        private Topic set(ByteBuffer data, int size)
+        {
+            this.data = data;
+            this.size = size;
+            int hash = 1;
+            for (int idx = 0; idx < size; ++idx) {
+                hash = 31 * hash + data.get(idx);
+            }
+            this.hash = hash;
+            return this;
+        }
+
+        private Topic copy()
+        {
+            Topic topic = new Topic();
+            topic.bytes = new byte[size];
+            for (int idx = 0; idx < size; ++idx) {
+                topic.bytes[idx] = data.get(idx);
+            }
+            topic.size = size;
+            topic.hash = hash;
+            return topic;
+        }
+
+        private byte get(int idx)
+        {
+            return bytes != null ? bytes[idx] : data.get(idx);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Topic)) {
+                return false;
+            }
+            Topic topic = (Topic) other;
+            if (hash != topic.hash || size != topic.size) {
+                return false;
+            }
+            if (bytes != null && topic.bytes != null) {
+                return Arrays.equals(bytes, topic.bytes);
+            }
+            for (int idx = 0; idx < size; ++idx) {
+                if (get(idx) != topic.get(idx)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private final Map<Topic, Pipe[]> entries;
+
+    //  Reused to look up the cache without allocation.
+    private final Topic probe;
+
+    MatchCache(int capacity)
+    {
+        assert (capacity > 0);
+        entries = new LinkedHashMap<Topic, Pipe[]>(16, 0.75f, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Topic, Pipe[]> eldest)
+            {
+                return size() > capacity;
+            }
+        };
+        probe = new Topic();
+    }
+
+    //  Returns the pipes subscribed to the topic, or null if it is not cached.
+    Pipe[] get(ByteBuffer data, int size)
+    {
+        if (size > MAX_TOPIC_SIZE) {
+            return null;
+        }
+        Pipe[] pipes = entries.get(probe.set(data, size));
+        probe.data = null;
+        return pipes;
+    }
+
+    void put(ByteBuffer data, int size, Pipe[] pipes)
+    {
+        if (size > MAX_TOPIC_SIZE) {
+            return;
+        }
+        entries.put(probe.set(data, size).copy(), pipes);
+        probe.data = null;
+    }
+
+    //  Forgets all the topics, when the subscriptions or the pipes change.
+    void clear()
+    {
+        entries.clear();
+    }
+
+    int size()
+    {
+        return entries.size();
+    }
+}
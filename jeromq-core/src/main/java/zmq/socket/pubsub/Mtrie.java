@@ -1,36 +1,214 @@
 package zmq.socket.pubsub;
 
 import java.nio.ByteBuffer;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
 
 import zmq.Msg;
 import zmq.pipe.Pipe;
-import zmq.util.Utils;
 
-//Multi-trie. Each node in the trie is a set of pointers to pipes.
+//  Multi-trie. Each subscribed topic is mapped to the set of pipes interested in it.
+//
+//  The trie is a radix tree: the chains of nodes with a single child and no pipes are
+//  compressed into a single node, labelled with all their bytes. The children of a node are
+//  looked up in a small array of keys, and in a table indexed by the byte once there are many.
+//  Each pipe gets a small integer identifier in the trie, and the pipes of a node are stored
+//  as a bitset of these identifiers.
 class Mtrie
 {
-    private Set<Pipe> pipes;
+    //  Number of children above which the children of a node are indexed by their first byte.
+    private static final int MAX_KEYS = 16;
 
-    private int     min;
-    private int     count;
-    private int     liveNodes;
-    private Mtrie[] next;
+    //  Number of children below which the index of a node is turned back into an array of keys.
+    private static final int MIN_INDEX = 8;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static final class Node
+    {
+        //  The bytes leading to this node from its parent, the first one being its key.
+        private byte[] label;
+
+        //  Bitset of the identifiers of the pipes subscribed to the prefix ending here.
+        private long[] pipes;
+        private int    pipesCount;
+
+        //  The children, either in an array of keys, or indexed by their first byte.
+        private byte[] keys;
+        private Node[] children;
+        private Node[] index;
+        private int    size;
+
+        private Node(byte[] label)
+        {
+            this.label = label;
+        }
+
+        private Node child(byte c)
+        {
+            if (index != null) {
+                return index[c & 0xff];
+            }
+            for (int idx = 0; idx < size; ++idx) {
+                if (keys[idx] == c) {
+                    return children[idx];
+                }
+            }
+            return null;
+        }
+
+        private void putChild(Node child)
+        {
+            byte c = child.label[0];
+            if (index != null) {
+                if (index[c & 0xff] == null) {
+                    ++size;
+                }
+                index[c & 0xff] = child;
+                return;
+            }
+            for (int idx = 0; idx < size; ++idx) {
+                if (keys[idx] == c) {
+                    children[idx] = child;
+                    return;
+                }
+            }
+            if (size == MAX_KEYS) {
+                index = new Node[256];
+                for (int idx = 0; idx < size; ++idx) {
+                    index[keys[idx] & 0xff] = children[idx];
+                }
+                index[c & 0xff] = child;
+                keys = null;
+                children = null;
+                ++size;
+                return;
+            }
+            if (keys == null) {
+                keys = new byte[2];
+                children = new Node[2];
+            }
+            else if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                children = Arrays.copyOf(children, size * 2);
+            }
+            keys[size] = c;
+            children[size] = child;
+            ++size;
+        }
+
+        private void removeChild(byte c)
+        {
+            if (index != null) {
+                assert (index[c & 0xff] != null);
+                index[c & 0xff] = null;
+                --size;
+                if (size < MIN_INDEX) {
+                    //  Back to the compact representation.
+                    Node[] old = index;
+                    index = null;
+                    keys = new byte[MAX_KEYS];
+                    children = new Node[MAX_KEYS];
+                    size = 0;
+                    for (Node child : old) {
+                        if (child != null) {
+                            putChild(child);
+                        }
+                    }
+                }
+                return;
+            }
+            for (int idx = 0; idx < size; ++idx) {
+                if (keys[idx] == c) {
+                    --size;
+                    keys[idx] = keys[size];
+                    children[idx] = children[size];
+                    children[size] = null;
+                    if (size == 0) {
+                        keys = null;
+                        children = null;
+                    }
+                    return;
+                }
+            }
+            assert (false);
+        }
+
+        //  Returns a copy of the children.
+        private Node[] children()
+        {
+            if (index == null) {
+                return size == 0 ? NO_CHILDREN : Arrays.copyOf(children, size);
+            }
+            Node[] copy = new Node[size];
+            int count = 0;
+            for (Node child : index) {
+                if (child != null) {
+                    copy[count++] = child;
+                }
+            }
+            return copy;
+        }
+
+        //  Returns the only child.
+        private Node single()
+        {
+            assert (size == 1);
+            return index != null ? children()[0] : children[0];
+        }
+
+        private boolean hasPipe(int id)
+        {
+            int word = id >>> 6;
+            return pipes != null && word < pipes.length && (pipes[word] & (1L << id)) != 0;
+        }
+
+        private void addPipe(int id)
+        {
+            int word = id >>> 6;
+            if (pipes == null) {
+                pipes = new long[word + 1];
+            }
+            else if (word >= pipes.length) {
+                pipes = Arrays.copyOf(pipes, word + 1);
+            }
+            pipes[word] |= 1L << id;
+            ++pipesCount;
+        }
+
+        private void removePipe(int id)
+        {
+            pipes[id >>> 6] &= ~(1L << id);
+            if (--pipesCount == 0) {
+                pipes = null;
+            }
+        }
+    }
 
     public interface IMtrieHandler
     {
         void invoke(Pipe pipe, byte[] data, int size, XPub arg);
     }
 
+    private final Node root;
+
+    //  Identifiers of the pipes, the pipes by identifier, and the number of topics each one is subscribed to.
+    private final Map<Pipe, Integer> ids;
+    private final BitSet             usedIds;
+    private Pipe[]                   pipes;
+    private int[]                    refs;
+
     public Mtrie()
     {
-        min = 0;
-        count = 0;
-        liveNodes = 0;
-
-        pipes = null;
-        next = null;
+        root = new Node(EMPTY);
+        ids = new HashMap<>();
+        usedIds = new BitSet();
+        pipes = new Pipe[16];
+        refs = new int[16];
     }
 
     final boolean addOnTop(Pipe pipe)
@@ -50,70 +228,37 @@ class Mtrie
 
     private boolean addHelper(Msg msg, int start, int size, Pipe pipe)
     {
-        //  We are at the node corresponding to the prefix. We are done.
-        if (size == 0) {
-            boolean result = pipes == null;
-            if (pipes == null) {
-                pipes = new HashSet<>();
-            }
-            pipes.add(pipe);
-            return result;
-        }
-
-        assert (msg != null);
-        byte c = msg.get(start);
-        if (c < min || c >= min + count) {
-            //  The character is out of range of currently handled
-            //  characters. We have to extend the table.
-            if (count == 0) {
-                min = c;
-                count = 1;
-                next = null;
-            }
-            else if (count == 1) {
-                int oldc = min;
-                Mtrie oldp = next[0];
-                count = (min < c ? c - min : min - c) + 1;
-                next = new Mtrie[count];
-                min = Math.min(min, c);
-                next[oldc - min] = oldp;
-            }
-            else if (min < c) {
-                //  The new character is above the current character range.
-                count = c - min + 1;
-                next = realloc(next, count, true);
+        Node node = root;
+        while (size > 0) {
+            Node child = node.child(msg.get(start));
+            if (child == null) {
+                //  The rest of the key becomes the label of a new leaf.
+                child = new Node(copy(msg, start, size));
+                node.putChild(child);
+                node = child;
+                break;
             }
-            else {
-                //  The new character is below the current character range.
-                count = (min + count) - c;
-                next = realloc(next, count, false);
-                min = c;
+            int common = common(child.label, msg, start, size);
+            if (common < child.label.length) {
+                //  The key diverges inside the label, split it.
+                Node split = new Node(Arrays.copyOf(child.label, common));
+                child.label = Arrays.copyOfRange(child.label, common, child.label.length);
+                split.putChild(child);
+                node.putChild(split);
+                child = split;
             }
+            node = child;
+            start += common;
+            size -= common;
         }
 
-        //  If next node does not exist, create one.
-        if (count == 1) {
-            if (next == null) {
-                next = new Mtrie[1];
-                next[0] = new Mtrie();
-                ++liveNodes;
-                //alloc_assert (next.node);
-            }
-            return next[0].addHelper(msg, start + 1, size - 1, pipe);
-        }
-        else {
-            if (next[c - min] == null) {
-                next[c - min] = new Mtrie();
-                ++liveNodes;
-                //alloc_assert (next.table [c - min]);
-            }
-            return next[c - min].addHelper(msg, start + 1, size - 1, pipe);
+        boolean result = node.pipesCount == 0;
+        int id = id(pipe);
+        if (!node.hasPipe(id)) {
+            node.addPipe(id);
+            ++refs[id];
         }
-    }
-
-    private Mtrie[] realloc(Mtrie[] table, int size, boolean ended)
-    {
-        return Utils.realloc(Mtrie.class, table, size, ended);
+        return result;
     }
 
     //  Remove all subscriptions for a specific peer from the trie.
@@ -123,119 +268,35 @@ class Mtrie
     {
         assert (pipe != null);
         assert (func != null);
-        return rmHelper(pipe, new byte[0], 0, 0, func, pub);
+        Integer id = ids.get(pipe);
+        if (id != null) {
+            rmHelper(root, id, new byte[256], 0, func, pub);
+        }
+        return true;
     }
 
-    private boolean rmHelper(Pipe pipe, byte[] buff, int buffsize, int maxBuffSize, IMtrieHandler func, XPub pub)
+    private byte[] rmHelper(Node node, int id, byte[] buff, int buffsize, IMtrieHandler func, XPub pub)
     {
         //  Remove the subscription from this node.
-        if (pipes != null && pipes.remove(pipe)) {
-            if (pipes.isEmpty()) {
+        if (node.hasPipe(id)) {
+            node.removePipe(id);
+            release(id);
+            if (node.pipesCount == 0) {
                 func.invoke(null, buff, buffsize, pub);
-                pipes = null;
             }
         }
 
-        //  Adjust the buffer.
-        if (buffsize >= maxBuffSize) {
-            maxBuffSize = buffsize + 256;
-            buff = Utils.realloc(buff, maxBuffSize);
-        }
-
-        //  If there are no subnodes in the trie, return.
-        if (count == 0) {
-            return true;
-        }
-
-        //  If there's one subnode (optimisation).
-        if (count == 1) {
-            buff[buffsize] = (byte) min;
-            buffsize++;
-            next[0].rmHelper(pipe, buff, buffsize, maxBuffSize, func, pub);
-
-            //  Prune the node if it was made redundant by the removal
-            if (next[0].isRedundant()) {
-                next = null;
-                count = 0;
-                --liveNodes;
-                assert (liveNodes == 0);
+        //  The children are pruned while iterating on them.
+        for (Node child : node.children()) {
+            int length = buffsize + child.label.length;
+            if (length > buff.length) {
+                buff = Arrays.copyOf(buff, Math.max(length, buff.length * 2));
             }
-            return true;
-        }
-
-        //  If there are multiple subnodes.
-        //
-        //  New min non-null character in the node table after the removal
-        int newMin = min + count - 1;
-        //  New max non-null character in the node table after the removal
-        int newMax = min;
-        for (int c = 0; c != count; c++) {
-            buff[buffsize] = (byte) (min + c);
-            if (next[c] != null) {
-                next[c].rmHelper(pipe, buff, buffsize + 1, maxBuffSize, func, pub);
-
-                //  Prune redundant nodes from the mtrie
-                if (next[c].isRedundant()) {
-                    next[c] = null;
-
-                    assert (liveNodes > 0);
-                    --liveNodes;
-                }
-                else {
-                    //  The node is not redundant, so it's a candidate for being
-                    //  the new min/max node.
-                    //
-                    //  We loop through the node array from left to right, so the
-                    //  first non-null, non-redundant node encountered is the new
-                    //  minimum index. Conversely, the last non-redundant, non-null
-                    //  node encountered is the new maximum index.
-                    if (c + min < newMin) {
-                        newMin = c + min;
-                    }
-                    if (c + min > newMax) {
-                        newMax = c + min;
-                    }
-                }
-            }
-        }
-
-        assert (count > 1);
-
-        //  Free the node table if it's no longer used.
-        if (liveNodes == 0) {
-            next = null;
-            count = 0;
-        }
-        //  Compact the node table if possible
-        else if (liveNodes == 1) {
-            //  If there's only one live node in the table we can
-            //  switch to using the more compact single-node
-            //  representation
-            assert (newMin == newMax);
-            assert (newMin >= min && newMin < min + count);
-            Mtrie node = next[newMin - min];
-            assert (node != null);
-            next = new Mtrie[] { node };
-            count = 1;
-            min = newMin;
+            System.arraycopy(child.label, 0, buff, buffsize, child.label.length);
+            buff = rmHelper(child, id, buff, length, func, pub);
+            prune(node, child);
         }
-        else if (newMin > min || newMax < min + count - 1) {
-            assert (newMax > newMin);
-
-            Mtrie[] oldTable = next;
-            assert (newMin > min || newMax < min + count - 1);
-            assert (newMin >= min);
-            assert (newMax <= min + count - 1);
-            assert (newMax - newMin + 1 < count);
-
-            count = newMax - newMin + 1;
-            next = new Mtrie[count];
-
-            System.arraycopy(oldTable, (newMin - min), next, 0, count);
-
-            min = newMin;
-        }
-        return true;
+        return buff;
     }
 
     //  Remove specific subscription from the trie. Return true is it was
@@ -244,96 +305,50 @@ class Mtrie
     {
         assert (msg != null);
         assert (pipe != null);
-        return rmHelper(msg, 1, msg.size() - 1, pipe);
+        Integer id = ids.get(pipe);
+        if (id == null) {
+            return false;
+        }
+        return rmHelper(root, msg, 1, msg.size() - 1, id);
     }
 
-    private boolean rmHelper(Msg msg, int start, int size, Pipe pipe)
+    private boolean rmHelper(Node node, Msg msg, int start, int size, int id)
     {
         if (size == 0) {
-            if (pipes != null) {
-                boolean erased = pipes.remove(pipe);
-                assert (erased);
-                if (pipes.isEmpty()) {
-                    pipes = null;
-                }
+            if (!node.hasPipe(id)) {
+                return false;
             }
-            return pipes == null;
+            node.removePipe(id);
+            release(id);
+            return node.pipesCount == 0;
         }
 
-        byte c = msg.get(start);
-        if (count == 0 || c < min || c >= min + count) {
+        Node child = node.child(msg.get(start));
+        if (child == null || common(child.label, msg, start, size) < child.label.length) {
             return false;
         }
 
-        Mtrie nextNode = count == 1 ? next[0] : next[c - min];
+        int length = child.label.length;
+        boolean ret = rmHelper(child, msg, start + length, size - length, id);
+        prune(node, child);
+        return ret;
+    }
 
-        if (nextNode == null) {
-            return false;
+    //  Removes the child if it is redundant, or merges it with its only child.
+    private void prune(Node node, Node child)
+    {
+        if (child.pipesCount > 0 || child.size > 1) {
+            return;
         }
-
-        boolean ret = nextNode.rmHelper(msg, start + 1, size - 1, pipe);
-        if (nextNode.isRedundant()) {
-            assert (count > 0);
-
-            if (count == 1) {
-                next = null;
-                count = 0;
-                --liveNodes;
-                assert (liveNodes == 0);
-            }
-            else {
-                next[c - min] = null;
-                assert (liveNodes > 1);
-                --liveNodes;
-
-                //  Compact the table if possible
-                if (liveNodes == 1) {
-                    //  If there's only one live node in the table we can
-                    //  switch to using the more compact single-node
-                    //  representation
-                    int i;
-                    for (i = 0; i < count; ++i) {
-                        if (next[i] != null) {
-                            break;
-                        }
-                    }
-
-                    assert (i < count);
-                    min += i;
-                    count = 1;
-                    Mtrie old = next[i];
-                    next = new Mtrie[] { old };
-                }
-                else if (c == min) {
-                    //  We can compact the table "from the left"
-                    int i;
-                    for (i = 1; i < count; ++i) {
-                        if (next[i] != null) {
-                            break;
-                        }
-                    }
-
-                    assert (i < count);
-                    min += i;
-                    count -= i;
-                    next = realloc(next, count, true);
-                }
-                else if (c == min + count - 1) {
-                    //  We can compact the table "from the right"
-                    int i;
-                    for (i = 1; i < count; ++i) {
-                        if (next[count - 1 - i] != null) {
-                            break;
-                        }
-                    }
-                    assert (i < count);
-                    count -= i;
-                    next = realloc(next, count, false);
-                }
-            }
+        if (child.size == 0) {
+            node.removeChild(child.label[0]);
+            return;
         }
-
-        return ret;
+        Node grandChild = child.single();
+        byte[] label = Arrays.copyOf(child.label, child.label.length + grandChild.label.length);
+        System.arraycopy(grandChild.label, 0, label, child.label.length, grandChild.label.length);
+        grandChild.label = label;
+        node.putChild(grandChild);
     }
 
     //  Signal all the matching pipes.
@@ -342,14 +357,20 @@ class Mtrie
         assert (data != null);
         assert (func != null);
         assert (pub != null);
-        Mtrie current = this;
+        Node current = root;
         int idx = 0;
 
         while (true) {
             //  Signal the pipes attached to this node.
             if (current.pipes != null) {
-                for (Pipe it : current.pipes) {
-                    func.invoke(it, null, 0, pub);
+                long[] bits = current.pipes;
+                for (int word = 0; word < bits.length; ++word) {
+                    long value = bits[word];
+                    while (value != 0) {
+                        int bit = Long.numberOfTrailingZeros(value);
+                        func.invoke(pipes[(word << 6) + bit], null, 0, pub);
+                        value &= value - 1;
+                    }
                 }
             }
 
@@ -358,38 +379,73 @@ class Mtrie
                 break;
             }
 
-            //  If there are no subnodes in the trie, return.
-            if (current.count == 0) {
+            Node next = current.child(data.get(idx));
+            if (next == null) {
                 break;
             }
 
-            byte c = data.get(idx);
-            //  If there's one subnode (optimisation).
-            if (current.count == 1) {
-                if (c != current.min) {
-                    break;
-                }
-                current = current.next[0];
-                idx++;
-                size--;
-                continue;
-            }
-
-            //  If there are multiple subnodes.
-            if (c < current.min || c >= current.min + current.count) {
+            //  The whole label has to be part of the message.
+            byte[] label = next.label;
+            if (label.length > size) {
                 break;
             }
-            if (current.next[c - current.min] == null) {
+            int pos = 1;
+            while (pos < label.length && label[pos] == data.get(idx + pos)) {
+                ++pos;
+            }
+            if (pos < label.length) {
                 break;
             }
-            current = current.next[c - current.min];
-            idx++;
-            size--;
+            current = next;
+            idx += label.length;
+            size -= label.length;
         }
     }
 
-    private boolean isRedundant()
+    private int id(Pipe pipe)
     {
-        return pipes == null && liveNodes == 0;
+        Integer id = ids.get(pipe);
+        if (id != null) {
+            return id;
+        }
+        int next = usedIds.nextClearBit(0);
+        usedIds.set(next);
+        ids.put(pipe, next);
+        if (next >= pipes.length) {
+            pipes = Arrays.copyOf(pipes, pipes.length * 2);
+            refs = Arrays.copyOf(refs, refs.length * 2);
+        }
+        pipes[next] = pipe;
+        return next;
+    }
+
+    //  Frees the identifier of a pipe not subscribed to anything anymore.
+    private void release(int id)
+    {
+        if (--refs[id] == 0) {
+            ids.remove(pipes[id]);
+            pipes[id] = null;
+            usedIds.clear(id);
+        }
+    }
+
+    private static byte[] copy(Msg msg, int start, int size)
+    {
+        byte[] bytes = new byte[size];
+        for (int idx = 0; idx < size; ++idx) {
+            bytes[idx] = msg.get(start + idx);
+        }
+        return bytes;
+    }
+
+    //  Returns the length of the common prefix of the label and the key.
+    private static int common(byte[] label, Msg msg, int start, int size)
+    {
+        int length = Math.min(label.length, size);
+        int idx = 0;
+        while (idx < length && label[idx] == msg.get(start + idx)) {
+            ++idx;
+        }
+        return idx;
     }
 }
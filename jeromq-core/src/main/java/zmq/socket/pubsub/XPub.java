@@ -1,7 +1,9 @@
 package zmq.socket.pubsub;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
+import java.util.List;
 
 import zmq.Ctx;
 import zmq.Msg;
@@ -33,6 +35,16 @@ public class XPub extends SocketBase
         }
     }
 
+    private static final class CollectMatching implements IMtrieHandler
+    {
+        @Override
+        public void invoke(Pipe pipe, byte[] data, int size, XPub self)
+        {
+            self.matched.add(pipe);
+            self.markAsMatching(pipe);
+        }
+    }
+
     //  List of all subscriptions mapped to corresponding pipes.
     private final Mtrie subscriptions;
 
@@ -70,7 +82,14 @@ public class XPub extends SocketBase
     private final Deque<Blob>    pendingData;
     private final Deque<Integer> pendingFlags;
 
+    //  Pipes matching the recently published topics, null if not enabled.
+    private MatchCache matchCache;
+
+    //  Pipes matching the topic being published, when it is not cached yet.
+    private final List<Pipe> matched;
+
     private static final IMtrieHandler markAsMatching     = new MarkAsMatching();
+    private static final IMtrieHandler collectMatching    = new CollectMatching();
     private static final IMtrieHandler sendUnsubscription = new SendUnsubscription();
 
     public XPub(Ctx parent, int tid, int sid)
@@ -91,6 +110,8 @@ public class XPub extends SocketBase
         pendingPipes = new ArrayDeque<>();
         pendingData = new ArrayDeque<>();
         pendingFlags = new ArrayDeque<>();
+        matchCache = null;
+        matched = new ArrayList<>();
     }
 
     @Override
@@ -103,6 +124,7 @@ public class XPub extends SocketBase
         //  to all data on this pipe, implicitly.
         if (subscribeToAll) {
             subscriptions.addOnTop(pipe);
+            invalidateMatches();
         }
 
         //  The pipe is active when attached. Let's read the subscriptions from
@@ -163,6 +185,7 @@ public class XPub extends SocketBase
                     pendingData.add(Blob.createBlob(sub));
                     pendingFlags.add(0);
                 }
+                invalidateMatches();
             }
         }
     }
@@ -177,7 +200,8 @@ public class XPub extends SocketBase
     public boolean xsetsockopt(int option, Object optval)
     {
         if (option == ZMQ.ZMQ_XPUB_VERBOSE || option == ZMQ.ZMQ_XPUB_VERBOSER
-                || option == ZMQ.ZMQ_XPUB_NODROP || option == ZMQ.ZMQ_XPUB_MANUAL) {
+                || option == ZMQ.ZMQ_XPUB_NODROP || option == ZMQ.ZMQ_XPUB_MANUAL
+                || option == ZMQ.ZMQ_XPUB_MATCH_CACHE) {
             if (option == ZMQ.ZMQ_XPUB_VERBOSE) {
                 verboseSubs = Options.parseBoolean(option, optval);
                 verboseUnsubs = false;
@@ -192,17 +216,26 @@ public class XPub extends SocketBase
             else if (option == ZMQ.ZMQ_XPUB_MANUAL) {
                 manual = Options.parseBoolean(option, optval);
             }
+            else if (option == ZMQ.ZMQ_XPUB_MATCH_CACHE) {
+                int capacity = ((Number) optval).intValue();
+                if (capacity < 0) {
+                    throw new IllegalArgumentException("matchCache " + optval);
+                }
+                matchCache = capacity == 0 ? null : new MatchCache(capacity);
+            }
         }
         else if (option == ZMQ.ZMQ_SUBSCRIBE && manual) {
             if (null != lastPipe) {
                 String val = Options.parseString(option, optval);
                 subscriptions.add(new Msg(val.getBytes()), lastPipe);
+                invalidateMatches();
             }
         }
         else if (option == ZMQ.ZMQ_UNSUBSCRIBE && manual) {
             if (null != lastPipe) {
                 String val = Options.parseString(option, optval);
                 subscriptions.rm(new Msg(val.getBytes()), lastPipe);
+                invalidateMatches();
             }
         }
         else {
@@ -228,6 +261,7 @@ public class XPub extends SocketBase
 
             subscriptions.rm(pipe, sendUnsubscription, this);
         }
+        invalidateMatches();
 
         dist.terminated(pipe);
     }
@@ -237,6 +271,30 @@ public class XPub extends SocketBase
         dist.match(pipe);
     }
 
+    //  Marks the pipes subscribed to the topic of the message as matching,
+    //  from the cache if the topic was recently published.
+    private void matchCached(Msg msg)
+    {
+        Pipe[] pipes = matchCache.get(msg.buf(), msg.size());
+        if (pipes == null) {
+            matched.clear();
+            subscriptions.match(msg.buf(), msg.size(), collectMatching, this);
+            pipes = matched.toArray(new Pipe[0]);
+            matchCache.put(msg.buf(), msg.size(), pipes);
+            return;
+        }
+        for (Pipe pipe : pipes) {
+            dist.match(pipe);
+        }
+    }
+
+    private void invalidateMatches()
+    {
+        if (matchCache != null) {
+            matchCache.clear();
+        }
+    }
+
     @Override
     protected boolean xsend(Msg msg)
     {
@@ -244,7 +302,12 @@ public class XPub extends SocketBase
 
         //  For the first part of multi-part message, find the matching pipes.
         if (!more) {
-            subscriptions.match(msg.buf(), msg.size(), markAsMatching, this);
+            if (matchCache == null) {
+                subscriptions.match(msg.buf(), msg.size(), markAsMatching, this);
+            }
+            else {
+                matchCached(msg);
+            }
         }
 
         if (lossy || dist.checkHwm()) {
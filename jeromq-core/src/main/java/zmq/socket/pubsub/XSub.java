@@ -169,9 +169,11 @@ public class XSub extends SocketBase
 
             //  Message doesn't match. Pop any remaining parts of the message
             //  from the pipe.
+            msg.release();
             while (msg.hasMore()) {
                 msg = fq.recv(errno);
                 assert (msg != null);
+                msg.release();
             }
         }
     }
@@ -211,9 +213,11 @@ public class XSub extends SocketBase
 
             //  Message doesn't match. Pop any remaining parts of the message
             //  from the pipe.
+            message.release();
             while (message.hasMore()) {
                 message = fq.recv(errno);
                 assert (message != null);
+                message.release();
             }
         }
     }
@@ -21,6 +21,8 @@ import zmq.socket.pubsub.Dist;
 public class Radio extends SocketBase
 {
     private final Map<String, List<Pipe>> subscriptions;
+    //  The pipes of the multicast protocols, receiving all the groups.
+    private final List<Pipe> udpPipes;
     private final Dist dist;
 
     public Radio(Ctx parent, int tid, int sid)
@@ -30,6 +32,7 @@ public class Radio extends SocketBase
         options.type = ZMQ.ZMQ_RADIO;
 
         subscriptions = new HashMap<>();
+        udpPipes = new ArrayList<>();
         dist = new Dist();
     }
 
@@ -39,6 +42,9 @@ public class Radio extends SocketBase
         assert (pipe != null);
 
         pipe.setNoDelay();
+        if (subscribe2all) {
+            udpPipes.add(pipe);
+        }
         dist.attach(pipe);
         xreadActivated(pipe);
     }
@@ -79,6 +85,7 @@ public class Radio extends SocketBase
             entry.getValue().remove(pipe);
             return entry.getValue().isEmpty();
         });
+        udpPipes.remove(pipe);
 
         dist.terminated(pipe);
     }
@@ -100,6 +107,9 @@ public class Radio extends SocketBase
                 dist.match(pipe);
             }
         }
+        for (Pipe pipe : udpPipes) {
+            dist.match(pipe);
+        }
 
         dist.sendToMatching(msg);
 
@@ -0,0 +1,303 @@
+package zmq.util;
+
+/**
+ * A hierarchical timing wheel, holding timers by their expiration time in milliseconds.
+ * <p>
+ * Each level has 64 slots, a slot of a level spanning the 64 slots of the level below. A timer goes to the
+ * lowest level able to hold it, relative to the time of the wheel, and moves down a level each time the time
+ * of the wheel reaches its slot. A bitmap of the occupied slots of each level finds the next ones without
+ * looking at the empty slots.
+ * <p>
+ * Scheduling and cancelling a timer take a constant time, and so does expiring it, apart from the moves
+ * between the levels, at most one per level. The wheel skips the idle periods at once.
+ * <p>
+ * <strong>This class is not thread-safe</strong>
+ */
+public final class TimerWheel<T>
+{
+    /**
+     * A timer of the wheel, which can be scheduled again once expired or cancelled.
+     */
+    public static final class Timer<T>
+    {
+        private final T payload;
+
+        private long expiration;
+
+        //  The slot holding the timer, -1 if the timer is not scheduled.
+        private int      slot = -1;
+        private Timer<T> prev;
+        private Timer<T> next;
+
+        public Timer(T payload)
+        {
+            this.payload = payload;
+        }
+
+        public T payload()
+        {
+            return payload;
+        }
+
+        public long expiration()
+        {
+            return expiration;
+        }
+
+        public boolean isScheduled()
+        {
+            return slot >= 0;
+        }
+    }
+
+    private static final int BITS   = 6;
+    private static final int SLOTS  = 1 << BITS;
+    private static final int MASK   = SLOTS - 1;
+    //  Enough levels for all the 64 bits of the time.
+    private static final int LEVELS = (Long.SIZE + BITS - 1) / BITS;
+
+    private final Timer<T>[] heads;
+    private final Timer<T>[] tails;
+
+    //  Earliest expiration of the timers of each slot, stale once that timer is gone.
+    private final long[]    mins;
+    private final boolean[] stale;
+
+    //  Occupied slots of each level.
+    private final long[] bitmaps = new long[LEVELS];
+
+    //  Time of the wheel: the timers expiring until then are due.
+    private long current;
+
+    private int size;
+
+    /**
+     * @param now the current time, in milliseconds.
+     */
+    @SuppressWarnings("unchecked")
+    public TimerWheel(long now)
+    {
+        current = now;
+        heads = (Timer<T>[]) new Timer<?>[LEVELS * SLOTS];
+        tails = (Timer<T>[]) new Timer<?>[LEVELS * SLOTS];
+        mins = new long[LEVELS * SLOTS];
+        stale = new boolean[LEVELS * SLOTS];
+    }
+
+    /**
+     * Adds a timer.
+     * @param expiration the expiration time, in milliseconds.
+     * @param payload the payload of the timer.
+     * @return the timer, to cancel it.
+     */
+    public Timer<T> add(long expiration, T payload)
+    {
+        Timer<T> timer = new Timer<>(payload);
+        schedule(timer, expiration);
+        return timer;
+    }
+
+    /**
+     * Schedules a timer, replacing its previous expiration if it is already scheduled.
+     * @param timer the timer.
+     * @param expiration the expiration time, in milliseconds.
+     */
+    public void schedule(Timer<T> timer, long expiration)
+    {
+        if (timer.isScheduled()) {
+            unlink(timer);
+        }
+        timer.expiration = expiration;
+        link(timer);
+    }
+
+    /**
+     * Cancels a timer.
+     * @param timer the timer.
+     * @return true if the timer was cancelled, false if it was not scheduled.
+     */
+    public boolean cancel(Timer<T> timer)
+    {
+        if (!timer.isScheduled()) {
+            return false;
+        }
+        unlink(timer);
+        return true;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the earliest expiration time of the timers.
+     * The wheel shall not be empty.
+     * @return the expiration time, in milliseconds.
+     */
+    public long nextExpiration()
+    {
+        assert (size > 0);
+
+        long next = Long.MAX_VALUE;
+        for (int level = 0; level < LEVELS; ++level) {
+            int slot = firstSlot(level);
+            if (slot >= 0) {
+                next = Math.min(next, min(slot));
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Removes a timer expired at the given time, in the order of their expiration times, the timers
+     * already expired when scheduled coming first.
+     * @param now the current time, in milliseconds.
+     * @return an expired timer, or null if none expired.
+     */
+    public Timer<T> expire(long now)
+    {
+        while (size > 0) {
+            Timer<T> due = heads[(int) (current & MASK)];
+            if (due != null) {
+                unlink(due);
+                return due;
+            }
+            //  Moves the wheel to the earliest occupied slot, if it is due.
+            long point = Long.MAX_VALUE;
+            int slot = -1;
+            for (int level = 0; level < LEVELS; ++level) {
+                int first = firstSlot(level);
+                if (first >= 0) {
+                    int shift = BITS * level;
+                    long offset = ((first & MASK) - (current >> shift)) & MASK;
+                    long start = ((current >> shift) + offset) << shift;
+                    if (start < point) {
+                        point = start;
+                        slot = first;
+                    }
+                }
+            }
+            if (point > now) {
+                break;
+            }
+            current = point;
+            if (slot >= SLOTS) {
+                cascade(slot);
+            }
+        }
+        if (now > current) {
+            current = now;
+        }
+        return null;
+    }
+
+    //  Returns the first occupied slot of the level, from the time of the wheel, or -1.
+    private int firstSlot(int level)
+    {
+        long bitmap = bitmaps[level];
+        if (bitmap == 0) {
+            return -1;
+        }
+        int origin = (int) ((current >> (BITS * level)) & MASK);
+        int offset = Long.numberOfTrailingZeros(Long.rotateRight(bitmap, origin));
+        return level * SLOTS + ((origin + offset) & MASK);
+    }
+
+    private long min(int slot)
+    {
+        if (stale[slot]) {
+            long min = Long.MAX_VALUE;
+            for (Timer<T> timer = heads[slot]; timer != null; timer = timer.next) {
+                min = Math.min(min, timer.expiration);
+            }
+            mins[slot] = min;
+            stale[slot] = false;
+        }
+        return mins[slot];
+    }
+
+    private void link(Timer<T> timer)
+    {
+        long expiration = timer.expiration;
+        int level = 0;
+        int index;
+        if (expiration <= current) {
+            //  Already due.
+            index = (int) (current & MASK);
+        }
+        else {
+            //  Lowest level whose slots reach the expiration.
+            while (Long.compareUnsigned((expiration >> (BITS * level)) - (current >> (BITS * level)), SLOTS) >= 0) {
+                ++level;
+            }
+            index = (int) ((expiration >> (BITS * level)) & MASK);
+        }
+        int slot = level * SLOTS + index;
+
+        timer.slot = slot;
+        timer.next = null;
+        timer.prev = tails[slot];
+        if (timer.prev == null) {
+            heads[slot] = timer;
+            bitmaps[level] |= 1L << index;
+            mins[slot] = expiration;
+            stale[slot] = false;
+        }
+        else {
+            timer.prev.next = timer;
+            if (expiration < mins[slot]) {
+                mins[slot] = expiration;
+            }
+        }
+        tails[slot] = timer;
+        ++size;
+    }
+
+    private void unlink(Timer<T> timer)
+    {
+        int slot = timer.slot;
+        if (timer.prev == null) {
+            heads[slot] = timer.next;
+        }
+        else {
+            timer.prev.next = timer.next;
+        }
+        if (timer.next == null) {
+            tails[slot] = timer.prev;
+        }
+        else {
+            timer.next.prev = timer.prev;
+        }
+        if (heads[slot] == null) {
+            bitmaps[slot / SLOTS] &= ~(1L << (slot & MASK));
+        }
+        else if (timer.expiration == mins[slot]) {
+            stale[slot] = true;
+        }
+        timer.slot = -1;
+        timer.prev = null;
+        timer.next = null;
+        --size;
+    }
+
+    //  Moves the timers of a slot reached by the time of the wheel to the levels below.
+    private void cascade(int slot)
+    {
+        Timer<T> timer = heads[slot];
+        heads[slot] = null;
+        tails[slot] = null;
+        bitmaps[slot / SLOTS] &= ~(1L << (slot & MASK));
+        while (timer != null) {
+            Timer<T> next = timer.next;
+            --size;
+            link(timer);
+            timer = next;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package zmq.util;
 
-import java.util.Map.Entry;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
@@ -25,6 +26,8 @@ public class Timers
         private final Handler  handler;
         private final Object[] args;
 
+        private final TimerWheel.Timer<Timer> node = new TimerWheel.Timer<>(this);
+
         private Timer(Timers parent, long interval, Handler handler, Object... args)
         {
             assert (args != null);
@@ -36,7 +39,6 @@ public class Timers
 
         /**
          * Changes the interval of the timer.
-         * This method is slow, canceling existing and adding a new timer yield better performance.
          * @param interval the new interval of the timer.
          * @return true if set, otherwise false.
          */
@@ -51,7 +53,6 @@ public class Timers
 
         /**
          * Reset the timer.
-         * This method is slow, canceling existing and adding a new timer yield better performance.
          * @return true if reset, otherwise false.
          */
         public boolean reset()
@@ -70,6 +71,7 @@ public class Timers
         {
             if (alive) {
                 alive = false;
+                parent.timers.cancel(node);
                 return true;
             }
             return false;
@@ -81,8 +83,11 @@ public class Timers
         void time(Object... args);
     }
 
-    private final MultiMap<Long, Timer> timers = new MultiMap<>();
-    private final Supplier<Long>        clock;
+    private final TimerWheel<Timer> timers;
+    private final Supplier<Long>    clock;
+
+    //  The timers expired at once, reused from an execution to another.
+    private final List<Timer> expired = new ArrayList<>();
 
     public Timers()
     {
@@ -98,6 +103,7 @@ public class Timers
     public Timers(Supplier<Long> clock)
     {
         this.clock = clock;
+        this.timers = new TimerWheel<>(now());
     }
 
     private long now()
@@ -107,7 +113,8 @@ public class Timers
 
     private boolean insert(Timer timer)
     {
-        return timers.insert(now() + timer.interval, timer);
+        timers.schedule(timer.node, now() + timer.interval);
+        return true;
     }
 
     /**
@@ -131,7 +138,6 @@ public class Timers
 
     /**
      * Changes the interval of the timer.
-     * This method is slow, canceling existing and adding a new timer yield better performance.
      * @param timer the timer to change the interval to.
      * @return true if set, otherwise false.
      * @deprecated use {@link Timer#setInterval(long)} instead
@@ -145,7 +151,6 @@ public class Timers
 
     /**
      * Reset the timer.
-     * This method is slow, canceling existing and adding a new timer yield better performance.
      * @param timer the timer to reset.
      * @return true if reset, otherwise false.
      * @deprecated use {@link Timer#reset()} instead
@@ -176,26 +181,11 @@ public class Timers
      */
     public long timeout()
     {
-        long now = now();
-        for (Entry<Timer, Long> entry : entries()) {
-            Timer timer = entry.getKey();
-            Long expiration = entry.getValue();
-
-            if (timer.alive) {
-                //  Live timer, lets return the timeout
-                if (expiration - now > 0) {
-                    return expiration - now;
-                }
-                else {
-                    return 0;
-                }
-            }
-
-            //  Remove it from the list of active timers.
-            timers.remove(expiration, timer);
+        if (timers.isEmpty()) {
+            //  Wait forever as no timers are alive
+            return -1;
         }
-        //  Wait forever as no timers are alive
-        return -1;
+        return Math.max(0, timers.nextExpiration() - now());
     }
 
     /**
@@ -204,34 +194,31 @@ public class Timers
      */
     public int execute()
     {
-        int executed = 0;
         long now = now();
-        for (Entry<Timer, Long> entry : entries()) {
-            Timer timer = entry.getKey();
-            Long expiration = entry.getValue();
-
-            //  Dead timer, lets remove it and continue
-            if (!timer.alive) {
-                //  Remove it from the list of active timers.
-                timers.remove(expiration, timer);
+        //  Collect the expired timers first, so that the ones rescheduled
+        //  by a handler in the past are executed at the next call only.
+        TimerWheel.Timer<Timer> node;
+        while ((node = timers.expire(now)) != null) {
+            expired.add(node.payload());
+        }
+        int executed = 0;
+        for (Timer timer : expired) {
+            //  A previous handler may have cancelled or rescheduled it.
+            if (!timer.alive || timer.node.isScheduled()) {
                 continue;
             }
-            //  Map is ordered, if we have to wait for current timer we can stop.
-            if (expiration - now > 0) {
-                break;
-            }
-
             insert(timer);
 
             timer.handler.time(timer.args);
             ++executed;
         }
+        expired.clear();
         return executed;
     }
 
-    Iterable<Entry<Timer, Long>> entries()
+    int size()
     {
-        return timers.entries();
+        return timers.size();
     }
 
     public int sleepAndExecute()
@@ -11,6 +11,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Arrays;
 
 import org.junit.After;
@@ -278,6 +279,27 @@ public class TestZMQ
         router.close();
     }
 
+    @Test(timeout = 5000)
+    public void testContextParking()
+    {
+        assertThat(ctx.isParking(), is(false));
+        assertThat(ctx.setParking(true), is(true));
+        assertThat(ctx.isParking(), is(true));
+
+        Socket rep = ctx.socket(SocketType.REP);
+        Socket req = ctx.socket(SocketType.REQ);
+        rep.bind("inproc://parking");
+        req.connect("inproc://parking");
+
+        assertThat(req.send("ping"), is(true));
+        assertThat(rep.recvStr(), is("ping"));
+        assertThat(rep.send("pong"), is(true));
+        assertThat(req.recvStr(), is("pong"));
+
+        req.close();
+        rep.close();
+    }
+
     @Test(timeout = 1000)
     public void testSocketDoubleClose()
     {
@@ -349,6 +371,126 @@ public class TestZMQ
         socket.close();
     }
 
+    @Test
+    public void testSocketMsgSlicing()
+    {
+        final Socket socket = ctx.socket(SocketType.PULL);
+        assertThat(socket, notNullValue());
+        assertThat(socket.isMsgSlicing(), is(false));
+
+        boolean set = socket.setMsgSlicing(true);
+        assertThat(set, is(true));
+        assertThat(socket.isMsgSlicing(), is(true));
+
+        socket.close();
+    }
+
+    @Test
+    public void testSocketMaxCommandDelay()
+    {
+        final Socket socket = ctx.socket(SocketType.PUSH);
+        assertThat(socket, notNullValue());
+        assertThat(socket.getMaxCommandDelay(), is(1000));
+
+        boolean set = socket.setMaxCommandDelay(250);
+        assertThat(set, is(true));
+        assertThat(socket.getMaxCommandDelay(), is(250));
+
+        set = socket.setMaxCommandDelay(Duration.ofMillis(3));
+        assertThat(set, is(true));
+        assertThat(socket.getMaxCommandDelay(), is(3000));
+
+        socket.close();
+    }
+
+    @Test
+    public void testSocketBatchSizes()
+    {
+        final Socket socket = ctx.socket(SocketType.DEALER);
+        assertThat(socket, notNullValue());
+        assertThat(socket.getInBatchSize(), is(8192));
+        assertThat(socket.getOutBatchSize(), is(8192));
+        assertThat(socket.getAdaptiveBatch(), is(0));
+
+        assertThat(socket.setInBatchSize(1024), is(true));
+        assertThat(socket.setOutBatchSize(2048), is(true));
+        assertThat(socket.setAdaptiveBatch(65536), is(true));
+        assertThat(socket.getInBatchSize(), is(1024));
+        assertThat(socket.getOutBatchSize(), is(2048));
+        assertThat(socket.getAdaptiveBatch(), is(65536));
+
+        socket.close();
+    }
+
+    @Test
+    public void testSocketCoalesceInterval()
+    {
+        final Socket socket = ctx.socket(SocketType.PUSH);
+        assertThat(socket, notNullValue());
+        assertThat(socket.getCoalesceInterval(), is(0));
+
+        assertThat(socket.setCoalesceInterval(5), is(true));
+        assertThat(socket.getCoalesceInterval(), is(5));
+
+        assertThat(socket.setCoalesceInterval(Duration.ofMillis(20)), is(true));
+        assertThat(socket.getCoalesceInterval(), is(20));
+
+        socket.close();
+    }
+
+    @Test(timeout = 5000)
+    public void testSendRecvBatch()
+    {
+        final Socket pull = ctx.socket(SocketType.PULL);
+        pull.bind("inproc://batch");
+        final Socket push = ctx.socket(SocketType.PUSH);
+        push.connect("inproc://batch");
+
+        zmq.Msg[] msgs = new zmq.Msg[50];
+        for (int idx = 0; idx < msgs.length; ++idx) {
+            msgs[idx] = new zmq.Msg(("msg" + idx).getBytes(ZMQ.CHARSET));
+        }
+        assertThat(push.sendBatch(msgs, 0), is(50));
+        assertThat(push.sendBatch(Arrays.asList(msgs).subList(0, 10), 0), is(10));
+
+        zmq.Msg[] received = new zmq.Msg[100];
+        assertThat(pull.recvBatch(received, received.length, 0), is(60));
+        assertThat(new String(received[59].data(), ZMQ.CHARSET), is("msg9"));
+        assertThat(pull.recvBatch(received, received.length, ZMQ.DONTWAIT), is(-1));
+        assertThat(pull.errno(), is(ZError.EAGAIN));
+
+        push.close();
+        pull.close();
+    }
+
+    @Test
+    public void testSlicedMessagesTcp()
+    {
+        final Socket pull = ctx.socket(SocketType.PULL);
+        pull.setMsgSlicing(true);
+        int port = pull.bindToRandomPort("tcp://127.0.0.1");
+
+        final Socket push = ctx.socket(SocketType.PUSH);
+        push.connect("tcp://127.0.0.1:" + port);
+
+        byte[] large = new byte[100000];
+        large[large.length - 1] = 'x';
+        for (int idx = 0; idx < 100; ++idx) {
+            push.send("message " + idx);
+        }
+        push.send(large);
+
+        for (int idx = 0; idx < 100; ++idx) {
+            assertThat(pull.recvStr(), is("message " + idx));
+        }
+        byte[] received = pull.recv();
+        assertThat(received.length, is(large.length));
+        assertThat(received[large.length - 1], is((byte) 'x'));
+
+        push.close();
+        pull.close();
+    }
+
     @Test
     public void testSocketConnectRid()
     {
@@ -414,6 +414,37 @@ public class TestZPoller
         }
     }
 
+    @Test(timeout = 5000)
+    public void testUnregisterBetweenPolls()
+    {
+        ZContext ctx = new ZContext();
+        try (ctx; ZPoller poller = new ZPoller(ctx)) {
+            Socket push = ctx.createSocket(SocketType.PUSH);
+            Socket pull = ctx.createSocket(SocketType.PULL);
+            push.bind("inproc://zpoller-unregister");
+            pull.connect("inproc://zpoller-unregister");
+            push.send("hello");
+
+            poller.register(pull, ZPoller.IN);
+            int rc = poller.poll(-1);
+            assertThat(rc, is(1));
+            assertThat(poller.isReadable(pull), is(true));
+
+            // the socket is not polled anymore
+            poller.unregister(pull);
+            rc = poller.poll(10);
+            assertThat(rc, is(0));
+
+            // and polled again once registered
+            poller.register(pull, ZPoller.IN);
+            poller.register(push, ZPoller.OUT);
+            rc = poller.poll(-1);
+            assertThat(rc, is(2));
+            assertThat(poller.isReadable(pull), is(true));
+            assertThat(poller.isWritable(push), is(true));
+        }
+    }
+
     @SafeVarargs
     private Pipe pipe(ZPoller poller, BiFunction<SelectableChannel, Integer, Boolean> errors,
                       BiFunction<SelectableChannel, Integer, Boolean>... ins)
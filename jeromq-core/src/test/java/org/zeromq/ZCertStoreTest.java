@@ -3,6 +3,8 @@ package org.zeromq;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -132,4 +134,59 @@ class ZCertStoreTest
         assertEquals(2, certStore.getCertificatesCount());
         assertFalse(certStore.checkForChanges());
     }
+
+    @Test
+    void testWatchCertificates() throws IOException
+    {
+        try (ZCertStore watching = new ZCertStore(certStoreLocation, new ZCertStore.Timestamper(),
+                                                  Duration.ofMillis(10), Duration.ofMillis(500))) {
+            assertEquals(0, watching.getCertificatesCount());
+
+            ZCert c1 = new ZCert();
+            Path p1 = certStoreLocation.resolve("c1.cert");
+            c1.savePublic(p1);
+            awaitUntil(() -> watching.containsPublicKey(c1.getPublicKeyAsZ85()));
+
+            ZCert c2 = new ZCert();
+            Path p2 = certStoreLocation.resolve("sub").resolve("c2.cert");
+            Files.createDirectory(p2.getParent());
+            c2.savePublic(p2);
+            awaitUntil(() -> watching.containsPublicKey(c2.getPublicKey()));
+            assertEquals(2, watching.getCertificatesCount());
+
+            Files.delete(p1);
+            awaitUntil(() -> !watching.containsPublicKey(c1.getPublicKeyAsZ85()));
+            assertEquals(1, watching.getCertificatesCount());
+            assertTrue(watching.containsPublicKey(c2.getPublicKeyAsZ85()));
+        }
+    }
+
+    @Test
+    void testWatchedLookupsDoNotScan() throws IOException
+    {
+        try (ZCertStore watching = new ZCertStore(certStoreLocation, new ZCertStore.Timestamper(),
+                                                  Duration.ofMillis(10), Duration.ZERO)) {
+            ZCert c1 = new ZCert();
+            Path p1 = certStoreLocation.resolve("c1.cert");
+            c1.savePublic(p1);
+            awaitUntil(() -> watching.getCertificatesCount() == 1);
+
+            watching.close();
+            Files.delete(p1);
+
+            //  Without the watcher, the index stays as it was.
+            zmq.ZMQ.msleep(100);
+            assertTrue(watching.containsPublicKey(c1.getPublicKeyAsZ85()));
+            assertEquals(1, watching.getCertificatesCount());
+        }
+    }
+
+    private void awaitUntil(BooleanSupplier condition)
+    {
+        long end = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < end, "timeout");
+            zmq.ZMQ.msleep(10);
+        }
+    }
 }
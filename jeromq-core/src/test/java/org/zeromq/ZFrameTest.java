@@ -4,12 +4,15 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 import org.junit.Assert;
 import org.junit.Test;
 import org.zeromq.ZMQ.Socket;
 
+import zmq.msg.MsgAllocatorPooled;
+
 public class ZFrameTest
 {
     @Test
@@ -171,4 +174,28 @@ public class ZFrameTest
             Assert.assertEquals(false, rc);
         }
     }
+
+    @Test
+    public void testReceivedMessageIsReleased()
+    {
+        MsgAllocatorPooled allocator = new MsgAllocatorPooled();
+        zmq.Msg msg = allocator.allocate(100);
+        byte[] array = msg.buf().array();
+        msg.put((byte) 42);
+
+        try (ZContext ctx = new ZContext();
+             Socket output = ctx.createSocket(SocketType.PAIR);
+             Socket input = ctx.createSocket(SocketType.PAIR)) {
+            output.bind("inproc://zframe.release");
+            input.connect("inproc://zframe.release");
+
+            assertThat(output.base().send(msg, 0), is(true));
+            ZFrame frame = ZFrame.recvFrame(input);
+            assertThat(frame.size(), is(100));
+            assertThat(frame.getData()[0], is((byte) 42));
+
+            // the buffer went back to the pool
+            assertThat(allocator.allocate(100).buf().array(), sameInstance(array));
+        }
+    }
 }
@@ -217,52 +217,42 @@ public class ZTicketTest
     @Test
     public void testCancelledTimerIsRemoved()
     {
-        ArrayList<Ticket> list = new ArrayList<>();
-        tickets = new ZTicket(time::get, list);
-
         ZTicket.Ticket ticket100 = tickets.add(100, handler, invoked);
         ZTicket.Ticket ticket1000 = tickets.add(1000, handler, invoked);
         ZTicket.Ticket ticket10 = tickets.add(10, handler, invoked);
 
         long timeout = tickets.timeout();
-        // timeout sorted the tickets, by order of execution
+        // timeout is given by the first ticket to be executed
         assertThat(timeout, is(10L));
-        assertThat(list.get(0), is(ticket10));
-        assertThat(list.get(1), is(ticket100));
-        assertThat(list.get(2), is(ticket1000));
+        assertThat(tickets.size(), is(3));
 
         ticket10.cancel();
-        // cancel did not touch the order
-        assertThat(list.get(0), is(ticket10));
-        assertThat(list.get(1), is(ticket100));
-        assertThat(list.get(2), is(ticket1000));
-
+        // cancel removed the ticket
+        assertThat(tickets.size(), is(2));
         timeout = tickets.timeout();
-        // timeout resorted the tickets by order of execution
         assertThat(timeout, is(100L));
-        assertThat(list.get(0), is(ticket100));
-        assertThat(list.get(1), is(ticket1000));
-        assertThat(list.get(2), is(ticket10));
 
         int rc = tickets.execute();
-        // execute deleted the cancelled tickets
         assertThat(rc, is(0));
-        assertThat(list.size(), is(2));
-        assertThat(list.get(0), is(ticket100));
-        assertThat(list.get(1), is(ticket1000));
+        assertThat(tickets.size(), is(2));
 
         ticket10 = tickets.add(10, handler, invoked);
-        assertThat(list.get(0), is(ticket100));
-        assertThat(list.get(1), is(ticket1000));
-        assertThat(list.get(2), is(ticket10));
+        assertThat(tickets.size(), is(3));
         ticket10.cancel();
 
         rc = tickets.execute();
-        // execute deleted the cancelled tickets
         assertThat(rc, is(0));
-        assertThat(list.size(), is(2));
-        assertThat(list.get(0), is(ticket100));
-        assertThat(list.get(1), is(ticket1000));
+        assertThat(tickets.size(), is(2));
+
+        time.set(100);
+        rc = tickets.execute();
+        // execute removed the executed ticket
+        assertThat(rc, is(1));
+        assertThat(tickets.size(), is(1));
+        assertThat(tickets.timeout(), is(900L));
+        assertThat(ticket100.cancel(), is(false));
+        assertThat(ticket1000.cancel(), is(true));
+        assertThat(tickets.timeout(), is(-1L));
     }
 
     @Test
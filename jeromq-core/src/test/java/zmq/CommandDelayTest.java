@@ -0,0 +1,122 @@
+package zmq;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.time.Duration;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CommandDelayTest
+{
+    private Ctx        ctx;
+    private SocketBase push;
+    private SocketBase pull;
+
+    @Before
+    public void setUp()
+    {
+        ctx = ZMQ.createContext();
+        push = ZMQ.socket(ctx, ZMQ.ZMQ_PUSH);
+        pull = ZMQ.socket(ctx, ZMQ.ZMQ_PULL);
+        ZMQ.setSocketOption(push, ZMQ.ZMQ_SNDHWM, 10);
+        ZMQ.setSocketOption(pull, ZMQ.ZMQ_RCVHWM, 10);
+    }
+
+    @After
+    public void tearDown()
+    {
+        ZMQ.close(push);
+        ZMQ.close(pull);
+        ZMQ.term(ctx);
+    }
+
+    @Test
+    public void testOption()
+    {
+        assertThat(ZMQ.getSocketOption(push, ZMQ.ZMQ_MAX_COMMAND_DELAY), is(ZMQ.DEFAULT_MAX_COMMAND_DELAY));
+
+        ZMQ.setSocketOption(push, ZMQ.ZMQ_MAX_COMMAND_DELAY, 250);
+        assertThat(ZMQ.getSocketOption(push, ZMQ.ZMQ_MAX_COMMAND_DELAY), is(250));
+
+        ZMQ.setSocketOption(push, ZMQ.ZMQ_MAX_COMMAND_DELAY, Duration.ofMillis(2));
+        assertThat(ZMQ.getSocketOption(push, ZMQ.ZMQ_MAX_COMMAND_DELAY), is(2000));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeDelay()
+    {
+        ZMQ.setSocketOption(push, ZMQ.ZMQ_MAX_COMMAND_DELAY, -1);
+    }
+
+    @Test(timeout = 5000)
+    public void testCommandsDelayedWhileSending()
+    {
+        //  Long enough to not be reached during the test
+        ZMQ.setSocketOption(push, ZMQ.ZMQ_MAX_COMMAND_DELAY, Duration.ofSeconds(60));
+        fillThenDrain();
+
+        //  The reader reactivated the pipe, but the command is not processed yet
+        int sent = ZMQ.send(push, "late", ZMQ.ZMQ_DONTWAIT);
+        assertThat(sent, is(-1));
+
+        //  Polling processes the commands
+        assertThat(ZMQ.getSocketOption(push, ZMQ.ZMQ_EVENTS) & ZMQ.ZMQ_POLLOUT, is(ZMQ.ZMQ_POLLOUT));
+        sent = ZMQ.send(push, "late", ZMQ.ZMQ_DONTWAIT);
+        assertThat(sent, is(4));
+    }
+
+    @Test(timeout = 5000)
+    public void testCommandsProcessedWithoutDelay()
+    {
+        ZMQ.setSocketOption(push, ZMQ.ZMQ_MAX_COMMAND_DELAY, 0);
+        fillThenDrain();
+
+        int sent = ZMQ.send(push, "late", ZMQ.ZMQ_DONTWAIT);
+        assertThat(sent, is(4));
+    }
+
+    @Test(timeout = 5000)
+    public void testTerminationNotDelayed() throws InterruptedException
+    {
+        Ctx ctx = ZMQ.createContext();
+        SocketBase push = ZMQ.socket(ctx, ZMQ.ZMQ_PUSH);
+        //  Long enough to not be reached during the test
+        ZMQ.setSocketOption(push, ZMQ.ZMQ_MAX_COMMAND_DELAY, Duration.ofSeconds(60));
+        ZMQ.setSocketOption(push, ZMQ.ZMQ_LINGER, 0);
+        //  Without peer, the sends fail after processing the commands
+        assertThat(ZMQ.send(push, "msg", ZMQ.ZMQ_DONTWAIT), is(-1));
+        assertThat(push.errno(), is(ZError.EAGAIN));
+
+        Thread terminator = new Thread(() -> ZMQ.term(ctx));
+        terminator.start();
+
+        //  The sends see the termination instead of waiting for the delay
+        int errno = 0;
+        while (errno != ZError.ETERM) {
+            assertThat(ZMQ.send(push, "msg", ZMQ.ZMQ_DONTWAIT), is(-1));
+            errno = push.errno();
+        }
+
+        ZMQ.close(push);
+        terminator.join();
+    }
+
+    private void fillThenDrain()
+    {
+        assertThat(ZMQ.bind(pull, "inproc://delay"), is(true));
+        assertThat(ZMQ.connect(push, "inproc://delay"), is(true));
+
+        int count = 0;
+        while (ZMQ.send(push, "msg", ZMQ.ZMQ_DONTWAIT) == 3) {
+            ++count;
+        }
+        assertThat(count > 0, is(true));
+        for (int idx = 0; idx < count; ++idx) {
+            assertThat(ZMQ.recv(pull, 0), notNullValue());
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package zmq;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import zmq.io.mechanism.curve.Curve;
+
+public class CryptoThreadsTest
+{
+    private Ctx ctx;
+
+    @Before
+    public void setUp()
+    {
+        ctx = ZMQ.createContext();
+    }
+
+    @After
+    public void tearDown()
+    {
+        ZMQ.term(ctx);
+    }
+
+    @Test
+    public void testOption()
+    {
+        assertThat(ctx.get(ZMQ.ZMQ_CRYPTO_THREADS), is(0));
+        assertThat(ctx.set(ZMQ.ZMQ_CRYPTO_THREADS, 2), is(true));
+        assertThat(ctx.get(ZMQ.ZMQ_CRYPTO_THREADS), is(2));
+        assertThat(ctx.set(ZMQ.ZMQ_CRYPTO_THREADS, -1), is(false));
+    }
+
+    @Test(timeout = 30000)
+    public void testMessagesKeepTheirOrder()
+    {
+        assertThat(ctx.set(ZMQ.ZMQ_CRYPTO_THREADS, 2), is(true));
+
+        Curve cryptoBox = new Curve();
+        String[] serverKeys = cryptoBox.keypairZ85();
+        String[] clientKeys = cryptoBox.keypairZ85();
+
+        SocketBase server = ZMQ.socket(ctx, ZMQ.ZMQ_DEALER);
+        assertThat(server, notNullValue());
+        ZMQ.setSocketOption(server, ZMQ.ZMQ_CURVE_SERVER, true);
+        ZMQ.setSocketOption(server, ZMQ.ZMQ_CURVE_SECRETKEY, serverKeys[1]);
+        ZMQ.setSocketOption(server, ZMQ.ZMQ_HEARTBEAT_IVL, 10);
+        ZMQ.setSocketOption(server, ZMQ.ZMQ_HEARTBEAT_TIMEOUT, 10000);
+        ZMQ.setSocketOption(server, ZMQ.ZMQ_LINGER, 0);
+        assertThat(ZMQ.bind(server, "tcp://127.0.0.1:*"), is(true));
+        String host = (String) ZMQ.getSocketOptionExt(server, ZMQ.ZMQ_LAST_ENDPOINT);
+
+        SocketBase client = ZMQ.socket(ctx, ZMQ.ZMQ_DEALER);
+        assertThat(client, notNullValue());
+        ZMQ.setSocketOption(client, ZMQ.ZMQ_CURVE_SERVERKEY, serverKeys[0]);
+        ZMQ.setSocketOption(client, ZMQ.ZMQ_CURVE_PUBLICKEY, clientKeys[0]);
+        ZMQ.setSocketOption(client, ZMQ.ZMQ_CURVE_SECRETKEY, clientKeys[1]);
+        ZMQ.setSocketOption(client, ZMQ.ZMQ_HEARTBEAT_IVL, 10);
+        ZMQ.setSocketOption(client, ZMQ.ZMQ_HEARTBEAT_TIMEOUT, 10000);
+        ZMQ.setSocketOption(client, ZMQ.ZMQ_LINGER, 0);
+        assertThat(ZMQ.connect(client, host), is(true));
+
+        //  Windows of messages sent one way, then echoed back, so that both
+        //  directions have many messages in the crypto threads at once.
+        int window = 500;
+        int sequence = 0;
+        for (int round = 0; round < 20; ++round) {
+            for (int i = 0; i < window; ++i) {
+                send(client, sequence + i);
+            }
+            for (int i = 0; i < window; ++i) {
+                Msg header = ZMQ.recv(server, 0);
+                Msg body = ZMQ.recv(server, 0);
+                check(header, body, sequence + i);
+                ZMQ.send(server, header, ZMQ.ZMQ_SNDMORE);
+                ZMQ.send(server, body, 0);
+            }
+            for (int i = 0; i < window; ++i) {
+                check(ZMQ.recv(client, 0), ZMQ.recv(client, 0), sequence + i);
+            }
+            sequence += window;
+        }
+        assertThat(Thread.getAllStackTraces().keySet().stream().anyMatch(t -> t.getName().startsWith("crypto-")),
+                   is(true));
+
+        ZMQ.close(client);
+        ZMQ.close(server);
+    }
+
+    private void send(SocketBase socket, int sequence)
+    {
+        byte[] body = new byte[sequence % 2000];
+        Arrays.fill(body, (byte) sequence);
+        ZMQ.send(socket, Integer.toString(sequence), ZMQ.ZMQ_SNDMORE);
+        ZMQ.send(socket, body, body.length, 0);
+    }
+
+    private void check(Msg header, Msg body, int sequence)
+    {
+        assertThat(header.hasMore(), is(true));
+        assertThat(new String(header.data(), ZMQ.CHARSET), is(Integer.toString(sequence)));
+        assertThat(body.hasMore(), is(false));
+        assertThat(body.size(), is(sequence % 2000));
+        byte[] expected = new byte[sequence % 2000];
+        Arrays.fill(expected, (byte) sequence);
+        assertThat(body.data(), is(expected));
+    }
+}
@@ -0,0 +1,184 @@
+package zmq;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import zmq.io.IOThread;
+import zmq.io.IOThreadLoad;
+import zmq.io.StreamEngine;
+
+public class IoThreadsLoadTest
+{
+    private Ctx ctx;
+
+    @Before
+    public void setUp()
+    {
+        ctx = ZMQ.createContext();
+        assertThat(ctx.set(ZMQ.ZMQ_IO_THREADS, 2), is(true));
+    }
+
+    @After
+    public void tearDown()
+    {
+        ZMQ.term(ctx);
+    }
+
+    @Test(timeout = 10000)
+    public void testLoadReport()
+    {
+        SocketBase push = ZMQ.socket(ctx, ZMQ.ZMQ_PUSH);
+        SocketBase pull = ZMQ.socket(ctx, ZMQ.ZMQ_PULL);
+        assertThat(ZMQ.bind(pull, "tcp://127.0.0.1:*"), is(true));
+        String endpoint = (String) ZMQ.getSocketOptionExt(pull, ZMQ.ZMQ_LAST_ENDPOINT);
+        assertThat(ZMQ.connect(push, endpoint), is(true));
+
+        byte[] data = new byte[100];
+        for (int idx = 0; idx < 1000; ++idx) {
+            assertThat(ZMQ.send(push, data, data.length, 0), is(100));
+        }
+        for (int idx = 0; idx < 1000; ++idx) {
+            assertThat(ZMQ.recv(pull, 0).size(), is(100));
+        }
+
+        List<IOThreadLoad> loads = ctx.getIoThreadsLoad();
+        assertThat(loads.size(), is(2));
+        int engines = 0;
+        long msgsIn = 0;
+        long msgsOut = 0;
+        long bytesIn = 0;
+        long bytesOut = 0;
+        long busyTime = 0;
+        for (IOThreadLoad load : loads) {
+            assertThat(load.getName(), notNullValue());
+            assertThat(load.getUtilization() >= 0 && load.getUtilization() <= 1, is(true));
+            engines += load.getEngines();
+            msgsIn += load.getMsgsIn();
+            msgsOut += load.getMsgsOut();
+            bytesIn += load.getBytesIn();
+            bytesOut += load.getBytesOut();
+            busyTime += load.getBusyTime();
+        }
+        assertThat(engines, is(2));
+        assertThat(msgsIn >= 1000, is(true));
+        assertThat(msgsOut >= 1000, is(true));
+        assertThat(bytesIn >= 100 * 1000, is(true));
+        assertThat(bytesOut, is(bytesIn));
+        assertThat(busyTime > 0, is(true));
+
+        ZMQ.close(push);
+        ZMQ.close(pull);
+    }
+
+    @Test(timeout = 20000)
+    public void testMigration() throws InterruptedException
+    {
+        SocketBase router = ZMQ.socket(ctx, ZMQ.ZMQ_ROUTER);
+        SocketBase dealer = ZMQ.socket(ctx, ZMQ.ZMQ_DEALER);
+        //  Both engines start in the first thread
+        ZMQ.setSocketOption(router, ZMQ.ZMQ_AFFINITY, 1L);
+        ZMQ.setSocketOption(dealer, ZMQ.ZMQ_AFFINITY, 1L);
+        ZMQ.setSocketOption(dealer, ZMQ.ZMQ_HEARTBEAT_IVL, 50);
+        ZMQ.setSocketOption(dealer, ZMQ.ZMQ_HEARTBEAT_TIMEOUT, 500);
+        assertThat(ZMQ.bind(router, "tcp://127.0.0.1:*"), is(true));
+        String endpoint = (String) ZMQ.getSocketOptionExt(router, ZMQ.ZMQ_LAST_ENDPOINT);
+        assertThat(ZMQ.connect(dealer, endpoint), is(true));
+
+        roundtrips(router, dealer, 10);
+
+        IOThread first = ctx.chooseIoThread(1L);
+        IOThread second = ctx.chooseIoThread(2L);
+        assertThat(first.getEngines().size(), is(2));
+
+        move(first, second, 2);
+        roundtrips(router, dealer, 100);
+
+        //  Moves again, from a thread the sessions don't belong to
+        move(second, first, 2);
+        roundtrips(router, dealer, 100);
+
+        //  The heartbeats go on in the new thread
+        Thread.sleep(1000);
+        assertThat(first.getEngines().size(), is(2));
+        roundtrips(router, dealer, 10);
+
+        ZMQ.close(dealer);
+        ZMQ.close(router);
+    }
+
+    @Test(timeout = 30000)
+    public void testPeriodicRebalance() throws InterruptedException
+    {
+        assertThat(ctx.set(ZMQ.ZMQ_REBALANCE_IVL, 200), is(true));
+        assertThat(ctx.get(ZMQ.ZMQ_REBALANCE_IVL), is(200));
+
+        SocketBase pull = ZMQ.socket(ctx, ZMQ.ZMQ_PULL);
+        SocketBase push = ZMQ.socket(ctx, ZMQ.ZMQ_PUSH);
+        assertThat(ZMQ.bind(pull, "tcp://127.0.0.1:*"), is(true));
+        String endpoint = (String) ZMQ.getSocketOptionExt(pull, ZMQ.ZMQ_LAST_ENDPOINT);
+        assertThat(ZMQ.connect(push, endpoint), is(true));
+        assertThat(ZMQ.send(push, "hello", 0), is(5));
+        assertThat(ZMQ.recv(pull, 0).size(), is(5));
+
+        //  Both engines run in the first thread
+        IOThread first = ctx.chooseIoThread(1L);
+        IOThread second = ctx.chooseIoThread(2L);
+        move(second, first, first.getEngines().size() + second.getEngines().size());
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread sender = new Thread(() -> {
+            byte[] data = new byte[64];
+            while (running.get()) {
+                ZMQ.send(push, data, data.length, 0);
+            }
+            ZMQ.send(push, "end", 0);
+        });
+        sender.start();
+
+        //  One of the engines of the busy thread moves to the idle one
+        while (second.getEngines().isEmpty()) {
+            assertThat(ZMQ.recv(pull, 0), notNullValue());
+        }
+        running.set(false);
+        Msg msg;
+        do {
+            msg = ZMQ.recv(pull, 0);
+        } while (msg.size() != 3);
+        sender.join();
+
+        ZMQ.close(push);
+        ZMQ.close(pull);
+    }
+
+    private void move(IOThread source, IOThread target, int engines) throws InterruptedException
+    {
+        for (StreamEngine engine : source.getEngines()) {
+            assertThat(source.migrate(engine, target), is(true));
+        }
+        while (target.getEngines().size() < engines) {
+            Thread.sleep(10);
+        }
+        assertThat(source.getEngines().isEmpty(), is(true));
+    }
+
+    private void roundtrips(SocketBase router, SocketBase dealer, int count)
+    {
+        for (int idx = 0; idx < count; ++idx) {
+            assertThat(ZMQ.send(dealer, "request", 0), is(7));
+            Msg identity = ZMQ.recv(router, 0);
+            assertThat(identity, notNullValue());
+            assertThat(ZMQ.recv(router, 0).size(), is(7));
+            assertThat(ZMQ.send(router, identity, ZMQ.ZMQ_SNDMORE), is(identity.size()));
+            assertThat(ZMQ.send(router, "reply", 0), is(5));
+            assertThat(ZMQ.recv(dealer, 0).size(), is(5));
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package zmq;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MailboxSafeTest
+{
+    private Ctx           ctx;
+    private ReentrantLock sync;
+    private MailboxSafe   mailbox;
+
+    @Before
+    public void setUp()
+    {
+        ctx = ZMQ.createContext();
+        sync = new ReentrantLock();
+        mailbox = new MailboxSafe(ctx, sync, "test");
+    }
+
+    @After
+    public void tearDown()
+    {
+        mailbox.close();
+        ZMQ.term(ctx);
+    }
+
+    @Test
+    public void testSendRecv()
+    {
+        Command first = new Command(null, Command.Type.STOP);
+        Command second = new Command(null, Command.Type.PLUG);
+        mailbox.send(first);
+        mailbox.send(second);
+
+        assertThat(mailbox.recv(0), sameInstance(first));
+        assertThat(mailbox.recv(0), sameInstance(second));
+        assertThat(mailbox.recv(0), nullValue());
+        assertThat(ctx.errno().get(), is(ZError.EAGAIN));
+    }
+
+    @Test
+    public void testTimeout()
+    {
+        long start = System.currentTimeMillis();
+        assertThat(mailbox.recv(100), nullValue());
+        assertThat(ctx.errno().get(), is(ZError.EAGAIN));
+        assertThat(System.currentTimeMillis() - start >= 90, is(true));
+    }
+
+    @Test
+    public void testSignalersRaisedOnceUntilDrained() throws IOException
+    {
+        Signaler signaler = new Signaler(ctx, -1, ctx.errno());
+        mailbox.addSignaler(signaler);
+        try {
+            Command cmd = new Command(null, Command.Type.STOP);
+            for (int idx = 0; idx < 10; ++idx) {
+                mailbox.send(cmd);
+            }
+            assertThat(signaler.waitEvent(1000), is(true));
+            signaler.recv();
+            assertThat(signaler.waitEvent(0), is(false));
+
+            while (mailbox.recv(0) != null) {
+                //  Drain the mailbox
+            }
+            mailbox.send(cmd);
+            assertThat(signaler.waitEvent(1000), is(true));
+            signaler.recv();
+        }
+        finally {
+            mailbox.removeSignaler(signaler);
+            signaler.close();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testLockReleasedWhileWaiting() throws InterruptedException
+    {
+        CountDownLatch locked = new CountDownLatch(1);
+        Thread sender = new Thread(() -> {
+            //  The receiver waits with the lock held
+            sync.lock();
+            try {
+                locked.countDown();
+                mailbox.send(new Command(null, Command.Type.STOP));
+            }
+            finally {
+                sync.unlock();
+            }
+        });
+
+        sync.lock();
+        try {
+            sender.start();
+            assertThat(locked.await(10, TimeUnit.MILLISECONDS), is(false));
+            assertThat(mailbox.recv(-1), notNullValue());
+            assertThat(sync.isHeldByCurrentThread(), is(true));
+        }
+        finally {
+            sync.unlock();
+        }
+        sender.join();
+    }
+
+    @Test(timeout = 10000)
+    public void testWaiterReturnsWhenCommandTakenByOther() throws InterruptedException
+    {
+        AtomicReference<Command> received = new AtomicReference<>();
+        AtomicInteger errno = new AtomicInteger();
+        Thread waiter = new Thread(() -> {
+            sync.lock();
+            try {
+                received.set(mailbox.recv(-1));
+                errno.set(ctx.errno().get());
+            }
+            finally {
+                sync.unlock();
+            }
+        });
+        waiter.start();
+        //  Wait for the other thread to park, with the lock released
+        while (waiter.getState() != Thread.State.WAITING) {
+            Thread.sleep(10);
+        }
+
+        Command cmd = new Command(null, Command.Type.STOP);
+        sync.lock();
+        try {
+            mailbox.send(cmd);
+            assertThat(mailbox.recv(0), sameInstance(cmd));
+        }
+        finally {
+            sync.unlock();
+        }
+
+        //  The waiter is woken up to check its condition again
+        waiter.join();
+        assertThat(received.get(), nullValue());
+        assertThat(errno.get(), is(ZError.EAGAIN));
+    }
+
+    @Test(timeout = 10000)
+    public void testManyWriters() throws InterruptedException
+    {
+        final int writers = 4;
+        final int count = 10000;
+        List<Thread> threads = new ArrayList<>();
+        for (int idx = 0; idx < writers; ++idx) {
+            Thread thread = new Thread(() -> {
+                for (int sent = 0; sent < count; ++sent) {
+                    mailbox.send(new Command(null, Command.Type.ACTIVATE_READ));
+                    if (sent % 100 == 0) {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        //  Every command is received, no wake-up is lost
+        sync.lock();
+        try {
+            for (int received = 0; received < writers * count; ++received) {
+                assertThat(mailbox.recv(-1), notNullValue());
+            }
+        }
+        finally {
+            sync.unlock();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(mailbox.recv(0), nullValue());
+    }
+}
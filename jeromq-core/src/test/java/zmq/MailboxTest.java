@@ -0,0 +1,152 @@
+package zmq;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MailboxTest
+{
+    private Ctx     ctx;
+    private Mailbox mailbox;
+
+    @Before
+    public void setUp()
+    {
+        ctx = ZMQ.createContext();
+        mailbox = new Mailbox(ctx, "test", -1);
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        mailbox.close();
+        ZMQ.term(ctx);
+    }
+
+    @Test
+    public void testSignalsAreCoalesced() throws IOException
+    {
+        for (int idx = 0; idx < 100; ++idx) {
+            mailbox.send(new Command(null, Command.Type.STOP));
+        }
+        //  Only the first command wrote to the signaler
+        assertThat(pendingSignals(), is(1));
+    }
+
+    @Test
+    public void testDrainThenSignalAgain() throws IOException
+    {
+        Command cmd = new Command(null, Command.Type.STOP);
+        for (int idx = 0; idx < 3; ++idx) {
+            mailbox.send(cmd);
+        }
+        for (int idx = 0; idx < 3; ++idx) {
+            assertThat(mailbox.recv(0), sameInstance(cmd));
+        }
+        assertThat(mailbox.recv(0), nullValue());
+
+        //  The pipe was drained, so the next command raises a new signal
+        mailbox.send(cmd);
+        assertThat(mailbox.recv(0), sameInstance(cmd));
+        assertThat(mailbox.recv(0), nullValue());
+        assertThat(pendingSignals(), is(0));
+    }
+
+    @Test
+    public void testTimeout()
+    {
+        long start = System.currentTimeMillis();
+        assertThat(mailbox.recv(100), nullValue());
+        assertThat(ctx.errno().get(), is(ZError.EAGAIN));
+        assertThat(System.currentTimeMillis() - start >= 90, is(true));
+    }
+
+    @Test(timeout = 10000)
+    public void testManyWriters() throws InterruptedException
+    {
+        final int writers = 4;
+        final int count = 10000;
+        List<Thread> threads = new ArrayList<>();
+        for (int idx = 0; idx < writers; ++idx) {
+            Thread thread = new Thread(() -> {
+                for (int sent = 0; sent < count; ++sent) {
+                    mailbox.send(new Command(null, Command.Type.ACTIVATE_READ));
+                    if (sent % 100 == 0) {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        //  Every command is received, no wake-up is lost
+        for (int received = 0; received < writers * count; ++received) {
+            assertThat(mailbox.recv(-1), notNullValue());
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(mailbox.recv(0), nullValue());
+    }
+
+    @Test(timeout = 5000)
+    public void testWakeUpWithoutSignaler() throws InterruptedException
+    {
+        Command cmd = new Command(null, Command.Type.STOP);
+        Thread sender = new Thread(() -> {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+            mailbox.send(cmd);
+        });
+        sender.start();
+        //  Parked until the command arrives
+        assertThat(mailbox.recv(-1), sameInstance(cmd));
+        sender.join();
+        assertThat(mailbox.recv(0), nullValue());
+        assertThat(ctx.errno().get(), is(ZError.EAGAIN));
+    }
+
+    @Test(timeout = 5000)
+    public void testInterruptedWithoutSignaler()
+    {
+        Thread.currentThread().interrupt();
+        assertThat(mailbox.recv(-1), nullValue());
+        assertThat(ctx.errno().get(), is(ZError.EINTR));
+        assertThat(Thread.interrupted(), is(false));
+    }
+
+    @Test(timeout = 5000)
+    public void testSignalerCreatedWhileWaiting() throws InterruptedException
+    {
+        Command cmd = new Command(null, Command.Type.STOP);
+        Thread poller = new Thread(() -> {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+            //  The waiting reader switches to the signaler
+            assertThat(mailbox.getFd(), notNullValue());
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+            mailbox.send(cmd);
+        });
+        poller.start();
+        assertThat(mailbox.recv(-1), sameInstance(cmd));
+        poller.join();
+    }
+
+    private int pendingSignals() throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(128);
+        return ((Pipe.SourceChannel) mailbox.getFd()).read(buffer);
+    }
+}
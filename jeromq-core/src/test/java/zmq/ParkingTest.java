@@ -0,0 +1,217 @@
+package zmq;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.IOException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import zmq.poll.PollItem;
+
+public class ParkingTest
+{
+    private Ctx ctx;
+
+    @Before
+    public void setUp()
+    {
+        ctx = ZMQ.createContext();
+        assertThat(ctx.set(ZMQ.ZMQ_PARKING, 1), is(true));
+    }
+
+    @After
+    public void tearDown()
+    {
+        ZMQ.term(ctx);
+    }
+
+    @Test
+    public void testOption()
+    {
+        assertThat(ctx.get(ZMQ.ZMQ_PARKING), is(1));
+        SocketBase parked = ZMQ.socket(ctx, ZMQ.ZMQ_REQ);
+        assertThat(parked.getMailbox(), instanceOf(MailboxSafe.class));
+
+        assertThat(ctx.set(ZMQ.ZMQ_PARKING, 0), is(true));
+        assertThat(ctx.get(ZMQ.ZMQ_PARKING), is(0));
+        SocketBase selecting = ZMQ.socket(ctx, ZMQ.ZMQ_REQ);
+        assertThat(selecting.getMailbox(), instanceOf(Mailbox.class));
+
+        ZMQ.close(parked);
+        ZMQ.close(selecting);
+    }
+
+    @Test(timeout = 5000)
+    public void testReceiveTimeout()
+    {
+        SocketBase pull = ZMQ.socket(ctx, ZMQ.ZMQ_PULL);
+        assertThat(ZMQ.bind(pull, "inproc://parking-timeout"), is(true));
+        ZMQ.setSocketOption(pull, ZMQ.ZMQ_RCVTIMEO, 100);
+
+        long start = System.currentTimeMillis();
+        assertThat(ZMQ.recv(pull, 0), nullValue());
+        assertThat(pull.errno(), is(ZError.EAGAIN));
+        assertThat(System.currentTimeMillis() - start >= 90, is(true));
+        ZMQ.close(pull);
+    }
+
+    @Test(timeout = 5000)
+    public void testInterruptedWhileParked() throws InterruptedException
+    {
+        SocketBase pull = ZMQ.socket(ctx, ZMQ.ZMQ_PULL);
+        assertThat(ZMQ.bind(pull, "inproc://parking-interrupt"), is(true));
+
+        AtomicInteger errno = new AtomicInteger();
+        Thread receiver = new Thread(() -> {
+            assertThat(ZMQ.recv(pull, 0), nullValue());
+            errno.set(pull.errno());
+        });
+        receiver.start();
+        Thread.sleep(100);
+        receiver.interrupt();
+        receiver.join();
+
+        assertThat(errno.get(), is(ZError.EINTR));
+        ZMQ.close(pull);
+    }
+
+    @Test(timeout = 20000)
+    public void testManyBlockedClientsInproc() throws InterruptedException
+    {
+        assertManyBlockedClients("inproc://parking-clients");
+    }
+
+    @Test(timeout = 20000)
+    public void testManyBlockedClientsTcp() throws InterruptedException
+    {
+        assertManyBlockedClients("tcp://127.0.0.1:*");
+    }
+
+    private void assertManyBlockedClients(String address) throws InterruptedException
+    {
+        final int clients = 50;
+        final int requests = 10;
+
+        SocketBase router = ZMQ.socket(ctx, ZMQ.ZMQ_ROUTER);
+        assertThat(ZMQ.bind(router, address), is(true));
+        String endpoint = (String) ZMQ.getSocketOptionExt(router, ZMQ.ZMQ_LAST_ENDPOINT);
+
+        CountDownLatch done = new CountDownLatch(clients);
+        AtomicInteger replies = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int idx = 0; idx < clients; ++idx) {
+            Thread thread = new Thread(() -> {
+                SocketBase req = ZMQ.socket(ctx, ZMQ.ZMQ_REQ);
+                try {
+                    assertThat(ZMQ.connect(req, endpoint), is(true));
+                    for (int count = 0; count < requests; ++count) {
+                        assertThat(ZMQ.send(req, "request", 0), is(7));
+                        //  Parked until the reply arrives
+                        Msg reply = ZMQ.recv(req, 0);
+                        assertThat(reply, notNullValue());
+                        assertThat(reply.size(), is(5));
+                        replies.incrementAndGet();
+                    }
+                }
+                finally {
+                    ZMQ.close(req);
+                    done.countDown();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        //  Echo server replying to each request
+        for (int count = 0; count < clients * requests; ++count) {
+            Msg identity = ZMQ.recv(router, 0);
+            Msg delimiter = ZMQ.recv(router, 0);
+            Msg request = ZMQ.recv(router, 0);
+            assertThat(request.size(), is(7));
+            ZMQ.send(router, identity, ZMQ.ZMQ_SNDMORE);
+            ZMQ.send(router, delimiter, ZMQ.ZMQ_SNDMORE);
+            ZMQ.send(router, "reply", 0);
+        }
+
+        done.await();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(replies.get(), is(clients * requests));
+        ZMQ.close(router);
+    }
+
+    @Test(timeout = 5000)
+    public void testPoll() throws IOException
+    {
+        SocketBase push = ZMQ.socket(ctx, ZMQ.ZMQ_PUSH);
+        SocketBase pull = ZMQ.socket(ctx, ZMQ.ZMQ_PULL);
+        assertThat(ZMQ.bind(pull, "inproc://parking-poll"), is(true));
+        assertThat(ZMQ.connect(push, "inproc://parking-poll"), is(true));
+
+        Selector selector = ctx.createSelector();
+        try {
+            PollItem[] items = { new PollItem(pull, ZMQ.ZMQ_POLLIN) };
+            assertThat(ZMQ.poll(selector, items, 0), is(0));
+
+            for (int idx = 0; idx < 5; ++idx) {
+                assertThat(ZMQ.send(push, "hello", 0), is(5));
+                assertThat(ZMQ.poll(selector, items, -1), is(1));
+                assertThat(items[0].isReadable(), is(true));
+                assertThat(ZMQ.recv(pull, 0).size(), is(5));
+            }
+            assertThat(ZMQ.poll(selector, items, 10), is(0));
+        }
+        finally {
+            ctx.closeSelector(selector);
+            ZMQ.close(push);
+            ZMQ.close(pull);
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testFileDescriptorDrained() throws IOException
+    {
+        SocketBase push = ZMQ.socket(ctx, ZMQ.ZMQ_PUSH);
+        SocketBase pull = ZMQ.socket(ctx, ZMQ.ZMQ_PULL);
+        assertThat(ZMQ.bind(pull, "inproc://parking-fd"), is(true));
+        assertThat(ZMQ.connect(push, "inproc://parking-fd"), is(true));
+
+        SelectableChannel fd = (SelectableChannel) ZMQ.getSocketOptionExt(pull, ZMQ.ZMQ_FD);
+        assertThat(fd, notNullValue());
+        assertThat(pull.getFD(), is(fd));
+
+        Selector selector = Selector.open();
+        try {
+            fd.register(selector, SelectionKey.OP_READ);
+            //  Raised for the commands that could have been there before
+            assertThat(selector.select(1000), is(1));
+            selector.selectedKeys().clear();
+
+            assertThat(ZMQ.send(push, "hello", 0), is(5));
+            assertThat(ZMQ.recv(pull, 0).size(), is(5));
+            assertThat(ZMQ.getSocketOption(pull, ZMQ.ZMQ_EVENTS), is(0));
+
+            //  The signals are consumed once the mailbox is found empty
+            assertThat(selector.selectNow(), is(0));
+        }
+        finally {
+            selector.close();
+            ZMQ.close(push);
+            ZMQ.close(pull);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package zmq;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SendRecvBatchTest
+{
+    private Ctx        ctx;
+    private SocketBase push;
+    private SocketBase pull;
+
+    @Before
+    public void setUp()
+    {
+        ctx = ZMQ.createContext();
+        push = ZMQ.socket(ctx, ZMQ.ZMQ_PUSH);
+        pull = ZMQ.socket(ctx, ZMQ.ZMQ_PULL);
+    }
+
+    @After
+    public void tearDown()
+    {
+        ZMQ.close(push);
+        ZMQ.close(pull);
+        ZMQ.term(ctx);
+    }
+
+    @Test(timeout = 5000)
+    public void testBatchInproc()
+    {
+        connect("inproc://batch");
+
+        Msg[] msgs = messages(100);
+        assertThat(push.sendBatch(msgs, msgs.length, 0), is(100));
+
+        Msg[] received = new Msg[40];
+        int total = 0;
+        while (total < 100) {
+            int count = pull.recvBatch(received, received.length, 0);
+            assertThat(count > 0, is(true));
+            for (int idx = 0; idx < count; ++idx) {
+                assertThat(new String(received[idx].data(), ZMQ.CHARSET), is("msg" + (total + idx)));
+            }
+            total += count;
+        }
+        assertThat(pull.recvBatch(received, received.length, ZMQ.ZMQ_DONTWAIT), is(-1));
+        assertThat(pull.errno(), is(ZError.EAGAIN));
+    }
+
+    @Test(timeout = 5000)
+    public void testMultipartBatch()
+    {
+        connect("inproc://batch");
+
+        List<Msg> msgs = new ArrayList<>();
+        for (int idx = 0; idx < 10; ++idx) {
+            Msg part = new Msg("part".getBytes(ZMQ.CHARSET));
+            part.setFlags(Msg.MORE);
+            msgs.add(part);
+            msgs.add(new Msg("last".getBytes(ZMQ.CHARSET)));
+        }
+        assertThat(push.sendBatch(msgs, 0), is(20));
+
+        for (int idx = 0; idx < 10; ++idx) {
+            Msg msg = ZMQ.recv(pull, 0);
+            assertThat(msg.hasMore(), is(true));
+            assertThat(ZMQ.getSocketOption(pull, ZMQ.ZMQ_RCVMORE), is(1));
+            msg = ZMQ.recv(pull, 0);
+            assertThat(msg.hasMore(), is(false));
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testNonBlockingBatchStopsAtHwm()
+    {
+        ZMQ.setSocketOption(push, ZMQ.ZMQ_SNDHWM, 10);
+        ZMQ.setSocketOption(pull, ZMQ.ZMQ_RCVHWM, 10);
+        connect("inproc://batch");
+
+        Msg[] msgs = messages(100);
+        int sent = push.sendBatch(msgs, msgs.length, ZMQ.ZMQ_DONTWAIT);
+        assertThat(sent > 0 && sent < 100, is(true));
+        assertThat(push.errno(), is(ZError.EAGAIN));
+
+        Msg[] received = new Msg[100];
+        assertThat(pull.recvBatch(received, received.length, 0), is(sent));
+    }
+
+    @Test(timeout = 10000)
+    public void testBlockingBatchLargerThanHwm() throws InterruptedException
+    {
+        ZMQ.setSocketOption(push, ZMQ.ZMQ_SNDHWM, 10);
+        ZMQ.setSocketOption(pull, ZMQ.ZMQ_RCVHWM, 10);
+        connect("tcp://127.0.0.1:*");
+
+        final int count = 10000;
+        AtomicInteger received = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            Msg[] msgs = new Msg[64];
+            while (received.get() < count) {
+                int rc = pull.recvBatch(msgs, msgs.length, 0);
+                assertThat(rc > 0, is(true));
+                received.addAndGet(rc);
+            }
+        });
+        reader.start();
+
+        //  The messages batched so far are flushed when the pipe is full
+        assertThat(push.sendBatch(messages(count), count, 0), is(count));
+        reader.join();
+        assertThat(received.get(), is(count));
+    }
+
+    @Test(timeout = 5000)
+    public void testSendTimeout()
+    {
+        ZMQ.setSocketOption(push, ZMQ.ZMQ_SNDTIMEO, 100);
+
+        //  No peer
+        Msg[] msgs = messages(10);
+        assertThat(push.sendBatch(msgs, msgs.length, 0), is(-1));
+        assertThat(push.errno(), is(ZError.EAGAIN));
+    }
+
+    private void connect(String addr)
+    {
+        assertThat(ZMQ.bind(pull, addr), is(true));
+        String endpoint = (String) ZMQ.getSocketOptionExt(pull, ZMQ.ZMQ_LAST_ENDPOINT);
+        assertThat(ZMQ.connect(push, endpoint), is(true));
+    }
+
+    private Msg[] messages(int count)
+    {
+        Msg[] msgs = new Msg[count];
+        for (int idx = 0; idx < count; ++idx) {
+            msgs[idx] = new Msg(("msg" + idx).getBytes(ZMQ.CHARSET));
+        }
+        return msgs;
+    }
+}
@@ -1,5 +1,7 @@
 package zmq;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.junit.Test;
 
 import zmq.util.Utils;
@@ -236,4 +238,42 @@ public class TestClientServer
         ZMQ.close(server);
         ZMQ.term(context);
     }
+
+    @Test(timeout = 10000)
+    public void testSendWhileReceiving() throws Exception
+    {
+        String address = "inproc://client-server-concurrent";
+
+        Ctx context = ZMQ.createContext();
+        SocketBase server = ZMQ.socket(context, ZMQ.ZMQ_SERVER);
+        boolean rc = ZMQ.bind(server, address);
+        assertThat(rc, is(true));
+        SocketBase client = ZMQ.socket(context, ZMQ.ZMQ_CLIENT);
+        rc = ZMQ.connect(client, address);
+        assertThat(rc, is(true));
+
+        // The client waits for a reply in another thread
+        AtomicReference<Msg> reply = new AtomicReference<>();
+        Thread receiver = new Thread(() -> reply.set(ZMQ.recv(client, 0)));
+        receiver.start();
+        Thread.sleep(100);
+
+        // The blocked receiver does not prevent the client from sending
+        int size = ZMQ.send(client, new Msg("X".getBytes()), 0);
+        assertThat(size, is(1));
+
+        Msg msg = ZMQ.recv(server, 0);
+        assertThat(new String(msg.data()), is("X"));
+        Msg answer = new Msg("HELLO".getBytes());
+        answer.setRoutingId(msg.getRoutingId());
+        size = ZMQ.send(server, answer, 0);
+        assertThat(size, is(5));
+
+        receiver.join();
+        assertThat(new String(reply.get().data()), is("HELLO"));
+
+        ZMQ.close(client);
+        ZMQ.close(server);
+        ZMQ.term(context);
+    }
 }
@@ -1,7 +1,10 @@
 package zmq;
 
+import java.nio.ByteBuffer;
+
 import org.junit.Test;
 
+import zmq.msg.RefCounted;
 import zmq.util.Utils;
 
 import static org.hamcrest.CoreMatchers.is;
@@ -101,4 +104,153 @@ public class TestRadioDish
         ZMQ.close(radio);
         ZMQ.term(context);
     }
+
+    @Test(timeout = 10000)
+    public void testUdpUnicast() throws Exception
+    {
+        int port = Utils.findOpenPort();
+        assertUdp("udp://*:" + port, "udp://127.0.0.1:" + port);
+    }
+
+    @Test(timeout = 10000)
+    public void testUdpMulticast() throws Exception
+    {
+        int port = Utils.findOpenPort();
+        assertUdp("udp://127.0.0.1;239.0.0.1:" + port, "udp://127.0.0.1;239.0.0.1:" + port);
+    }
+
+    @Test(timeout = 10000)
+    public void testUdpReceiveHighWaterMark() throws Exception
+    {
+        int port = Utils.findOpenPort();
+        Ctx context = ZMQ.createContext();
+
+        SocketBase dish = ZMQ.socket(context, ZMQ.ZMQ_DISH);
+        assertThat(ZMQ.setSocketOption(dish, ZMQ.ZMQ_RCVHWM, 5), is(true));
+        assertThat(dish.join("Movies"), is(true));
+        assertThat(ZMQ.bind(dish, "udp://*:" + port), is(true));
+
+        SocketBase radio = ZMQ.socket(context, ZMQ.ZMQ_RADIO);
+        assertThat(ZMQ.setSocketOption(radio, ZMQ.ZMQ_SNDHWM, 1000), is(true));
+        assertThat(ZMQ.connect(radio, "udp://127.0.0.1:" + port), is(true));
+
+        ZMQ.msleep(100);
+
+        //  Many more datagrams than the pipe holds, but few enough for the socket buffer
+        int count = 100;
+        for (int idx = 0; idx < count; ++idx) {
+            Msg msg = new Msg(Integer.toString(idx).getBytes());
+            msg.setGroup("Movies");
+            assertThat(radio.send(msg, 0), is(true));
+        }
+        ZMQ.msleep(200);
+
+        //  None was dropped while the pipe was full
+        for (int idx = 0; idx < count; ++idx) {
+            Msg msg = dish.recv(0);
+            assertThat(msg.getGroup(), is("Movies"));
+            assertThat(new String(msg.data()), is(Integer.toString(idx)));
+        }
+
+        ZMQ.close(dish);
+        ZMQ.close(radio);
+        ZMQ.term(context);
+    }
+
+    @Test(timeout = 10000)
+    public void testUdpReleasesSentMessages() throws Exception
+    {
+        int port = Utils.findOpenPort();
+        Ctx context = ZMQ.createContext();
+
+        SocketBase dish = ZMQ.socket(context, ZMQ.ZMQ_DISH);
+        assertThat(dish.join("Movies"), is(true));
+        assertThat(ZMQ.bind(dish, "udp://*:" + port), is(true));
+
+        SocketBase radio = ZMQ.socket(context, ZMQ.ZMQ_RADIO);
+        assertThat(ZMQ.connect(radio, "udp://127.0.0.1:" + port), is(true));
+
+        ZMQ.msleep(100);
+
+        RefCounted content = new RefCounted()
+        {
+            @Override
+            protected void deallocate()
+            {
+            }
+        };
+        Msg msg = new Msg(ByteBuffer.wrap("Godfather".getBytes()), content);
+        msg.setGroup("Movies");
+        assertThat(radio.send(msg, 0), is(true));
+
+        msg = dish.recv(0);
+        assertThat(new String(msg.data()), is("Godfather"));
+
+        //  Copied in the datagram, the message was given back to its owner
+        assertThat(content.refs(), is(0));
+
+        ZMQ.close(dish);
+        ZMQ.close(radio);
+        ZMQ.term(context);
+    }
+
+    @Test
+    public void testUdpIncompatibleSocket()
+    {
+        Ctx context = ZMQ.createContext();
+        SocketBase pub = ZMQ.socket(context, ZMQ.ZMQ_PUB);
+        assertThat(ZMQ.connect(pub, "udp://127.0.0.1:5555"), is(false));
+        assertThat(pub.errno(), is(ZError.ENOCOMPATPROTO));
+        ZMQ.close(pub);
+        ZMQ.term(context);
+    }
+
+    private void assertUdp(String dishAddress, String radioAddress)
+    {
+        Ctx context = ZMQ.createContext();
+
+        SocketBase dish = ZMQ.socket(context, ZMQ.ZMQ_DISH);
+        assertThat(dish.join("Movies"), is(true));
+        assertThat(ZMQ.bind(dish, dishAddress), is(true));
+
+        SocketBase radio = ZMQ.socket(context, ZMQ.ZMQ_RADIO);
+        assertThat(ZMQ.connect(radio, radioAddress), is(true));
+
+        ZMQ.msleep(100);
+
+        //  All the groups are sent, the dish filters them
+        Msg msg = new Msg("Friends".getBytes());
+        msg.setGroup("TV");
+        assertThat(radio.send(msg, 0), is(true));
+
+        msg = new Msg("Godfather".getBytes());
+        msg.setGroup("Movies");
+        assertThat(radio.send(msg, 0), is(true));
+
+        msg = dish.recv(0);
+        assertThat(msg.getGroup(), is("Movies"));
+        assertThat(new String(msg.data()), is("Godfather"));
+
+        assertThat(dish.join("TV"), is(true));
+        msg = new Msg("Friends".getBytes());
+        msg.setGroup("TV");
+        assertThat(radio.send(msg, 0), is(true));
+
+        msg = dish.recv(0);
+        assertThat(msg.getGroup(), is("TV"));
+        assertThat(new String(msg.data()), is("Friends"));
+
+        //  Empty body
+        msg = new Msg();
+        msg.setGroup("TV");
+        assertThat(radio.send(msg, 0), is(true));
+
+        msg = dish.recv(0);
+        assertThat(msg.getGroup(), is("TV"));
+        assertThat(msg.size(), is(0));
+
+        ZMQ.close(dish);
+        ZMQ.close(radio);
+        ZMQ.term(context);
+    }
 }
@@ -2,8 +2,11 @@ package zmq.io;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 
+import java.time.Duration;
+
 import org.junit.Test;
 
 import zmq.Config;
@@ -53,6 +56,165 @@ public class StreamEngineTest
         ZMQ.term(ctx);
     }
 
+    @Test
+    public void testSmallBatches()
+    {
+        Ctx ctx = ZMQ.createContext();
+        SocketBase sender = ZMQ.socket(ctx, ZMQ.ZMQ_PUSH);
+        SocketBase receiver = ZMQ.socket(ctx, ZMQ.ZMQ_PULL);
+        assertThat(ZMQ.setSocketOption(sender, ZMQ.ZMQ_OUT_BATCH_SIZE, 64), is(true));
+        assertThat(ZMQ.setSocketOption(receiver, ZMQ.ZMQ_IN_BATCH_SIZE, 64), is(true));
+        assertThat(ZMQ.getSocketOption(sender, ZMQ.ZMQ_OUT_BATCH_SIZE), is(64));
+        assertThat(ZMQ.getSocketOption(receiver, ZMQ.ZMQ_IN_BATCH_SIZE), is(64));
+
+        connect(sender, receiver);
+        exchange(sender, receiver, msg(10), msg(63), msg(64), msg(1000));
+
+        ZMQ.close(receiver);
+        ZMQ.close(sender);
+        ZMQ.term(ctx);
+    }
+
+    @Test
+    public void testAdaptiveBatches()
+    {
+        Ctx ctx = ZMQ.createContext();
+        SocketBase sender = ZMQ.socket(ctx, ZMQ.ZMQ_PUSH);
+        SocketBase receiver = ZMQ.socket(ctx, ZMQ.ZMQ_PULL);
+        for (SocketBase socket : new SocketBase[] { sender, receiver }) {
+            assertThat(ZMQ.setSocketOption(socket, ZMQ.ZMQ_IN_BATCH_SIZE, 256), is(true));
+            assertThat(ZMQ.setSocketOption(socket, ZMQ.ZMQ_OUT_BATCH_SIZE, 256), is(true));
+            assertThat(ZMQ.setSocketOption(socket, ZMQ.ZMQ_ADAPTIVE_BATCH, 65536), is(true));
+            assertThat(ZMQ.getSocketOption(socket, ZMQ.ZMQ_ADAPTIVE_BATCH), is(65536));
+        }
+        assertThat(ZMQ.setSocketOption(receiver, ZMQ.ZMQ_MSG_SLICING, true), is(true));
+
+        connect(sender, receiver);
+        //  Enough small messages for the batches to grow
+        for (int idx = 0; idx < 10; ++idx) {
+            exchange(sender, receiver, msg(10), msg(100), msg(300), msg(5000));
+        }
+
+        ZMQ.close(receiver);
+        ZMQ.close(sender);
+        ZMQ.term(ctx);
+    }
+
+    @Test
+    public void testCoalescedUntilTimer()
+    {
+        Ctx ctx = ZMQ.createContext();
+        SocketBase sender = ZMQ.socket(ctx, ZMQ.ZMQ_PUSH);
+        SocketBase receiver = ZMQ.socket(ctx, ZMQ.ZMQ_PULL);
+        assertThat(ZMQ.setSocketOption(sender, ZMQ.ZMQ_COALESCE_IVL, Duration.ofMillis(200)), is(true));
+        assertThat(ZMQ.getSocketOption(sender, ZMQ.ZMQ_COALESCE_IVL), is(200));
+        assertThat(ZMQ.setSocketOption(receiver, ZMQ.ZMQ_RCVTIMEO, 1000), is(true));
+
+        connect(sender, receiver);
+        assertThat(ZMQ.send(sender, msg(10), 0), is(10));
+        assertThat(ZMQ.recv(receiver, 0).data(), is(msg(10)));
+
+        assertThat(ZMQ.send(sender, msg(20), 0), is(20));
+        //  The message waits for the timer
+        assertThat(ZMQ.setSocketOption(receiver, ZMQ.ZMQ_RCVTIMEO, 50), is(true));
+        assertThat(ZMQ.recv(receiver, 0), nullValue());
+        assertThat(ZMQ.setSocketOption(receiver, ZMQ.ZMQ_RCVTIMEO, 1000), is(true));
+        assertThat(ZMQ.recv(receiver, 0).data(), is(msg(20)));
+
+        ZMQ.close(receiver);
+        ZMQ.close(sender);
+        ZMQ.term(ctx);
+    }
+
+    @Test
+    public void testCoalescedUntilBatchFull()
+    {
+        Ctx ctx = ZMQ.createContext();
+        SocketBase sender = ZMQ.socket(ctx, ZMQ.ZMQ_PUSH);
+        SocketBase receiver = ZMQ.socket(ctx, ZMQ.ZMQ_PULL);
+        //  Longer than the test
+        assertThat(ZMQ.setSocketOption(sender, ZMQ.ZMQ_COALESCE_IVL, 60000), is(true));
+        assertThat(ZMQ.setSocketOption(sender, ZMQ.ZMQ_OUT_BATCH_SIZE, 256), is(true));
+        //  The last messages wait for the timer, do not let them hold the termination
+        assertThat(ZMQ.setSocketOption(sender, ZMQ.ZMQ_LINGER, 0), is(true));
+        assertThat(ZMQ.setSocketOption(receiver, ZMQ.ZMQ_RCVTIMEO, 5000), is(true));
+
+        connect(sender, receiver);
+
+        //  Written once they fill the batch
+        for (int idx = 0; idx < 100; ++idx) {
+            assertThat(ZMQ.send(sender, msg(idx), 0), is(idx));
+        }
+        for (int idx = 0; idx < 50; ++idx) {
+            Msg received = ZMQ.recv(receiver, 0);
+            assertThat(received, notNullValue());
+            assertThat(received.data(), is(msg(idx)));
+        }
+
+        ZMQ.close(receiver);
+        ZMQ.close(sender);
+        ZMQ.term(ctx);
+    }
+
+    @Test(timeout = 5000)
+    public void testCoalescedUntilAdaptiveBatchFull()
+    {
+        Ctx ctx = ZMQ.createContext();
+        SocketBase sender = ZMQ.socket(ctx, ZMQ.ZMQ_PUSH);
+        SocketBase receiver = ZMQ.socket(ctx, ZMQ.ZMQ_PULL);
+        //  Longer than the test
+        assertThat(ZMQ.setSocketOption(sender, ZMQ.ZMQ_COALESCE_IVL, 60000), is(true));
+        assertThat(ZMQ.setSocketOption(sender, ZMQ.ZMQ_OUT_BATCH_SIZE, 256), is(true));
+        assertThat(ZMQ.setSocketOption(sender, ZMQ.ZMQ_ADAPTIVE_BATCH, 4096), is(true));
+        //  The last messages wait for the timer, do not let them hold the termination
+        assertThat(ZMQ.setSocketOption(sender, ZMQ.ZMQ_LINGER, 0), is(true));
+        assertThat(ZMQ.setSocketOption(receiver, ZMQ.ZMQ_RCVTIMEO, 2000), is(true));
+
+        connect(sender, receiver);
+        //  Waits for the handshake, so that the messages are sent on an idle connection
+        ZMQ.msleep(100);
+
+        //  The batch is written once filled, although it grows at the same time
+        Msg[] msgs = new Msg[100];
+        for (int idx = 0; idx < msgs.length; ++idx) {
+            msgs[idx] = new Msg(msg(16));
+        }
+        assertThat(sender.sendBatch(msgs, msgs.length, 0), is(msgs.length));
+        Msg received = ZMQ.recv(receiver, 0);
+        assertThat(received, notNullValue());
+        assertThat(received.data(), is(msg(16)));
+
+        ZMQ.close(receiver);
+        ZMQ.close(sender);
+        ZMQ.term(ctx);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBatchSize()
+    {
+        Ctx ctx = ZMQ.createContext();
+        SocketBase socket = ZMQ.socket(ctx, ZMQ.ZMQ_PUSH);
+        try {
+            ZMQ.setSocketOption(socket, ZMQ.ZMQ_IN_BATCH_SIZE, 0);
+        }
+        finally {
+            ZMQ.close(socket);
+            ZMQ.term(ctx);
+        }
+    }
+
+    private void connect(SocketBase sender, SocketBase receiver)
+    {
+        boolean rc = ZMQ.bind(receiver, "tcp://localhost:*");
+        assertThat(rc, is(true));
+
+        String addr = (String) ZMQ.getSocketOptionExt(receiver, ZMQ.ZMQ_LAST_ENDPOINT);
+        assertThat(addr, notNullValue());
+
+        rc = ZMQ.connect(sender, addr);
+        assertThat(rc, is(true));
+    }
+
     private byte[] msg(int length)
     {
         byte[] msg = new byte[length];
@@ -0,0 +1,180 @@
+package zmq.io.coder;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+
+import org.junit.Test;
+
+import zmq.Msg;
+import zmq.ZMQ;
+import zmq.io.coder.v2.V2Encoder;
+import zmq.msg.MsgAllocatorPooled;
+import zmq.util.Errno;
+
+public class BufferVectorTest
+{
+    //  A channel accepting a limited number of bytes per write.
+    private static class GatheringChannel implements GatheringByteChannel
+    {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final int                   limit;
+        private int                         calls;
+
+        GatheringChannel(int limit)
+        {
+            this.limit = limit;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length)
+        {
+            calls++;
+            long written = 0;
+            for (int idx = offset; idx < offset + length && written < limit; ++idx) {
+                while (srcs[idx].hasRemaining() && written < limit) {
+                    out.write(srcs[idx].get());
+                    written++;
+                }
+            }
+            return written;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs)
+        {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public int write(ByteBuffer src)
+        {
+            return (int) write(new ByteBuffer[] { src });
+        }
+
+        @Override
+        public boolean isOpen()
+        {
+            return true;
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+
+    private Msg message(int size, char content)
+    {
+        Msg msg = new Msg(size);
+        for (int idx = 0; idx < size; ++idx) {
+            msg.put((byte) content);
+        }
+        return msg;
+    }
+
+    @Test
+    public void testSmallMessagesAreCopied() throws Exception
+    {
+        EncoderBase encoder = new V2Encoder(new Errno(), 64);
+        BufferVector vector = new BufferVector(64);
+
+        encoder.loadMsg(new Msg("hello".getBytes(ZMQ.CHARSET)));
+        assertThat(encoder.encode(vector, 64), is(7));
+        encoder.loadMsg(new Msg("world".getBytes(ZMQ.CHARSET)));
+        assertThat(encoder.encode(vector, 57), is(7));
+        assertThat(vector.available(), is(50));
+
+        GatheringChannel channel = new GatheringChannel(100);
+        assertThat(vector.write(channel), is(14L));
+        assertThat(channel.calls, is(1));
+        assertThat(vector.isEmpty(), is(true));
+        byte[] data = channel.out.toByteArray();
+        assertThat(new String(data, 2, 5, ZMQ.CHARSET), is("hello"));
+        assertThat(new String(data, 9, 5, ZMQ.CHARSET), is("world"));
+    }
+
+    @Test
+    public void testLargeMessagesAreReferenced() throws Exception
+    {
+        EncoderBase encoder = new V2Encoder(new Errno(), 8192);
+        BufferVector vector = new BufferVector(8192);
+
+        encoder.loadMsg(message(2000, 'a'));
+        assertThat(encoder.encode(vector, 8192), is(2009));
+        encoder.loadMsg(message(3000, 'b'));
+        assertThat(encoder.encode(vector, 8192 - 2009), is(3009));
+        //  Only the headers were copied
+        assertThat(vector.available(), is(8192 - 18));
+        assertThat(vector.remaining(), is(5018L));
+
+        //  One call, even if the data is written in several parts
+        GatheringChannel channel = new GatheringChannel(3000);
+        assertThat(vector.write(channel), is(3000L));
+        assertThat(vector.write(channel), is(2018L));
+        assertThat(channel.calls, is(2));
+        assertThat(vector.isEmpty(), is(true));
+
+        byte[] data = channel.out.toByteArray();
+        assertThat(data.length, is(5018));
+        assertThat(data[9], is((byte) 'a'));
+        assertThat(data[2008], is((byte) 'a'));
+        assertThat(data[2018], is((byte) 'b'));
+        assertThat(data[5017], is((byte) 'b'));
+    }
+
+    @Test
+    public void testReferencedMessageReleasedOnceWritten() throws Exception
+    {
+        MsgAllocatorPooled allocator = new MsgAllocatorPooled();
+        EncoderBase encoder = new V2Encoder(new Errno(), 8192);
+        BufferVector vector = new BufferVector(8192);
+
+        Msg msg = allocator.allocate(2000);
+        byte[] array = msg.buf().array();
+        encoder.loadMsg(msg);
+        encoder.encode(vector, 8192);
+        encoder.loadMsg(new Msg("next".getBytes(ZMQ.CHARSET)));
+        encoder.encode(vector, 8192);
+
+        //  Still referenced, the buffer cannot be reused
+        Msg other = allocator.allocate(2000);
+        assertThat(other.buf().array() == array, is(false));
+
+        GatheringChannel channel = new GatheringChannel(1000);
+        vector.write(channel);
+        assertThat(allocator.allocate(2000).buf().array() == array, is(false));
+        vector.write(channel);
+        vector.write(channel);
+        assertThat(vector.isEmpty(), is(true));
+        assertThat(allocator.allocate(2000).buf().array() == array, is(true));
+    }
+
+    @Test
+    public void testBatchFull()
+    {
+        EncoderBase encoder = new V2Encoder(new Errno(), 16);
+        BufferVector vector = new BufferVector(16);
+
+        encoder.loadMsg(message(100, 'a'));
+        assertThat(encoder.encode(vector, 100), is(16));
+        assertThat(vector.available(), is(0));
+        assertThat(encoder.encode(vector, 100), is(0));
+    }
+
+    @Test
+    public void testResize()
+    {
+        EncoderBase encoder = new V2Encoder(new Errno(), 16);
+        BufferVector vector = new BufferVector(16);
+        vector.resize(64);
+        assertThat(vector.capacity(), is(64));
+
+        encoder.loadMsg(message(100, 'a'));
+        assertThat(encoder.encode(vector, 100), is(64));
+        assertThat(vector.available(), is(0));
+    }
+}
@@ -0,0 +1,125 @@
+package zmq.io.coder;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import zmq.Msg;
+import zmq.ZMQ;
+import zmq.io.coder.IDecoder.Step;
+import zmq.io.coder.v2.V2Decoder;
+import zmq.msg.MsgAllocatorThreshold;
+import zmq.util.Errno;
+import zmq.util.ValueReference;
+
+public class V2DecoderSlicingTest extends V2DecoderTest
+{
+    @Before
+    @Override
+    public void setUp()
+    {
+        decoder = new V2Decoder(new Errno(), 64, 512, new MsgAllocatorThreshold(), true);
+    }
+
+    private Msg decode(ByteBuffer in, int size)
+    {
+        ValueReference<Integer> processed = new ValueReference<>(0);
+        Step.Result result = decoder.decode(in, size, processed);
+        assertThat(result, is(Step.Result.DECODED));
+        assertThat(processed.get(), is(size));
+        return decoder.msg();
+    }
+
+    @Test
+    public void testSlices()
+    {
+        ByteBuffer in = decoder.getBuffer();
+        readShortMessage(in);
+        readShortMessage(in);
+        in.flip();
+
+        Msg first = decode(in, 7);
+        Msg second = decode(in, 7);
+        for (Msg msg : new Msg[] { first, second }) {
+            assertThat(msg.isShared(), is(true));
+            assertThat(msg.buf().isReadOnly(), is(true));
+            assertThat(msg.size(), is(5));
+            assertThat(msg.flags(), is(Msg.MORE));
+            assertThat(new String(msg.data(), ZMQ.CHARSET), is("hello"));
+        }
+
+        //  The buffer is still used by the slices
+        ByteBuffer other = decoder.getBuffer();
+        assertThat(other, not(sameInstance(in)));
+        readShortMessage(other);
+        other.flip();
+        Msg third = decode(other, 7);
+
+        //  Both slices of the first buffer are released, it can be reused
+        first.release();
+        second.release();
+        assertThat(decoder.getBuffer(), is(sameInstance(in)));
+        assertThat(new String(third.data(), ZMQ.CHARSET), is("hello"));
+    }
+
+    @Test
+    public void testBufferReusedWhenReleased()
+    {
+        ByteBuffer in = decoder.getBuffer();
+        readShortMessage(in);
+        in.flip();
+        Msg msg = decode(in, 7);
+        msg.release();
+
+        assertThat(decoder.getBuffer(), is(sameInstance(in)));
+    }
+
+    @Test
+    public void testIncompleteBodyNotSliced()
+    {
+        ByteBuffer in = decoder.getBuffer();
+        readShortMessage(in);
+        in.flip();
+
+        ValueReference<Integer> processed = new ValueReference<>(0);
+        Step.Result result = decoder.decode(in, 5, processed);
+        assertThat(result, is(Step.Result.MORE_DATA));
+
+        in = decoder.getBuffer();
+        in.put("lo".getBytes(ZMQ.CHARSET));
+        in.flip();
+        Msg msg = decode(in, 2);
+        assertThat(msg.isShared(), is(false));
+        assertThat(new String(msg.data(), ZMQ.CHARSET), is("hello"));
+    }
+
+    @Test
+    public void testResize()
+    {
+        ByteBuffer in = decoder.getBuffer();
+        readShortMessage(in);
+        in.flip();
+        Msg msg = decode(in, 7);
+
+        //  The slice keeps the previous buffer
+        decoder.resize(128);
+        ByteBuffer larger = decoder.getBuffer();
+        assertThat(larger.capacity(), is(128));
+        readShortMessage(larger);
+        larger.flip();
+        Msg other = decode(larger, 7);
+        assertThat(new String(msg.data(), ZMQ.CHARSET), is("hello"));
+        assertThat(new String(other.data(), ZMQ.CHARSET), is("hello"));
+
+        //  The buffer of the previous size is not reused
+        msg.release();
+        other.release();
+        assertThat(decoder.getBuffer(), is(sameInstance(larger)));
+    }
+}
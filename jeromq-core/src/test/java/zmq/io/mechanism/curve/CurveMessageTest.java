@@ -0,0 +1,143 @@
+package zmq.io.mechanism.curve;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import zmq.Msg;
+import zmq.ZMQ;
+import zmq.util.Wire;
+
+public class CurveMessageTest
+{
+    private Curve        cryptoBox;
+    private byte[]       precom;
+    private CurveMessage client;
+    private CurveMessage server;
+
+    @Before
+    public void setUp()
+    {
+        cryptoBox = new Curve();
+        byte[][] clientKeys = cryptoBox.keypair();
+        byte[][] serverKeys = cryptoBox.keypair();
+
+        precom = new byte[Curve.Size.BEFORENM.bytes()];
+        int rc = cryptoBox.beforenm(precom, serverKeys[0], clientKeys[1]);
+        assertThat(rc, is(0));
+        byte[] serverPrecom = new byte[Curve.Size.BEFORENM.bytes()];
+        rc = cryptoBox.beforenm(serverPrecom, clientKeys[0], serverKeys[1]);
+        assertThat(rc, is(0));
+        assertThat(serverPrecom, is(precom));
+
+        client = new CurveMessage(cryptoBox, "CurveZMQMESSAGEC", "CurveZMQMESSAGES");
+        server = new CurveMessage(cryptoBox, "CurveZMQMESSAGES", "CurveZMQMESSAGEC");
+    }
+
+    @Test
+    public void testRoundTrip()
+    {
+        long nonce = 2;
+        for (int size : new int[] { 0, 1, 33, 1024, 10, CurveMessage.MAX_RETAINED_PLAINTEXT + 1, 200 }) {
+            Msg msg = new Msg(payload(size));
+            msg.setFlags(Msg.MORE);
+
+            Msg encoded = client.encode(msg, nonce, precom);
+            assertThat(encoded.size(), is(16 + 16 + 1 + size));
+            assertThat(encoded.getLong(8), is(nonce));
+
+            Msg decoded = server.decode(encoded, precom);
+            assertThat(decoded, notNullValue());
+            assertThat(decoded.size(), is(size));
+            assertThat(decoded.hasMore(), is(true));
+            assertThat(decoded.isCommand(), is(false));
+            assertThat(decoded.data(), is(payload(size)));
+            nonce++;
+        }
+    }
+
+    @Test
+    public void testCommandFlag()
+    {
+        Msg msg = new Msg(payload(12));
+        msg.setFlags(Msg.COMMAND);
+
+        Msg decoded = client.decode(server.encode(msg, 5, precom), precom);
+        assertThat(decoded, notNullValue());
+        assertThat(decoded.isCommand(), is(true));
+        assertThat(decoded.hasMore(), is(false));
+        assertThat(decoded.data(), is(payload(12)));
+    }
+
+    @Test
+    public void testSameWireFormat()
+    {
+        byte[] data = payload(300);
+        long nonce = 0x0102030405060708L;
+
+        //  The boxing of the messages as it used to be written, one buffer per step
+        ByteBuffer messageNonce = ByteBuffer.allocate(Curve.Size.NONCE.bytes());
+        messageNonce.put("CurveZMQMESSAGEC".getBytes(ZMQ.CHARSET));
+        Wire.putUInt64(messageNonce, nonce);
+        int mlen = Curve.Size.ZERO.bytes() + 1 + data.length;
+        ByteBuffer messagePlaintext = ByteBuffer.allocate(mlen);
+        messagePlaintext.put(Curve.Size.ZERO.bytes(), (byte) 0x01);
+        messagePlaintext.position(Curve.Size.ZERO.bytes() + 1);
+        messagePlaintext.put(data);
+        ByteBuffer messageBox = ByteBuffer.allocate(mlen);
+        int rc = cryptoBox.afternm(messageBox, messagePlaintext, mlen, messageNonce, precom);
+        assertThat(rc, is(0));
+        Msg expected = new Msg(16 + mlen - Curve.Size.BOXZERO.bytes());
+        expected.putShortString("MESSAGE");
+        expected.put(messageNonce, 16, 8);
+        expected.put(messageBox, Curve.Size.BOXZERO.bytes(), mlen - Curve.Size.BOXZERO.bytes());
+
+        Msg msg = new Msg(data);
+        msg.setFlags(Msg.MORE);
+        assertThat(client.encode(msg, nonce, precom).data(), is(expected.data()));
+    }
+
+    @Test
+    public void testDecodeLeavesSharedBufferUntouched()
+    {
+        Msg encoded = client.encode(new Msg(payload(100)), 3, precom);
+
+        //  A message slicing a larger buffer is not owned by the mechanism
+        byte[] array = new byte[encoded.size() + 10];
+        encoded.getBytes(0, array, 10, encoded.size());
+        byte[] copy = array.clone();
+        Msg sliced = new Msg(ByteBuffer.wrap(array, 10, encoded.size()).slice());
+
+        Msg decoded = server.decode(sliced, precom);
+        assertThat(decoded, notNullValue());
+        assertThat(decoded.data(), is(payload(100)));
+        assertThat(array, is(copy));
+    }
+
+    @Test
+    public void testTamperedBox()
+    {
+        Msg encoded = client.encode(new Msg(payload(64)), 4, precom);
+        byte[] data = encoded.data();
+        data[data.length - 1] ^= 1;
+
+        assertThat(server.decode(new Msg(data), precom), nullValue());
+        assertThat(Arrays.equals(data, encoded.data()), is(true));
+    }
+
+    private static byte[] payload(int size)
+    {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; ++i) {
+            data[i] = (byte) i;
+        }
+        return data;
+    }
+}
@@ -0,0 +1,148 @@
+package zmq.io.mechanism.curve;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CurveProviderTest
+{
+    private final CurveProvider jdk   = new JdkCurveProvider();
+    private final CurveProvider jnacl = new JnaclCurveProvider();
+
+    @Test
+    public void testDefaultProvider()
+    {
+        assertThat(jdk.isValid(), is(true));
+        assertThat(Curve.getDefaultProvider(), instanceOf(JdkCurveProvider.class));
+        assertThat(new Curve().provider(), is(Curve.getDefaultProvider()));
+    }
+
+    @Test
+    public void testBuiltinProvider()
+    {
+        //  Used when the service loader finds no provider
+        CurveProvider provider = Curve.builtinProvider();
+        assertThat(provider, instanceOf(JdkCurveProvider.class));
+        assertThat(new Curve(provider).keypair().length, is(2));
+    }
+
+    @Test
+    public void testPrecomputation()
+    {
+        //  The first key of the tests of NaCl
+        byte[] aliceSecret = hex("77076d0a7318a57d3c16c17251b26645df4c2f87ebc0992ab177fba51db92c2a");
+        byte[] bobPublic = hex("de9edb7d7b7dc1b4d35b61c2ece435373f8343c85b78674dadfc7e146f882b4f");
+        byte[] expected = hex("1b27556473e985d462cd51197a9a46c76009549eac6474f206c4ee0844f68389");
+
+        byte[] key = new byte[32];
+        assertThat(jdk.beforenm(key, bobPublic, aliceSecret), is(0));
+        assertThat(key, is(expected));
+        //  Once again from the cache
+        key = new byte[32];
+        assertThat(jdk.beforenm(key, bobPublic, aliceSecret), is(0));
+        assertThat(key, is(expected));
+
+        assertThat(jnacl.beforenm(key, bobPublic, aliceSecret), is(0));
+        assertThat(key, is(expected));
+    }
+
+    @Test
+    public void testSameBoxesAsJnacl()
+    {
+        byte[][] client = new Curve(jdk).keypair();
+        byte[][] server = new Curve(jnacl).keypair();
+        byte[] nonce = new byte[24];
+        Random random = new Random(42);
+
+        for (int size : new int[] { 0, 1, 15, 16, 17, 31, 32, 33, 63, 64, 65, 127, 128, 1000, 70000 }) {
+            byte[] plaintext = new byte[32 + size];
+            byte[] payload = new byte[size];
+            random.nextBytes(payload);
+            random.nextBytes(nonce);
+            System.arraycopy(payload, 0, plaintext, 32, size);
+
+            byte[] expected = new byte[plaintext.length];
+            assertThat(jnacl.box(expected, plaintext, plaintext.length, nonce, server[0], client[1]), is(0));
+            byte[] ciphertext = new byte[plaintext.length];
+            assertThat(jdk.box(ciphertext, plaintext, plaintext.length, nonce, server[0], client[1]), is(0));
+            assertThat("size " + size, ciphertext, is(expected));
+
+            byte[] opened = new byte[plaintext.length];
+            assertThat(jdk.open(opened, expected, expected.length, nonce, client[0], server[1]), is(0));
+            assertThat("size " + size, opened, is(plaintext));
+            Arrays.fill(opened, (byte) 0);
+            assertThat(jnacl.open(opened, ciphertext, ciphertext.length, nonce, client[0], server[1]), is(0));
+            assertThat("size " + size, opened, is(plaintext));
+        }
+    }
+
+    @Test
+    public void testSameSecretBoxesAsJnacl()
+    {
+        byte[] key = new byte[32];
+        byte[] nonce = new byte[24];
+        Random random = new Random(7);
+        random.nextBytes(key);
+        random.nextBytes(nonce);
+
+        for (int size : new int[] { 0, 5, 48, 96, 200 }) {
+            byte[] plaintext = new byte[32 + size];
+            for (int i = 32; i < plaintext.length; ++i) {
+                plaintext[i] = (byte) random.nextInt();
+            }
+            byte[] expected = new byte[plaintext.length];
+            assertThat(jnacl.secretbox(expected, plaintext, plaintext.length, nonce, key), is(0));
+            byte[] ciphertext = new byte[plaintext.length];
+            assertThat(jdk.secretbox(ciphertext, plaintext, plaintext.length, nonce, key), is(0));
+            assertThat(ciphertext, is(expected));
+
+            byte[] opened = new byte[plaintext.length];
+            assertThat(jdk.secretboxOpen(opened, ciphertext, ciphertext.length, nonce, key), is(0));
+            assertThat(opened, is(plaintext));
+        }
+    }
+
+    @Test
+    public void testForgery()
+    {
+        byte[] key = new byte[32];
+        byte[] nonce = new byte[24];
+        byte[] plaintext = new byte[32 + 100];
+        byte[] ciphertext = new byte[plaintext.length];
+        assertThat(jdk.secretbox(ciphertext, plaintext, plaintext.length, nonce, key), is(0));
+
+        byte[] opened = new byte[plaintext.length];
+        for (int index : new int[] { 16, 31, 32, ciphertext.length - 1 }) {
+            byte[] forged = ciphertext.clone();
+            forged[index] ^= 1;
+            assertThat(jdk.secretboxOpen(opened, forged, forged.length, nonce, key), is(not(0)));
+        }
+        byte[] otherNonce = nonce.clone();
+        otherNonce[23] = 1;
+        assertThat(jdk.secretboxOpen(opened, ciphertext, ciphertext.length, otherNonce, key), is(not(0)));
+        assertThat(jdk.secretboxOpen(opened, ciphertext, 31, nonce, key), is(not(0)));
+    }
+
+    @Test
+    public void testSmallOrderPoint()
+    {
+        byte[][] keys = new Curve(jdk).keypair();
+        byte[] key = new byte[32];
+        assertThat(jdk.beforenm(key, new byte[32], keys[1]), is(not(0)));
+    }
+
+    private static byte[] hex(String value)
+    {
+        byte[] bytes = new byte[value.length() / 2];
+        for (int i = 0; i < bytes.length; ++i) {
+            bytes[i] = (byte) Integer.parseInt(value.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+}
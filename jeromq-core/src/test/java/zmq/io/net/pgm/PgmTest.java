@@ -0,0 +1,244 @@
+package zmq.io.net.pgm;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import zmq.Ctx;
+import zmq.Msg;
+import zmq.SocketBase;
+import zmq.ZError;
+import zmq.ZMQ;
+import zmq.util.Utils;
+
+public class PgmTest
+{
+    private Ctx ctx;
+
+    @Before
+    public void setUp()
+    {
+        ctx = ZMQ.createContext();
+    }
+
+    @After
+    public void tearDown()
+    {
+        ZMQ.term(ctx);
+    }
+
+    @Test(timeout = 10000)
+    public void testPubSubMulticast() throws IOException
+    {
+        int port = Utils.findOpenPort();
+        String address = "epgm://127.0.0.1;239.192.1.1:" + port;
+
+        SocketBase sub1 = subscriber(address);
+        SocketBase sub2 = subscriber(address);
+        SocketBase pub = ZMQ.socket(ctx, ZMQ.ZMQ_PUB);
+        ZMQ.setSocketOption(pub, ZMQ.ZMQ_RATE, 100000);
+        assertThat(ZMQ.connect(pub, address), is(true));
+        ZMQ.msleep(100);
+
+        //  Messages spanning several packets, and packets with several messages
+        byte[] large = new byte[5000];
+        for (int idx = 0; idx < large.length; ++idx) {
+            large[idx] = (byte) idx;
+        }
+        for (int idx = 0; idx < 100; ++idx) {
+            assertThat(ZMQ.send(pub, "topic", ZMQ.ZMQ_SNDMORE), is(5));
+            if (idx % 10 == 0) {
+                assertThat(ZMQ.send(pub, large, large.length, 0), is(large.length));
+            }
+            else {
+                assertThat(ZMQ.send(pub, "message-" + idx, 0), is(("message-" + idx).length()));
+            }
+        }
+
+        for (SocketBase sub : new SocketBase[] { sub1, sub2 }) {
+            for (int idx = 0; idx < 100; ++idx) {
+                Msg topic = ZMQ.recv(sub, 0);
+                assertThat(new String(topic.data(), StandardCharsets.US_ASCII), is("topic"));
+                assertThat(topic.hasMore(), is(true));
+                Msg body = ZMQ.recv(sub, 0);
+                if (idx % 10 == 0) {
+                    assertThat(body.data(), is(large));
+                }
+                else {
+                    assertThat(new String(body.data(), StandardCharsets.US_ASCII), is("message-" + idx));
+                }
+            }
+        }
+
+        ZMQ.close(pub);
+        ZMQ.close(sub1);
+        ZMQ.close(sub2);
+    }
+
+    @Test(timeout = 10000)
+    public void testRate() throws IOException
+    {
+        int port = Utils.findOpenPort();
+        String address = "epgm://127.0.0.1:" + port;
+
+        SocketBase sub = subscriber(address);
+        SocketBase pub = ZMQ.socket(ctx, ZMQ.ZMQ_PUB);
+        //  100 kB/s
+        ZMQ.setSocketOption(pub, ZMQ.ZMQ_RATE, 800);
+        assertThat(ZMQ.connect(pub, address), is(true));
+        ZMQ.msleep(100);
+
+        byte[] data = new byte[1000];
+        long start = System.currentTimeMillis();
+        for (int idx = 0; idx < 100; ++idx) {
+            assertThat(ZMQ.send(pub, data, data.length, 0), is(data.length));
+        }
+        for (int idx = 0; idx < 100; ++idx) {
+            assertThat(ZMQ.recv(sub, 0).size(), is(data.length));
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        assertThat(elapsed >= 800, is(true));
+
+        ZMQ.close(pub);
+        ZMQ.close(sub);
+    }
+
+    @Test(timeout = 10000)
+    public void testReceiverRepair() throws IOException
+    {
+        int port = Utils.findOpenPort();
+        SocketBase sub = subscriber("epgm://127.0.0.1:" + port);
+        ZMQ.setSocketOption(sub, ZMQ.ZMQ_RCVTIMEO, 5000);
+        ZMQ.msleep(100);
+
+        try (DatagramSocket source = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            source.setSoTimeout(5000);
+            SocketAddress target = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+
+            source.send(data(PgmProtocol.ODATA, 0, 0, "A", target));
+            assertThat(received(sub), is("A"));
+
+            //  The second packet is lost
+            source.send(data(PgmProtocol.ODATA, 2, 0, "C", target));
+            ByteBuffer nak = nak(source);
+            assertThat(nak.getShort() >= 1, is(true));
+            assertThat(nak.getLong(), is(1L));
+
+            source.send(data(PgmProtocol.RDATA, 1, 0, "B", target));
+            assertThat(received(sub), is("B"));
+            assertThat(received(sub), is("C"));
+
+            //  The fourth packet can't be repaired anymore
+            source.send(data(PgmProtocol.ODATA, 4, 4, "E", target));
+            assertThat(received(sub), is("E"));
+        }
+
+        ZMQ.close(sub);
+    }
+
+    @Test(timeout = 10000)
+    public void testSenderRepair() throws IOException
+    {
+        try (DatagramSocket receiver = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            receiver.setSoTimeout(5000);
+            SocketBase pub = ZMQ.socket(ctx, ZMQ.ZMQ_PUB);
+            assertThat(ZMQ.connect(pub, "epgm://127.0.0.1:" + receiver.getLocalPort()), is(true));
+            assertThat(ZMQ.send(pub, "hello", 0), is(5));
+
+            DatagramPacket packet = next(receiver, PgmProtocol.ODATA);
+            ByteBuffer odata = ByteBuffer.wrap(packet.getData(), 0, packet.getLength());
+            odata.position(2);
+            long sourceId = odata.getLong();
+            long seq = odata.getLong();
+            odata.position(PgmProtocol.DATA_HEADER_SIZE);
+            byte[] payload = new byte[odata.remaining()];
+            odata.get(payload);
+
+            ByteBuffer nak = ByteBuffer.allocate(PgmProtocol.NAK_HEADER_SIZE + 8);
+            nak.put(PgmProtocol.NAK).put(PgmProtocol.VERSION).putLong(sourceId).putShort((short) 1).putLong(seq);
+            receiver.send(new DatagramPacket(nak.array(), nak.capacity(), packet.getSocketAddress()));
+
+            packet = next(receiver, PgmProtocol.RDATA);
+            ByteBuffer rdata = ByteBuffer.wrap(packet.getData(), 0, packet.getLength());
+            rdata.position(2);
+            assertThat(rdata.getLong(), is(sourceId));
+            assertThat(rdata.getLong(), is(seq));
+            rdata.position(PgmProtocol.DATA_HEADER_SIZE);
+            byte[] repaired = new byte[rdata.remaining()];
+            rdata.get(repaired);
+            assertThat(repaired, is(payload));
+
+            ZMQ.close(pub);
+        }
+    }
+
+    @Test
+    public void testIncompatibleSocket()
+    {
+        SocketBase req = ZMQ.socket(ctx, ZMQ.ZMQ_REQ);
+        assertThat(ZMQ.connect(req, "epgm://127.0.0.1;239.192.1.1:5555"), is(false));
+        assertThat(req.errno(), is(ZError.ENOCOMPATPROTO));
+        ZMQ.close(req);
+    }
+
+    private SocketBase subscriber(String address)
+    {
+        SocketBase sub = ZMQ.socket(ctx, ZMQ.ZMQ_SUB);
+        assertThat(ZMQ.setSocketOption(sub, ZMQ.ZMQ_SUBSCRIBE, ""), is(true));
+        assertThat(ZMQ.connect(sub, address), is(true));
+        return sub;
+    }
+
+    private String received(SocketBase sub)
+    {
+        Msg msg = ZMQ.recv(sub, 0);
+        assertThat(msg, notNullValue());
+        return new String(msg.data(), StandardCharsets.US_ASCII);
+    }
+
+    //  A packet with a single message of one frame
+    private DatagramPacket data(byte type, long seq, long trail, String body, SocketAddress target)
+    {
+        byte[] bytes = body.getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer packet = ByteBuffer.allocate(PgmProtocol.DATA_HEADER_SIZE + 2 + bytes.length);
+        packet.put(type).put(PgmProtocol.VERSION).putLong(42L);
+        packet.putLong(seq).putLong(trail).putShort((short) 0);
+        packet.put((byte) (bytes.length + 1)).put((byte) 0).put(bytes);
+        return new DatagramPacket(packet.array(), packet.capacity(), target);
+    }
+
+    private ByteBuffer nak(DatagramSocket source) throws IOException
+    {
+        DatagramPacket packet = new DatagramPacket(new byte[PgmProtocol.MAX_TPDU], PgmProtocol.MAX_TPDU);
+        source.receive(packet);
+        ByteBuffer nak = ByteBuffer.wrap(packet.getData(), 0, packet.getLength());
+        assertThat(nak.get(), is(PgmProtocol.NAK));
+        assertThat(nak.get(), is(PgmProtocol.VERSION));
+        assertThat(nak.getLong(), is(42L));
+        return nak;
+    }
+
+    private DatagramPacket next(DatagramSocket receiver, byte type) throws IOException
+    {
+        while (true) {
+            DatagramPacket packet = new DatagramPacket(new byte[PgmProtocol.MAX_TPDU], PgmProtocol.MAX_TPDU);
+            receiver.receive(packet);
+            if (packet.getData()[0] == type) {
+                return packet;
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package zmq.io.net.udp;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+
+import org.junit.Test;
+
+import zmq.io.net.Address;
+import zmq.io.net.NetProtocol;
+
+public class UdpAddressTest
+{
+    @Test
+    public void testUnicast()
+    {
+        Address<InetSocketAddress> addr = new Address<>(NetProtocol.udp, "127.0.0.1:5555");
+        addr.resolve(false);
+        UdpAddress resolved = (UdpAddress) addr.resolved();
+
+        assertThat(resolved.address(), is(new InetSocketAddress("127.0.0.1", 5555)));
+        assertThat(resolved.isMulticast(), is(false));
+        assertThat(resolved.sourceAddress(), nullValue());
+        assertThat(resolved.networkInterface(), nullValue());
+        assertThat(addr.toString(), is("udp://127.0.0.1:5555"));
+    }
+
+    @Test
+    public void testWildcard()
+    {
+        UdpAddress resolved = new UdpAddress("*:5555", false);
+        assertThat(resolved.address(), is(new InetSocketAddress("0.0.0.0", 5555)));
+    }
+
+    @Test
+    public void testSourceAddress() throws Exception
+    {
+        UdpAddress resolved = new UdpAddress("127.0.0.1;127.0.0.2:5555", false);
+        assertThat(resolved.address(), is(new InetSocketAddress("127.0.0.2", 5555)));
+        assertThat(resolved.sourceAddress(), is(new InetSocketAddress("127.0.0.1", 0)));
+        assertThat(resolved.networkInterface().isLoopback(), is(true));
+    }
+
+    @Test
+    public void testMulticastInterfaceByName() throws Exception
+    {
+        NetworkInterface loopback = NetworkInterface.getByInetAddress(new InetSocketAddress("127.0.0.1", 0).getAddress());
+        UdpAddress resolved = new UdpAddress(loopback.getName() + ";239.0.0.1:5555", false);
+
+        assertThat(resolved.isMulticast(), is(true));
+        assertThat(resolved.networkInterface(), is(loopback));
+        assertThat(resolved.sourceAddress(), nullValue());
+    }
+
+    @Test
+    public void testMulticastDefaultInterface()
+    {
+        UdpAddress resolved = new UdpAddress("239.0.0.1:5555", false);
+        assertThat(resolved.isMulticast(), is(true));
+        assertThat(resolved.networkInterface(), notNullValue());
+    }
+
+    @Test
+    public void testIpv6()
+    {
+        UdpAddress resolved = new UdpAddress("[::1]:5555", false);
+        assertThat(resolved.address(), is(new InetSocketAddress("::1", 5555)));
+        assertThat(resolved.toString(), is("udp://[0:0:0:0:0:0:0:1]:5555"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownInterface()
+    {
+        new UdpAddress("nonexistent-interface-name;239.0.0.1:5555", false);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingPort()
+    {
+        new UdpAddress("127.0.0.1", false);
+    }
+}
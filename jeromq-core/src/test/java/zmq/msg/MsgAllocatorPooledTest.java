@@ -0,0 +1,183 @@
+package zmq.msg;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import zmq.Ctx;
+import zmq.Msg;
+import zmq.SocketBase;
+import zmq.ZMQ;
+
+public class MsgAllocatorPooledTest
+{
+    @Test
+    public void testReuseReleasedBuffer()
+    {
+        MsgAllocatorPooled allocator = new MsgAllocatorPooled();
+
+        Msg msg = allocator.allocate(100);
+        assertThat(msg.size(), is(100));
+        assertThat(msg.isShared(), is(true));
+        msg.put((byte) 42);
+        ByteBuffer first = msg.buf();
+        assertThat(msg.release(), is(true));
+
+        Msg other = allocator.allocate(120);
+        assertThat(other.size(), is(120));
+        assertThat(other.get(0), is((byte) 42));
+        assertThat(other.buf().array(), sameInstance(first.array()));
+    }
+
+    @Test
+    public void testNoReuseOfHeldBuffer()
+    {
+        MsgAllocatorPooled allocator = new MsgAllocatorPooled();
+
+        Msg msg = allocator.allocate(100);
+        Msg other = allocator.allocate(100);
+        assertThat(other.buf().array(), not(sameInstance(msg.buf().array())));
+    }
+
+    @Test
+    public void testDifferentSizeClasses()
+    {
+        MsgAllocatorPooled allocator = new MsgAllocatorPooled();
+
+        Msg msg = allocator.allocate(64);
+        byte[] small = msg.buf().array();
+        msg.release();
+
+        Msg other = allocator.allocate(65);
+        assertThat(other.buf().array(), not(sameInstance(small)));
+        assertThat(other.buf().array().length, is(128));
+    }
+
+    @Test
+    public void testUnpooledSizes()
+    {
+        MsgAllocatorPooled allocator = new MsgAllocatorPooled(false, 1024, 4, 4096);
+
+        Msg empty = allocator.allocate(0);
+        assertThat(empty.size(), is(0));
+        assertThat(empty.isShared(), is(false));
+
+        Msg large = allocator.allocate(1025);
+        assertThat(large.size(), is(1025));
+        assertThat(large.isShared(), is(false));
+
+        Msg largest = allocator.allocate(1024);
+        assertThat(largest.isShared(), is(true));
+    }
+
+    @Test
+    public void testDirect()
+    {
+        MsgAllocatorPooled allocator = new MsgAllocatorPooled(true);
+
+        Msg msg = allocator.allocate(10);
+        assertThat(msg.buf().isDirect(), is(true));
+        assertThat(msg.size(), is(10));
+    }
+
+    @Test
+    public void testReferences()
+    {
+        MsgAllocatorPooled allocator = new MsgAllocatorPooled();
+
+        Msg msg = allocator.allocate(10);
+        byte[] array = msg.buf().array();
+        msg.addRefs(2);
+        assertThat(msg.rmRefs(2), is(false));
+
+        Msg copy = new Msg(msg);
+        assertThat(msg.release(), is(false));
+        assertThat(allocator.allocate(10).buf().array(), not(sameInstance(array)));
+
+        assertThat(copy.release(), is(true));
+        assertThat(allocator.allocate(10).buf().array(), sameInstance(array));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testOverRelease()
+    {
+        MsgAllocatorPooled allocator = new MsgAllocatorPooled();
+
+        Msg msg = allocator.allocate(10);
+        msg.release();
+        msg.release();
+    }
+
+    @Test
+    public void testDataIsCopied()
+    {
+        MsgAllocatorPooled allocator = new MsgAllocatorPooled();
+
+        Msg msg = allocator.allocate(3);
+        msg.put(new byte[] { 1, 2, 3 });
+        byte[] data = msg.data();
+        assertThat(data.length, is(3));
+        assertThat(data, not(sameInstance(msg.buf().array())));
+        assertThat(data[2], is((byte) 3));
+    }
+
+    @Test
+    public void testReleaseUnpooled()
+    {
+        Msg msg = new Msg(10);
+        assertThat(msg.isShared(), is(false));
+        assertThat(msg.release(), is(false));
+    }
+
+    @Test(timeout = 10000)
+    public void testPushPullTcp()
+    {
+        MsgAllocatorPooled allocator = new MsgAllocatorPooled();
+        Ctx ctx = ZMQ.createContext();
+
+        SocketBase pull = ZMQ.socket(ctx, ZMQ.ZMQ_PULL);
+        ZMQ.setSocketOption(pull, ZMQ.ZMQ_MSG_ALLOCATOR, allocator);
+        boolean rc = ZMQ.bind(pull, "tcp://127.0.0.1:*");
+        assertThat(rc, is(true));
+        String host = (String) ZMQ.getSocketOptionExt(pull, ZMQ.ZMQ_LAST_ENDPOINT);
+
+        SocketBase push = ZMQ.socket(ctx, ZMQ.ZMQ_PUSH);
+        rc = ZMQ.connect(push, host);
+        assertThat(rc, is(true));
+
+        //  Buffers are recycled on both sides, any early release would garble the content
+        for (int idx = 0; idx < 1000; ++idx) {
+            int size = 1 + idx % 300;
+            Msg msg = allocator.allocate(size);
+            for (int pos = 0; pos < size; ++pos) {
+                msg.put((byte) (idx + pos));
+            }
+            int sent = ZMQ.send(push, msg, 0);
+            assertThat(sent, is(size));
+        }
+        for (int idx = 0; idx < 1000; ++idx) {
+            int size = 1 + idx % 300;
+            Msg msg = ZMQ.recv(pull, 0);
+            assertThat(msg.size(), is(size));
+            for (int pos = 0; pos < size; ++pos) {
+                assertThat(msg.get(pos), is((byte) (idx + pos)));
+            }
+            msg.release();
+        }
+
+        ZMQ.close(push);
+        ZMQ.close(pull);
+        ZMQ.term(ctx);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxSize()
+    {
+        new MsgAllocatorPooled(false, 10, 4, 4096);
+    }
+}
@@ -0,0 +1,212 @@
+package zmq.pipe;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import zmq.Ctx;
+import zmq.Msg;
+import zmq.SocketBase;
+import zmq.ZMQ;
+
+public class YPipeRingTest
+{
+    @Test
+    public void testWriteFlushRead()
+    {
+        YPipeRing<Integer> pipe = new YPipeRing<>(4);
+
+        //  The reader is awake at the beginning
+        assertThat(pipe.read(), nullValue());
+        pipe.write(1, false);
+        pipe.write(2, false);
+        assertThat(pipe.checkRead(), is(false));
+
+        //  The reader went to sleep on the empty pipe
+        assertThat(pipe.flush(), is(false));
+        assertThat(pipe.probe(), is(1));
+        assertThat(pipe.read(), is(1));
+        assertThat(pipe.read(), is(2));
+        assertThat(pipe.read(), nullValue());
+
+        pipe.write(3, false);
+        assertThat(pipe.flush(), is(false));
+        pipe.write(4, false);
+        assertThat(pipe.flush(), is(true));
+        assertThat(pipe.read(), is(3));
+        assertThat(pipe.read(), is(4));
+    }
+
+    @Test
+    public void testIncompleteNotFlushed()
+    {
+        YPipeRing<Integer> pipe = new YPipeRing<>(4);
+
+        pipe.write(1, true);
+        pipe.write(2, true);
+        pipe.flush();
+        assertThat(pipe.read(), nullValue());
+
+        assertThat(pipe.unwrite(), is(2));
+        assertThat(pipe.unwrite(), is(1));
+        assertThat(pipe.unwrite(), nullValue());
+
+        pipe.write(3, true);
+        pipe.write(4, false);
+        assertThat(pipe.unwrite(), nullValue());
+        pipe.flush();
+        assertThat(pipe.read(), is(3));
+        assertThat(pipe.read(), is(4));
+    }
+
+    @Test
+    public void testGrowsWhenFull()
+    {
+        YPipeRing<Integer> pipe = new YPipeRing<>(4);
+
+        for (int idx = 0; idx < 100; ++idx) {
+            pipe.write(idx, false);
+            if (idx % 10 == 0) {
+                pipe.flush();
+            }
+        }
+        pipe.flush();
+        for (int idx = 0; idx < 100; ++idx) {
+            assertThat(pipe.read(), is(idx));
+        }
+        assertThat(pipe.read(), nullValue());
+    }
+
+    @Test
+    public void testUnwriteAcrossRings()
+    {
+        YPipeRing<Integer> pipe = new YPipeRing<>(4);
+
+        pipe.write(0, false);
+        for (int idx = 1; idx < 20; ++idx) {
+            pipe.write(idx, true);
+        }
+        for (int idx = 19; idx > 0; --idx) {
+            assertThat(pipe.unwrite(), is(idx));
+        }
+        assertThat(pipe.unwrite(), nullValue());
+
+        pipe.write(1, false);
+        pipe.flush();
+        assertThat(pipe.read(), is(0));
+        assertThat(pipe.read(), is(1));
+        assertThat(pipe.read(), nullValue());
+    }
+
+    @Test
+    public void testReuseSlots()
+    {
+        YPipeRing<Integer> pipe = new YPipeRing<>(4);
+
+        //  Items are read as fast as they are written, the ring does not grow
+        for (int idx = 0; idx < 1000; ++idx) {
+            pipe.write(idx, false);
+            pipe.flush();
+            assertThat(pipe.read(), is(idx));
+        }
+    }
+
+    @Test
+    public void testBatch()
+    {
+        YPipeRing<Integer> pipe = new YPipeRing<>(8);
+        Integer[] values = new Integer[20];
+        for (int idx = 0; idx < values.length; ++idx) {
+            values[idx] = idx;
+        }
+        pipe.write(values, 0, values.length, false);
+        pipe.flush();
+
+        Integer[] read = new Integer[20];
+        assertThat(pipe.read(read, 0, 5), is(5));
+        assertThat(pipe.read(read, 5, 15), is(15));
+        for (int idx = 0; idx < values.length; ++idx) {
+            assertThat(read[idx], is(idx));
+        }
+        assertThat(pipe.read(read, 0, 5), is(0));
+    }
+
+    @Test(timeout = 10000)
+    public void testConcurrent() throws InterruptedException
+    {
+        YPipeRing<Integer> pipe = new YPipeRing<>(16);
+        int count = 1000000;
+        Object lock = new Object();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread reader = new Thread(() -> {
+            try {
+                int expected = 0;
+                while (expected < count) {
+                    Integer value = pipe.read();
+                    if (value == null) {
+                        //  Wait for the writer to notice that the reader is asleep
+                        synchronized (lock) {
+                            while (!pipe.checkRead()) {
+                                lock.wait(10);
+                            }
+                        }
+                        continue;
+                    }
+                    assertThat(value, is(expected++));
+                }
+            }
+            catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        reader.start();
+        for (int idx = 0; idx < count; ++idx) {
+            pipe.write(idx, (idx & 3) != 3);
+            if ((idx & 3) == 3 && !pipe.flush()) {
+                synchronized (lock) {
+                    lock.notify();
+                }
+            }
+        }
+        reader.join();
+        assertThat(failure.get(), nullValue());
+    }
+
+    @Test(timeout = 10000)
+    public void testInprocWithRingPipes()
+    {
+        Ctx ctx = ZMQ.createContext();
+        SocketBase push = ZMQ.socket(ctx, ZMQ.ZMQ_PUSH);
+        SocketBase pull = ZMQ.socket(ctx, ZMQ.ZMQ_PULL);
+        ZMQ.setSocketOption(push, ZMQ.ZMQ_RING_PIPES, true);
+        ZMQ.setSocketOption(push, ZMQ.ZMQ_SNDHWM, 10);
+        ZMQ.setSocketOption(pull, ZMQ.ZMQ_RCVHWM, 10);
+
+        boolean rc = ZMQ.bind(pull, "inproc://ring");
+        assertThat(rc, is(true));
+        rc = ZMQ.connect(push, "inproc://ring");
+        assertThat(rc, is(true));
+
+        for (int round = 0; round < 100; ++round) {
+            //  Multipart messages larger than the ring
+            for (int part = 0; part < 30; ++part) {
+                int sent = ZMQ.send(push, "part" + part, part < 29 ? ZMQ.ZMQ_SNDMORE : 0);
+                assertThat(sent, is(("part" + part).length()));
+            }
+            for (int part = 0; part < 30; ++part) {
+                Msg msg = ZMQ.recv(pull, 0);
+                assertThat(new String(msg.data(), ZMQ.CHARSET), is("part" + part));
+                assertThat(msg.hasMore(), is(part < 29));
+            }
+        }
+
+        ZMQ.close(push);
+        ZMQ.close(pull);
+        ZMQ.term(ctx);
+    }
+}
@@ -0,0 +1,211 @@
+package zmq.poll;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import zmq.Ctx;
+import zmq.Msg;
+import zmq.SocketBase;
+import zmq.ZMQ;
+
+public class ChangeListPollerTest
+{
+    @Test(timeout = 5000)
+    public void testInEvent() throws IOException, InterruptedException
+    {
+        Ctx ctx = new Ctx();
+        ChangeListPoller poller = new ChangeListPoller(ctx, "test");
+        Pipe pipe = Pipe.open();
+        try (Pipe.SourceChannel source = pipe.source();
+            Pipe.SinkChannel sink = pipe.sink()
+        ) {
+            source.configureBlocking(false);
+            Semaphore received = new Semaphore(0);
+            Poller.Handle handle = poller.addHandle(source, new IPollEvents()
+            {
+                @Override
+                public void inEvent()
+                {
+                    try {
+                        source.read(ByteBuffer.allocate(16));
+                    }
+                    catch (IOException e) {
+                        throw new AssertionError(e);
+                    }
+                    received.release();
+                }
+            });
+            poller.setPollIn(handle);
+            poller.start();
+
+            for (int idx = 0; idx < 3; ++idx) {
+                sink.write(ByteBuffer.allocate(1));
+                assertThat(received.tryAcquire(2, TimeUnit.SECONDS), is(true));
+            }
+        }
+        finally {
+            poller.destroy();
+            ctx.terminate();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testResetPollIn() throws IOException, InterruptedException
+    {
+        Ctx ctx = new Ctx();
+        ChangeListPoller poller = new ChangeListPoller(ctx, "test");
+        Pipe pipe = Pipe.open();
+        try (Pipe.SourceChannel source = pipe.source();
+            Pipe.SinkChannel sink = pipe.sink()
+        ) {
+            source.configureBlocking(false);
+            CountDownLatch received = new CountDownLatch(1);
+            AtomicInteger events = new AtomicInteger();
+            Poller.Handle[] handle = new Poller.Handle[1];
+            handle[0] = poller.addHandle(source, new IPollEvents()
+            {
+                @Override
+                public void inEvent()
+                {
+                    //  The data is not read, so the event would be raised again
+                    events.incrementAndGet();
+                    poller.resetPollIn(handle[0]);
+                    received.countDown();
+                }
+            });
+            poller.setPollIn(handle[0]);
+            poller.start();
+
+            sink.write(ByteBuffer.allocate(1));
+            assertThat(received.await(2, TimeUnit.SECONDS), is(true));
+            Thread.sleep(100);
+            assertThat(events.get(), is(1));
+        }
+        finally {
+            poller.destroy();
+            ctx.terminate();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testRemoveAndAddHandle() throws IOException, InterruptedException
+    {
+        Ctx ctx = new Ctx();
+        try {
+            removeAndAddHandle(new ChangeListPoller(ctx, "test"));
+            removeAndAddHandle(new Poller(ctx, "test"));
+        }
+        finally {
+            ctx.terminate();
+        }
+    }
+
+    //  The handle is removed and added again within the same iteration of the poller.
+    private void removeAndAddHandle(Poller poller) throws IOException, InterruptedException
+    {
+        Pipe pipe = Pipe.open();
+        try (Pipe.SourceChannel source = pipe.source();
+            Pipe.SinkChannel sink = pipe.sink()
+        ) {
+            source.configureBlocking(false);
+            Semaphore received = new Semaphore(0);
+            CountDownLatch readded = new CountDownLatch(1);
+            Poller.Handle[] handle = new Poller.Handle[1];
+            IPollEvents events = new IPollEvents()
+            {
+                @Override
+                public void inEvent()
+                {
+                    try {
+                        source.read(ByteBuffer.allocate(16));
+                    }
+                    catch (IOException e) {
+                        throw new AssertionError(e);
+                    }
+                    received.release();
+                }
+
+                @Override
+                public void timerEvent(int id)
+                {
+                    poller.removeHandle(handle[0]);
+                    handle[0] = poller.addHandle(source, this);
+                    poller.setPollIn(handle[0]);
+                    readded.countDown();
+                }
+            };
+            handle[0] = poller.addHandle(source, events);
+            poller.setPollIn(handle[0]);
+            poller.addTimer(10, events, 1);
+            poller.start();
+
+            assertThat(readded.await(2, TimeUnit.SECONDS), is(true));
+            for (int idx = 0; idx < 3; ++idx) {
+                sink.write(ByteBuffer.allocate(1));
+                assertThat(received.tryAcquire(2, TimeUnit.SECONDS), is(true));
+            }
+        }
+        finally {
+            poller.destroy();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testManyConnections()
+    {
+        Ctx ctx = ZMQ.createContext();
+        ctx.setPollerFactory(ChangeListPoller::new);
+
+        SocketBase pull = ZMQ.socket(ctx, ZMQ.ZMQ_PULL);
+        boolean rc = ZMQ.bind(pull, "tcp://127.0.0.1:*");
+        assertThat(rc, is(true));
+        String host = (String) ZMQ.getSocketOptionExt(pull, ZMQ.ZMQ_LAST_ENDPOINT);
+
+        SocketBase[] pushes = new SocketBase[10];
+        for (int idx = 0; idx < pushes.length; ++idx) {
+            pushes[idx] = ZMQ.socket(ctx, ZMQ.ZMQ_PUSH);
+            rc = ZMQ.connect(pushes[idx], host);
+            assertThat(rc, is(true));
+        }
+        for (int count = 0; count < 100; ++count) {
+            for (SocketBase push : pushes) {
+                int sent = ZMQ.send(push, "hello", 0);
+                assertThat(sent, is(5));
+            }
+        }
+        for (int count = 0; count < 100 * pushes.length; ++count) {
+            Msg msg = ZMQ.recv(pull, 0);
+            assertThat(msg.size(), is(5));
+        }
+
+        for (SocketBase push : pushes) {
+            ZMQ.close(push);
+        }
+        ZMQ.close(pull);
+        ZMQ.term(ctx);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFactoryOnceStarted()
+    {
+        Ctx ctx = ZMQ.createContext();
+        SocketBase socket = ZMQ.socket(ctx, ZMQ.ZMQ_PULL);
+        try {
+            ctx.setPollerFactory(ChangeListPoller::new);
+        }
+        finally {
+            ZMQ.close(socket);
+            ZMQ.term(ctx);
+        }
+    }
+}
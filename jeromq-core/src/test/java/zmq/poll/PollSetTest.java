@@ -0,0 +1,159 @@
+package zmq.poll;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.channels.Selector;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import zmq.Ctx;
+import zmq.Msg;
+import zmq.SocketBase;
+import zmq.ZMQ;
+
+public class PollSetTest
+{
+    private Ctx        ctx;
+    private SocketBase push;
+    private SocketBase pull;
+    private Selector   selector;
+    private PollSet    set;
+
+    @Before
+    public void setUp()
+    {
+        ctx = ZMQ.createContext();
+        push = ZMQ.socket(ctx, ZMQ.ZMQ_PUSH);
+        pull = ZMQ.socket(ctx, ZMQ.ZMQ_PULL);
+        assertThat(ZMQ.bind(pull, "inproc://pollset"), is(true));
+        assertThat(ZMQ.connect(push, "inproc://pollset"), is(true));
+        selector = ctx.createSelector();
+        set = new PollSet(selector);
+    }
+
+    @After
+    public void tearDown()
+    {
+        set.clear();
+        ctx.closeSelector(selector);
+        ZMQ.close(push);
+        ZMQ.close(pull);
+        ZMQ.term(ctx);
+    }
+
+    @Test(timeout = 5000)
+    public void testPollSockets()
+    {
+        PollItem in = new PollItem(pull, ZMQ.ZMQ_POLLIN);
+        PollItem out = new PollItem(push, ZMQ.ZMQ_POLLOUT);
+        assertThat(set.register(in), is(true));
+        assertThat(set.register(in), is(false));
+        assertThat(set.register(out), is(true));
+        assertThat(set.size(), is(2));
+
+        assertThat(set.poll(0), is(1));
+        assertThat(set.ready()[0], sameInstance(out));
+        assertThat(out.isWritable(), is(true));
+        assertThat(in.isReadable(), is(false));
+
+        PollItem[] ready = set.ready();
+        for (int idx = 0; idx < 10; ++idx) {
+            assertThat(ZMQ.send(push, "hello", 0), is(5));
+            assertThat(set.poll(-1), is(2));
+            assertThat(in.isReadable(), is(true));
+            assertThat(set.ready(), sameInstance(ready));
+
+            Msg msg = ZMQ.recv(pull, 0);
+            assertThat(msg.size(), is(5));
+        }
+
+        assertThat(set.unregister(out), is(true));
+        assertThat(set.unregister(out), is(false));
+        assertThat(set.size(), is(1));
+        assertThat(set.poll(10), is(0));
+        assertThat(set.ready()[0], nullValue());
+    }
+
+    @Test(timeout = 5000)
+    public void testSameSocketTwice()
+    {
+        PollItem in = new PollItem(pull, ZMQ.ZMQ_POLLIN);
+        PollItem other = new PollItem(pull, ZMQ.ZMQ_POLLIN);
+        set.register(in);
+        set.register(other);
+
+        assertThat(ZMQ.send(push, "hello", 0), is(5));
+        assertThat(set.poll(-1), is(2));
+
+        //  Removing one item keeps polling the other one on the same channel
+        set.unregister(in);
+        assertThat(set.poll(-1), is(1));
+        assertThat(set.ready()[0], sameInstance(other));
+
+        //  The channel can be registered again after its key was cancelled
+        set.unregister(other);
+        set.register(in);
+        assertThat(set.poll(-1), is(1));
+        assertThat(set.ready()[0], sameInstance(in));
+    }
+
+    @Test(timeout = 5000)
+    public void testPollChannel() throws IOException
+    {
+        Pipe pipe = Pipe.open();
+        try {
+            pipe.source().configureBlocking(false);
+            PollItem item = new PollItem(pipe.source(), ZMQ.ZMQ_POLLIN);
+            set.register(item);
+
+            assertThat(set.poll(10), is(0));
+            assertThat(item.isReadable(), is(false));
+
+            pipe.sink().write(ByteBuffer.wrap(new byte[] { 1 }));
+            assertThat(set.poll(-1), is(1));
+            assertThat(item.isReadable(), is(true));
+
+            pipe.source().read(ByteBuffer.allocate(1));
+            assertThat(set.poll(0), is(0));
+            assertThat(item.isReadable(), is(false));
+        }
+        finally {
+            pipe.sink().close();
+            pipe.source().close();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testSharedSelector()
+    {
+        PollItem in = new PollItem(pull, ZMQ.ZMQ_POLLIN);
+        PollItem out = new PollItem(push, ZMQ.ZMQ_POLLOUT);
+        PollSet other = new PollSet(selector);
+        set.register(in);
+        other.register(out);
+
+        assertThat(ZMQ.send(push, "hello", 0), is(5));
+        for (int idx = 0; idx < 3; ++idx) {
+            assertThat(set.poll(-1), is(1));
+            assertThat(set.ready()[0], sameInstance(in));
+            assertThat(other.poll(-1), is(1));
+            assertThat(other.ready()[0], sameInstance(out));
+        }
+        other.clear();
+    }
+
+    @Test
+    public void testEmpty()
+    {
+        assertThat(set.poll(-1), is(0));
+        assertThat(set.poll(0), is(0));
+    }
+}
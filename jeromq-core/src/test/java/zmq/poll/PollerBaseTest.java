@@ -153,4 +153,39 @@ public class PollerBaseTest
         assertThat(timeout, is(0L));
         assertThat(poller.isEmpty(), is(true));
     }
+
+    @Test
+    public void testTimersWithSameId()
+    {
+        final PollerBaseTested poller = new PollerBaseTested();
+
+        final AtomicInteger counter = new AtomicInteger();
+        PollEvents sink = new PollEvents()
+        {
+            @Override
+            public void timerEvent(int id)
+            {
+                counter.incrementAndGet();
+            }
+        };
+
+        //  Both timers are scheduled, as in libzmq
+        poller.addTimer(1000, sink, 1);
+        poller.addTimer(2000, sink, 1);
+        poller.addTimer(3000, sink, 1);
+        assertThat(poller.executeTimers(), is(1000L));
+
+        //  The first one to expire is cancelled
+        poller.cancelTimer(sink, 1);
+        assertThat(poller.executeTimers(), is(2000L));
+
+        poller.clock(2000);
+        assertThat(poller.executeTimers(), is(1000L));
+        assertThat(counter.get(), is(1));
+
+        poller.clock(3000);
+        assertThat(poller.executeTimers(), is(0L));
+        assertThat(counter.get(), is(2));
+        assertThat(poller.isEmpty(), is(true));
+    }
 }
@@ -3,13 +3,20 @@ package zmq.socket.pubsub;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import zmq.Ctx;
 import zmq.Msg;
+import zmq.ZMQ;
 import zmq.ZObject;
 import zmq.pipe.Pipe;
 import zmq.socket.pubsub.Mtrie.IMtrieHandler;
@@ -276,4 +283,99 @@ public class MTrieTest
         assertThat(rc, is(true));
         assertThat(handler.counter.get(), is(3));
     }
+
+    private static Msg subscription(String topic)
+    {
+        byte[] raw = topic.getBytes(ZMQ.CHARSET);
+        Msg msg = new Msg(raw.length + 1);
+        msg.put((byte) 1);
+        msg.put(raw);
+        return msg;
+    }
+
+    private static List<Pipe> match(Mtrie mtrie, String topic, XPub pub)
+    {
+        List<Pipe> matched = new ArrayList<>();
+        ByteBuffer data = ByteBuffer.wrap(topic.getBytes(ZMQ.CHARSET));
+        mtrie.match(data, data.limit(), (pipe, d, s, p) -> matched.add(pipe), pub);
+        return matched;
+    }
+
+    @Test
+    public void testMatchCompressedPrefixes()
+    {
+        Ctx ctx = ZMQ.createContext();
+        XPub pub = (XPub) ZMQ.socket(ctx, ZMQ.ZMQ_XPUB);
+        try {
+            Mtrie mtrie = new Mtrie();
+            Pipe other = createPipe();
+            Pipe third = createPipe();
+
+            assertThat(mtrie.add(subscription("market.data"), pipe), is(true));
+            //  Splits the label of the previous topic
+            assertThat(mtrie.add(subscription("market.news"), other), is(true));
+            assertThat(mtrie.add(subscription("market"), third), is(true));
+            assertThat(mtrie.add(subscription("market.data"), other), is(false));
+
+            assertThat(match(mtrie, "market.data.eur", pub), is(Arrays.asList(third, pipe, other)));
+            assertThat(match(mtrie, "market.news", pub), is(Arrays.asList(third, other)));
+            assertThat(match(mtrie, "market.dat", pub), is(Arrays.asList(third)));
+            assertThat(match(mtrie, "mark", pub).isEmpty(), is(true));
+
+            //  Merges the labels back
+            assertThat(mtrie.rm(subscription("market"), third), is(true));
+            assertThat(mtrie.rm(subscription("market.news"), other), is(true));
+            assertThat(mtrie.rm(subscription("market.news"), other), is(false));
+            assertThat(match(mtrie, "market.data", pub), is(Arrays.asList(pipe, other)));
+            assertThat(match(mtrie, "market.news", pub).isEmpty(), is(true));
+        }
+        finally {
+            ZMQ.close(pub);
+            ZMQ.term(ctx);
+        }
+    }
+
+    @Test
+    public void testMatchManyTopicsAndPipes()
+    {
+        Ctx ctx = ZMQ.createContext();
+        XPub pub = (XPub) ZMQ.socket(ctx, ZMQ.ZMQ_XPUB);
+        try {
+            Mtrie mtrie = new Mtrie();
+            //  More pipes than bits in a word, more children than keys in a node
+            Pipe[] pipes = new Pipe[100];
+            for (int idx = 0; idx < pipes.length; ++idx) {
+                pipes[idx] = createPipe();
+                mtrie.add(subscription("topic" + (char) (idx + 20)), pipes[idx]);
+                mtrie.add(subscription("topic"), pipes[idx]);
+            }
+            for (int idx = 0; idx < pipes.length; ++idx) {
+                List<Pipe> matched = match(mtrie, "topic" + (char) (idx + 20), pub);
+                assertThat(matched.size(), is(pipes.length + 1));
+                assertThat(matched.get(matched.size() - 1), is(pipes[idx]));
+            }
+
+            //  Terminated pipes are removed from every topic
+            Set<String> unsubscribed = new HashSet<>();
+            for (int idx = 0; idx < pipes.length - 1; ++idx) {
+                mtrie.rm(pipes[idx], (p, data, size, arg) -> unsubscribed.add(new String(data, 0, size, ZMQ.CHARSET)),
+                         null);
+            }
+            assertThat(unsubscribed.size(), is(pipes.length - 1));
+            assertThat(unsubscribed.contains("topic" + (char) 20), is(true));
+            assertThat(match(mtrie, "topic" + (char) 20, pub), is(Arrays.asList(pipes[pipes.length - 1])));
+            assertThat(
+                       match(mtrie, "topic" + (char) (pipes.length + 19), pub),
+                       is(Arrays.asList(pipes[pipes.length - 1], pipes[pipes.length - 1])));
+
+            //  The identifiers are reused
+            Pipe other = createPipe();
+            mtrie.add(subscription("other"), other);
+            assertThat(match(mtrie, "other", pub), is(Arrays.asList(other)));
+        }
+        finally {
+            ZMQ.close(pub);
+            ZMQ.term(ctx);
+        }
+    }
 }
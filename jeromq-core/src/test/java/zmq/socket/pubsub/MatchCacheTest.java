@@ -0,0 +1,66 @@
+package zmq.socket.pubsub;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import zmq.ZMQ;
+import zmq.pipe.Pipe;
+
+public class MatchCacheTest
+{
+    private static ByteBuffer topic(String topic)
+    {
+        return ByteBuffer.wrap(topic.getBytes(ZMQ.CHARSET));
+    }
+
+    @Test
+    public void testGetPut()
+    {
+        MatchCache cache = new MatchCache(10);
+        Pipe[] pipes = new Pipe[0];
+
+        assertThat(cache.get(topic("topic"), 5), nullValue());
+        cache.put(topic("topic"), 5, pipes);
+        assertThat(cache.get(topic("topic"), 5), sameInstance(pipes));
+        //  The whole topic is the key
+        assertThat(cache.get(topic("topics"), 6), nullValue());
+        assertThat(cache.get(topic("topi"), 4), nullValue());
+
+        cache.clear();
+        assertThat(cache.get(topic("topic"), 5), nullValue());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted()
+    {
+        MatchCache cache = new MatchCache(2);
+        Pipe[] pipes = new Pipe[0];
+
+        cache.put(topic("A"), 1, pipes);
+        cache.put(topic("B"), 1, pipes);
+        assertThat(cache.get(topic("A"), 1), sameInstance(pipes));
+        cache.put(topic("C"), 1, pipes);
+
+        assertThat(cache.size(), is(2));
+        assertThat(cache.get(topic("B"), 1), nullValue());
+        assertThat(cache.get(topic("A"), 1), sameInstance(pipes));
+        assertThat(cache.get(topic("C"), 1), sameInstance(pipes));
+    }
+
+    @Test
+    public void testLongTopicsNotCached()
+    {
+        MatchCache cache = new MatchCache(2);
+        ByteBuffer data = ByteBuffer.allocate(MatchCache.MAX_TOPIC_SIZE + 1);
+
+        cache.put(data, data.limit(), new Pipe[0]);
+        assertThat(cache.size(), is(0));
+        assertThat(cache.get(data, data.limit()), nullValue());
+    }
+}
@@ -6,6 +6,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import org.junit.Test;
 
 import zmq.Ctx;
+import zmq.Msg;
 import zmq.SocketBase;
 import zmq.ZMQ;
 
@@ -44,4 +45,73 @@ public class XPubTest
             ZMQ.term(ctx);
         }
     }
+
+    private static void subscribe(SocketBase sub, SocketBase pub, String option, String topic)
+    {
+        boolean rc = sub.setSocketOpt(option.equals("sub") ? ZMQ.ZMQ_SUBSCRIBE : ZMQ.ZMQ_UNSUBSCRIBE, topic);
+        assertThat(rc, is(true));
+        //  Wait for the publisher to apply it
+        Msg msg = ZMQ.recv(pub, 0);
+        assertThat(new String(msg.data(), 1, msg.size() - 1, ZMQ.CHARSET), is(topic));
+    }
+
+    @Test(timeout = 10000)
+    public void testMatchCache()
+    {
+        Ctx ctx = ZMQ.createContext();
+        SocketBase pub = ctx.createSocket(ZMQ.ZMQ_XPUB);
+        SocketBase first = ctx.createSocket(ZMQ.ZMQ_SUB);
+        SocketBase second = ctx.createSocket(ZMQ.ZMQ_SUB);
+        try {
+            boolean rc = pub.setSocketOpt(ZMQ.ZMQ_XPUB_MATCH_CACHE, 2);
+            assertThat(rc, is(true));
+            rc = pub.setSocketOpt(ZMQ.ZMQ_XPUB_VERBOSER, true);
+            assertThat(rc, is(true));
+            rc = ZMQ.bind(pub, "inproc://match-cache");
+            assertThat(rc, is(true));
+            rc = ZMQ.connect(first, "inproc://match-cache");
+            assertThat(rc, is(true));
+            rc = ZMQ.connect(second, "inproc://match-cache");
+            assertThat(rc, is(true));
+
+            subscribe(first, pub, "sub", "A");
+            subscribe(first, pub, "sub", "Z");
+            ZMQ.send(pub, "A", 0);
+            assertThat(ZMQ.recv(first, 0).data(), is("A".getBytes(ZMQ.CHARSET)));
+
+            //  A new subscriber to the cached topic
+            subscribe(second, pub, "sub", "A");
+            ZMQ.send(pub, "A", 0);
+            //  Evicts the first topic
+            ZMQ.send(pub, "B", 0);
+            ZMQ.send(pub, "C", 0);
+            ZMQ.send(pub, "A", 0);
+            for (SocketBase sub : new SocketBase[] { first, second }) {
+                assertThat(ZMQ.recv(sub, 0).data(), is("A".getBytes(ZMQ.CHARSET)));
+                assertThat(ZMQ.recv(sub, 0).data(), is("A".getBytes(ZMQ.CHARSET)));
+            }
+
+            //  The unsubscribed topic is not sent anymore
+            subscribe(first, pub, "unsub", "A");
+            ZMQ.send(pub, "A", 0);
+            ZMQ.send(pub, "Z", 0);
+            assertThat(ZMQ.recv(first, 0).data(), is("Z".getBytes(ZMQ.CHARSET)));
+            assertThat(ZMQ.recv(second, 0).data(), is("A".getBytes(ZMQ.CHARSET)));
+
+            //  Nor to the closed subscriber
+            ZMQ.close(second);
+            second = null;
+            ZMQ.send(pub, "A", 0);
+            ZMQ.send(pub, "Z", 0);
+            assertThat(ZMQ.recv(first, 0).data(), is("Z".getBytes(ZMQ.CHARSET)));
+        }
+        finally {
+            ZMQ.close(first);
+            if (second != null) {
+                ZMQ.close(second);
+            }
+            ZMQ.close(pub);
+            ZMQ.term(ctx);
+        }
+    }
 }
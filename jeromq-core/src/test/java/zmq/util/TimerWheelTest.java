@@ -0,0 +1,144 @@
+package zmq.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+public class TimerWheelTest
+{
+    @Test
+    public void testExpireInOrder()
+    {
+        TimerWheel<String> wheel = new TimerWheel<>(0);
+        wheel.add(100, "100");
+        wheel.add(10, "10");
+        wheel.add(1000, "1000");
+        assertThat(wheel.size(), is(3));
+        assertThat(wheel.nextExpiration(), is(10L));
+
+        assertThat(wheel.expire(9), nullValue());
+        assertThat(wheel.expire(10).payload(), is("10"));
+        assertThat(wheel.expire(10), nullValue());
+        assertThat(wheel.nextExpiration(), is(100L));
+
+        assertThat(wheel.expire(2000).payload(), is("100"));
+        assertThat(wheel.expire(2000).payload(), is("1000"));
+        assertThat(wheel.expire(2000), nullValue());
+        assertThat(wheel.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testCancel()
+    {
+        TimerWheel<String> wheel = new TimerWheel<>(0);
+        TimerWheel.Timer<String> timer10 = wheel.add(10, "10");
+        TimerWheel.Timer<String> timer100 = wheel.add(100, "100");
+
+        assertThat(wheel.cancel(timer10), is(true));
+        assertThat(wheel.cancel(timer10), is(false));
+        assertThat(timer10.isScheduled(), is(false));
+        assertThat(wheel.nextExpiration(), is(100L));
+
+        assertThat(wheel.expire(100), is(timer100));
+        assertThat(wheel.cancel(timer100), is(false));
+        assertThat(wheel.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testReschedule()
+    {
+        TimerWheel<String> wheel = new TimerWheel<>(0);
+        TimerWheel.Timer<String> timer = wheel.add(10, "timer");
+
+        wheel.schedule(timer, 5000);
+        assertThat(wheel.size(), is(1));
+        assertThat(wheel.nextExpiration(), is(5000L));
+        assertThat(wheel.expire(4999), nullValue());
+
+        wheel.schedule(timer, 6000);
+        assertThat(wheel.expire(5999), nullValue());
+        assertThat(wheel.expire(6000), is(timer));
+    }
+
+    @Test
+    public void testPastExpiration()
+    {
+        TimerWheel<String> wheel = new TimerWheel<>(1000);
+        wheel.add(10, "past");
+
+        assertThat(wheel.nextExpiration(), is(10L));
+        assertThat(wheel.expire(1000).payload(), is("past"));
+    }
+
+    @Test
+    public void testFarExpirations()
+    {
+        long now = System.currentTimeMillis();
+        TimerWheel<Long> wheel = new TimerWheel<>(now);
+        long[] delays = { 1L << 40, 1L << 20, 64, 63, 4096, 4095, 4097, 1 };
+        for (long delay : delays) {
+            wheel.add(now + delay, delay);
+        }
+
+        long[] sorted = delays.clone();
+        Arrays.sort(sorted);
+        for (long delay : sorted) {
+            assertThat(wheel.nextExpiration(), is(now + delay));
+            assertThat(wheel.expire(now + delay - 1), nullValue());
+            assertThat(wheel.expire(now + delay).payload(), is(delay));
+        }
+        assertThat(wheel.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testAgainstSortedTimers()
+    {
+        Random random = new Random(42);
+        long now = 1_000_000;
+        TimerWheel<Integer> wheel = new TimerWheel<>(now);
+        TreeMap<Long, List<TimerWheel.Timer<Integer>>> reference = new TreeMap<>();
+        List<TimerWheel.Timer<Integer>> scheduled = new ArrayList<>();
+
+        for (int round = 0; round < 10_000; ++round) {
+            int action = random.nextInt(10);
+            if (action < 5) {
+                long expiration = now + (random.nextBoolean() ? random.nextInt(100) : random.nextInt(1_000_000));
+                TimerWheel.Timer<Integer> timer = wheel.add(expiration, round);
+                reference.computeIfAbsent(expiration, k -> new ArrayList<>()).add(timer);
+                scheduled.add(timer);
+            }
+            else if (action < 7 && !scheduled.isEmpty()) {
+                TimerWheel.Timer<Integer> timer = scheduled.remove(random.nextInt(scheduled.size()));
+                assertThat(wheel.cancel(timer), is(true));
+                reference.get(timer.expiration()).remove(timer);
+                reference.remove(timer.expiration(), new ArrayList<>());
+            }
+            else {
+                now += random.nextInt(random.nextBoolean() ? 100 : 100_000);
+                TimerWheel.Timer<Integer> timer;
+                long last = Long.MIN_VALUE;
+                while ((timer = wheel.expire(now)) != null) {
+                    assertThat(timer.expiration() <= now, is(true));
+                    assertThat(timer.expiration() >= last, is(true));
+                    last = timer.expiration();
+                    reference.get(timer.expiration()).remove(timer);
+                    reference.remove(timer.expiration(), new ArrayList<>());
+                    scheduled.remove(timer);
+                }
+                assertThat(reference.isEmpty() || reference.firstKey() > now, is(true));
+            }
+            assertThat(wheel.size(), is(scheduled.size()));
+            if (!reference.isEmpty()) {
+                assertThat(wheel.nextExpiration(), is(reference.firstKey()));
+            }
+        }
+    }
+}
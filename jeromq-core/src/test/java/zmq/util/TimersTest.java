@@ -5,8 +5,6 @@ import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 
-import java.util.Iterator;
-import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -183,48 +181,31 @@ public class TimersTest
         final AtomicLong time = new AtomicLong();
         Timers timer = new Timers(time::get);
 
-        Timer timer100 = timer.add(100, handler, invoked);
+        timer.add(100, handler, invoked);
         Timer timer1000 = timer.add(1000, handler, invoked);
         Timer timer10 = timer.add(10, handler, invoked);
 
-        Iterator<Entry<Timer, Long>> entries = timer.entries().iterator();
-        // entries are sorted by order of execution
-        assertThat(entries.next().getKey(), is(timer10));
-        assertThat(entries.next().getKey(), is(timer100));
-        assertThat(entries.next().getKey(), is(timer1000));
-        assertThat(entries.hasNext(), is(false));
+        // timeout is given by the first timer to be executed
+        assertThat(timer.timeout(), is(10L));
+        assertThat(timer.size(), is(3));
 
         timer10.cancel();
-        // cancel did not touch the order
-        entries = timer.entries().iterator();
-        assertThat(entries.next().getKey(), is(timer10));
-        assertThat(entries.next().getKey(), is(timer100));
-        assertThat(entries.next().getKey(), is(timer1000));
-        assertThat(entries.hasNext(), is(false));
+        // cancel removed the timer
+        assertThat(timer.timeout(), is(100L));
+        assertThat(timer.size(), is(2));
 
         int rc = timer.execute();
-        // execute deleted the cancelled timers
-        entries = timer.entries().iterator();
         assertThat(rc, is(0));
-        assertThat(entries.next().getKey(), is(timer100));
-        assertThat(entries.next().getKey(), is(timer1000));
-        assertThat(entries.hasNext(), is(false));
+        assertThat(timer.size(), is(2));
 
         timer1000.cancel();
-        rc = timer.execute();
-        // execute did not delete the cancelled timers that are after the next one to be executed
-        entries = timer.entries().iterator();
-        assertThat(rc, is(0));
-        assertThat(entries.next().getKey(), is(timer100));
-        assertThat(entries.next().getKey(), is(timer1000));
-        assertThat(entries.hasNext(), is(false));
+        assertThat(timer.size(), is(1));
 
         time.set(101);
         rc = timer.execute();
-        // execute did delete the cancelled timer
-        entries = timer.entries().iterator();
+        // execute rescheduled the executed timer
         assertThat(rc, is(1));
-        assertThat(entries.next().getKey(), is(timer100));
-        assertThat(entries.hasNext(), is(false));
+        assertThat(timer.size(), is(1));
+        assertThat(timer.timeout(), is(100L));
     }
 }